@@ -13,6 +13,13 @@ import java.util.*;
  */
 public class TestMassiveData {
 
+    // ✅ NUEVO: por defecto un solo presupuesto para los 4 algoritmos; con el argumento
+    // --secuencial se corren uno tras otro como antes
+    private static final String ARG_SECUENCIAL = "--secuencial";
+    private static final long PRESUPUESTO_PORTAFOLIO_MS = 90_000;
+    // ✅ NUEVO: cortar cuando el incumbente queda a menos de este gap de la cota de entregas
+    private static final double GAP_OBJETIVO = 0.02;
+
     public static void main(String[] args) {
         System.out.println("🚀 MORAPACK - COMPARACIÓN HÍBRIDO vs GRASP vs GA");
         System.out.println("=".repeat(70));
@@ -32,7 +39,8 @@ public class TestMassiveData {
                     datos.getTotalAeropuertos(), datos.getTotalVuelos(), datos.getTotalPedidos());
 
             // Ejecutar comparación limpia
-            ejecutarComparacionLimpia(datos);
+            boolean modoPortafolio = !Arrays.asList(args).contains(ARG_SECUENCIAL);
+            ejecutarComparacionLimpia(datos, modoPortafolio);
 
         } catch (Exception e) {
             System.err.printf("❌ Error: %s%n", e.getMessage());
@@ -43,11 +51,16 @@ public class TestMassiveData {
     /**
      * Ejecuta la comparación limpia entre los 3 algoritmos
      */
-    private static void ejecutarComparacionLimpia(DatosMoraPack datos) {
+    private static void ejecutarComparacionLimpia(DatosMoraPack datos, boolean modoPortafolio) {
         System.out.println("\n" + "=".repeat(70));
         System.out.println("EJECUTANDO ALGORITMOS DE OPTIMIZACIÓN");
         System.out.println("=".repeat(70));
 
+        if (modoPortafolio) {
+            ejecutarPortafolio(datos);
+            return;
+        }
+
         long inicioTotal = System.currentTimeMillis();
 
         // 1. GRASP PURO
@@ -89,17 +102,48 @@ public class TestMassiveData {
                 datos.getTotalPedidos(), tiempoTotal);
     }
 
+    /**
+     * ✅ NUEVO: Los 4 algoritmos compiten a la vez con un solo presupuesto de tiempo y un
+     * incumbente compartido; el reporte usa el mejor propio y el tiempo de cada uno
+     */
+    private static void ejecutarPortafolio(DatosMoraPack datos) {
+        long inicioTotal = System.currentTimeMillis();
+
+        CotaSuperiorEntregas cota = new CotaSuperiorEntregas(datos.getPedidos(), datos.getVuelos());
+        PortafolioAlgoritmos portafolio = new PortafolioAlgoritmos(datos.getPedidos(), datos.getVuelos());
+        portafolio.setPresupuestoMs(PRESUPUESTO_PORTAFOLIO_MS);
+        portafolio.setTamañoPoblacionGA(25);
+        portafolio.setObjetivoGap(cota, GAP_OBJETIVO);
+        portafolio.setPulidoColumnas(true);
+        Solucion mejor = portafolio.ejecutar();
+        if (mejor != null) {
+            System.out.printf("📐 Cota superior: %d pedidos, a tiempo: %d, gap: %.2f%%%n", cota.getCota(),
+                    CotaSuperiorEntregas.pedidosATiempo(mejor), cota.gap(mejor) * 100);
+        }
+
+        long tiempoTotal = System.currentTimeMillis() - inicioTotal;
+        escribirSolucionTXT("PORTAFOLIO", mejor, "SolucionesGenetico.txt");
+        exportarNoEnviadosTXT("PORTAFOLIO", datos.getPedidos(), mejor, "No_Enviados.txt");
+
+        mostrarReporteFinalLimpio(
+                portafolio.getMejorDe(PortafolioAlgoritmos.GRASP), portafolio.getMejorDe(PortafolioAlgoritmos.GA),
+                portafolio.getMejorDe(PortafolioAlgoritmos.HIBRIDO), portafolio.getMejorDe(PortafolioAlgoritmos.ACS),
+                portafolio.getTiempoDe(PortafolioAlgoritmos.GRASP), portafolio.getTiempoDe(PortafolioAlgoritmos.GA),
+                portafolio.getTiempoDe(PortafolioAlgoritmos.HIBRIDO), portafolio.getTiempoDe(PortafolioAlgoritmos.ACS),
+                datos.getTotalPedidos(), tiempoTotal);
+    }
+
     /**
      * Ejecuta GRASP con configuración optimizada
      */
     private static Solucion ejecutarGraspOptimizado(GraspMoraPack grasp) {
-        double[] alphas = {0.1, 0.2, 0.5, 0.8, 0.9};
         Solucion mejorSolucion = null;
         double mejorFitness = Double.NEGATIVE_INFINITY;
 
+        // GRASP reactivo: concentra las iteraciones en los alfas que dan mejor fitness
+        grasp.activarGraspReactivo(new double[]{0.1, 0.2, 0.5, 0.8, 0.9}, 4, 10.0);
+
         for (int i = 0; i < 20; i++) { // 8 iteraciones para datos masivos
-            double alfa = alphas[i % alphas.length];
-            grasp.setAlfa(alfa);
             Solucion solucion = grasp.generarSolucion();
 
             if (solucion != null && solucion.getFitness() > mejorFitness) {
@@ -129,6 +173,7 @@ public class TestMassiveData {
         hibrido.setIteracionesGrasp(8);
         hibrido.setPorcentajePoblacionGrasp(0.35);
         hibrido.configurarParametrosGA(25, 40, 0.18, 0.82);
+        hibrido.setModoPipeline(true); // GRASP alimenta a GA y ACS mientras ya están mejorando
     }
 
     private static void escribirSolucionTXT(String nombreAlgoritmo, Solucion solucion, String rutaArchivo) {
@@ -277,61 +322,17 @@ public class TestMassiveData {
         return s.toString();
     }
 
-    // Genera k soluciones con GRASP, configura ACS con esas semillas y ejecuta ACS.
+    // ✅ MODIFICADO: k semillas GRASP en un pool élite compartido y varias colonias ACS con
+    // parámetros distintos en paralelo (en vez de una sola colonia afinada a mano)
     private static Solucion ejecutarACSGrasp(CSVDataLoader.DatosMoraPack datos, int kSemillas) {
-        // 1) Generar k semillas con GRASP (simples y diversas por “firma de arcos”)
-        java.util.List<Solucion> semillas = new java.util.ArrayList<>();
-        java.util.Set<String> firmas = new java.util.HashSet<>();
-        double[] alphas = new double[]{0.3, 0.4, 0.5, 0.6}; // variar alfa para diversidad
-
-        int intentos = 0;
-        int maxIntentos = Math.max(5 * kSemillas, 60); // margen para diversidad
-        while (semillas.size() < kSemillas && intentos < maxIntentos) {
-            GraspMoraPack grasp = new GraspMoraPack(datos.getPedidos(), datos.getVuelos());
-            try {
-                grasp.setAlfa(alphas[intentos % alphas.length]);
-            } catch (Throwable ignored) { /* si no existe setAlfa, seguimos igual */ }
-
-            Solucion s = grasp.generarSolucion(); // tu GRASP estándar (una solución)
-            if (s != null) {
-                String firma = firmaPorArcos(s);
-                if (firmas.add(firma)) { // solo agrega si es distinta
-                    semillas.add(s);
-                }
-            }
-            intentos++;
-        }
-
-        System.out.printf("Semillas: %d/%d generadas%n", semillas.size(), kSemillas);
-
-        // 2) Configurar y ejecutar ACS con esas semillas
-        ACSMoraPack acs = new ACSMoraPack(datos.getPedidos(), datos.getVuelos());
-        try {
-            acs.establecerSemillas(semillas);
-            acs.configurarParametrosACS(40, 100, 1.0, 3.0, 0.10, 0.10); // (hormigas, iters, α, β, ρ, ξ)
-        } catch (Throwable ignored) { /* por si la firma difiere en tu versión */ }
-
-        return acs.ejecutar();
+        ColoniasACS colonias = new ColoniasACS(datos.getPedidos(), datos.getVuelos(), 4);
+        colonias.setSemillasGrasp(kSemillas);
+        colonias.setHormigasPorColonia(10);
+        colonias.setNumeroIteraciones(40);
+        colonias.setIntervaloIntercambio(5);
+        return colonias.ejecutar();
     }
 
-    // Firma compacta basada en arcos (IDs de vuelos) para medir diversidad
-    private static String firmaPorArcos(Solucion s) {
-        if (s == null || s.getSolucionLogistica() == null) return "";
-        var asig = s.getSolucionLogistica().getAsignacionPedidos();
-        java.util.Set<String> arcos = new java.util.HashSet<>();
-        for (RutaPedido r : asig.values()) {
-            for (Vuelo v : r.getSecuenciaVuelos()) {
-                arcos.add(v.getId());
-            }
-        }
-        java.util.List<String> lista = new java.util.ArrayList<>(arcos);
-        java.util.Collections.sort(lista);
-        return String.join("|", lista);
-    }
-
-
-
-
     /**
      * REPORTE FINAL LIMPIO Y ENFOCADO
      */
@@ -667,5 +668,6 @@ public class TestMassiveData {
         System.out.println("   - vuelos.txt");
         System.out.println("   - pedidos.csv");
         System.out.println("3. Ajusta las rutas en el código si es necesario");
+        System.out.println("4. Usa " + ARG_SECUENCIAL + " para correr los algoritmos uno tras otro en vez del portafolio");
     }
 }
\ No newline at end of file
@@ -9,7 +9,10 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 /**
- * ACSMoraPack – Mejorador (ACS) SOLO sobre semillas GRASP.
+ * ACSMoraPack – Mejorador (ACS) sobre semillas GRASP.
+ * Las rutas candidatas de cada pedido parten de las de las semillas y se amplían con
+ * rutas que las hormigas construyen tramo a tramo sobre el {@link GrafoVuelos}
+ * (feromona × heurística); la lista por pedido está acotada y se conserva entre iteraciones.
  * Respeta:
  *   - Escalas >= 60 min entre vuelos consecutivos
  *   - Capacidad temporal de aeropuertos: ventana [llegada, llegada+2h)
@@ -35,55 +38,96 @@ public class ACSMoraPack {
     private final List<Pedido> pedidos;
     private final List<Vuelo>  vuelos;
 
-    private final Map<String, Double> feromonas = new HashMap<>();
+    // ✅ MODIFICADO: un arco por id de vuelo (el mismo vuelo programado comparte rastro entre
+    // días, como antes con el mapa por id), en arreglos con evaporación por escala global
+    private final Map<String, Integer> indiceArco = new HashMap<>();
+    private final RastroFeromonas feromonas;
+
+    /* ========= MAX-MIN Ant System ========= */
+    private static final double PROBABILIDAD_MEJOR = 0.05;        // p_best para derivar tau_min
+    private static final int FRECUENCIA_DEPOSITO_GLOBAL = 5;      // cada cuántas iteraciones deposita el mejor global
+    private static final int ITERACIONES_SIN_MEJORA_REINICIO = 20;
+    private static final int FRECUENCIA_CHEQUEO_RAMIFICACION = 5;
+    private static final double LAMBDA_RAMIFICACION = 0.05;
+    private static final double UMBRAL_RAMIFICACION = 1.1;        // ~1 candidata dominante por pedido
+
+    private boolean modoMMAS = false;
+    private double tauMin = 0.0;
+    private double tauMax = Double.POSITIVE_INFINITY;
+    private int iteracionesMMAS;
+    private int iteracionesSinMejora;
+    private int reinicios;
+    private double ultimaRamificacion = Double.NaN;
     private final Random aleatorio = new Random(1234);
 
     private Solucion mejorHastaAhora;
     private List<Solucion> semillas = new ArrayList<>();
+    private PoolColumnas poolColumnas;     // ✅ NUEVO: rutas de cada hormiga para el pulido (null = no)
 
     // Índices de rutas de semillas (plantillas sin pedido)
     private final Map<String, List<RutaPedido>> rutasSemillaPorPedidoId = new HashMap<>();
     private final Map<String, List<RutaPedido>> rutasSemillaPorDestino  = new HashMap<>();
 
+    /* ========= Construcción por tramos ========= */
+    private static final int MAX_CANDIDATOS_POR_PEDIDO = 8;
+    private static final int TRAMOS_POR_PASO = 4;       // próximas salidas consideradas en cada aeropuerto
+    private static final int DIRECTOS_POR_FABRICA = 2;  // vuelos directos al destino en el primer paso
+    private static final long CONEXION_MINIMA_SEGUNDOS = 3600;
+
+    private final GrafoVuelos grafo;
+    private final int[] arcoDeVuelo;   // índice de vuelo en el grafo → arco de feromona
+    // Candidatos por pedido (Pedido no redefine equals: identidad), ya clonados para el pedido
+    private final Map<Pedido, List<Candidato>> candidatosPorPedido = new IdentityHashMap<>();
+    private long rutasConstruidas;
+    private long rutasNuevas;
+    private long construccionesSinRuta;
+    private long rutasDescartadasPorConexionOSla;
+
+    private final ReparadorAlmacenes reparador = new ReparadorAlmacenes(this::rutasAlternativas);
+
+    /**
+     * ✅ NUEVO: Ruta candidata con lo que no depende de la ocupación calculado una sola vez:
+     * su clave, la factibilidad estática (conexiones >= 60 min y SLA, ya verificadas para
+     * entrar a la lista) y la parte fija de la heurística (tiempo y holgura). Las hormigas
+     * solo revisan vuelos cancelados y capacidades.
+     */
+    private static final class Candidato {
+        final RutaPedido ruta;
+        final String clave;
+        final double etaEstatica;
+
+        Candidato(RutaPedido ruta, String clave, double etaEstatica) {
+            this.ruta = ruta;
+            this.clave = clave;
+            this.etaEstatica = etaEstatica;
+        }
+    }
+
     public ACSMoraPack(List<Pedido> pedidos, List<Vuelo> vuelos) {
         this.pedidos = Objects.requireNonNull(pedidos);
         this.vuelos  = Objects.requireNonNull(vuelos);
-        inicializarFeromonas(tau0);
+
+        for (Vuelo v : vuelos) indiceArco.putIfAbsent(v.getId(), indiceArco.size());
+        this.feromonas = new RastroFeromonas(indiceArco.size(), tau0);
+        this.grafo = new GrafoVuelos(vuelos);
+        this.arcoDeVuelo = new int[grafo.getCantidadVuelos()];
+        for (int i = 0; i < arcoDeVuelo.length; i++) arcoDeVuelo[i] = indiceArco.get(grafo.getVuelo(i).getId());
     }
 
     /* ========= Configuración pública ========= */
     public void establecerSemillas(List<Solucion> semillas) {
-        this.semillas = (semillas == null) ? new ArrayList<>() : new ArrayList<>(semillas);
+        this.semillas = new ArrayList<>();
         inicializarFeromonas(tau0);
 
         rutasSemillaPorPedidoId.clear();
         rutasSemillaPorDestino.clear();
+        candidatosPorPedido.clear();
 
-        for (Solucion s : this.semillas) {
-            if (s == null || s.getSolucionLogistica() == null) continue;
-            Map<Pedido, RutaPedido> asig = s.getSolucionLogistica().getAsignacionPedidos();
-            if (asig == null) continue;
-
-            for (Map.Entry<Pedido, RutaPedido> e : asig.entrySet()) {
-                Pedido pk = e.getKey();
-                RutaPedido rp = e.getValue();
-                if (rp == null) continue;
-
-                RutaPedido plantilla = clonarBasicoSinPedido(rp);
-
-                if (pk != null && pk.getId() != null) {
-                    rutasSemillaPorPedidoId
-                            .computeIfAbsent(pk.getId(), k -> new ArrayList<>())
-                            .add(plantilla);
-                }
-                String dest = (rp.getAlmacenDestino() != null)
-                        ? rp.getAlmacenDestino().getCodigo() : null;
-                if (dest != null) {
-                    rutasSemillaPorDestino
-                            .computeIfAbsent(dest, k -> new ArrayList<>())
-                            .add(plantilla);
-                }
-            }
+        if (semillas == null) return;
+        for (Solucion s : semillas) {
+            if (s == null) continue;
+            this.semillas.add(s);
+            indexarRutasSemilla(s);
         }
         dedupIndice(rutasSemillaPorPedidoId);
         dedupIndice(rutasSemillaPorDestino);
@@ -91,16 +135,73 @@ public class ACSMoraPack {
         // Refuerzo inicial en arcos que aparecen en semillas
         if (!this.semillas.isEmpty()) {
             double mejorFit = this.semillas.stream().mapToDouble(Solucion::getFitness).max().orElse(1.0);
-            double refuerzoBase = 0.05;
             for (Solucion s : this.semillas) {
-                double peso = Math.max(0.1, s.getFitness() / mejorFit);
-                for (String arco : extraerArcos(s)) {
-                    feromonas.put(arco, feromonas.getOrDefault(arco, tau0) + refuerzoBase * peso);
-                }
+                reforzarArcosSemilla(s, mejorFit);
+            }
+        }
+    }
+
+    /**
+     * ✅ NUEVO: Suma una semilla mientras el ACS ya está corriendo (p. ej. desde el
+     * híbrido en pipeline): indexa sus rutas y refuerza sus arcos sin reiniciar las
+     * feromonas acumuladas
+     */
+    public void agregarSemilla(Solucion semilla) {
+        if (semilla == null || semilla.getSolucionLogistica() == null) return;
+        semillas.add(semilla);
+        indexarRutasSemilla(semilla);
+        dedupIndice(rutasSemillaPorPedidoId);
+        dedupIndice(rutasSemillaPorDestino);
+
+        // Las rutas de la semilla también entran a las listas de candidatos ya armadas
+        for (Map.Entry<Pedido, RutaPedido> e : semilla.getSolucionLogistica().getAsignacionPedidos().entrySet()) {
+            List<Candidato> lista = candidatosPorPedido.get(e.getKey());
+            if (lista != null && e.getValue() != null) {
+                incorporarCandidato(e.getKey(), lista, clonarParaPedido(e.getKey(), e.getValue()));
+            }
+        }
+
+        double mejorFit = semillas.stream().mapToDouble(Solucion::getFitness).max().orElse(1.0);
+        reforzarArcosSemilla(semilla, mejorFit);
+    }
+
+    public Solucion getMejorHastaAhora() { return mejorHastaAhora; }
+
+    private void indexarRutasSemilla(Solucion s) {
+        if (s.getSolucionLogistica() == null) return;
+        Map<Pedido, RutaPedido> asig = s.getSolucionLogistica().getAsignacionPedidos();
+        if (asig == null) return;
+
+        for (Map.Entry<Pedido, RutaPedido> e : asig.entrySet()) {
+            Pedido pk = e.getKey();
+            RutaPedido rp = e.getValue();
+            if (rp == null) continue;
+
+            RutaPedido plantilla = clonarBasicoSinPedido(rp);
+
+            if (pk != null && pk.getId() != null) {
+                rutasSemillaPorPedidoId
+                        .computeIfAbsent(pk.getId(), k -> new ArrayList<>())
+                        .add(plantilla);
+            }
+            String dest = (rp.getAlmacenDestino() != null)
+                    ? rp.getAlmacenDestino().getCodigo() : null;
+            if (dest != null) {
+                rutasSemillaPorDestino
+                        .computeIfAbsent(dest, k -> new ArrayList<>())
+                        .add(plantilla);
             }
         }
     }
 
+    private void reforzarArcosSemilla(Solucion s, double mejorFit) {
+        double refuerzoBase = 0.05;
+        double peso = Math.max(0.1, s.getFitness() / mejorFit);
+        for (int arco : extraerArcos(s)) {
+            feromonas.sumar(arco, refuerzoBase * peso);
+        }
+    }
+
     public void configurarParametrosACS(int numeroHormigas, int numeroIteraciones,
                                         double alfa, double beta, double rho, double xi) {
         this.numeroHormigas = numeroHormigas;
@@ -125,6 +226,12 @@ public class ACSMoraPack {
             return new Solucion(sl, pedidos.size());
         }
 
+        if (modoMMAS && Double.isInfinite(tauMax)) {
+            // MMAS arranca con todos los rastros en tau_max (máxima exploración)
+            actualizarLimitesMMAS();
+            inicializarFeromonas(tauMax);
+        }
+
         for (int it = 0; it < numeroIteraciones; it++) {
             Solucion mejorIteracion = null;
 
@@ -135,13 +242,15 @@ public class ACSMoraPack {
                 }
             }
 
-            if (mejorIteracion != null &&
-                    (mejorHastaAhora == null || mejorIteracion.getFitness() > mejorHastaAhora.getFitness())) {
+            boolean mejoroGlobal = mejorIteracion != null &&
+                    (mejorHastaAhora == null || mejorIteracion.getFitness() > mejorHastaAhora.getFitness());
+            if (mejoroGlobal) {
                 mejorHastaAhora = mejorIteracion;
             }
 
             if (mejorHastaAhora != null && mejorHastaAhora.getFitness() > -900) {
-                actualizarFeromonaGlobal(mejorHastaAhora);
+                if (modoMMAS) actualizarFeromonaMMAS(mejorIteracion, mejoroGlobal);
+                else actualizarFeromonaGlobal(mejorHastaAhora);
             }
         }
         return mejorHastaAhora;
@@ -163,6 +272,8 @@ public class ACSMoraPack {
         }
         // referencia efectivamente final para lambdas
         final Map<Pedido, RutaPedido> asignacionRef = asignacion;
+        // ✅ NUEVO: libro de almacenes del estado de la hormiga, armado una vez y mantenido en cada cambio
+        OcupacionAlmacenes libro = OcupacionAlmacenes.desdeAsignacion(asignacionRef);
 
         List<Pedido> orden = new ArrayList<>(pedidos);
         Collections.shuffle(orden, aleatorio);
@@ -172,171 +283,76 @@ public class ACSMoraPack {
             Pedido p = orden.get(i);
             final Pedido pRef = p;
 
-            List<RutaPedido> cand = generarCandidatosParaPedido(pRef);
+            List<Candidato> cand = generarCandidatosParaPedido(pRef);
             if (cand.isEmpty()) continue;
 
             RutaPedido rActual = asignacionRef.get(pRef);
             final RutaPedido rActualRef = rActual;
 
-            List<RutaPedido> fact = cand.stream()
-                    .filter(this::conexionesValidas) // >= 60 min entre vuelos
-                    .filter(r -> respetaCapacidadesSwap(r, rActualRef, pRef, ocupacion))
-                    .filter(r -> respetaCapacidadAlmacenesTemporalesSwap(r, rActualRef, pRef, asignacionRef))
-                    .filter(this::llegaDentroDeSLA)
+            // Conexiones y SLA ya se verificaron al entrar a la lista: solo queda lo dinámico
+            List<Candidato> fact = cand.stream()
+                    .filter(c -> vuelosOperativos(c.ruta))
+                    .filter(c -> respetaCapacidadesSwap(c.ruta, rActualRef, pRef, ocupacion))
                     .collect(Collectors.toList());
-            if (fact.isEmpty()) continue;
 
-            RutaPedido elegida = seleccionarPorProbabilidad(fact, ocupacion);
+            // ✅ MODIFICADO: la ruleta corre antes del chequeo de almacenes (el más caro) y solo
+            // se valida la elegida; si no cabe se descarta y se vuelve a sortear entre el resto.
+            // La ruta actual siempre cabe en su propio lugar.
+            String claveActual = (rActualRef == null) ? null : claveDeRuta(rActualRef);
+            Candidato elegido = null;
+            while (!fact.isEmpty()) {
+                Candidato c = seleccionarPorProbabilidad(fact, ocupacion);
+                if (c.clave.equals(claveActual)
+                        || respetaCapacidadAlmacenesTemporalesSwap(c.ruta, rActualRef, pRef, libro)) {
+                    elegido = c;
+                    break;
+                }
+                fact.remove(c);
+            }
+            if (elegido == null) continue;
+            RutaPedido elegida = elegido.ruta;
 
-            if (rActualRef == null || !claveDeRuta(rActualRef).equals(claveDeRuta(elegida))) {
-                if (rActualRef != null) aplicarOcupacion(rActualRef, ocupacion, -pRef.getCantidad());
+            if (rActualRef == null || !elegido.clave.equals(claveActual)) {
+                if (rActualRef != null) {
+                    aplicarOcupacion(rActualRef, ocupacion, -pRef.getCantidad());
+                    libro.liberarRuta(rActualRef.getSecuenciaVuelos(), pRef.getCantidad());
+                }
                 aplicarOcupacion(elegida, ocupacion, +pRef.getCantidad());
+                libro.reservarRuta(elegida.getSecuenciaVuelos(), pRef.getCantidad());
                 asignacionRef.put(pRef, elegida);
 
-                // actualización local ACS
-                for (Vuelo v : elegida.getSecuenciaVuelos()) {
-                    String arco = v.getId();
-                    double tauAnt = feromonas.getOrDefault(arco, tau0);
-                    feromonas.put(arco, (1 - xi) * tauAnt + xi * tau0);
+                // actualización local ACS (MMAS no la usa: sus rastros solo cambian al final de la iteración)
+                if (!modoMMAS) {
+                    for (Vuelo v : elegida.getSecuenciaVuelos()) {
+                        int arco = arcoDe(v);
+                        if (arco >= 0) feromonas.fijar(arco, (1 - xi) * feromonas.leer(arco) + xi * tau0);
+                    }
                 }
             }
         }
-        repararViolacionesAlmacenes(asignacionRef);
-        return new Solucion(actual.getSolucionLogistica(), pedidos.size());
-    }
-
-    // ===== Reparación post-proceso de almacenes (misma semántica que Solucion.java) =====
-    private void repararViolacionesAlmacenes(final Map<Pedido, RutaPedido> asignacion) {
-        if (asignacion == null || asignacion.isEmpty()) return;
-
-        // Construye el historial: por aeropuerto, lista de (llegada, libera, q, pedido)
-        class Ev { String code; LocalDateTime t0,t1; int q; Pedido p; RutaPedido r;
-            Ev(String c, LocalDateTime t0, int q, Pedido p, RutaPedido r){ this.code=c; this.t0=t0; this.t1=t0.plusHours(2); this.q=q; this.p=p; this.r=r; }
-            boolean ocupa(LocalDateTime t){ return !t.isBefore(t0) && t.isBefore(t1); }
-        }
-        Map<String,List<Ev>> hist = new HashMap<>();
-        for (Map.Entry<Pedido,RutaPedido> e : asignacion.entrySet()){
-            Pedido p = e.getKey(); RutaPedido r = e.getValue();
-            if (p==null || r==null) continue;
-            List<Vuelo> vs = r.getSecuenciaVuelos();
-            for (int i=0;i<vs.size()-1;i++){
-                Vuelo v = vs.get(i);
-                if (v.getDestino()!=null && v.getHoraLlegada()!=null)
-                    hist.computeIfAbsent(v.getDestino().getCodigo(),k->new ArrayList<>()).add(new Ev(v.getDestino().getCodigo(), v.getHoraLlegada(), p.getCantidad(), p, r));
-            }
-            if (!vs.isEmpty()){
-                Vuelo last = vs.get(vs.size()-1);
-                if (last.getDestino()!=null && last.getHoraLlegada()!=null)
-                    hist.computeIfAbsent(last.getDestino().getCodigo(),k->new ArrayList<>()).add(new Ev(last.getDestino().getCodigo(), last.getHoraLlegada(), p.getCantidad(), p, r));
-            }
+        // ✅ MODIFICADO: la reparación usa el libro y la carga de vuelos de la hormiga
+        reparador.reparar(asignacionRef, libro, ocupacion);
+        Solucion hormiga = new Solucion(actual.getSolucionLogistica(), pedidos.size());
+        if (poolColumnas != null) poolColumnas.agregar(hormiga);
+        return hormiga;
+    }
+
+    /**
+     * Alternativas para la reparación: candidatas del pedido con todos sus vuelos operativos
+     */
+    private List<RutaPedido> rutasAlternativas(Pedido p) {
+        List<RutaPedido> rutas = new ArrayList<>();
+        for (Candidato c : generarCandidatosParaPedido(p)) {
+            if (vuelosOperativos(c.ruta)) rutas.add(c.ruta);
         }
+        return rutas;
+    }
 
-        // util: buscar objeto Aeropuerto por código
-        java.util.function.Function<String, Aeropuerto> findA = code -> {
-            for (RutaPedido r : asignacion.values()){
-                if (r==null) continue;
-                for (Vuelo v : r.getSecuenciaVuelos()){
-                    if (v.getDestino()!=null && code.equals(v.getDestino().getCodigo())) return v.getDestino();
-                    if (v.getOrigen()!=null  && code.equals(v.getOrigen().getCodigo()))  return v.getOrigen();
-                }
-            }
-            return null;
-        };
-
-        boolean cambio; int passes=0;
-        do {
-            cambio = false;
-            for (Map.Entry<String,List<Ev>> ent : new ArrayList<>(hist.entrySet())) {
-                String code = ent.getKey(); List<Ev> evs = ent.getValue();
-                if (evs.isEmpty()) continue;
-
-                Aeropuerto A = findA.apply(code);
-                if (A==null) continue;
-                int cap = A.getCapacidad(), base = A.getCapacidadAct();
-
-                // momentos críticos = TODAS las llegadas de este aeropuerto
-                TreeSet<LocalDateTime> momentos = new TreeSet<>();
-                for (Ev ev: evs) momentos.add(ev.t0);
-
-                for (LocalDateTime t : momentos) {
-                    int ocup = base;
-                    List<Ev> contrib = new ArrayList<>();
-                    for (Ev ev: evs) if (ev.ocupa(t)) { ocup += ev.q; contrib.add(ev); }
-
-                    if (ocup <= cap) continue; // sin violación en t
-
-                    // intentar mover pedidos contribuyentes (de mayor a menor q)
-                    contrib.sort((a,b)->Integer.compare(b.q,a.q));
-
-                    for (Ev ev : contrib) {
-                        Pedido p = ev.p;
-                        RutaPedido rActual = asignacion.get(p);
-                        if (rActual == null) continue;
-
-                        // generar candidatos desde semillas y filtrar con EXACTA semántica del fitness
-                        List<RutaPedido> cand = generarCandidatosParaPedido(p);
-                        // reconstruir ocupación de vuelos real para este estado (para respetaCapacidadesSwap)
-                        Map<String,Integer> occVuelos = new HashMap<>();
-                        for (Map.Entry<Pedido,RutaPedido> e2 : asignacion.entrySet()){
-                            Pedido pp = e2.getKey(); RutaPedido rr = e2.getValue();
-                            if (pp==null || rr==null) continue;
-                            int qpp = pp.getCantidad();
-                            for (Vuelo vv : rr.getSecuenciaVuelos()) occVuelos.merge(vv.getId(), qpp, Integer::sum);
-                        }
-
-                        cand = cand.stream()
-                                .filter(this::conexionesValidas)
-                                .filter(r -> respetaCapacidadesSwap(r, rActual, p, occVuelos))
-                                .filter(r -> respetaCapacidadAlmacenesTemporalesSwap(r, rActual, p, asignacion))
-                                .filter(this::llegaDentroDeSLA)
-                                .collect(Collectors.toList());
-
-                        boolean reemplazo = false;
-                        for (RutaPedido rNew : cand) {
-                            // comprobar que en el mismo instante t baja bajo el límite
-                            int ocup2 = base;
-                            // todos menos el actual contribuyente
-                            for (Ev e3 : evs) if (e3 != ev && e3.ocupa(t)) ocup2 += e3.q;
-                            // sumar aportes de rNew en ese aeropuerto en t
-                            for (Vuelo v2 : rNew.getSecuenciaVuelos()){
-                                if (v2.getDestino()!=null && code.equals(v2.getDestino().getCodigo()) && v2.getHoraLlegada()!=null) {
-                                    LocalDateTime ta = v2.getHoraLlegada();
-                                    if (!t.isBefore(ta) && t.isBefore(ta.plusHours(2))) ocup2 += p.getCantidad();
-                                }
-                            }
-                            if (ocup2 <= cap) {
-                                // aplicar swap: actualizar asignación y el historial de eventos
-                                asignacion.put(p, rNew);
-                                evs.removeIf(z -> z.p == p);
-                                List<Vuelo> vsN = rNew.getSecuenciaVuelos();
-                                for (int i=0;i<vsN.size()-1;i++){
-                                    Vuelo v2 = vsN.get(i);
-                                    if (v2.getDestino()!=null && v2.getHoraLlegada()!=null && code.equals(v2.getDestino().getCodigo()))
-                                        evs.add(new Ev(code, v2.getHoraLlegada(), p.getCantidad(), p, rNew));
-                                }
-                                Vuelo lastN = vsN.get(vsN.size()-1);
-                                if (lastN.getDestino()!=null && lastN.getHoraLlegada()!=null && code.equals(lastN.getDestino().getCodigo()))
-                                    evs.add(new Ev(code, lastN.getHoraLlegada(), p.getCantidad(), p, rNew));
-                                cambio = true; reemplazo = true;
-                                break;
-                            }
-                        }
-
-                        if (!reemplazo) {
-                            // último recurso: desasignar pedido para sacar la violación
-                            asignacion.remove(p);
-                            evs.removeIf(z -> z.p == p);
-                            cambio = true;
-                        }
-
-                        // si ya quedó bajo capacidad en t, pasa al siguiente momento
-                        int check = base;
-                        for (Ev e4 : evs) if (e4.ocupa(t)) check += e4.q;
-                        if (check <= cap) break;
-                    }
-                }
-            }
-        } while (cambio && ++passes < 5);
+    /**
+     * ✅ NUEVO: Violaciones atendidas, pedidos reubicados y desasignados por la reparación
+     */
+    public Map<String, Integer> obtenerEstadisticasReparacion() {
+        return reparador.obtenerEstadisticas();
     }
 
 
@@ -352,7 +368,7 @@ public class ACSMoraPack {
             if (s.getSolucionLogistica() != null && s.getSolucionLogistica().getAsignacionPedidos() != null) {
                 for (RutaPedido r : s.getSolucionLogistica().getAsignacionPedidos().values()) {
                     for (Vuelo v : r.getSecuenciaVuelos()) {
-                        tauAvg += feromonas.getOrDefault(v.getId(), tau0); cnt++;
+                        tauAvg += feromona(v); cnt++;
                     }
                 }
             }
@@ -414,13 +430,13 @@ public class ACSMoraPack {
 
     /* ========= Selección y heurísticas ========= */
 
-    private RutaPedido seleccionarPorProbabilidad(List<RutaPedido> opciones, Map<String, Integer> ocupacion) {
+    private Candidato seleccionarPorProbabilidad(List<Candidato> opciones, Map<String, Integer> ocupacion) {
         double[] pesos = new double[opciones.size()];
         double suma = 0.0;
         for (int i = 0; i < opciones.size(); i++) {
-            RutaPedido r = opciones.get(i);
-            double tauRuta = promedioFeromonaEnRuta(r);
-            double etaRuta = heuristicaDeRuta(r, ocupacion);
+            Candidato c = opciones.get(i);
+            double tauRuta = promedioFeromonaEnRuta(c.ruta);
+            double etaRuta = c.etaEstatica + 0.25 * capacidadDisponiblePromedio(c.ruta, ocupacion);
             double val = Math.pow(Math.max(1e-6, tauRuta), alfa) * Math.pow(Math.max(1e-6, etaRuta), beta);
             pesos[i] = val; suma += val;
         }
@@ -436,61 +452,366 @@ public class ACSMoraPack {
         if (r.getSecuenciaVuelos().isEmpty()) return tau0;
         double acum = 0.0;
         for (Vuelo v : r.getSecuenciaVuelos()) {
-            acum += feromonas.getOrDefault(v.getId(), tau0);
+            acum += feromona(v);
         }
         return acum / r.getSecuenciaVuelos().size();
     }
 
-    private double heuristicaDeRuta(RutaPedido r, Map<String, Integer> ocupacion) {
+    /**
+     * Parte de la heurística que no depende de la ocupación (0.4·tiempo + 0.35·holgura);
+     * la selección le suma 0.25·capacidad disponible
+     */
+    private double heuristicaEstatica(RutaPedido r) {
         double horas = duracionEnHoras(r);
         double hTiempo = 1.0 / (1.0 + horas);
 
         double holguraMin = holguraEnMinutos(r);
         double hHolgura = 1.0 / (1.0 + Math.exp(-holguraMin / 180.0));
 
-        double hCapacidad = capacidadDisponiblePromedio(r, ocupacion);
-
-        return 0.4 * hTiempo + 0.35 * hHolgura + 0.25 * hCapacidad;
+        return 0.4 * hTiempo + 0.35 * hHolgura;
     }
 
     /* ========= Feromonas global ========= */
+    // ✅ MODIFICADO: la evaporación de todos los arcos es avanzar la iteración (O(1));
+    // solo se escriben los arcos que reciben depósito
     private void actualizarFeromonaGlobal(Solucion s) {
-        for (Map.Entry<String, Double> e : feromonas.entrySet()) {
-            e.setValue((1 - rho) * e.getValue());
-        }
+        feromonas.evaporar(rho);
         if (s == null || s.getSolucionLogistica() == null) return;
 
         double refuerzo = depositoQ * Math.max(0.01, s.getFitness());
         for (RutaPedido r : s.getSolucionLogistica().getAsignacionPedidos().values()) {
             for (Vuelo v : r.getSecuenciaVuelos()) {
-                String arco = v.getId();
-                feromonas.put(arco, feromonas.getOrDefault(arco, tau0) + refuerzo);
+                int arco = arcoDe(v);
+                if (arco >= 0) feromonas.sumar(arco, refuerzo);
             }
         }
     }
 
-    /* ========= Candidatos SOLO desde semillas ========= */
-    private List<RutaPedido> generarCandidatosParaPedido(Pedido p) {
-        List<RutaPedido> res = new ArrayList<>();
-        if (p == null) return res;
+    private double feromona(Vuelo v) {
+        int arco = arcoDe(v);
+        return (arco < 0) ? feromonas.acotar(tau0) : feromonas.leer(arco);
+    }
+
+    private int arcoDe(Vuelo v) {
+        Integer arco = indiceArco.get(v.getId());
+        return (arco == null) ? -1 : arco;
+    }
+
+    /* ========= MAX-MIN Ant System ========= */
+
+    /**
+     * Actualización MMAS al cerrar una iteración: evapora, deposita el mejor de la iteración
+     * (o el global cada {@code FRECUENCIA_DEPOSITO_GLOBAL}) dentro de [tau_min, tau_max] y,
+     * si la colonia se estancó (meseta de fitness o factor de ramificación ~1), reinicia
+     * los rastros en tau_max conservando el mejor global
+     */
+    private void actualizarFeromonaMMAS(Solucion mejorIteracion, boolean mejoroGlobal) {
+        iteracionesMMAS++;
+        if (mejoroGlobal) actualizarLimitesMMAS();
+        iteracionesSinMejora = mejoroGlobal ? 0 : iteracionesSinMejora + 1;
+
+        boolean usarGlobal = mejorIteracion == null || iteracionesMMAS % FRECUENCIA_DEPOSITO_GLOBAL == 0;
+        actualizarFeromonaGlobal(usarGlobal ? mejorHastaAhora : mejorIteracion);
+
+        boolean estancada = iteracionesSinMejora >= ITERACIONES_SIN_MEJORA_REINICIO;
+        if (!estancada && iteracionesMMAS % FRECUENCIA_CHEQUEO_RAMIFICACION == 0) {
+            ultimaRamificacion = factorRamificacion();
+            estancada = ultimaRamificacion <= UMBRAL_RAMIFICACION;
+        }
+        if (estancada) {
+            inicializarFeromonas(tauMax);
+            iteracionesSinMejora = 0;
+            reinicios++;
+        }
+    }
 
-        if (p.getId() != null) {
-            List<RutaPedido> plantillas = rutasSemillaPorPedidoId.get(p.getId());
-            if (plantillas != null) {
-                for (RutaPedido tpl : plantillas) res.add(clonarParaPedido(p, tpl));
+    /**
+     * tau_max = Q·f_mejor / rho; tau_min según p_best sobre las decisiones de la hormiga
+     * (un pedido por decisión, la mitad de la lista de candidatos como opciones promedio)
+     */
+    private void actualizarLimitesMMAS() {
+        tauMax = depositoQ * Math.max(0.01, mejorHastaAhora.getFitness()) / Math.max(1e-6, rho);
+        double raiz = Math.pow(PROBABILIDAD_MEJOR, 1.0 / Math.max(1, pedidos.size()));
+        double opciones = Math.max(2.0, MAX_CANDIDATOS_POR_PEDIDO / 2.0);
+        tauMin = Math.min(tauMax, tauMax * (1 - raiz) / ((opciones - 1) * raiz));
+        feromonas.setLimites(tauMin, tauMax);
+    }
+
+    /**
+     * Factor de ramificación λ: promedio, sobre los pedidos con candidatos, de cuántas
+     * candidatas tienen feromona >= tau_min + λ·(tau_max - tau_min)
+     */
+    private double factorRamificacion() {
+        double umbral = tauMin + LAMBDA_RAMIFICACION * (tauMax - tauMin);
+        long ramas = 0;
+        int decisiones = 0;
+        for (List<Candidato> lista : candidatosPorPedido.values()) {
+            if (lista.isEmpty()) continue;
+            decisiones++;
+            for (Candidato c : lista) {
+                if (promedioFeromonaEnRuta(c.ruta) >= umbral) ramas++;
             }
         }
-        if (res.isEmpty() && p.getLugarDestino() != null) {
-            String destino = p.getLugarDestino().getCodigo();
-            List<RutaPedido> plantillas = rutasSemillaPorDestino.get(destino);
-            if (plantillas != null) {
-                for (RutaPedido tpl : plantillas) res.add(clonarParaPedido(p, tpl));
+        return (decisiones == 0) ? Double.NaN : (double) ramas / decisiones;
+    }
+
+    /**
+     * Arcos cuyo rastro cambió desde la llamada anterior (para el intercambio entre colonias)
+     */
+    int[] tomarArcosCambiados() {
+        return feromonas.tomarCambiados();
+    }
+
+    /**
+     * Rastro actual (valores reales) de los arcos indicados
+     */
+    double[] leerFeromonas(int[] arcos) {
+        return feromonas.leer(arcos);
+    }
+
+    /**
+     * Acerca el rastro propio en esos arcos al de otra colonia con el {@code peso} dado (0 a 1)
+     */
+    void mezclarFeromonas(int[] arcos, double[] otras, double peso) {
+        feromonas.mezclar(arcos, otras, Math.max(0.0, Math.min(1.0, peso)));
+    }
+
+    /**
+     * ✅ NUEVO: Modo MAX-MIN: rastros acotados, depósito del mejor de la iteración, sin
+     * actualización local y reinicio ante estancamiento
+     */
+    public void setModoMMAS(boolean modoMMAS) {
+        this.modoMMAS = modoMMAS;
+        this.tauMin = 0.0;
+        this.tauMax = Double.POSITIVE_INFINITY;
+        feromonas.setLimites(tauMin, tauMax);
+    }
+
+    /**
+     * ✅ NUEVO: Cada hormiga (ya reparada) deja sus rutas en el pool de columnas
+     */
+    public void setPoolColumnas(PoolColumnas poolColumnas) {
+        this.poolColumnas = poolColumnas;
+    }
+
+    /**
+     * ✅ NUEVO: Modo, límites MMAS, reinicios, último factor de ramificación y arcos con
+     * valor propio (los demás siguen en el valor inicial evaporado)
+     */
+    public Map<String, Object> obtenerEstadisticasFeromonas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("modo", modoMMAS ? "MMAS" : "ACS");
+        stats.put("tauMin", tauMin);
+        stats.put("tauMax", tauMax);
+        stats.put("reinicios", reinicios);
+        stats.put("factorRamificacion", ultimaRamificacion);
+        stats.put("evaporaciones", feromonas.getEvaporaciones());
+        stats.put("arcos", indiceArco.size());
+        stats.put("arcosEscritos", feromonas.getArcosEscritos());
+        return stats;
+    }
+
+    /* ========= Candidatos: semillas + construcción por tramos ========= */
+
+    /**
+     * Lista de candidatos del pedido (se arma una vez con las rutas de las semillas) más
+     * una ruta nueva construida por la hormiga. Las rutas ya están clonadas para el pedido
+     * y no se modifican: se comparten entre soluciones.
+     */
+    private List<Candidato> generarCandidatosParaPedido(Pedido p) {
+        if (p == null) return new ArrayList<>();
+
+        List<Candidato> lista = candidatosPorPedido.get(p);
+        if (lista == null) {
+            lista = candidatosDeSemillas(p);
+            candidatosPorPedido.put(p, lista);
+        }
+        RutaPedido construida = construirRutaPorTramos(p);
+        if (construida != null) incorporarCandidato(p, lista, construida);
+        return new ArrayList<>(lista);
+    }
+
+    private List<Candidato> candidatosDeSemillas(Pedido p) {
+        List<RutaPedido> plantillas = null;
+        if (p.getId() != null) plantillas = rutasSemillaPorPedidoId.get(p.getId());
+        if ((plantillas == null || plantillas.isEmpty()) && p.getLugarDestino() != null) {
+            plantillas = rutasSemillaPorDestino.get(p.getLugarDestino().getCodigo());
+        }
+
+        List<Candidato> lista = new ArrayList<>();
+        if (plantillas == null) return lista;
+        for (RutaPedido tpl : plantillas) {
+            if (lista.size() >= MAX_CANDIDATOS_POR_PEDIDO) break;
+            Candidato c = crearCandidato(clonarParaPedido(p, tpl));
+            if (c != null) lista.add(c);
+        }
+        return lista;
+    }
+
+    /**
+     * Verifica una sola vez lo estático de la ruta (conexiones y SLA) y precalcula su
+     * heurística fija; null si la ruta nunca sería factible
+     */
+    private Candidato crearCandidato(RutaPedido ruta) {
+        if (!conexionesValidas(ruta) || !llegaDentroDeSLA(ruta)) {
+            rutasDescartadasPorConexionOSla++;
+            return null;
+        }
+        return new Candidato(ruta, claveDeRuta(ruta), heuristicaEstatica(ruta));
+    }
+
+    /**
+     * Agrega la ruta si no está; con la lista llena reemplaza a la de menor feromona
+     * (sin tocar la que usa el pedido en la mejor solución)
+     */
+    private void incorporarCandidato(Pedido p, List<Candidato> lista, RutaPedido ruta) {
+        String clave = claveDeRuta(ruta);
+        for (Candidato c : lista) {
+            if (c.clave.equals(clave)) return;
+        }
+        Candidato nueva = crearCandidato(ruta);
+        if (nueva == null) return;
+        rutasNuevas++;
+        if (lista.size() < MAX_CANDIDATOS_POR_PEDIDO) {
+            lista.add(nueva);
+            return;
+        }
+        RutaPedido enMejor = (mejorHastaAhora == null) ? null
+                : mejorHastaAhora.getSolucionLogistica().getAsignacionPedidos().get(p);
+        String claveEnMejor = (enMejor == null) ? null : claveDeRuta(enMejor);
+
+        int peor = -1;
+        double tauPeor = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < lista.size(); i++) {
+            if (lista.get(i).clave.equals(claveEnMejor)) continue;
+            double tau = promedioFeromonaEnRuta(lista.get(i).ruta);
+            if (tau < tauPeor) { tauPeor = tau; peor = i; }
+        }
+        if (peor >= 0) lista.set(peor, nueva);
+    }
+
+    /**
+     * La hormiga arma una ruta tramo a tramo (directa o con una escala, como el GRASP):
+     * en cada aeropuerto mira las próximas salidas útiles y elige una por ruleta con
+     * τ^α · η^β, donde η premia la llegada más temprana al destino (para un primer tramo
+     * a una escala, la llegada con la primera conexión posible)
+     * @return la ruta, o null si no hay salidas útiles
+     */
+    private RutaPedido construirRutaPorTramos(Pedido p) {
+        if (p.getLugarDestino() == null || p.getFechaRegistro() == null) return null;
+        GrafoVuelos g = grafo;
+        int destino = g.indiceAeropuerto(p.getLugarDestino().getCodigo());
+        if (destino < 0) return null;
+        rutasConstruidas++;
+
+        long registro = GrafoVuelos.aSegundos(p.getFechaRegistro());
+        long limiteSla = slaHorasInternacional * 3600L;
+        int cantidad = p.getCantidad();
+
+        // 1. Primer tramo: desde cada fábrica, directos al destino y próximas salidas a escalas
+        List<Integer> opciones = new ArrayList<>();
+        List<Double> pesos = new ArrayList<>();
+        for (String codigoFabrica : Solucion.FABRICAS) {
+            int origen = g.indiceAeropuerto(codigoFabrica);
+            if (origen < 0 || origen == destino) continue;
+
+            int[] directos = g.vuelosEntre(origen, destino);
+            int tomados = 0;
+            for (int i = g.primeraSalidaDespues(directos, registro);
+                 i < directos.length && tomados < DIRECTOS_POR_FABRICA; i++) {
+                if (!tramoUtil(directos[i], cantidad)) continue;
+                agregarOpcion(opciones, pesos, directos[i], g.llegadaDe(directos[i]), registro);
+                tomados++;
             }
+
+            int[] salidas = g.salidasDesde(origen);
+            tomados = 0;
+            for (int i = g.primeraSalidaDespues(salidas, registro);
+                 i < salidas.length && tomados < TRAMOS_POR_PASO; i++) {
+                int primero = salidas[i];
+                if (g.destinoDe(primero) == destino || !tramoUtil(primero, cantidad)) continue;
+                int conexion = primeraConexion(primero, destino, cantidad);
+                if (conexion < 0 || g.llegadaDe(conexion) - g.salidaDe(primero) > limiteSla) continue;
+                agregarOpcion(opciones, pesos, primero, g.llegadaDe(conexion), registro);
+                tomados++;
+            }
+        }
+        int primero = elegirPorRuleta(opciones, pesos);
+        if (primero < 0) {
+            construccionesSinRuta++;
+            return null;
         }
+        if (g.destinoDe(primero) == destino) return rutaDe(p, g.getVuelo(primero));
+
+        // 2. Segundo tramo: próximas conexiones de la escala al destino
+        opciones.clear();
+        pesos.clear();
+        int[] hastaDestino = g.vuelosEntre(g.destinoDe(primero), destino);
+        int tomados = 0;
+        for (int i = g.primeraSalidaDespues(hastaDestino, g.llegadaDe(primero) + CONEXION_MINIMA_SEGUNDOS);
+             i < hastaDestino.length && tomados < TRAMOS_POR_PASO; i++) {
+            int segundo = hastaDestino[i];
+            if (!tramoUtil(segundo, cantidad) || g.llegadaDe(segundo) - g.salidaDe(primero) > limiteSla) continue;
+            agregarOpcion(opciones, pesos, segundo, g.llegadaDe(segundo), registro);
+            tomados++;
+        }
+        int segundo = elegirPorRuleta(opciones, pesos);
+        if (segundo < 0) {
+            construccionesSinRuta++;
+            return null;
+        }
+        return rutaDe(p, g.getVuelo(primero), g.getVuelo(segundo));
+    }
 
-        Map<String, RutaPedido> unico = new LinkedHashMap<>();
-        for (RutaPedido r : res) unico.put(claveDeRuta(r), r);
-        return new ArrayList<>(unico.values());
+    private void agregarOpcion(List<Integer> opciones, List<Double> pesos, int vuelo, long llegadaFinal, long registro) {
+        double tau = feromonas.leer(arcoDeVuelo[vuelo]);
+        double eta = 1.0 / (1.0 + Math.max(0, llegadaFinal - registro) / 3600.0);
+        opciones.add(vuelo);
+        pesos.add(Math.pow(Math.max(1e-6, tau), alfa) * Math.pow(Math.max(1e-6, eta), beta));
+    }
+
+    private int elegirPorRuleta(List<Integer> opciones, List<Double> pesos) {
+        if (opciones.isEmpty()) return -1;
+        double suma = 0.0;
+        for (double w : pesos) suma += w;
+        double u = aleatorio.nextDouble() * suma, acc = 0.0;
+        for (int i = 0; i < opciones.size(); i++) {
+            acc += pesos.get(i);
+            if (u <= acc) return opciones.get(i);
+        }
+        return opciones.get(opciones.size() - 1);
+    }
+
+    /**
+     * Primer vuelo útil de la escala al destino respetando la conexión mínima; -1 si no hay
+     */
+    private int primeraConexion(int primero, int destino, int cantidad) {
+        int[] hastaDestino = grafo.vuelosEntre(grafo.destinoDe(primero), destino);
+        for (int i = grafo.primeraSalidaDespues(hastaDestino, grafo.llegadaDe(primero) + CONEXION_MINIMA_SEGUNDOS);
+             i < hastaDestino.length; i++) {
+            if (tramoUtil(hastaDestino[i], cantidad)) return hastaDestino[i];
+        }
+        return -1;
+    }
+
+    private boolean tramoUtil(int vuelo, int cantidad) {
+        Vuelo v = grafo.getVuelo(vuelo);
+        return !v.estaCancelado() && capacidadVuelo(v) >= cantidad;
+    }
+
+    /**
+     * ✅ NUEVO: Rutas construidas por las hormigas, cuántas entraron como candidatas nuevas,
+     * construcciones sin salida útil, rutas que no pasaron conexiones/SLA al entrar a la
+     * lista y pedidos con lista de candidatos armada
+     */
+    public Map<String, Long> obtenerEstadisticasCandidatos() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("rutasConstruidas", rutasConstruidas);
+        stats.put("rutasNuevas", rutasNuevas);
+        stats.put("construccionesSinRuta", construccionesSinRuta);
+        stats.put("rutasDescartadasPorConexionOSla", rutasDescartadasPorConexionOSla);
+        stats.put("pedidosConCandidatos", (long) candidatosPorPedido.size());
+        return stats;
     }
 
     /* ========= Factibilidad y utilidades ========= */
@@ -523,65 +844,19 @@ public class ACSMoraPack {
     }
 
     // ========= NUEVO: Validación temporal de almacenes (2h) para swaps/candidatos =========
-    // Sustituir COMPLETO el método por este:
+    // ✅ MODIFICADO: consulta el libro de la hormiga (solo los almacenes e instantes de la
+    // ruta, O(log n) cada uno) en lugar de reconstruir las llegadas de toda la asignación
     private boolean respetaCapacidadAlmacenesTemporalesSwap(
-            RutaPedido nueva, RutaPedido actual, Pedido p,
-            Map<Pedido, RutaPedido> asignacionActual) {
-
-        class Ev {
-            final String code; final LocalDateTime llegada; final LocalDateTime libera; final int q;
-            Ev(String c, LocalDateTime t0, int q){ this.code=c; this.llegada=t0; this.libera=t0.plusHours(2); this.q=q; }
-            boolean ocupa(LocalDateTime t){ return !t.isBefore(llegada) && t.isBefore(libera); }
-        }
+            RutaPedido nueva, RutaPedido actual, Pedido p, OcupacionAlmacenes libro) {
 
-        // 1) recolectar eventos existentes (escalas + destino), excluyendo la ruta actual si es swap
-        List<Ev> evs = new ArrayList<>();
-        if (asignacionActual != null) {
-            for (Map.Entry<Pedido, RutaPedido> e : asignacionActual.entrySet()) {
-                RutaPedido r = e.getValue();
-                if (r == null) continue;
-                if (actual != null && r == actual) continue; // liberar aportes de la ruta a reemplazar
+        // 1) si es swap, la ruta actual libera sus aportes mientras se consulta
+        if (actual != null) libro.liberarRuta(actual.getSecuenciaVuelos(), p.getCantidad());
 
-                int q = (e.getKey() != null) ? e.getKey().getCantidad() : 0;
-                List<Vuelo> vs = r.getSecuenciaVuelos();
+        // 2) cada llegada de la NUEVA ruta debe caber durante toda su ventana de 2h
+        boolean cabe = libro.rutaCabe(nueva.getSecuenciaVuelos(), p.getCantidad());
 
-                for (int i = 0; i < vs.size() - 1; i++) {
-                    Vuelo v = vs.get(i);
-                    if (v.getDestino()!=null && v.getHoraLlegada()!=null) {
-                        evs.add(new Ev(v.getDestino().getCodigo(), v.getHoraLlegada(), q));
-                    }
-                }
-                if (!vs.isEmpty()) {
-                    Vuelo last = vs.get(vs.size()-1);
-                    if (last.getDestino()!=null && last.getHoraLlegada()!=null) {
-                        evs.add(new Ev(last.getDestino().getCodigo(), last.getHoraLlegada(), q));
-                    }
-                }
-            }
-        }
-
-        // 2) chequear cada llegada de la NUEVA ruta (escalas + destino) en su momento de llegada
-        int qNueva = p.getCantidad();
-        for (Vuelo v : nueva.getSecuenciaVuelos()) {
-            Aeropuerto a = v.getDestino();
-            LocalDateTime tArr = v.getHoraLlegada();
-            if (a == null || tArr == null) return false;
-
-            int ocup = a.getCapacidadAct();      // base, igual que usa Solucion.java
-            int cap  = a.getCapacidad();
-
-            // sumar todos los eventos existentes “vivos” en el instante tArr
-            for (Ev ev : evs) {
-                if (a.getCodigo().equals(ev.code) && ev.ocupa(tArr)) {
-                    ocup += ev.q;
-                }
-            }
-            // sumar la propia llegada del candidato
-            ocup += qNueva;
-
-            if (ocup > cap) return false;
-        }
-        return true;
+        if (actual != null) libro.reservarRuta(actual.getSecuenciaVuelos(), p.getCantidad());
+        return cabe;
     }
 
 
@@ -625,6 +900,13 @@ public class ACSMoraPack {
         return min >= 60;
     }
 
+    private boolean vuelosOperativos(RutaPedido r) {
+        for (Vuelo v : r.getSecuenciaVuelos()) {
+            if (v.estaCancelado()) return false;
+        }
+        return true;
+    }
+
     private boolean conexionesValidas(RutaPedido r) {
         List<Vuelo> vs = r.getSecuenciaVuelos();
         for (int i = 0; i < vs.size() - 1; i++) {
@@ -707,20 +989,23 @@ public class ACSMoraPack {
 
     /* ========= Auxiliares ========= */
 
-    private Set<String> extraerArcos(Solucion s) {
-        Set<String> arcos = new HashSet<>();
+    private Set<Integer> extraerArcos(Solucion s) {
+        Set<Integer> arcos = new HashSet<>();
         if (s == null || s.getSolucionLogistica() == null) return arcos;
         Map<Pedido, RutaPedido> asig = s.getSolucionLogistica().getAsignacionPedidos();
         if (asig == null) return arcos;
         for (RutaPedido r : asig.values()) {
-            for (Vuelo v : r.getSecuenciaVuelos()) arcos.add(v.getId());
+            for (Vuelo v : r.getSecuenciaVuelos()) {
+                int arco = arcoDe(v);
+                if (arco >= 0) arcos.add(arco);
+            }
         }
         return arcos;
     }
 
+    // ✅ MODIFICADO: O(1), los arcos no escritos se leen con el valor de reinicio
     private void inicializarFeromonas(double valor) {
-        feromonas.clear();
-        for (Vuelo v : vuelos) feromonas.put(v.getId(), valor);
+        feromonas.reiniciar(valor);
     }
 
     private static String claveDeRuta(RutaPedido r) {
@@ -10,6 +10,7 @@ public class Aeropuerto {
     private int capacidadAct;
     private int husoHorario;
     private String continente;
+    private LineaTiempoAlmacen lineaTiempo;
 
     public Aeropuerto(String codigo, String nombre, String pais, int capacidad, int capacidadAct, int husoHorario, String continente) {
         this.codigo = codigo;
@@ -80,9 +81,33 @@ public class Aeropuerto {
         return (capacidadAct + cantidad) <= capacidad;
     }
 
+    public boolean puedeRecibirPaquetes(int cantidad, LocalDateTime tiempoLlegada) {
+        return getLineaTiempo().cabe(tiempoLlegada, cantidad);
+    }
+
     public void recibirPaquetes(int cantidad, LocalDateTime tiempoLlegada) {
-        // Simular que los paquetes se van después de 2 horas
-        this.capacidadAct += cantidad;
-        // TODO: Implementar liberación automática después de 2 horas
+        // Los paquetes ocupan el almacén solo durante 2 horas desde su llegada
+        getLineaTiempo().reservar(tiempoLlegada, cantidad);
+    }
+
+    public int getOcupacionEn(LocalDateTime momento) {
+        return getLineaTiempo().ocupacionEn(momento);
+    }
+
+    /**
+     * Libro de capacidad propio del almacén (simulación sobre el aeropuerto real).
+     * Los algoritmos usan libros independientes vía crearLineaTiempo()
+     * (sincronizado: varios hilos pueden pedirlo a la vez y debe haber uno solo; se crea
+     * perezosamente porque copia la capacidad vigente al momento de crearse)
+     */
+    public synchronized LineaTiempoAlmacen getLineaTiempo() {
+        if (lineaTiempo == null) {
+            lineaTiempo = crearLineaTiempo();
+        }
+        return lineaTiempo;
+    }
+
+    public LineaTiempoAlmacen crearLineaTiempo() {
+        return new LineaTiempoAlmacen(this);
     }
 }
@@ -0,0 +1,323 @@
+package com.morapack.models;
+
+import java.util.*;
+
+/**
+ * Fase de mejora local para soluciones construidas por GRASP.
+ * Vecindarios (primera mejora, en este orden para cada pedido):
+ *   1. Reubicar: otra ruta candidata desde la misma fábrica
+ *   2. Cambiar fábrica: ruta candidata desde otra fábrica
+ *   3. Intercambio: dos pedidos al mismo destino que comparten un vuelo cambian sus rutas
+ *   4. Inserción con expulsión: un pedido sin asignar toma la ruta de otro más chico
+ *      al mismo destino, que se reubica si puede
+ * La factibilidad (vuelos + almacenes) la lleva el estado de ocupación de GRASP y el
+ * fitness se evalúa por deltas con {@link EvaluadorIncremental}. Cada pedido tiene un
+ * bit "no mirar" que se enciende cuando ningún movimiento lo mejora y se apaga cuando
+ * cambia la carga de alguno de sus vuelos, así las pasadas siguientes solo revisan la
+ * vecindad de lo que se movió.
+ */
+class BusquedaLocalGrasp {
+
+    private static final double MEJORA_MINIMA = 1e-9;
+    private static final int MAX_PASADAS = 20;
+    private static final int MAX_EXPULSIONES_POR_PEDIDO = 20;
+
+    private final GraspMoraPack grasp;
+    private final List<Pedido> pedidos;
+    private final Map<Pedido, Integer> indicePedido;
+    private final Map<String, List<Integer>> pedidosPorDestino;
+    private final Map<Vuelo, List<Integer>> pedidosPorVuelo;   // pedidos cuya ruta usa el vuelo
+    private final EvaluadorIncremental evaluador;
+    private final boolean[] noMirar;
+    private final Set<Integer> sinAsignar;      // índices de pedidos sin ruta, al día con cada movimiento
+    private double fitnessActual;
+
+    private final Map<String, Integer> estadisticas = new LinkedHashMap<>();
+
+    /**
+     * @param grasp       GRASP con el estado de ocupación ya cargado con {@code asignacion}
+     * @param pedidos     pedidos del problema
+     * @param asignacion  asignación inicial (no se modifica)
+     */
+    BusquedaLocalGrasp(GraspMoraPack grasp, List<Pedido> pedidos,
+                       Map<Pedido, RutaPedido> asignacion, int totalPedidosProblema) {
+        this.grasp = grasp;
+        this.pedidos = new ArrayList<>(pedidos);
+        this.indicePedido = new IdentityHashMap<>();
+        for (int i = 0; i < this.pedidos.size(); i++) indicePedido.put(this.pedidos.get(i), i);
+        for (Pedido pedido : asignacion.keySet()) {
+            if (!indicePedido.containsKey(pedido)) {
+                indicePedido.put(pedido, this.pedidos.size());
+                this.pedidos.add(pedido);
+            }
+        }
+
+        this.pedidosPorDestino = new HashMap<>();
+        for (int i = 0; i < this.pedidos.size(); i++) {
+            pedidosPorDestino.computeIfAbsent(this.pedidos.get(i).getLugarDestino().getCodigo(),
+                    k -> new ArrayList<>()).add(i);
+        }
+
+        this.evaluador = new EvaluadorIncremental(asignacion, totalPedidosProblema);
+        this.pedidosPorVuelo = new HashMap<>();
+        for (Map.Entry<Pedido, RutaPedido> entry : evaluador.getAsignacion().entrySet()) {
+            indexar(indicePedido.get(entry.getKey()), entry.getValue());
+        }
+        this.noMirar = new boolean[this.pedidos.size()];
+        this.sinAsignar = new LinkedHashSet<>();
+        for (int i = 0; i < this.pedidos.size(); i++) {
+            if (!evaluador.estaAsignado(this.pedidos.get(i))) sinAsignar.add(i);
+        }
+        this.fitnessActual = evaluador.getFitness();
+
+        for (String clave : Arrays.asList("pasadas", "reubicaciones", "cambiosFabrica",
+                "intercambios", "insercionesDirectas", "insercionesConExpulsion")) {
+            estadisticas.put(clave, 0);
+        }
+    }
+
+    /**
+     * Ejecuta pasadas de primera mejora hasta que ningún pedido tenga movimiento que mejore
+     * @return la asignación mejorada (el estado de GRASP queda consistente con ella)
+     */
+    EvaluadorIncremental ejecutar() {
+        for (int pasada = 0; pasada < MAX_PASADAS; pasada++) {
+            contar("pasadas");
+            boolean huboMejora = false;
+            for (int i = 0; i < pedidos.size(); i++) {
+                if (noMirar[i]) continue;
+                boolean mejoro = evaluador.estaAsignado(pedidos.get(i))
+                        ? reubicar(i) || intercambiar(i)
+                        : insertar(i);
+                if (mejoro) {
+                    huboMejora = true;
+                } else {
+                    noMirar[i] = true;
+                }
+            }
+            if (!huboMejora) break;
+        }
+        return evaluador;
+    }
+
+    Map<String, Integer> getEstadisticas() {
+        return estadisticas;
+    }
+
+    /* ========= Vecindarios ========= */
+
+    /**
+     * Reubicar (misma fábrica) y cambiar fábrica: prueba las rutas candidatas del pedido
+     * con su propia ruta liberada
+     */
+    private boolean reubicar(int i) {
+        Pedido pedido = pedidos.get(i);
+        List<Vuelo> actuales = evaluador.getRuta(pedido).getSecuenciaVuelos();
+        String fabricaActual = actuales.get(0).getOrigen().getCodigo();
+
+        grasp.liberarRuta(pedido, actuales);
+        List<List<Vuelo>> candidatas = grasp.generarRutasCandidatas(pedido);
+        for (int fase = 0; fase < 2; fase++) {
+            for (List<Vuelo> vuelos : candidatas) {
+                boolean mismaFabrica = vuelos.get(0).getOrigen().getCodigo().equals(fabricaActual);
+                if (mismaFabrica != (fase == 0) || vuelos.equals(actuales)) continue;
+
+                RutaPedido nueva = grasp.construirRutaPedido(pedido, vuelos);
+                if (evaluador.evaluarCambio(pedido, nueva) > fitnessActual + MEJORA_MINIMA) {
+                    grasp.registrarRuta(pedido, vuelos);
+                    aplicar(i, nueva);
+                    contar(mismaFabrica ? "reubicaciones" : "cambiosFabrica");
+                    return true;
+                }
+            }
+        }
+        grasp.registrarRuta(pedido, actuales);
+        return false;
+    }
+
+    /**
+     * Intercambio: el pedido y otro al mismo destino que comparte alguno de sus vuelos
+     * se cambian las rutas, si cada una sale después del registro del otro pedido y cabe
+     */
+    private boolean intercambiar(int i) {
+        Pedido pedido = pedidos.get(i);
+        RutaPedido rutaPedido = evaluador.getRuta(pedido);
+        List<Vuelo> vuelosPedido = rutaPedido.getSecuenciaVuelos();
+        String destino = pedido.getLugarDestino().getCodigo();
+
+        Set<Integer> revisados = new HashSet<>();
+        for (Vuelo vuelo : vuelosPedido) {
+            List<Integer> comparten = pedidosPorVuelo.get(vuelo);
+            for (int k = 0; k < comparten.size(); k++) {
+                int j = comparten.get(k);
+                if (j == i || !revisados.add(j)) continue;
+                Pedido otro = pedidos.get(j);
+                if (!otro.getLugarDestino().getCodigo().equals(destino)) continue;
+                RutaPedido rutaOtro = evaluador.getRuta(otro);
+                List<Vuelo> vuelosOtro = rutaOtro.getSecuenciaVuelos();
+                if (vuelosOtro.equals(vuelosPedido) || otro.getCantidad() == pedido.getCantidad()) continue;
+
+                grasp.liberarRuta(pedido, vuelosPedido);
+                grasp.liberarRuta(otro, vuelosOtro);
+                boolean factible = grasp.rutaSigueSiendoFactible(vuelosOtro, pedido);
+                if (factible) {
+                    grasp.registrarRuta(pedido, vuelosOtro);
+                    factible = grasp.rutaSigueSiendoFactible(vuelosPedido, otro);
+                    grasp.liberarRuta(pedido, vuelosOtro);
+                }
+
+                if (factible) {
+                    RutaPedido nuevaPedido = grasp.construirRutaPedido(pedido, vuelosOtro);
+                    RutaPedido nuevaOtro = grasp.construirRutaPedido(otro, vuelosPedido);
+                    evaluador.asignar(pedido, nuevaPedido);
+                    evaluador.asignar(otro, nuevaOtro);
+                    boolean mejora = evaluador.getFitness() > fitnessActual + MEJORA_MINIMA;
+                    evaluador.asignar(pedido, rutaPedido);
+                    evaluador.asignar(otro, rutaOtro);
+
+                    if (mejora) {
+                        grasp.registrarRuta(pedido, vuelosOtro);
+                        grasp.registrarRuta(otro, vuelosPedido);
+                        aplicar(i, nuevaPedido);
+                        aplicar(j, nuevaOtro);
+                        contar("intercambios");
+                        return true;
+                    }
+                }
+                grasp.registrarRuta(pedido, vuelosPedido);
+                grasp.registrarRuta(otro, vuelosOtro);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pedido sin asignar: primero inserción directa (otros movimientos pudieron liberar
+     * capacidad); si no, expulsión de un pedido más chico al mismo destino cuya ruta tome
+     */
+    private boolean insertar(int i) {
+        Pedido pedido = pedidos.get(i);
+        for (List<Vuelo> vuelos : grasp.generarRutasCandidatas(pedido)) {
+            RutaPedido nueva = grasp.construirRutaPedido(pedido, vuelos);
+            if (evaluador.evaluarCambio(pedido, nueva) > fitnessActual + MEJORA_MINIMA) {
+                grasp.registrarRuta(pedido, vuelos);
+                aplicar(i, nueva);
+                contar("insercionesDirectas");
+                return true;
+            }
+        }
+
+        List<Integer> mismoDestino = pedidosPorDestino.get(pedido.getLugarDestino().getCodigo());
+        int intentos = 0;
+        for (int j : mismoDestino) {
+            Pedido expulsado = pedidos.get(j);
+            if (expulsado.getCantidad() >= pedido.getCantidad() || !evaluador.estaAsignado(expulsado)) continue;
+            RutaPedido rutaExpulsado = evaluador.getRuta(expulsado);
+            List<Vuelo> vuelosExpulsado = rutaExpulsado.getSecuenciaVuelos();
+            if (!pedido.getFechaRegistro().isBefore(vuelosExpulsado.get(0).getHoraSalida())) continue;
+            if (++intentos > MAX_EXPULSIONES_POR_PEDIDO) break;
+
+            grasp.liberarRuta(expulsado, vuelosExpulsado);
+            if (grasp.rutaSigueSiendoFactible(vuelosExpulsado, pedido)) {
+                grasp.registrarRuta(pedido, vuelosExpulsado);
+                RutaPedido nueva = grasp.construirRutaPedido(pedido, vuelosExpulsado);
+                evaluador.quitar(expulsado);
+                evaluador.asignar(pedido, nueva);
+
+                // El expulsado se reubica en la primera alternativa que mejore; si no hay, queda fuera
+                List<Vuelo> alternativa = null;
+                RutaPedido rutaAlternativa = null;
+                for (List<Vuelo> vuelos : grasp.generarRutasCandidatas(expulsado)) {
+                    RutaPedido candidata = grasp.construirRutaPedido(expulsado, vuelos);
+                    if (evaluador.evaluarCambio(expulsado, candidata) > fitnessActual + MEJORA_MINIMA) {
+                        alternativa = vuelos;
+                        rutaAlternativa = candidata;
+                        break;
+                    }
+                }
+                boolean mejora = alternativa != null || evaluador.getFitness() > fitnessActual + MEJORA_MINIMA;
+                evaluador.quitar(pedido);
+                evaluador.asignar(expulsado, rutaExpulsado);
+
+                if (mejora) {
+                    quitarAsignacion(j);
+                    aplicar(i, nueva);
+                    if (alternativa != null) {
+                        grasp.registrarRuta(expulsado, alternativa);
+                        aplicar(j, rutaAlternativa);
+                    }
+                    contar("insercionesConExpulsion");
+                    return true;
+                }
+                grasp.liberarRuta(pedido, vuelosExpulsado);
+            }
+            grasp.registrarRuta(expulsado, vuelosExpulsado);
+        }
+        return false;
+    }
+
+    /* ========= Estado ========= */
+
+    private void aplicar(int i, RutaPedido nueva) {
+        Pedido pedido = pedidos.get(i);
+        RutaPedido anterior = evaluador.getRuta(pedido);
+        if (anterior != null) {
+            desindexar(i, anterior);
+            despertarVecinos(anterior);
+            despertarSinAsignar();
+        }
+        evaluador.asignar(pedido, nueva);
+        sinAsignar.remove(i);
+        indexar(i, nueva);
+        despertarVecinos(nueva);
+        noMirar[i] = false;
+        fitnessActual = evaluador.getFitness();
+    }
+
+    private void quitarAsignacion(int j) {
+        RutaPedido anterior = evaluador.quitar(pedidos.get(j));
+        desindexar(j, anterior);
+        despertarVecinos(anterior);
+        despertarSinAsignar();
+        sinAsignar.add(j);
+        noMirar[j] = false;
+        fitnessActual = evaluador.getFitness();
+    }
+
+    private void indexar(int i, RutaPedido ruta) {
+        for (Vuelo vuelo : ruta.getSecuenciaVuelos()) {
+            pedidosPorVuelo.computeIfAbsent(vuelo, k -> new ArrayList<>()).add(i);
+        }
+    }
+
+    private void desindexar(int i, RutaPedido ruta) {
+        for (Vuelo vuelo : ruta.getSecuenciaVuelos()) {
+            List<Integer> lista = pedidosPorVuelo.get(vuelo);
+            lista.remove(Integer.valueOf(i));
+            if (lista.isEmpty()) pedidosPorVuelo.remove(vuelo);
+        }
+    }
+
+    /**
+     * Cambió la carga de los vuelos de la ruta: sus pedidos vuelven a revisarse
+     */
+    private void despertarVecinos(RutaPedido ruta) {
+        for (Vuelo vuelo : ruta.getSecuenciaVuelos()) {
+            List<Integer> lista = pedidosPorVuelo.get(vuelo);
+            if (lista == null) continue;
+            for (int j : lista) noMirar[j] = false;
+        }
+    }
+
+    /**
+     * Se liberó capacidad: los pedidos sin asignar podrían entrar ahora
+     * (solo se recorren los sin asignar, no todos los pedidos)
+     */
+    private void despertarSinAsignar() {
+        for (int j : sinAsignar) noMirar[j] = false;
+    }
+
+    private void contar(String clave) {
+        estadisticas.merge(clave, 1, Integer::sum);
+    }
+}
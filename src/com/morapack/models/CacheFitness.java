@@ -0,0 +1,44 @@
+package com.morapack.models;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché LRU de fitness por huella de la asignación (ver {@link HuellaZobrist}).
+ * Una por GA: no es segura para compartir entre hilos.
+ */
+class CacheFitness {
+
+    private final Map<Long, Double> valores;
+    private long aciertos;
+    private long fallos;
+
+    CacheFitness(int capacidad) {
+        int maximo = Math.max(1, capacidad);
+        this.valores = new LinkedHashMap<Long, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Double> masViejo) {
+                return size() > maximo;
+            }
+        };
+    }
+
+    /**
+     * @return el fitness guardado para la huella, o null si no está
+     */
+    Double obtener(long huella) {
+        Double fitness = valores.get(huella);
+        if (fitness == null) fallos++; else aciertos++;
+        return fitness;
+    }
+
+    void guardar(long huella, double fitness) {
+        valores.put(huella, fitness);
+    }
+
+    long getAciertos() { return aciertos; }
+
+    long getFallos() { return fallos; }
+
+    int getTamaño() { return valores.size(); }
+}
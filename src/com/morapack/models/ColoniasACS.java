@@ -0,0 +1,399 @@
+package com.morapack.models;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * ACS con varias colonias en paralelo.
+ * Las semillas salen de un pool élite compartido que llenan productores GRASP (uno por
+ * hilo) y que se mejora con path relinking. Cada colonia corre con sus propios
+ * parámetros: α de 0.5 a 1.5, β de 5 a 2, ρ de 0.05 a 0.25 y ξ de 0.05 a 0.20; las
+ * colonias impares usan MAX-MIN. Así el resultado depende menos de una sola
+ * configuración afinada a mano. Las colonias avanzan por épocas de
+ * {@code intervaloIntercambio} iteraciones. Entre épocas, cada colonia recibe de su
+ * vecina en el anillo, o de la mejor si la topología es completa: su mejor solución
+ * como semilla, si supera a la propia, y su rastro de feromonas, mezclado con
+ * {@code pesoMezcla} solo en los arcos que alguna de las dos escribió desde el
+ * intercambio anterior (el resto solo se evaporó). Los mejores de cada época vuelven al pool élite.
+ * Además de {@link #ejecutar()}, se puede avanzar época por época con {@link #iniciar()},
+ * {@link #ejecutarEpoca()} y {@link #cerrar()} (p. ej. dentro de un portafolio, que
+ * decide cuándo parar e inyecta su incumbente con {@link #importar(Solucion)}).
+ */
+public class ColoniasACS {
+
+    private final List<Pedido> pedidos;
+    private final List<Vuelo> vuelos;
+    private final List<ACSMoraPack> colonias;
+
+    // Parámetros
+    private TopologiaMigracion topologia;
+    private int semillasGrasp;
+    private int hormigasPorColonia;
+    private int numeroIteraciones;
+    private int intervaloIntercambio;
+    private double pesoMezcla;
+    private int hilos;
+    private long semilla;
+    private List<Solucion> semillasExternas;
+    private PoolColumnas poolColumnas;      // null = no se juntan rutas
+
+    // Estado y estadísticas de la última ejecución
+    private PoolElite poolElite;
+    private Solucion mejorSolucionGlobal;
+    private List<List<Double>> historialPorColonia;
+    private int[] semillasRecibidas;
+    private int epocas;                     // 0 = se avanza por épocas sin un total fijo
+    private int epocasRealizadas;
+    private ExecutorService ejecutor;
+    private long inicioMillis;
+    private long tiempoSemillasMs;
+    private long tiempoMs;
+
+    public ColoniasACS(List<Pedido> pedidos, List<Vuelo> vuelos, int numeroColonias) {
+        this.pedidos = new ArrayList<>(pedidos);
+        this.vuelos = new ArrayList<>(vuelos);
+        this.colonias = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, numeroColonias); i++) {
+            colonias.add(new ACSMoraPack(this.pedidos, this.vuelos));
+        }
+
+        // Parámetros por defecto
+        this.topologia = TopologiaMigracion.ANILLO;
+        this.semillasGrasp = 10;
+        this.hormigasPorColonia = 10;
+        this.numeroIteraciones = 30;
+        this.intervaloIntercambio = 5;
+        this.pesoMezcla = 0.3;
+        this.hilos = Runtime.getRuntime().availableProcessors();
+        this.semilla = 1234;
+    }
+
+    /**
+     * Genera las semillas, corre todas las colonias y devuelve la mejor solución
+     */
+    public Solucion ejecutar() {
+        iniciar();
+        try {
+            epocas = (numeroIteraciones + intervaloIntercambio - 1) / intervaloIntercambio;
+            for (int epoca = 1; epoca <= epocas; epoca++) {
+                ejecutarEpoca(Math.min(intervaloIntercambio, numeroIteraciones - (epoca - 1) * intervaloIntercambio),
+                        epoca < epocas);
+            }
+        } finally {
+            cerrar();
+        }
+        return mejorSolucionGlobal;
+    }
+
+    /**
+     * Arma el pool élite (semillas dadas o GRASP), configura las colonias y deja listo el
+     * ejecutor; después se avanza con {@link #ejecutarEpoca()} y se termina con {@link #cerrar()}
+     */
+    public void iniciar() {
+        int n = colonias.size();
+        System.out.println("=== INICIANDO ACS MULTICOLONIA ===");
+        System.out.printf("Colonias=%d, Hormigas=%d, Iteraciones=%d, Intercambio cada %d (%s), Hilos=%d%n",
+                n, hormigasPorColonia, numeroIteraciones, intervaloIntercambio, topologia, Math.min(hilos, n));
+        inicioMillis = System.currentTimeMillis();
+        epocas = 0;
+        epocasRealizadas = 0;
+
+        ejecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(hilos, Math.max(n, semillasGrasp))));
+        poolElite = new PoolElite(Math.max(1, semillasGrasp), Math.max(1, pedidos.size() / 100));
+        if (semillasExternas != null) {
+            poolElite.agregarTodas(semillasExternas);
+        } else {
+            generarSemillasGrasp(ejecutor);
+        }
+        if (poolElite.getTamaño() >= 2) new PathRelinking().ejecutar(poolElite);
+        tiempoSemillasMs = System.currentTimeMillis() - inicioMillis;
+        System.out.printf("Pool élite: %d semillas (mejor %.2f) en %d ms%n", poolElite.getTamaño(),
+                poolElite.getMejor() == null ? Double.NaN : poolElite.getMejor().getFitness(), tiempoSemillasMs);
+
+        List<Solucion> semillas = poolElite.getSoluciones();
+        for (int i = 0; i < n; i++) {
+            ACSMoraPack acs = colonias.get(i);
+            acs.establecerSemillaAleatoria(semilla + i);
+            acs.setModoMMAS(i % 2 == 1);
+            acs.establecerSemillas(semillas);
+            acs.setPoolColumnas(poolColumnas);
+        }
+
+        historialPorColonia = new ArrayList<>();
+        for (int i = 0; i < n; i++) historialPorColonia.add(new ArrayList<>());
+        semillasRecibidas = new int[n];
+        mejorSolucionGlobal = poolElite.getMejor();
+    }
+
+    /**
+     * Corre una época de {@code intervaloIntercambio} iteraciones en todas las colonias y
+     * después el intercambio entre ellas
+     * @return el mejor global hasta ahora
+     */
+    public Solucion ejecutarEpoca() {
+        ejecutarEpoca(intervaloIntercambio, true);
+        return mejorSolucionGlobal;
+    }
+
+    private void ejecutarEpoca(int iteraciones, boolean intercambiarAlFinal) {
+        for (int i = 0; i < colonias.size(); i++) configurarColonia(i, iteraciones);
+        enParalelo(ejecutor, ACSMoraPack::ejecutar);
+        registrarEpoca(++epocasRealizadas);
+        if (intercambiarAlFinal && colonias.size() > 1) {
+            intercambiar();
+        }
+    }
+
+    /**
+     * Solución externa (p. ej. el incumbente de un portafolio): entra al pool élite y como
+     * semilla de cada colonia cuyo mejor no la supera (no cuenta como mejor propio)
+     */
+    public void importar(Solucion solucion) {
+        if (solucion == null || poolElite == null) return;
+        poolElite.agregar(solucion);
+        for (int i = 0; i < colonias.size(); i++) {
+            ACSMoraPack acs = colonias.get(i);
+            if (solucion.getFitness() > fitness(acs.getMejorHastaAhora())) {
+                acs.agregarSemilla(solucion);
+                semillasRecibidas[i]++;
+            }
+        }
+    }
+
+    /**
+     * Libera los hilos y muestra el resumen por colonia
+     */
+    public void cerrar() {
+        if (ejecutor != null) {
+            ejecutor.shutdownNow();
+            ejecutor = null;
+        }
+        tiempoMs = System.currentTimeMillis() - inicioMillis;
+        System.out.println("=== ACS MULTICOLONIA COMPLETADO ===");
+        for (int i = 0; i < colonias.size(); i++) {
+            ACSMoraPack acs = colonias.get(i);
+            Solucion mejor = acs.getMejorHastaAhora();
+            System.out.printf("Colonia %d (%s α=%.2f β=%.2f ρ=%.2f ξ=%.2f): Mejor=%s, Semillas recibidas=%d%n",
+                    i, (i % 2 == 1) ? "MMAS" : "ACS", acs.alfa, acs.beta, acs.rho, acs.xi,
+                    mejor == null ? "-" : String.format("%.2f", mejor.getFitness()),
+                    semillasRecibidas == null ? 0 : semillasRecibidas[i]);
+        }
+        if (mejorSolucionGlobal != null) {
+            System.out.printf("Mejor fitness final: %.2f (%d ms)%n", mejorSolucionGlobal.getFitness(), tiempoMs);
+        }
+    }
+
+    /**
+     * Cada hilo usa su propia instancia GRASP (reactivo, alfas medios para diversidad)
+     */
+    private void generarSemillasGrasp(ExecutorService ejecutor) {
+        int productores = Math.max(1, Math.min(hilos, semillasGrasp));
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int p = 0; p < productores; p++) {
+            int cuota = semillasGrasp / productores + (p < semillasGrasp % productores ? 1 : 0);
+            futuros.add(ejecutor.submit(() -> {
+                GraspMoraPack grasp = new GraspMoraPack(pedidos, vuelos);
+                grasp.activarGraspReactivo(new double[]{0.3, 0.4, 0.5, 0.6}, 4, 10.0);
+                for (int k = 0; k < cuota; k++) {
+                    Solucion s = grasp.generarSolucion();
+                    if (s != null) poolElite.agregar(s);
+                }
+            }));
+        }
+        esperar(futuros, "Error generando semillas GRASP");
+    }
+
+    private void configurarColonia(int indice, int iteraciones) {
+        double t = (colonias.size() <= 1) ? 0.5 : (double) indice / (colonias.size() - 1);
+        colonias.get(indice).configurarParametrosACS(hormigasPorColonia, iteraciones,
+                0.5 + 1.0 * t, 5.0 - 3.0 * t, 0.05 + 0.20 * t, 0.05 + 0.15 * t);
+    }
+
+    /**
+     * Todas las colonias envían a la vez: primero se copian mejores y rastros, luego se integran.
+     * Cada pareja mezcla solo la unión de los arcos que cambiaron en el origen o en el destino
+     */
+    private void intercambiar() {
+        int n = colonias.size();
+        int mejorColonia = 0;
+        for (int i = 1; i < n; i++) {
+            if (fitness(colonias.get(i).getMejorHastaAhora()) > fitness(colonias.get(mejorColonia).getMejorHastaAhora())) {
+                mejorColonia = i;
+            }
+        }
+
+        Solucion[] mejores = new Solucion[n];
+        int[][] cambiados = new int[n][];
+        for (int i = 0; i < n; i++) {
+            mejores[i] = colonias.get(i).getMejorHastaAhora();
+            cambiados[i] = colonias.get(i).tomarArcosCambiados();
+        }
+
+        int[] origenes = new int[n];
+        int[][] arcos = new int[n][];
+        double[][] rastros = new double[n][];
+        for (int destino = 0; destino < n; destino++) {
+            origenes[destino] = (topologia == TopologiaMigracion.ANILLO) ? (destino - 1 + n) % n : mejorColonia;
+            if (origenes[destino] == destino) continue;
+            arcos[destino] = unir(cambiados[origenes[destino]], cambiados[destino]);
+            rastros[destino] = colonias.get(origenes[destino]).leerFeromonas(arcos[destino]);
+        }
+
+        for (int destino = 0; destino < n; destino++) {
+            int origen = origenes[destino];
+            if (origen == destino) continue;
+
+            ACSMoraPack acs = colonias.get(destino);
+            if (fitness(mejores[origen]) > fitness(acs.getMejorHastaAhora())) {
+                acs.agregarSemilla(mejores[origen]);
+                semillasRecibidas[destino]++;
+            }
+            acs.mezclarFeromonas(arcos[destino], rastros[destino], pesoMezcla);
+        }
+    }
+
+    /**
+     * Unión ordenada y sin repetidos de dos listas de arcos
+     */
+    private static int[] unir(int[] a, int[] b) {
+        int[] todos = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, todos, a.length, b.length);
+        Arrays.sort(todos);
+        int k = 0;
+        for (int i = 0; i < todos.length; i++) {
+            if (i == 0 || todos[i] != todos[i - 1]) todos[k++] = todos[i];
+        }
+        return Arrays.copyOf(todos, k);
+    }
+
+    private void registrarEpoca(int epoca) {
+        for (int i = 0; i < colonias.size(); i++) {
+            Solucion mejor = colonias.get(i).getMejorHastaAhora();
+            historialPorColonia.get(i).add(fitness(mejor));
+            if (mejor != null) poolElite.agregar(mejor);
+            if (fitness(mejor) > fitness(mejorSolucionGlobal)) mejorSolucionGlobal = mejor;
+        }
+        if (epocas > 0) {
+            System.out.printf("Época %d/%d: Mejor global=%.2f%n", epoca, epocas, fitness(mejorSolucionGlobal));
+        } else {
+            System.out.printf("Época %d: Mejor global=%.2f%n", epoca, fitness(mejorSolucionGlobal));
+        }
+    }
+
+    private static double fitness(Solucion s) {
+        return (s == null) ? Double.NEGATIVE_INFINITY : s.getFitness();
+    }
+
+    /**
+     * Corre la tarea en todas las colonias y espera a que terminen
+     */
+    private void enParalelo(ExecutorService ejecutor, Consumer<ACSMoraPack> tarea) {
+        List<Future<?>> futuros = new ArrayList<>();
+        for (ACSMoraPack acs : colonias) {
+            futuros.add(ejecutor.submit(() -> tarea.accept(acs)));
+        }
+        esperar(futuros, "Error en una colonia ACS");
+    }
+
+    private void esperar(List<Future<?>> futuros, String mensajeError) {
+        try {
+            for (Future<?> futuro : futuros) {
+                futuro.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ACS multicolonia interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(mensajeError, e.getCause());
+        }
+    }
+
+    /**
+     * Por colonia: modo y parámetros, mejor fitness, historial por época, semillas
+     * recibidas y estadísticas de feromonas; y el resumen global
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("topologia", topologia.name());
+        stats.put("epocas", epocasRealizadas);
+        stats.put("tiempoSemillasMs", tiempoSemillasMs);
+        stats.put("tiempoMs", tiempoMs);
+        stats.put("mejorFitness", mejorSolucionGlobal == null ? null : mejorSolucionGlobal.getFitness());
+
+        List<Map<String, Object>> porColonia = new ArrayList<>();
+        for (int i = 0; i < colonias.size(); i++) {
+            ACSMoraPack acs = colonias.get(i);
+            Map<String, Object> colonia = new LinkedHashMap<>();
+            colonia.put("colonia", i);
+            colonia.put("alfa", acs.alfa);
+            colonia.put("beta", acs.beta);
+            colonia.put("rho", acs.rho);
+            colonia.put("xi", acs.xi);
+            colonia.put("mejorFitness", acs.getMejorHastaAhora() == null ? null : acs.getMejorHastaAhora().getFitness());
+            if (historialPorColonia != null) {
+                colonia.put("historialMejor", new ArrayList<>(historialPorColonia.get(i)));
+                colonia.put("semillasRecibidas", semillasRecibidas[i]);
+            }
+            colonia.putAll(acs.obtenerEstadisticasFeromonas());
+            porColonia.add(colonia);
+        }
+        stats.put("colonias", porColonia);
+        return stats;
+    }
+
+    public PoolElite getPoolElite() {
+        return poolElite;
+    }
+
+    public Solucion getMejorSolucionGlobal() {
+        return mejorSolucionGlobal;
+    }
+
+    // Setters para configuración
+    public void setTopologia(TopologiaMigracion topologia) {
+        this.topologia = (topologia == null) ? TopologiaMigracion.ANILLO : topologia;
+    }
+
+    public void setSemillasGrasp(int semillasGrasp) {
+        this.semillasGrasp = Math.max(1, semillasGrasp);
+    }
+
+    /**
+     * Semillas ya generadas (p. ej. por el híbrido); si se dan, no se corre GRASP
+     */
+    public void setSemillas(List<Solucion> semillas) {
+        this.semillasExternas = (semillas == null) ? null : new ArrayList<>(semillas);
+    }
+
+    public void setHormigasPorColonia(int hormigasPorColonia) {
+        this.hormigasPorColonia = Math.max(1, hormigasPorColonia);
+    }
+
+    public void setNumeroIteraciones(int numeroIteraciones) {
+        this.numeroIteraciones = Math.max(1, numeroIteraciones);
+    }
+
+    public void setIntervaloIntercambio(int intervaloIntercambio) {
+        this.intervaloIntercambio = Math.max(1, intervaloIntercambio);
+    }
+
+    public void setPesoMezcla(double pesoMezcla) {
+        this.pesoMezcla = Math.max(0.0, Math.min(1.0, pesoMezcla));
+    }
+
+    /**
+     * Las hormigas de todas las colonias dejan sus rutas en el pool de columnas
+     */
+    public void setPoolColumnas(PoolColumnas poolColumnas) {
+        this.poolColumnas = poolColumnas;
+    }
+
+    public void setHilos(int hilos) {
+        this.hilos = Math.max(1, hilos);
+    }
+
+    public void setSemilla(long semilla) {
+        this.semilla = semilla;
+    }
+}
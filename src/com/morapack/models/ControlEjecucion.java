@@ -0,0 +1,137 @@
+package com.morapack.models;
+
+import java.util.*;
+
+/**
+ * Control cooperativo de un algoritmo que corre dentro de un portafolio.
+ * El algoritmo pregunta {@link #debeContinuar()} entre pasos y publica cada resultado
+ * con {@link #reportar(Solucion)}: así se actualizan su mejor propio (con la hora de
+ * cada mejora, para medir su ritmo) y el incumbente compartido con los demás.
+ * El portafolio puede cancelarlo; el plazo es el mismo para todos. Si hay pool de
+ * columnas, cada solución reportada deja ahí sus rutas para el pulido final.
+ */
+public class ControlEjecucion {
+
+    private final String nombre;
+    private final PoolElite incumbente;     // compartido: capacidad 1, siempre el mejor
+    private final long inicioMillis;
+    private final long limiteMillis;
+    private PoolColumnas columnas;          // null = no se juntan rutas
+
+    private volatile boolean cancelado;
+    private volatile boolean terminado;
+    private long finMillis;
+
+    // Mejor propio e historial de mejoras (instante, fitness)
+    private Solucion mejor;
+    private final List<Long> instantesMejora = new ArrayList<>();
+    private final List<Double> fitnessMejora = new ArrayList<>();
+    private int aportesAlIncumbente;
+    private int reportes;
+    private long primerReporteMillis;
+
+    public ControlEjecucion(String nombre, PoolElite incumbente, long inicioMillis, long limiteMillis) {
+        this.nombre = nombre;
+        this.incumbente = incumbente;
+        this.inicioMillis = inicioMillis;
+        this.limiteMillis = limiteMillis;
+    }
+
+    /**
+     * false si se canceló, venció el plazo o el hilo fue interrumpido
+     */
+    public boolean debeContinuar() {
+        return !cancelado && System.currentTimeMillis() < limiteMillis && !Thread.currentThread().isInterrupted();
+    }
+
+    public synchronized void reportar(Solucion solucion) {
+        if (solucion == null || solucion.getSolucionLogistica() == null) return;
+        if (reportes++ == 0) primerReporteMillis = System.currentTimeMillis();
+        if (mejor == null || solucion.getFitness() > mejor.getFitness()) {
+            mejor = solucion;
+            instantesMejora.add(System.currentTimeMillis());
+            fitnessMejora.add(solucion.getFitness());
+        }
+        if (incumbente.agregar(solucion)) aportesAlIncumbente++;
+        if (columnas != null) columnas.agregar(solucion);
+    }
+
+    /**
+     * Mejora del propio mejor en los últimos {@code ventanaMs}, en puntos de fitness por
+     * segundo (0 si no mejoró en la ventana)
+     */
+    public synchronized double tasaMejora(long ventanaMs) {
+        if (mejor == null) return 0.0;
+        long ahora = System.currentTimeMillis();
+        long desde = ahora - ventanaMs;
+        double fitnessAlInicio = Double.NaN;
+        for (int i = 0; i < instantesMejora.size(); i++) {
+            if (instantesMejora.get(i) <= desde) fitnessAlInicio = fitnessMejora.get(i);
+        }
+        if (Double.isNaN(fitnessAlInicio)) {
+            // Todas las mejoras caen dentro de la ventana: se mide desde la primera
+            if (instantesMejora.size() < 2) return 0.0;
+            long transcurrido = Math.max(1, ahora - instantesMejora.get(0));
+            return (mejor.getFitness() - fitnessMejora.get(0)) * 1000.0 / transcurrido;
+        }
+        return (mejor.getFitness() - fitnessAlInicio) * 1000.0 / Math.max(1, ventanaMs);
+    }
+
+    /**
+     * true si ya hay ritmo medido: al menos dos reportes y una ventana completa desde el
+     * primero (antes de eso, un ritmo 0 solo significa que todavía está arrancando)
+     */
+    public synchronized boolean tieneRitmoMedido(long ventanaMs) {
+        return reportes >= 2 && System.currentTimeMillis() - primerReporteMillis >= ventanaMs;
+    }
+
+    public Solucion getIncumbente() {
+        return incumbente.getMejor();
+    }
+
+    public synchronized Solucion getMejor() {
+        return mejor;
+    }
+
+    public synchronized int getAportesAlIncumbente() {
+        return aportesAlIncumbente;
+    }
+
+    public long getMillisRestantes() {
+        return Math.max(0, limiteMillis - System.currentTimeMillis());
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    void setColumnas(PoolColumnas columnas) {
+        this.columnas = columnas;
+    }
+
+    void cancelar() {
+        if (!terminado) {
+            cancelado = true;
+        }
+    }
+
+    synchronized void marcarTerminado() {
+        terminado = true;
+        finMillis = System.currentTimeMillis();
+    }
+
+    public boolean estaCancelado() {
+        return cancelado;
+    }
+
+    public boolean estaTerminado() {
+        return terminado;
+    }
+
+    /**
+     * Tiempo de reloj desde el inicio hasta que terminó (o hasta ahora si sigue)
+     */
+    public synchronized long getTiempoMs() {
+        return (terminado ? finMillis : System.currentTimeMillis()) - inicioMillis;
+    }
+}
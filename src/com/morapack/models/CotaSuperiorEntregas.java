@@ -0,0 +1,400 @@
+package com.morapack.models;
+
+import java.util.*;
+
+/**
+ * Cota superior de pedidos entregables, para medir qué tan lejos está una solución del
+ * óptimo. Es la relajación lineal del problema como flujo sobre la red expandida en el
+ * tiempo, con todos los vuelos y almacenes compartidos:
+ *   - fuente → un nodo de liberación por pedido, con su cantidad, y de ahí a la primera
+ *     salida de cada fábrica después de su registro: antes de registrarse ningún pedido
+ *     hay paquetes para despachar (las fábricas no tienen otro límite)
+ *   - salidas de cada aeropuerto encadenadas en el tiempo (esperar no tiene límite)
+ *   - vuelo = arco de su salida a su llegada, con la capacidad del vuelo
+ *   - almacenes: las llegadas de una misma franja de 2 h conviven en algún instante, así que
+ *     la franja es un nodo con capacidad (capacidad − ocupación base); de ahí sigue a la
+ *     primera salida posterior al inicio de la franja + 1 h de conexión, o a la entrega
+ *   - entrega: las franjas del destino van a una cadena que retrocede en el tiempo; cada
+ *     pedido toma de la franja de su registro (le sirve lo que llega después) y es su propio
+ *     sumidero, hasta su cantidad
+ * Se maximiza Σ flujo_p / cantidad_p (pedidos fraccionarios). Los flujos que pueden llegar
+ * a los pedidos forman un polimatroide, así que el voraz es exacto: se abren los pedidos
+ * de menor a mayor cantidad y cada uno recibe todo el flujo adicional que la red admita.
+ * Antes se descartan los pedidos sin ningún camino, saliendo de una fábrica después de su
+ * registro, en el que todos los vuelos y franjas admitan su cantidad completa (un pedido no
+ * se parte). Relajaciones (agrandan la cota, nunca la achican): pedidos divisibles dentro
+ * del flujo, franjas fijas de 2 h en vez de ventana deslizante, cualquier cantidad de
+ * escalas, paquetes sin etiqueta de pedido y el SLA sin medir; por eso acota también a los
+ * pedidos a tiempo, que es lo que compara {@link #gap(Solucion)}.
+ */
+public class CotaSuperiorEntregas {
+
+    private static final long CONEXION_MINIMA_SEGUNDOS = 3600;
+    private static final long SEGUNDOS_FRANJA = LineaTiempoAlmacen.HORAS_LIBERACION * 3600L;
+    private static final int INFINITO = Integer.MAX_VALUE / 2;
+    private static final double TOLERANCIA = 1e-9;
+    private static final int FUENTE = 0;
+
+    private final List<Pedido> pedidos;
+    private final GrafoVuelos grafo;
+
+    // Resultado del último cálculo
+    private int cota = -1;
+    private double cotaFraccionaria;
+    private long paquetesCota;
+    private int pedidosCompletos;
+    private int pedidosSinCamino;         // ningún camino admite la cantidad completa
+    private int pedidosSinFlujo;
+    private int[][] salidasPedido;         // nodos de primera salida de cada fábrica tras el registro
+    private final Map<String, Double> cotaPorDestino = new LinkedHashMap<>();
+    private int nodos;
+    private int arcos;
+    private long tiempoCalculoMs;
+
+    public CotaSuperiorEntregas(List<Pedido> pedidos, List<Vuelo> vuelos) {
+        this.pedidos = new ArrayList<>(pedidos);
+        List<Vuelo> operativos = new ArrayList<>();
+        for (Vuelo vuelo : vuelos) {
+            if (!vuelo.estaCancelado()) operativos.add(vuelo);
+        }
+        this.grafo = new GrafoVuelos(operativos);
+    }
+
+    /**
+     * Calcula la cota (la primera vez; después devuelve la guardada)
+     */
+    public synchronized int calcular() {
+        if (cota >= 0) return cota;
+        long inicio = System.currentTimeMillis();
+
+        List<Pedido> ordenados = new ArrayList<>();
+        for (Pedido p : pedidos) {
+            if (p.getCantidad() > 0 && p.getFechaRegistro() != null && p.getLugarDestino() != null
+                    && grafo.indiceAeropuerto(p.getLugarDestino().getCodigo()) >= 0) {
+                ordenados.add(p);
+            } else {
+                pedidosSinCamino++;
+            }
+        }
+        ordenados.sort(Comparator.comparingInt(Pedido::getCantidad));
+
+        RedFlujo red = construirRed(ordenados);
+        boolean[] conCamino = new boolean[ordenados.size()];
+        for (int k = 0; k < ordenados.size(); k++) {   // antes de empujar: capacidades originales
+            conCamino[k] = red.alcanza(salidasPedido[k], nodoPedido(k), ordenados.get(k).getCantidad());
+        }
+        for (int k = 0; k < ordenados.size(); k++) {
+            Pedido p = ordenados.get(k);
+            if (!conCamino[k]) {
+                pedidosSinCamino++;
+                continue;
+            }
+            int flujo = red.flujoMaximo(FUENTE, nodoPedido(k), p.getCantidad());
+            paquetesCota += flujo;
+            double fraccion = flujo / (double) p.getCantidad();
+            cotaFraccionaria += fraccion;
+            cotaPorDestino.merge(p.getLugarDestino().getCodigo(), fraccion, Double::sum);
+            if (flujo == p.getCantidad()) pedidosCompletos++;
+            if (flujo == 0) pedidosSinFlujo++;
+        }
+
+        cota = (int) Math.floor(cotaFraccionaria + TOLERANCIA);
+        tiempoCalculoMs = System.currentTimeMillis() - inicio;
+        return cota;
+    }
+
+    /* ========= Red expandida en el tiempo ========= */
+
+    private static int nodoPedido(int k) {
+        return 1 + k;
+    }
+
+    /**
+     * Arma la red; el pedido k (en el orden dado) queda en {@link #nodoPedido(int)}. Los
+     * pedidos no tienen arco de salida: el voraz empuja hasta cada uno por separado, y como
+     * ningún camino aumentante sale de un pedido, el flujo de los ya atendidos no baja
+     */
+    private RedFlujo construirRed(List<Pedido> ordenados) {
+        int n = grafo.getCantidadAeropuertos();
+        int siguienteNodo = 1 + ordenados.size();
+        int primeraLiberacion = siguienteNodo;            // nodo de liberación del pedido k
+        siguienteNodo += ordenados.size();
+
+        int[][] nodoSalida = new int[n][];
+        for (int a = 0; a < n; a++) {
+            nodoSalida[a] = new int[grafo.salidasDesde(a).length];
+            for (int i = 0; i < nodoSalida[a].length; i++) nodoSalida[a][i] = siguienteNodo++;
+        }
+
+        // Franjas con llegadas, en orden de tiempo por aeropuerto: (entrada, salida, entrega)
+        List<TreeMap<Long, Integer>> franjas = new ArrayList<>();
+        for (int a = 0; a < n; a++) franjas.add(new TreeMap<>());
+        for (int vuelo = 0; vuelo < grafo.getCantidadVuelos(); vuelo++) {
+            TreeMap<Long, Integer> delDestino = franjas.get(grafo.destinoDe(vuelo));
+            long franja = Math.floorDiv(grafo.llegadaDe(vuelo), SEGUNDOS_FRANJA);
+            if (!delDestino.containsKey(franja)) {
+                delDestino.put(franja, siguienteNodo);
+                siguienteNodo += 3;
+            }
+        }
+
+        RedFlujo red = new RedFlujo(siguienteNodo);
+        for (int a = 0; a < n; a++) {
+            int[] salidas = grafo.salidasDesde(a);
+            for (int i = 0; i < salidas.length; i++) {
+                if (i + 1 < salidas.length) red.agregarArco(nodoSalida[a][i], nodoSalida[a][i + 1], INFINITO);
+                int vuelo = salidas[i];
+                long franja = Math.floorDiv(grafo.llegadaDe(vuelo), SEGUNDOS_FRANJA);
+                int entrada = franjas.get(grafo.destinoDe(vuelo)).get(franja);
+                red.agregarArco(nodoSalida[a][i], entrada, grafo.getVuelo(vuelo).getCapacidadMaxima());
+            }
+        }
+        for (int a = 0; a < n; a++) {
+            Aeropuerto almacen = grafo.getAeropuerto(a);
+            int capacidadLibre = Math.max(0, almacen.getCapacidad() - almacen.getCapacidadAct());
+            int[] salidas = grafo.salidasDesde(a);
+            int entregaPosterior = -1;
+            // De la última franja a la primera: la entrega de cada franja recibe lo de las siguientes
+            for (Map.Entry<Long, Integer> e : franjas.get(a).descendingMap().entrySet()) {
+                int entrada = e.getValue();
+                red.agregarArco(entrada, entrada + 1, capacidadLibre);
+                red.agregarArco(entrada + 1, entrada + 2, INFINITO);
+                if (entregaPosterior >= 0) red.agregarArco(entregaPosterior, entrada + 2, INFINITO);
+                entregaPosterior = entrada + 2;
+
+                long conexion = e.getKey() * SEGUNDOS_FRANJA + CONEXION_MINIMA_SEGUNDOS;
+                int siguiente = grafo.primeraSalidaDespues(salidas, conexion);
+                if (siguiente < salidas.length) red.agregarArco(entrada + 1, nodoSalida[a][siguiente], INFINITO);
+            }
+        }
+
+        // Cada pedido toma desde la franja de su destino que contiene su registro (que puede
+        // empezar hasta 2 h antes) en adelante: relaja un poco más, la cota sigue siendo válida
+        for (int k = 0; k < ordenados.size(); k++) {
+            Pedido p = ordenados.get(k);
+            int destino = grafo.indiceAeropuerto(p.getLugarDestino().getCodigo());
+            long franjaRegistro = Math.floorDiv(GrafoVuelos.aSegundos(p.getFechaRegistro()), SEGUNDOS_FRANJA);
+            Map.Entry<Long, Integer> desde = franjas.get(destino).ceilingEntry(franjaRegistro);
+            if (desde != null) red.agregarArco(desde.getValue() + 2, nodoPedido(k), INFINITO);
+        }
+
+        // Primeras salidas de cada fábrica después de cada registro: por ahí entra a la red la
+        // cantidad del pedido (y parte el camino ancho del filtro)
+        salidasPedido = new int[ordenados.size()][];
+        for (int k = 0; k < ordenados.size(); k++) {
+            long registro = GrafoVuelos.aSegundos(ordenados.get(k).getFechaRegistro());
+            List<Integer> origenes = new ArrayList<>();
+            for (String codigo : Solucion.FABRICAS) {
+                int fabrica = grafo.indiceAeropuerto(codigo);
+                if (fabrica < 0) continue;
+                int primera = grafo.primeraSalidaDespues(grafo.salidasDesde(fabrica), registro);
+                if (primera < nodoSalida[fabrica].length) origenes.add(nodoSalida[fabrica][primera]);
+            }
+            salidasPedido[k] = origenes.stream().mapToInt(Integer::intValue).toArray();
+
+            int liberacion = primeraLiberacion + k;
+            red.agregarArco(FUENTE, liberacion, ordenados.get(k).getCantidad());
+            for (int origen : salidasPedido[k]) red.agregarArco(liberacion, origen, INFINITO);
+        }
+
+        nodos = siguienteNodo;
+        arcos = red.getCantidadArcos();
+        return red;
+    }
+
+    /* ========= Brecha ========= */
+
+    /**
+     * Pedidos de la solución que llegan dentro del SLA (la medida del fitness)
+     */
+    public static int pedidosATiempo(Solucion solucion) {
+        if (solucion == null || solucion.getSolucionLogistica() == null) return 0;
+        int aTiempo = 0;
+        for (RutaPedido ruta : solucion.getSolucionLogistica().getAsignacionPedidos().values()) {
+            if (ruta != null && Solucion.esPedidoATiempo(ruta)) aTiempo++;
+        }
+        return aTiempo;
+    }
+
+    /**
+     * Brecha relativa (cota − a tiempo) / cota; 0 si la solución alcanza la cota
+     */
+    public double gap(Solucion solucion) {
+        int cotaCalculada = calcular();
+        if (cotaCalculada == 0) return 0.0;
+        return Math.max(0, cotaCalculada - pedidosATiempo(solucion)) / (double) cotaCalculada;
+    }
+
+    public boolean dentroDelGap(Solucion solucion, double gapObjetivo) {
+        return solucion != null && gap(solucion) <= gapObjetivo;
+    }
+
+    public int getCota() {
+        return calcular();
+    }
+
+    /**
+     * Pedidos (fraccionarios) que la relajación entrega en cada destino
+     */
+    public synchronized Map<String, Double> getCotaPorDestino() {
+        calcular();
+        return new LinkedHashMap<>(cotaPorDestino);
+    }
+
+    public synchronized Map<String, Object> obtenerEstadisticas() {
+        calcular();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cota", cota);
+        stats.put("cotaFraccionaria", cotaFraccionaria);
+        stats.put("pedidos", pedidos.size());
+        stats.put("pedidosCompletos", pedidosCompletos);
+        stats.put("pedidosSinCamino", pedidosSinCamino);
+        stats.put("pedidosSinFlujo", pedidosSinFlujo);
+        stats.put("paquetesCota", paquetesCota);
+        stats.put("nodos", nodos);
+        stats.put("arcos", arcos);
+        stats.put("tiempoCalculoMs", tiempoCalculoMs);
+        return stats;
+    }
+
+    /* ========= Flujo máximo (Dinic) ========= */
+
+    /**
+     * Red de flujo en arreglos: el arco i y su reverso i ^ 1 van juntos. El flujo queda en la
+     * red entre llamadas (el voraz lo acumula). La búsqueda de caminos aumentantes es
+     * iterativa porque las cadenas de espera tienen miles de nodos.
+     */
+    private static final class RedFlujo {
+        private final int nodos;
+        private final int[] cabeza;
+        private int[] destino = new int[1024];
+        private int[] siguiente = new int[1024];
+        private int[] capacidad = new int[1024];
+        private int arcos;
+
+        private final int[] nivel;
+        private final int[] actual;
+        private final int[] cola;
+        private final int[] arcoCamino;
+        private final int[] visitado;
+        private int marca;
+
+        RedFlujo(int nodos) {
+            this.nodos = nodos;
+            this.cabeza = new int[nodos];
+            Arrays.fill(cabeza, -1);
+            this.nivel = new int[nodos];
+            this.actual = new int[nodos];
+            this.cola = new int[nodos];
+            this.arcoCamino = new int[nodos];
+            this.visitado = new int[nodos];
+        }
+
+        void agregarArco(int desde, int hasta, int cap) {
+            if (arcos + 2 > destino.length) {
+                int nuevo = destino.length * 2;
+                destino = Arrays.copyOf(destino, nuevo);
+                siguiente = Arrays.copyOf(siguiente, nuevo);
+                capacidad = Arrays.copyOf(capacidad, nuevo);
+            }
+            destino[arcos] = hasta;
+            capacidad[arcos] = cap;
+            siguiente[arcos] = cabeza[desde];
+            cabeza[desde] = arcos++;
+            destino[arcos] = desde;
+            capacidad[arcos] = 0;
+            siguiente[arcos] = cabeza[hasta];
+            cabeza[hasta] = arcos++;
+        }
+
+        int getCantidadArcos() { return arcos / 2; }
+
+        /**
+         * ¿Se llega a {@code t} desde algún origen usando solo arcos con capacidad ≥ umbral?
+         */
+        boolean alcanza(int[] origenes, int t, int umbral) {
+            marca++;
+            int ini = 0, fin = 0;
+            for (int origen : origenes) {
+                if (visitado[origen] != marca) {
+                    visitado[origen] = marca;
+                    cola[fin++] = origen;
+                }
+            }
+            while (ini < fin) {
+                int v = cola[ini++];
+                if (v == t) return true;
+                for (int e = cabeza[v]; e >= 0; e = siguiente[e]) {
+                    if (capacidad[e] >= umbral && visitado[destino[e]] != marca) {
+                        visitado[destino[e]] = marca;
+                        cola[fin++] = destino[e];
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Empuja de s a t todo lo que se pueda, como mucho {@code limite}
+         */
+        int flujoMaximo(int s, int t, int limite) {
+            int total = 0;
+            while (total < limite && niveles(s, t)) {
+                System.arraycopy(cabeza, 0, actual, 0, nodos);
+                int f;
+                while (total < limite && (f = aumentar(s, t, limite - total)) > 0) total += f;
+            }
+            return total;
+        }
+
+        private boolean niveles(int s, int t) {
+            Arrays.fill(nivel, -1);
+            int ini = 0, fin = 0;
+            nivel[s] = 0;
+            cola[fin++] = s;
+            while (ini < fin) {
+                int v = cola[ini++];
+                if (nivel[t] >= 0 && nivel[v] >= nivel[t]) break;   // lo demás no está en ningún camino corto
+                for (int e = cabeza[v]; e >= 0; e = siguiente[e]) {
+                    if (capacidad[e] > 0 && nivel[destino[e]] < 0) {
+                        nivel[destino[e]] = nivel[v] + 1;
+                        cola[fin++] = destino[e];
+                    }
+                }
+            }
+            return nivel[t] >= 0;
+        }
+
+        /**
+         * Un camino aumentante en el grafo de niveles (con arco actual por nodo); 0 si no hay
+         */
+        private int aumentar(int s, int t, int tope) {
+            int v = s;
+            int profundidad = 0;
+            while (true) {
+                if (v == t) {
+                    int cuello = tope;
+                    for (int i = 0; i < profundidad; i++) cuello = Math.min(cuello, capacidad[arcoCamino[i]]);
+                    for (int i = 0; i < profundidad; i++) {
+                        capacidad[arcoCamino[i]] -= cuello;
+                        capacidad[arcoCamino[i] ^ 1] += cuello;
+                    }
+                    return cuello;
+                }
+                int e = actual[v];
+                while (e >= 0 && (capacidad[e] <= 0 || nivel[destino[e]] != nivel[v] + 1)) e = siguiente[e];
+                actual[v] = e;
+                if (e >= 0) {
+                    arcoCamino[profundidad++] = e;
+                    v = destino[e];
+                } else {
+                    // Callejón sin salida: se descarta el nodo y se retrocede un paso
+                    nivel[v] = -1;
+                    if (profundidad == 0) return 0;
+                    v = destino[arcoCamino[--profundidad] ^ 1];
+                    actual[v] = siguiente[actual[v]];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.morapack.models;
+
+/**
+ * Orden en que GRASP construye las rutas de los pedidos
+ */
+public enum EstrategiaOrdenPedidos {
+    /** Orden del archivo de pedidos (comportamiento original) */
+    ORDEN_ARCHIVO,
+    /** Primero el que vence antes: registro + SLA (48h mismo continente que una fábrica, 72h si no) */
+    FECHA_LIMITE,
+    /** Primero los pedidos con más paquetes, antes de que la capacidad se fragmente */
+    MAYOR_CANTIDAD,
+    /** Primero los pedidos con menos rutas factibles con la capacidad que queda (dinámico) */
+    MENOS_RUTAS,
+    /** Primero los pedidos que más pierden si no reciben su mejor ruta: k-regret (dinámico) */
+    REGRET;
+
+    public boolean esDinamica() {
+        return this == MENOS_RUTAS || this == REGRET;
+    }
+}
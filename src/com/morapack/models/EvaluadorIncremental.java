@@ -0,0 +1,245 @@
+package com.morapack.models;
+
+import java.util.*;
+
+/**
+ * Evaluación incremental del fitness de Solucion.
+ * Mantiene los agregados de cada componente (pedidos a tiempo, atrasos, carga y
+ * eficiencia de vuelos, libro temporal de almacenes, calidad de rutas, fábricas
+ * inválidas) y los actualiza al asignar o quitar la ruta de UN pedido, así que
+ * evaluar un movimiento cuesta lo que mide la ruta y no toda la solución.
+ * Usa las mismas fórmulas que Solucion (ver Solucion.combinarFitness).
+ */
+public final class EvaluadorIncremental {
+
+    private final int totalPedidosProblema;
+    private final Map<Pedido, RutaPedido> asignacion;
+    private final Map<Vuelo, int[]> cargaVuelos;      // Vuelo no redefine equals: identidad
+    private final OcupacionAlmacenes ocupacion;
+
+    private int pedidosATiempo;
+    private double sumaAtrasos;
+    private int pedidosConAtraso;
+    private int vuelosConExceso;
+    private double penalizacionVuelos;
+    private double sumaEficiencias;
+    private int vuelosValidos;
+    private double sumaCalidad;
+    private int pedidosFabricaInvalida;
+    private long huella;                               // ✅ NUEVO: huella Zobrist de la asignación
+
+    public EvaluadorIncremental(Solucion solucion) {
+        this(solucion.getSolucionLogistica().getAsignacionPedidos(),
+                solucion.getTotalPedidosProblema());
+    }
+
+    public EvaluadorIncremental(Map<Pedido, RutaPedido> asignacionInicial, int totalPedidosProblema) {
+        this.totalPedidosProblema = totalPedidosProblema;
+        this.asignacion = new LinkedHashMap<>();
+        this.cargaVuelos = new HashMap<>();
+        this.ocupacion = new OcupacionAlmacenes();
+        if (asignacionInicial != null) {
+            for (Map.Entry<Pedido, RutaPedido> entry : asignacionInicial.entrySet()) {
+                asignar(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private EvaluadorIncremental(EvaluadorIncremental otro) {
+        this.totalPedidosProblema = otro.totalPedidosProblema;
+        this.asignacion = new LinkedHashMap<>(otro.asignacion);
+        this.cargaVuelos = new HashMap<>();
+        for (Map.Entry<Vuelo, int[]> entry : otro.cargaVuelos.entrySet()) {
+            cargaVuelos.put(entry.getKey(), new int[]{entry.getValue()[0]});
+        }
+        this.ocupacion = otro.ocupacion.copiar();
+        this.pedidosATiempo = otro.pedidosATiempo;
+        this.sumaAtrasos = otro.sumaAtrasos;
+        this.pedidosConAtraso = otro.pedidosConAtraso;
+        this.vuelosConExceso = otro.vuelosConExceso;
+        this.penalizacionVuelos = otro.penalizacionVuelos;
+        this.sumaEficiencias = otro.sumaEficiencias;
+        this.vuelosValidos = otro.vuelosValidos;
+        this.sumaCalidad = otro.sumaCalidad;
+        this.pedidosFabricaInvalida = otro.pedidosFabricaInvalida;
+        this.huella = otro.huella;
+    }
+
+    public EvaluadorIncremental copiar() {
+        return new EvaluadorIncremental(this);
+    }
+
+    /* ========= Movimientos ========= */
+
+    /**
+     * Asigna (o reemplaza) la ruta de un pedido
+     */
+    public void asignar(Pedido pedido, RutaPedido ruta) {
+        if (pedido == null || ruta == null) return;
+        quitar(pedido);
+        asignacion.put(pedido, ruta);
+        aplicar(ruta, +1);
+    }
+
+    /**
+     * Quita la ruta del pedido (deja al pedido sin asignar)
+     * @return la ruta que tenía, o null si no estaba asignado
+     */
+    public RutaPedido quitar(Pedido pedido) {
+        RutaPedido ruta = asignacion.remove(pedido);
+        if (ruta != null) {
+            aplicar(ruta, -1);
+        }
+        return ruta;
+    }
+
+    /**
+     * Fitness que tendría la solución si el pedido usara {@code nueva} (null = sin asignar),
+     * sin dejar el cambio aplicado
+     */
+    public double evaluarCambio(Pedido pedido, RutaPedido nueva) {
+        RutaPedido anterior = asignacion.get(pedido);
+        if (nueva == null) quitar(pedido); else asignar(pedido, nueva);
+        double fitness = getFitness();
+        if (anterior == null) quitar(pedido); else asignar(pedido, anterior);
+        return fitness;
+    }
+
+    private void aplicar(RutaPedido ruta, int signo) {
+        int cantidad = ruta.getPedido().getCantidad();
+        huella ^= HuellaZobrist.clave(ruta);
+
+        if (Solucion.esPedidoATiempo(ruta)) pedidosATiempo += signo;
+        double diasAtraso = Solucion.calcularDiasAtraso(ruta);
+        if (diasAtraso > 0) {
+            pedidosConAtraso += signo;
+            sumaAtrasos += signo * Solucion.aporteAtraso(diasAtraso);
+        }
+        sumaCalidad += signo * Solucion.evaluarCalidadRuta(ruta);
+        if (!Solucion.pedidoSaleDeFabricaValida(ruta)) pedidosFabricaInvalida += signo;
+
+        for (Vuelo vuelo : ruta.getSecuenciaVuelos()) {
+            int[] carga = cargaVuelos.computeIfAbsent(vuelo, k -> new int[1]);
+            quitarAporteVuelo(vuelo, carga[0]);
+            carga[0] += signo * cantidad;
+            if (carga[0] == 0) {
+                cargaVuelos.remove(vuelo);
+            } else {
+                sumarAporteVuelo(vuelo, carga[0]);
+            }
+        }
+
+        if (signo > 0) {
+            ocupacion.reservarRuta(ruta.getSecuenciaVuelos(), cantidad);
+        } else {
+            ocupacion.liberarRuta(ruta.getSecuenciaVuelos(), cantidad);
+        }
+    }
+
+    private void sumarAporteVuelo(Vuelo vuelo, int unidades) {
+        ajustarAporteVuelo(vuelo, unidades, +1);
+    }
+
+    private void quitarAporteVuelo(Vuelo vuelo, int unidades) {
+        if (unidades != 0) ajustarAporteVuelo(vuelo, unidades, -1);
+    }
+
+    private void ajustarAporteVuelo(Vuelo vuelo, int unidades, int signo) {
+        int capacidad = vuelo.getCapacidadMaxima();
+        if (unidades > capacidad) {
+            vuelosConExceso += signo;
+            penalizacionVuelos += signo * Solucion.penalizacionExcesoVuelo(unidades, capacidad);
+        }
+        double eficiencia = Solucion.eficienciaVuelo(unidades, capacidad);
+        if (!Double.isNaN(eficiencia)) {
+            sumaEficiencias += signo * eficiencia;
+            vuelosValidos += signo;
+        }
+    }
+
+    /* ========= Fitness ========= */
+
+    public double getFitness() {
+        int asignados = asignacion.size();
+        if (asignados == 0) return -10000;
+
+        double entregaTiempo = (totalPedidosProblema == 0)
+                ? (double) pedidosATiempo / asignados * 100.0
+                : (double) pedidosATiempo / totalPedidosProblema * 100.0;
+        double minimizarAtraso = Solucion.puntuacionAtraso(sumaAtrasos, pedidosConAtraso);
+        double capacidades = Solucion.puntuacionCapacidades(vuelosConExceso, penalizacionVuelos);
+        double aprovechamiento = (vuelosValidos > 0) ? sumaEficiencias / vuelosValidos : 0.0;
+        double calidadRutas = sumaCalidad / asignados;
+        double penalizacionFabricas = pedidosFabricaInvalida * Solucion.PENALIZACION_FABRICA_INVALIDA;
+
+        return Solucion.combinarFitness(entregaTiempo, minimizarAtraso, capacidades,
+                puntuacionAlmacenes(), aprovechamiento, calidadRutas, penalizacionFabricas);
+    }
+
+    private double puntuacionAlmacenes() {
+        int violaciones = 0;
+        double penalizacionTotal = 0.0;
+        int almacenesEvaluados = 0;
+        for (LineaTiempoAlmacen linea : ocupacion.getLineas()) {
+            if (linea.getReservas() == 0) continue;
+            almacenesEvaluados++;
+            violaciones += linea.getLlegadasConExceso();
+            penalizacionTotal += Solucion.penalizacionExcesoAlmacen(linea.getExcesoEnLlegadas());
+        }
+        return Solucion.puntuacionAlmacenes(violaciones, penalizacionTotal, almacenesEvaluados);
+    }
+
+    /* ========= Consultas ========= */
+
+    /**
+     * Sin vuelos sobrecargados ni llegadas que excedan la capacidad de un almacén
+     */
+    public boolean esFactible() {
+        if (vuelosConExceso > 0) return false;
+        for (LineaTiempoAlmacen linea : ocupacion.getLineas()) {
+            if (linea.getLlegadasConExceso() > 0) return false;
+        }
+        return true;
+    }
+
+    public boolean estaAsignado(Pedido pedido) {
+        return asignacion.containsKey(pedido);
+    }
+
+    public RutaPedido getRuta(Pedido pedido) {
+        return asignacion.get(pedido);
+    }
+
+    public Map<Pedido, RutaPedido> getAsignacion() {
+        return Collections.unmodifiableMap(asignacion);
+    }
+
+    public int getCargaVuelo(Vuelo vuelo) {
+        int[] carga = cargaVuelos.get(vuelo);
+        return (carga == null) ? 0 : carga[0];
+    }
+
+    public OcupacionAlmacenes getOcupacion() {
+        return ocupacion;
+    }
+
+    public int getTotalPedidosProblema() {
+        return totalPedidosProblema;
+    }
+
+    /**
+     * Huella de 64 bits de la asignación: igual para asignaciones iguales (ver HuellaZobrist)
+     */
+    public long getHuella() {
+        return huella;
+    }
+
+    /**
+     * Arma una Solucion independiente con la asignación actual
+     */
+    public Solucion aSolucion() {
+        SolucionLogistica solucionLogistica = new SolucionLogistica();
+        solucionLogistica.setAsignacionPedidos(new LinkedHashMap<>(asignacion));
+        return new Solucion(solucionLogistica, totalPedidosProblema, getFitness());
+    }
+}
@@ -0,0 +1,32 @@
+package com.morapack.models;
+
+/**
+ * Puntuación de una ruta candidata durante la construcción GRASP (mayor = mejor).
+ * Las rutas tienen 1 tramo (directa) o 2 tramos (una escala); se pasan los vuelos
+ * sueltos y su carga actual para no armar listas por cada candidato.
+ */
+public interface FuncionPuntuacionRuta {
+
+    /**
+     * @param primero         primer tramo
+     * @param segundo         segundo tramo, o null si la ruta es directa
+     * @param cargaPrimero    paquetes ya asignados al primer tramo
+     * @param cargaSegundo    paquetes ya asignados al segundo tramo (0 si es directa)
+     */
+    double puntuar(Vuelo primero, Vuelo segundo, int cargaPrimero, int cargaSegundo);
+
+    /**
+     * Cota superior de la puntuación de cualquier ruta con esa cantidad de tramos.
+     * Permite al generador top-k descartar clases completas de rutas sin evaluarlas.
+     */
+    default double cotaSuperior(int tramos) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Cota inferior de la puntuación de cualquier ruta con esa cantidad de tramos
+     */
+    default double cotaInferior(int tramos) {
+        return Double.NEGATIVE_INFINITY;
+    }
+}
@@ -2,6 +2,7 @@ package com.morapack.models;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -17,12 +18,44 @@ public class GeneticAlgorithmMoraPack {
     private double tasaCruzamiento;
     private int torneo; // Tamaño del torneo para selección
     private List<Solucion> semillasIniciales;
+    private boolean graspEnPoblacionInicial;    // ✅ NUEVO: false = el resto se completa al azar
+
+    // ✅ NUEVO: Modo estacionario
+    private boolean modoEstacionario;
+    private PoliticaReemplazo politicaReemplazo;
+    private long presupuestoTiempoMs;   // 0 = sin límite de tiempo
+    private CotaSuperiorEntregas cotaSuperior;   // ✅ NUEVO: null = siempre numeroGeneraciones
+    private PoolColumnas poolColumnas;           // ✅ NUEVO: rutas de la población y los hijos (null = no)
+    private double gapObjetivo;
+    private Solucion ultimaVerificadaGap;       // el gap solo se recalcula cuando cambia el mejor
+    private boolean gapAlcanzado;
+    private EvaluadorIncremental[] poblacionEstacionaria;   // preasignada; la última posición es el descarte
+    private double[] fitnessEstacionario;
+    private int mejorEstacionario;
+    private long hijosEstacionarios;
+    private int reemplazosEstacionarios;
+
+    // ✅ NUEVO: Selección adaptativa de operadores (reemplaza tasas y tipos de mutación fijos)
+    private static final String[] OPERADORES_MUTACION = {"cambiarFabrica", "cambiarTipoRuta", "regenerarRuta", "sinMutacion"};
+    private static final int MUTACION_ALEATORIA = -1;      // tipo sorteado por pedido (0.4 / 0.3 / 0.3)
+    private static final int SIN_MUTACION = 3;
+    private static final String[] OPERADORES_CRUZAMIENTO = {"unPunto", "uniforme", "sinCruzamiento"};
+    private static final int CRUZAMIENTO_UN_PUNTO = 0;
+    private static final int CRUZAMIENTO_UNIFORME = 1;
+    private static final int SIN_CRUZAMIENTO = 2;
+    private boolean seleccionAdaptativa;
+    private SelectorOperadores selectorMutacion;
+    private SelectorOperadores selectorCruzamiento;
 
     // Datos del problema
     private List<Pedido> pedidos;
     private List<Vuelo> vuelos;
-    private Map<String, List<Vuelo>> vuelosPorOrigen;
     private GraspMoraPack grasp;
+    private PoolRutasMutacion poolRutas;       // ✅ NUEVO: rutas precalculadas para mutar
+    private ReparadorCapacidad reparador;       // ✅ NUEVO: reparación de hijos sobrecargados
+    private boolean repararHijos;
+    private CacheFitness cacheFitness;          // ✅ NUEVO: fitness por huella de la asignación
+    private int duplicadosRechazados;
     private Random random;
 
     // Estadísticas
@@ -33,6 +66,10 @@ public class GeneticAlgorithmMoraPack {
         this.pedidos = new ArrayList<>(pedidos);
         this.vuelos = new ArrayList<>(vuelos);
         this.grasp = new GraspMoraPack(pedidos, vuelos);
+        this.poolRutas = new PoolRutasMutacion(grasp.getGrafo());
+        this.reparador = new ReparadorCapacidad(grasp);
+        this.repararHijos = true;
+        this.cacheFitness = new CacheFitness(4096);
         this.random = new Random();
         this.historialFitness = new ArrayList<>();
 
@@ -42,19 +79,25 @@ public class GeneticAlgorithmMoraPack {
         this.tasaMutacion = 0.15;
         this.tasaCruzamiento = 0.8;
         this.torneo = 5;
-
-        inicializarVuelosPorOrigen();
+        this.modoEstacionario = false;
+        this.politicaReemplazo = PoliticaReemplazo.PEOR;
+        this.presupuestoTiempoMs = 0;
+        this.graspEnPoblacionInicial = true;
     }
 
     /**
      * Ejecuta el algoritmo genético completo
      */
     public Solucion ejecutar() {
+        if (modoEstacionario) {
+            return ejecutarEstacionario();
+        }
         System.out.println("=== INICIANDO ALGORITMO GENÉTICO ===");
         System.out.printf("Parámetros: Población=%d, Generaciones=%d, Mutación=%.2f, Cruzamiento=%.2f%n",
                 tamañoPoblacion, numeroGeneraciones, tasaMutacion, tasaCruzamiento);
 
         // Paso 1: Generar población inicial
+        prepararSelectores();
         List<Individuo> poblacion = generarPoblacionInicial();
         evaluarPoblacion(poblacion);
 
@@ -78,9 +121,14 @@ public class GeneticAlgorithmMoraPack {
                 Individuo padre1 = seleccionPorTorneo(poblacion);
                 Individuo padre2 = seleccionPorTorneo(poblacion);
 
+                if (seleccionAdaptativa) {
+                    nuevaPoblacion.addAll(variarAdaptativo(padre1, padre2));
+                    continue;
+                }
+
                 // Cruzamiento
                 if (random.nextDouble() < tasaCruzamiento) {
-                    List<Individuo> hijos = cruzamiento(padre1, padre2);
+                    List<Individuo> hijos = cruzamiento(padre1, padre2, false);
                     nuevaPoblacion.addAll(hijos);
                 } else {
                     nuevaPoblacion.add(copiarIndividuo(padre1));
@@ -95,13 +143,25 @@ public class GeneticAlgorithmMoraPack {
                 nuevaPoblacion.remove(nuevaPoblacion.size() - 1);
             }
 
-            // Mutación
-            for (int i = elite.size(); i < nuevaPoblacion.size(); i++) {
+            // Mutación (en modo adaptativo ya se aplicó al criar cada par de hijos)
+            for (int i = elite.size(); i < nuevaPoblacion.size() && !seleccionAdaptativa; i++) {
                 if (random.nextDouble() < tasaMutacion) {
-                    mutar(nuevaPoblacion.get(i));
+                    mutar(nuevaPoblacion.get(i), MUTACION_ALEATORIA);
                 }
             }
 
+            // ✅ NUEVO: Un individuo idéntico a otro (misma huella) se vuelve a mutar
+            Set<Long> huellas = new HashSet<>();
+            for (int i = 0; i < nuevaPoblacion.size(); i++) {
+                Individuo individuo = nuevaPoblacion.get(i);
+                if (huellas.add(individuo.huella) || i < elite.size()) continue;
+                duplicadosRechazados++;
+                for (int intento = 0; intento < 3 && huellas.contains(individuo.huella); intento++) {
+                    mutar(individuo, MUTACION_ALEATORIA);
+                }
+                huellas.add(individuo.huella);
+            }
+
             // Evaluar nueva población
             evaluarPoblacion(nuevaPoblacion);
             poblacion = nuevaPoblacion;
@@ -116,6 +176,13 @@ public class GeneticAlgorithmMoraPack {
 
             historialFitness.add(mejorSolucionGlobal.getFitness());
 
+            // ✅ NUEVO: Cortar apenas el mejor queda dentro del gap respecto de la cota
+            if (cotaSuperior != null && cotaSuperior.dentroDelGap(mejorSolucionGlobal, gapObjetivo)) {
+                System.out.printf("Generación %d: gap %.2f%% dentro del objetivo, se detiene%n",
+                        generacion, cotaSuperior.gap(mejorSolucionGlobal) * 100);
+                break;
+            }
+
             // Log cada 10 generaciones
             if (generacion % 10 == 0) {
                 double fitnessPromedio = poblacion.stream()
@@ -132,19 +199,432 @@ public class GeneticAlgorithmMoraPack {
         return mejorSolucionGlobal;
     }
 
+    /* ========= ✅ NUEVO: Selección adaptativa de operadores ========= */
+
+    /**
+     * Crea los selectores con las tasas actuales como probabilidades iniciales:
+     * sin cruzamiento = 1 - tasaCruzamiento (un punto y uniforme se reparten el resto),
+     * sin mutación = 1 - tasaMutacion (el resto en 0.4 / 0.3 / 0.3 como la mutación fija)
+     */
+    private void prepararSelectores() {
+        if (!seleccionAdaptativa) return;
+        selectorCruzamiento = new SelectorOperadores(OPERADORES_CRUZAMIENTO,
+                new double[]{tasaCruzamiento / 2, tasaCruzamiento / 2, 1 - tasaCruzamiento});
+        selectorMutacion = new SelectorOperadores(OPERADORES_MUTACION,
+                new double[]{0.4 * tasaMutacion, 0.3 * tasaMutacion, 0.3 * tasaMutacion, 1 - tasaMutacion});
+    }
+
+    /**
+     * Cría dos hijos con los operadores que sortean los selectores y les asigna como
+     * recompensa la mejora del mejor hijo sobre el mejor padre por ms de CPU gastado
+     */
+    private List<Individuo> variarAdaptativo(Individuo padre1, Individuo padre2) {
+        long inicio = SelectorOperadores.tiempoCpuNanos();
+        int cruce = selectorCruzamiento.elegir(random);
+        List<Individuo> hijos = (cruce == SIN_CRUZAMIENTO)
+                ? Arrays.asList(copiarIndividuo(padre1), copiarIndividuo(padre2))
+                : cruzamiento(padre1, padre2, cruce == CRUZAMIENTO_UNIFORME);
+
+        int mutacion = selectorMutacion.elegir(random);
+        double mejorHijo = Double.NEGATIVE_INFINITY;
+        for (Individuo hijo : hijos) {
+            if (mutacion != SIN_MUTACION) mutar(hijo, mutacion);
+            mejorHijo = Math.max(mejorHijo, hijo.fitness);
+        }
+
+        double mejora = Math.max(0, mejorHijo - Math.max(padre1.fitness, padre2.fitness));
+        long tiempo = SelectorOperadores.tiempoCpuNanos() - inicio;
+        selectorCruzamiento.recompensar(cruce, mejora, tiempo);
+        selectorMutacion.recompensar(mutacion, mejora, tiempo);
+        return hijos;
+    }
+
+    /* ========= ✅ NUEVO: GA estacionario ========= */
+
+    /**
+     * Variante estacionaria: cada paso cría UN hijo y, si supera al individuo que indica la
+     * política de reemplazo, ocupa su lugar en el arreglo de población (preasignado).
+     * Los individuos son evaluadores incrementales: el hijo se arma sobre un individuo de
+     * descarte sincronizándolo con el primer padre (solo se tocan los pedidos con ruta
+     * distinta) y su fitness se actualiza por deltas, sin crear una Solucion por evaluación.
+     * Se detiene a los numeroGeneraciones × tamañoPoblacion hijos, al agotar el
+     * presupuesto de tiempo o al llegar al gap objetivo, lo que ocurra primero.
+     */
+    public Solucion ejecutarEstacionario() {
+        System.out.println("=== INICIANDO ALGORITMO GENÉTICO ESTACIONARIO ===");
+        System.out.printf("Parámetros: Población=%d, Generaciones=%d, Mutación=%.2f, Cruzamiento=%.2f, Reemplazo=%s%n",
+                tamañoPoblacion, numeroGeneraciones, tasaMutacion, tasaCruzamiento, politicaReemplazo);
+        long inicio = System.currentTimeMillis();
+
+        inicializarEstacionario();
+        System.out.printf("Generación 0: Mejor fitness = %.2f%n", fitnessEstacionario[mejorEstacionario]);
+
+        long limite = (presupuestoTiempoMs > 0) ? inicio + presupuestoTiempoMs : 0;
+        evolucionarEstacionario((long) numeroGeneraciones * (poblacionEstacionaria.length - 1), limite);
+
+        System.out.println("=== ALGORITMO GENÉTICO ESTACIONARIO COMPLETADO ===");
+        System.out.printf("Hijos: %d, Reemplazos: %d, Tiempo: %d ms%n",
+                hijosEstacionarios, reemplazosEstacionarios, System.currentTimeMillis() - inicio);
+        System.out.printf("Mejor fitness final: %.2f%n", mejorSolucionGlobal.getFitness());
+
+        return mejorSolucionGlobal;
+    }
+
+    /**
+     * Genera la población inicial del GA estacionario (sin evolucionarla)
+     */
+    public void inicializarEstacionario() {
+        prepararSelectores();
+        List<Individuo> inicial = generarPoblacionInicial();
+        int n = inicial.size();
+        poblacionEstacionaria = new EvaluadorIncremental[n + 1];   // la última posición es el descarte
+        fitnessEstacionario = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            poblacionEstacionaria[i] = new EvaluadorIncremental(inicial.get(i).solucion);
+            fitnessEstacionario[i] = poblacionEstacionaria[i].getFitness();
+            if (poolColumnas != null) poolColumnas.agregar(inicial.get(i).solucion);
+        }
+        poblacionEstacionaria[n] = poblacionEstacionaria[0].copiar();
+        hijosEstacionarios = 0;
+        reemplazosEstacionarios = 0;
+
+        mejorEstacionario = 0;
+        for (int i = 1; i < n; i++) {
+            if (fitnessEstacionario[i] > fitnessEstacionario[mejorEstacionario]) mejorEstacionario = i;
+        }
+        mejorSolucionGlobal = poblacionEstacionaria[mejorEstacionario].aSolucion();
+        historialFitness.add(fitnessEstacionario[mejorEstacionario]);
+    }
+
+    /**
+     * Continúa el GA estacionario durante la cantidad de generaciones indicada
+     * (una generación = tantos hijos como individuos)
+     */
+    public void evolucionarEstacionario(int generaciones) {
+        evolucionarEstacionario((long) generaciones * (poblacionEstacionaria.length - 1), 0);
+    }
+
+    /**
+     * @param limiteMillis instante (currentTimeMillis) en que se corta, 0 = sin límite
+     */
+    private void evolucionarEstacionario(long maxHijos, long limiteMillis) {
+        EvaluadorIncremental[] poblacion = poblacionEstacionaria;
+        double[] fitness = fitnessEstacionario;
+        int n = poblacion.length - 1;
+
+        for (long paso = 0; paso < maxHijos; paso++) {
+            if (limiteMillis > 0 && System.currentTimeMillis() >= limiteMillis) break;
+            // ✅ NUEVO: mismo corte por gap que el GA generacional
+            if (objetivoGapAlcanzado()) {
+                System.out.printf("Hijo %d: gap %.2f%% dentro del objetivo, se detiene%n",
+                        hijosEstacionarios, cotaSuperior.gap(mejorSolucionGlobal) * 100);
+                break;
+            }
+
+            long inicioCpu = seleccionAdaptativa ? SelectorOperadores.tiempoCpuNanos() : 0;
+            EvaluadorIncremental hijo = poblacion[n];
+            int indicePadre1 = torneoEstacionario(fitness, n);
+            int indicePadre2 = torneoEstacionario(fitness, n);
+
+            int cruce;
+            int mutacion;
+            if (seleccionAdaptativa) {
+                cruce = selectorCruzamiento.elegir(random);
+                mutacion = selectorMutacion.elegir(random);
+            } else {
+                cruce = (random.nextDouble() < tasaCruzamiento) ? CRUZAMIENTO_UN_PUNTO : SIN_CRUZAMIENTO;
+                mutacion = (random.nextDouble() < tasaMutacion) ? MUTACION_ALEATORIA : SIN_MUTACION;
+            }
+
+            int cambios = cruzarEn(hijo, poblacion[indicePadre1], poblacion[indicePadre2], cruce);
+            if (mutacion != SIN_MUTACION) {
+                cambios += mutarEn(hijo, mutacion);
+            }
+            if (repararHijos && cambios > 0 && !hijo.esFactible()) {
+                cambios += reparador.reparar(hijo, pedidos);
+            }
+            double fitnessHijo = hijo.getFitness();
+            hijosEstacionarios++;
+
+            if (seleccionAdaptativa) {
+                double mejora = Math.max(0, fitnessHijo - Math.max(fitness[indicePadre1], fitness[indicePadre2]));
+                long tiempo = SelectorOperadores.tiempoCpuNanos() - inicioCpu;
+                selectorCruzamiento.recompensar(cruce, mejora, tiempo);
+                selectorMutacion.recompensar(mutacion, mejora, tiempo);
+            }
+
+            // Un hijo idéntico al padre o a otro individuo no aporta: no se lo deja reemplazar a nadie
+            boolean duplicado = cambios > 0 && huellaEnPoblacion(hijo.getHuella());
+            if (duplicado) duplicadosRechazados++;
+            int victima = (cambios == 0 || duplicado) ? -1
+                    : elegirVictima(poblacion, fitness, n, mejorEstacionario, fitnessHijo);
+            if (victima >= 0) {
+                aportarColumnas(hijo, poblacion[indicePadre1]);
+                poblacion[n] = poblacion[victima];
+                poblacion[victima] = hijo;
+                fitness[victima] = fitnessHijo;
+                reemplazosEstacionarios++;
+
+                if (fitnessHijo > fitness[mejorEstacionario] || victima == mejorEstacionario) {
+                    mejorEstacionario = victima;
+                    mejorSolucionGlobal = hijo.aSolucion();
+                    System.out.printf("¡Nueva mejor solución en el hijo %d! Fitness = %.2f%n",
+                            hijosEstacionarios, fitnessHijo);
+                }
+            }
+
+            // Una "generación" equivale a tantos hijos como individuos tiene la población
+            if (hijosEstacionarios % n == 0) {
+                historialFitness.add(fitness[mejorEstacionario]);
+                long generacion = hijosEstacionarios / n;
+                if (generacion % 10 == 0) {
+                    System.out.printf("Generación %d: Mejor=%.2f, Promedio=%.2f%n",
+                            generacion, fitness[mejorEstacionario], fitnessPromedioEstacionario());
+                }
+            }
+        }
+    }
+
+    /**
+     * true si hay cota superior y el mejor actual ya quedó dentro del gap objetivo
+     */
+    boolean objetivoGapAlcanzado() {
+        if (cotaSuperior == null || mejorSolucionGlobal == null) return false;
+        if (mejorSolucionGlobal != ultimaVerificadaGap) {
+            ultimaVerificadaGap = mejorSolucionGlobal;
+            gapAlcanzado = cotaSuperior.dentroDelGap(mejorSolucionGlobal, gapObjetivo);
+        }
+        return gapAlcanzado;
+    }
+
+    /**
+     * Deja en el pool de columnas las rutas del hijo que no vienen tal cual del primer padre
+     * (las que aportaron el cruce con el segundo, la mutación o la reparación)
+     */
+    private void aportarColumnas(EvaluadorIncremental hijo, EvaluadorIncremental padre) {
+        if (poolColumnas == null) return;
+        for (Pedido pedido : pedidos) {
+            RutaPedido ruta = hijo.getRuta(pedido);
+            if (ruta != null && ruta != padre.getRuta(pedido)) poolColumnas.agregarRuta(pedido, ruta);
+        }
+    }
+
+    private boolean huellaEnPoblacion(long huella) {
+        for (int i = 0; i < poblacionEstacionaria.length - 1; i++) {
+            if (poblacionEstacionaria[i].getHuella() == huella) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Copias de los k mejores individuos del GA estacionario (para migrar a otra población)
+     */
+    List<EvaluadorIncremental> copiarMejoresEstacionarios(int k) {
+        int n = poblacionEstacionaria.length - 1;
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) orden[i] = i;
+        Arrays.sort(orden, (a, b) -> Double.compare(fitnessEstacionario[b], fitnessEstacionario[a]));
+
+        List<EvaluadorIncremental> copias = new ArrayList<>();
+        for (int i = 0; i < Math.min(k, n); i++) {
+            copias.add(poblacionEstacionaria[orden[i]].copiar());
+        }
+        return copias;
+    }
+
+    /**
+     * Cada migrante reemplaza al peor individuo si lo supera y no está ya en la población
+     * @return cantidad de migrantes aceptados
+     */
+    int integrarMigrantes(List<EvaluadorIncremental> migrantes) {
+        int n = poblacionEstacionaria.length - 1;
+        int aceptados = 0;
+        for (EvaluadorIncremental migrante : migrantes) {
+            double fitnessMigrante = migrante.getFitness();
+            int peor = 0;
+            for (int i = 1; i < n; i++) {
+                if (fitnessEstacionario[i] < fitnessEstacionario[peor]) peor = i;
+            }
+            if (huellaEnPoblacion(migrante.getHuella()) || fitnessEstacionario[peor] >= fitnessMigrante) continue;
+
+            poblacionEstacionaria[peor] = migrante;
+            fitnessEstacionario[peor] = fitnessMigrante;
+            aceptados++;
+            if (fitnessMigrante > fitnessEstacionario[mejorEstacionario]) {
+                mejorEstacionario = peor;
+                mejorSolucionGlobal = migrante.aSolucion();
+            }
+        }
+        return aceptados;
+    }
+
+    /**
+     * ✅ NUEVO: Estado de la población estacionaria: mejor y promedio de fitness, diversidad
+     * (pedidos con ruta distinta a la del mejor, en promedio), hijos y reemplazos
+     */
+    public Map<String, Object> obtenerEstadisticasEstacionarias() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (poblacionEstacionaria == null) return stats;
+
+        int n = poblacionEstacionaria.length - 1;
+        double diversidad = 0.0;
+        for (int i = 0; i < n; i++) {
+            diversidad += distancia(poblacionEstacionaria[i], poblacionEstacionaria[mejorEstacionario], Integer.MAX_VALUE);
+        }
+        stats.put("mejorFitness", fitnessEstacionario[mejorEstacionario]);
+        stats.put("fitnessPromedio", fitnessPromedioEstacionario());
+        stats.put("diversidad", diversidad / n);
+        stats.put("hijos", hijosEstacionarios);
+        stats.put("reemplazos", reemplazosEstacionarios);
+        return stats;
+    }
+
+    private double fitnessPromedioEstacionario() {
+        int n = poblacionEstacionaria.length - 1;
+        double suma = 0.0;
+        for (int i = 0; i < n; i++) suma += fitnessEstacionario[i];
+        return suma / n;
+    }
+
+    /**
+     * Pedidos con ruta distinta entre dos individuos (corta al llegar a {@code tope})
+     */
+    private int distancia(EvaluadorIncremental a, EvaluadorIncremental b, int tope) {
+        int distancia = 0;
+        for (Pedido pedido : pedidos) {
+            if (!PoolElite.mismaRuta(a.getRuta(pedido), b.getRuta(pedido)) && ++distancia >= tope) break;
+        }
+        return distancia;
+    }
+
+    private int torneoEstacionario(double[] fitness, int n) {
+        int ganador = random.nextInt(n);
+        for (int i = 1; i < torneo; i++) {
+            int candidato = random.nextInt(n);
+            if (fitness[candidato] > fitness[ganador]) ganador = candidato;
+        }
+        return ganador;
+    }
+
+    /**
+     * Deja en {@code hijo} al padre 1 y, según el operador, las rutas del padre 2 desde un
+     * punto de corte o pedido a pedido con probabilidad 1/2 (los pedidos sin ruta en el
+     * padre 2 conservan la del 1)
+     * @return cantidad de pedidos cuya ruta difiere de la del padre 1
+     */
+    private int cruzarEn(EvaluadorIncremental hijo, EvaluadorIncremental padre1, EvaluadorIncremental padre2,
+                         int operador) {
+        for (Pedido pedido : pedidos) {
+            RutaPedido objetivo = padre1.getRuta(pedido);
+            if (hijo.getRuta(pedido) == objetivo) continue;
+            if (objetivo == null) hijo.quitar(pedido); else hijo.asignar(pedido, objetivo);
+        }
+        if (operador == SIN_CRUZAMIENTO) return 0;
+
+        // Antes del corte solo se completan los pedidos que el padre 1 no tiene asignados
+        boolean uniforme = (operador == CRUZAMIENTO_UNIFORME);
+        int puntoCorte = random.nextInt(pedidos.size());
+        int cambios = 0;
+        for (int i = 0; i < pedidos.size(); i++) {
+            Pedido pedido = pedidos.get(i);
+            RutaPedido rutaPadre2 = padre2.getRuta(pedido);
+            if (rutaPadre2 == null || PoolElite.mismaRuta(rutaPadre2, hijo.getRuta(pedido))) continue;
+            boolean delPadre2 = uniforme ? random.nextBoolean() : i >= puntoCorte;
+            if (delPadre2 || hijo.getRuta(pedido) == null) {
+                hijo.asignar(pedido, rutaPadre2);
+                cambios++;
+            }
+        }
+        return cambios;
+    }
+
+    /**
+     * Mutación de 1 a 3 pedidos al azar (mismos tipos que {@link #mutar})
+     * @param tipo operador de mutación, o MUTACION_ALEATORIA para sortearlo por pedido
+     * @return cantidad de pedidos que cambiaron de ruta
+     */
+    private int mutarEn(EvaluadorIncremental individuo, int tipo) {
+        int numMutaciones = 1 + random.nextInt(3);
+        int aplicadas = 0;
+        for (int i = 0; i < numMutaciones; i++) {
+            Pedido pedido = pedidos.get(random.nextInt(pedidos.size()));
+            RutaPedido rutaActual = individuo.getRuta(pedido);
+
+            // La carga del individuo permite descartar rutas que ya no tienen capacidad residual
+            int tipoMutacion = (tipo == MUTACION_ALEATORIA) ? sortearTipoMutacion() : tipo;
+            List<Vuelo> nuevaRuta;
+            if (tipoMutacion == 0) {
+                nuevaRuta = rutaCambiandoFabrica(pedido, individuo::getCargaVuelo);
+            } else if (tipoMutacion == 1) {
+                nuevaRuta = rutaCambiandoTipo(pedido, rutaActual, individuo::getCargaVuelo);
+            } else {
+                nuevaRuta = generarRutaAleatoria(pedido, individuo::getCargaVuelo);
+            }
+
+            if (!nuevaRuta.isEmpty()
+                    && (rutaActual == null || !rutaActual.getSecuenciaVuelos().equals(nuevaRuta))) {
+                RutaPedido nuevaRutaPedido = new RutaPedido(pedido, nuevaRuta);
+                configurarRuta(nuevaRutaPedido, nuevaRuta);
+                individuo.asignar(pedido, nuevaRutaPedido);
+                aplicadas++;
+            }
+        }
+        return aplicadas;
+    }
+
+    /**
+     * Índice del individuo que reemplaza el hijo, o -1 si no supera a ninguno elegible
+     */
+    private int elegirVictima(EvaluadorIncremental[] poblacion, double[] fitness, int n,
+                              int mejor, double fitnessHijo) {
+        if (politicaReemplazo == PoliticaReemplazo.PEOR) {
+            int peor = 0;
+            for (int i = 1; i < n; i++) {
+                if (fitness[i] < fitness[peor]) peor = i;
+            }
+            return (fitness[peor] < fitnessHijo) ? peor : -1;
+        }
+
+        EvaluadorIncremental hijo = poblacion[n];
+        int victima = -1;
+        int menorDistancia = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (i == mejor || fitness[i] >= fitnessHijo) continue;
+            int distancia = distancia(hijo, poblacion[i], menorDistancia);
+            if (distancia < menorDistancia) {
+                menorDistancia = distancia;
+                victima = i;
+            }
+        }
+        return victima;
+    }
+
     /**
      * Genera población inicial usando GRASP y variaciones aleatorias
      */
     private List<Individuo> generarPoblacionInicial() {
         List<Individuo> poblacion = new ArrayList<>();
 
-        // 30% de la población usando GRASP con diferentes valores de alfa
-        double[] alphasGrasp = {0.0, 0.2, 0.5, 0.8, 1.0};
-        int individuosGrasp = (int)(tamañoPoblacion * 0.3);
+        // ✅ NUEVO: Las semillas recibidas (p. ej. del híbrido) entran primero, como copias
+        // porque la mutación generacional modifica la asignación en el lugar
+        if (semillasIniciales != null) {
+            for (Solucion semilla : semillasIniciales) {
+                if (poblacion.size() >= tamañoPoblacion) break;
+                if (semilla != null && semilla.getSolucionLogistica() != null) {
+                    poblacion.add(copiarIndividuo(new Individuo(semilla)));
+                }
+            }
+        }
+
+        // 30% de la población usando GRASP reactivo (alfa aprendido según el fitness obtenido),
+        // descontando las semillas
+        // ✅ MODIFICADO: sin GRASP propio (las semillas ya vienen de GRASP) se salta esta parte
+        int individuosGrasp = graspEnPoblacionInicial ? (int)(tamañoPoblacion * 0.3) - poblacion.size() : 0;
+        if (individuosGrasp > 0) {
+            grasp.activarGraspReactivo(new double[]{0.0, 0.2, 0.5, 0.8, 1.0}, 2, 10.0);
+        }
 
         for (int i = 0; i < individuosGrasp; i++) {
-            double alfa = alphasGrasp[i % alphasGrasp.length];
-            grasp.setAlfa(alfa);
             Solucion solucion = grasp.generarSolucion();
             if (solucion != null) {
                 poblacion.add(new Individuo(solucion));
@@ -173,7 +653,7 @@ public class GeneticAlgorithmMoraPack {
         Collections.shuffle(pedidosAleatorios, random);
 
         for (Pedido pedido : pedidosAleatorios) {
-            List<Vuelo> ruta = generarRutaAleatoria(pedido);
+            List<Vuelo> ruta = generarRutaAleatoria(pedido, null);
             if (!ruta.isEmpty()) {
                 RutaPedido rutaPedido = new RutaPedido(pedido, ruta);
                 configurarRuta(rutaPedido, ruta);
@@ -186,80 +666,104 @@ public class GeneticAlgorithmMoraPack {
 
     /**
      * Genera una ruta aleatoria válida para un pedido
+     * ✅ MODIFICADO: muestreada del pool de rutas (carga null = solo capacidad máxima)
      */
-    private List<Vuelo> generarRutaAleatoria(Pedido pedido) {
-        String destino = pedido.getLugarDestino().getCodigo();
-        List<String> fabricas = Solucion.FABRICAS;
-
+    private List<Vuelo> generarRutaAleatoria(Pedido pedido, ToIntFunction<Vuelo> carga) {
         // Seleccionar fábrica aleatoria
-        String fabricaOrigen = fabricas.get(random.nextInt(fabricas.size()));
+        int fabricaOrigen = random.nextInt(Solucion.FABRICAS.size());
 
         // Intentar ruta directa primero (50% probabilidad)
         if (random.nextDouble() < 0.5) {
-            List<Vuelo> rutaDirecta = buscarVueloDirecto(fabricaOrigen, destino, pedido);
+            List<Vuelo> rutaDirecta = poolRutas.muestrear(fabricaOrigen, pedido, false, random, carga);
             if (!rutaDirecta.isEmpty()) {
                 return rutaDirecta;
             }
         }
 
         // Si no hay ruta directa, buscar con escala
-        return buscarRutaConEscalaAleatoria(fabricaOrigen, destino, pedido);
+        return poolRutas.muestrear(fabricaOrigen, pedido, true, random, carga);
     }
 
     /**
-     * Operador de cruzamiento: Order Crossover (OX) adaptado
+     * Operador de cruzamiento de un punto sobre la unión de pedidos de ambos padres.
+     * ✅ MODIFICADO: cada hijo toma el tramo de su padre y, si ese padre no tiene ruta para
+     * un pedido, la del otro (no se pierden pedidos asignados); luego se repara capacidad
      */
-    private List<Individuo> cruzamiento(Individuo padre1, Individuo padre2) {
+    private List<Individuo> cruzamiento(Individuo padre1, Individuo padre2, boolean uniforme) {
         Map<Pedido, RutaPedido> rutas1 = padre1.solucion.getSolucionLogistica().getAsignacionPedidos();
         Map<Pedido, RutaPedido> rutas2 = padre2.solucion.getSolucionLogistica().getAsignacionPedidos();
 
-        SolucionLogistica hijo1 = new SolucionLogistica();
-        SolucionLogistica hijo2 = new SolucionLogistica();
-        hijo1.setAsignacionPedidos(new HashMap<>());
-        hijo2.setAsignacionPedidos(new HashMap<>());
-
-        List<Pedido> pedidosComunes = rutas1.keySet().stream()
-                .filter(rutas2::containsKey)
-                .collect(Collectors.toList());
+        List<Pedido> pedidosUnion = new ArrayList<>();
+        for (Pedido pedido : pedidos) {
+            if (rutas1.containsKey(pedido) || rutas2.containsKey(pedido)) pedidosUnion.add(pedido);
+        }
 
-        if (pedidosComunes.isEmpty()) {
+        if (pedidosUnion.isEmpty()) {
             return Arrays.asList(copiarIndividuo(padre1), copiarIndividuo(padre2));
         }
 
         // Punto de corte aleatorio
-        int puntoCorte = random.nextInt(pedidosComunes.size());
-
-        // Hijo 1: primera parte del padre 1, segunda parte del padre 2
-        for (int i = 0; i < pedidosComunes.size(); i++) {
-            Pedido pedido = pedidosComunes.get(i);
-            if (i < puntoCorte) {
-                hijo1.agregarRutaPedido(pedido, copiarRuta(rutas1.get(pedido)));
-            } else {
-                hijo1.agregarRutaPedido(pedido, copiarRuta(rutas2.get(pedido)));
-            }
+        int puntoCorte = random.nextInt(pedidosUnion.size());
+
+        // Hijo 1: primera parte del padre 1, segunda parte del padre 2 (y viceversa para el hijo 2)
+        Map<Pedido, RutaPedido> hijo1 = new LinkedHashMap<>();
+        Map<Pedido, RutaPedido> hijo2 = new LinkedHashMap<>();
+        long huella1 = 0L;
+        long huella2 = 0L;
+        for (int i = 0; i < pedidosUnion.size(); i++) {
+            Pedido pedido = pedidosUnion.get(i);
+            RutaPedido ruta1 = rutas1.get(pedido);
+            RutaPedido ruta2 = rutas2.get(pedido);
+            boolean delPadre1 = uniforme ? random.nextBoolean() : i < puntoCorte;
+            RutaPedido paraHijo1 = delPadre1 ? ruta1 : ruta2;
+            RutaPedido paraHijo2 = delPadre1 ? ruta2 : ruta1;
+            RutaPedido copia1 = copiarRuta(paraHijo1 != null ? paraHijo1 : (ruta1 != null ? ruta1 : ruta2));
+            RutaPedido copia2 = copiarRuta(paraHijo2 != null ? paraHijo2 : (ruta1 != null ? ruta1 : ruta2));
+            hijo1.put(pedido, copia1);
+            hijo2.put(pedido, copia2);
+            huella1 ^= HuellaZobrist.clave(copia1);
+            huella2 ^= HuellaZobrist.clave(copia2);
         }
 
-        // Hijo 2: primera parte del padre 2, segunda parte del padre 1
-        for (int i = 0; i < pedidosComunes.size(); i++) {
-            Pedido pedido = pedidosComunes.get(i);
-            if (i < puntoCorte) {
-                hijo2.agregarRutaPedido(pedido, copiarRuta(rutas2.get(pedido)));
-            } else {
-                hijo2.agregarRutaPedido(pedido, copiarRuta(rutas1.get(pedido)));
+        return Arrays.asList(crearHijo(hijo1, huella1), crearHijo(hijo2, huella2));
+    }
+
+    private Individuo crearHijo(Map<Pedido, RutaPedido> rutas, long huella) {
+        Map<Pedido, RutaPedido> asignacion = rutas;
+        if (repararHijos) {
+            asignacion = reparador.reparar(rutas);
+            // La huella solo cambia en los pedidos que la reparación movió o quitó
+            for (Map.Entry<Pedido, RutaPedido> entry : rutas.entrySet()) {
+                RutaPedido reparada = asignacion.get(entry.getKey());
+                if (reparada != entry.getValue()) {
+                    huella ^= HuellaZobrist.clave(entry.getValue()) ^ HuellaZobrist.clave(reparada);
+                }
             }
         }
+        SolucionLogistica solucionLogistica = new SolucionLogistica();
+        solucionLogistica.setAsignacionPedidos(asignacion);
+        return new Individuo(evaluarConCache(solucionLogistica, huella), huella);
+    }
 
+    /**
+     * ✅ NUEVO: Solucion con el fitness de la caché si la huella ya se evaluó
+     */
+    private Solucion evaluarConCache(SolucionLogistica solucionLogistica, long huella) {
+        Double fitness = cacheFitness.obtener(huella);
+        if (fitness != null) {
+            return new Solucion(solucionLogistica, pedidos.size(), fitness);
+        }
         // CAMBIO: Pasar total de pedidos a los nuevos individuos
-        return Arrays.asList(
-                new Individuo(new Solucion(hijo1, pedidos.size())),
-                new Individuo(new Solucion(hijo2, pedidos.size()))
-        );
+        Solucion solucion = new Solucion(solucionLogistica, pedidos.size());
+        cacheFitness.guardar(huella, solucion.getFitness());
+        return solucion;
     }
 
     /**
      * Operador de mutación: cambia rutas de pedidos aleatorios
+     * @param tipo operador de mutación, o MUTACION_ALEATORIA para sortearlo por pedido
      */
-    private void mutar(Individuo individuo) {
+    private void mutar(Individuo individuo, int tipo) {
         Map<Pedido, RutaPedido> rutas = individuo.solucion.getSolucionLogistica().getAsignacionPedidos();
 
         if (rutas.isEmpty()) return;
@@ -269,75 +773,55 @@ public class GeneticAlgorithmMoraPack {
         List<Pedido> pedidosParaMutar = new ArrayList<>(rutas.keySet());
         Collections.shuffle(pedidosParaMutar, random);
 
+        long huella = individuo.huella;
         for (int i = 0; i < numMutaciones; i++) {
             Pedido pedido = pedidosParaMutar.get(i);
+            RutaPedido rutaAnterior = rutas.get(pedido);
 
-            // Tipo de mutación aleatoria
-            double tipoMutacion = random.nextDouble();
+            // Tipo de mutación aleatoria (o el elegido por el selector adaptativo)
+            int tipoMutacion = (tipo == MUTACION_ALEATORIA) ? sortearTipoMutacion() : tipo;
 
-            if (tipoMutacion < 0.4) {
+            if (tipoMutacion == 0) {
                 // Cambiar fábrica de origen
                 mutarCambiarFabrica(pedido, rutas);
-            } else if (tipoMutacion < 0.7) {
+            } else if (tipoMutacion == 1) {
                 // Cambiar a ruta directa/con escala
                 mutarCambiarTipoRuta(pedido, rutas);
             } else {
                 // Regenerar ruta completamente
                 mutarRegenerarRuta(pedido, rutas);
             }
+
+            // ✅ NUEVO: Huella actualizada solo con el pedido que cambió
+            RutaPedido rutaNueva = rutas.get(pedido);
+            if (rutaNueva != rutaAnterior) {
+                huella ^= HuellaZobrist.clave(rutaAnterior) ^ HuellaZobrist.clave(rutaNueva);
+            }
         }
 
-        // Recalcular fitness
-        // CAMBIO: Recalcular fitness con el total correcto de pedidos
-        individuo.solucion = new Solucion(individuo.solucion.getSolucionLogistica(), pedidos.size());
+        // Recalcular fitness (o tomarlo de la caché si esta asignación ya se evaluó)
+        individuo.huella = huella;
+        individuo.solucion = evaluarConCache(individuo.solucion.getSolucionLogistica(), huella);
         individuo.fitness = individuo.solucion.getFitness();
     }
 
+    private int sortearTipoMutacion() {
+        double r = random.nextDouble();
+        return (r < 0.4) ? 0 : (r < 0.7) ? 1 : 2;
+    }
+
     /**
      * Mutación: cambiar fábrica de origen
      */
     private void mutarCambiarFabrica(Pedido pedido, Map<Pedido, RutaPedido> rutas) {
-        List<String> fabricas = Solucion.FABRICAS;
-        String nuevaFabrica = fabricas.get(random.nextInt(fabricas.size()));
-        String destino = pedido.getLugarDestino().getCodigo();
-
-        // Intentar ruta directa primero - CON VALIDACIÓN DE FECHA
-        List<Vuelo> nuevaRuta = buscarVueloDirecto(nuevaFabrica, destino, pedido);
-        if (nuevaRuta.isEmpty()) {
-            nuevaRuta = buscarRutaConEscalaAleatoria(nuevaFabrica, destino, pedido);
-        }
-
-        if (!nuevaRuta.isEmpty()) {
-            RutaPedido nuevaRutaPedido = new RutaPedido(pedido, nuevaRuta);
-            configurarRuta(nuevaRutaPedido, nuevaRuta);
-            rutas.put(pedido, nuevaRutaPedido);
-        }
+        reemplazarRuta(pedido, rutaCambiandoFabrica(pedido, null), rutas);
     }
 
     /**
      * Mutación: cambiar tipo de ruta (directa ↔ con escala)
      */
     private void mutarCambiarTipoRuta(Pedido pedido, Map<Pedido, RutaPedido> rutas) {
-        RutaPedido rutaActual = rutas.get(pedido);
-        if (rutaActual == null || rutaActual.getSecuenciaVuelos().isEmpty()) return;
-
-        String fabricaActual = rutaActual.getSecuenciaVuelos().get(0).getOrigen().getCodigo();
-        String destino = pedido.getLugarDestino().getCodigo();
-
-        List<Vuelo> nuevaRuta;
-        if (rutaActual.getSecuenciaVuelos().size() == 1) {
-            // Actual es directa, cambiar a con escala - CON VALIDACIÓN DE FECHA
-            nuevaRuta = buscarRutaConEscalaAleatoria(fabricaActual, destino, pedido);
-        } else {
-            // Actual tiene escalas, cambiar a directa - CON VALIDACIÓN DE FECHA
-            nuevaRuta = buscarVueloDirecto(fabricaActual, destino, pedido);
-        }
-
-        if (!nuevaRuta.isEmpty()) {
-            RutaPedido nuevaRutaPedido = new RutaPedido(pedido, nuevaRuta);
-            configurarRuta(nuevaRutaPedido, nuevaRuta);
-            rutas.put(pedido, nuevaRutaPedido);
-        }
+        reemplazarRuta(pedido, rutaCambiandoTipo(pedido, rutas.get(pedido), null), rutas);
     }
 
     /**
@@ -345,7 +829,10 @@ public class GeneticAlgorithmMoraPack {
      */
     private void mutarRegenerarRuta(Pedido pedido, Map<Pedido, RutaPedido> rutas) {
         // YA CORREGIDO: generarRutaAleatoria ahora valida fechas
-        List<Vuelo> nuevaRuta = generarRutaAleatoria(pedido);
+        reemplazarRuta(pedido, generarRutaAleatoria(pedido, null), rutas);
+    }
+
+    private void reemplazarRuta(Pedido pedido, List<Vuelo> nuevaRuta, Map<Pedido, RutaPedido> rutas) {
         if (!nuevaRuta.isEmpty()) {
             RutaPedido nuevaRutaPedido = new RutaPedido(pedido, nuevaRuta);
             configurarRuta(nuevaRutaPedido, nuevaRuta);
@@ -353,6 +840,34 @@ public class GeneticAlgorithmMoraPack {
         }
     }
 
+    /**
+     * Ruta desde una fábrica al azar (directa si hay, si no con escala)
+     */
+    private List<Vuelo> rutaCambiandoFabrica(Pedido pedido, ToIntFunction<Vuelo> carga) {
+        int nuevaFabrica = random.nextInt(Solucion.FABRICAS.size());
+
+        // Intentar ruta directa primero - CON VALIDACIÓN DE FECHA
+        List<Vuelo> nuevaRuta = poolRutas.muestrear(nuevaFabrica, pedido, false, random, carga);
+        if (nuevaRuta.isEmpty()) {
+            nuevaRuta = poolRutas.muestrear(nuevaFabrica, pedido, true, random, carga);
+        }
+        return nuevaRuta;
+    }
+
+    /**
+     * Ruta desde la misma fábrica pero del otro tipo (vacía si no hay ruta actual)
+     */
+    private List<Vuelo> rutaCambiandoTipo(Pedido pedido, RutaPedido rutaActual, ToIntFunction<Vuelo> carga) {
+        if (rutaActual == null || rutaActual.getSecuenciaVuelos().isEmpty()) return new ArrayList<>();
+
+        int fabricaActual = Solucion.FABRICAS.indexOf(rutaActual.getSecuenciaVuelos().get(0).getOrigen().getCodigo());
+        if (fabricaActual < 0) return new ArrayList<>();
+
+        // Actual es directa → con escala; actual tiene escalas → directa (CON VALIDACIÓN DE FECHA)
+        boolean conEscala = rutaActual.getSecuenciaVuelos().size() == 1;
+        return poolRutas.muestrear(fabricaActual, pedido, conEscala, random, carga);
+    }
+
     /**
      * Selección por torneo
      */
@@ -385,6 +900,8 @@ public class GeneticAlgorithmMoraPack {
             if (individuo.fitness == 0.0) {
                 individuo.fitness = individuo.solucion.getFitness();
             }
+            cacheFitness.guardar(individuo.huella, individuo.fitness);
+            if (poolColumnas != null) poolColumnas.agregar(individuo.solucion);   // ✅ NUEVO
         }
     }
 
@@ -398,50 +915,6 @@ public class GeneticAlgorithmMoraPack {
     }
 
     // Métodos auxiliares
-    private void inicializarVuelosPorOrigen() {
-        vuelosPorOrigen = new HashMap<>();
-        for (Vuelo vuelo : vuelos) {
-            vuelosPorOrigen.computeIfAbsent(vuelo.getOrigen().getCodigo(), k -> new ArrayList<>()).add(vuelo);
-        }
-    }
-
-    private List<Vuelo> buscarVueloDirecto(String origen, String destino, Pedido pedido) {
-        return vuelosPorOrigen.getOrDefault(origen, new ArrayList<>())
-                .stream()
-                .filter(v -> v.getDestino().getCodigo().equals(destino))
-                // ✅ CRÍTICO: Vuelo debe salir después del registro del pedido
-                .filter(v -> v.getHoraSalida().isAfter(pedido.getFechaRegistro()))
-                .limit(1)
-                .collect(Collectors.toList());
-    }
-
-    private List<Vuelo> buscarRutaConEscalaAleatoria(String origen, String destino, Pedido pedido) {
-        List<Vuelo> vuelosDesdeOrigen = vuelosPorOrigen.getOrDefault(origen, new ArrayList<>())
-                .stream()
-                .filter(v -> !v.getDestino().getCodigo().equals(destino))
-                // ✅ CRÍTICO: Primer vuelo debe salir después del registro del pedido
-                .filter(v -> v.getHoraSalida().isAfter(pedido.getFechaRegistro()))
-                .collect(Collectors.toList());
-
-        Collections.shuffle(vuelosDesdeOrigen, random);
-
-        for (Vuelo primerVuelo : vuelosDesdeOrigen.stream().limit(3).collect(Collectors.toList())) {
-            String escala = primerVuelo.getDestino().getCodigo();
-            List<Vuelo> segundoVuelos = vuelosPorOrigen.getOrDefault(escala, new ArrayList<>())
-                    .stream()
-                    .filter(v -> v.getDestino().getCodigo().equals(destino))
-                    .filter(v -> v.getHoraSalida().isAfter(primerVuelo.getHoraLlegada().plusHours(1)))
-                    .limit(1)
-                    .collect(Collectors.toList());
-
-            if (!segundoVuelos.isEmpty()) {
-                return Arrays.asList(primerVuelo, segundoVuelos.get(0));
-            }
-        }
-
-        return new ArrayList<>();
-    }
-
     private void configurarRuta(RutaPedido ruta, List<Vuelo> vuelos) {
         if (!vuelos.isEmpty()) {
             ruta.setFechaSalida(vuelos.get(0).getHoraSalida());
@@ -460,11 +933,19 @@ public class GeneticAlgorithmMoraPack {
             nuevaSolucion.agregarRutaPedido(entry.getKey(), copiarRuta(entry.getValue()));
         }
 
-        return new Individuo(new Solucion(nuevaSolucion, pedidos.size()));
+        // ✅ MODIFICADO: la copia tiene la misma huella y el mismo fitness que el original
+        return new Individuo(new Solucion(nuevaSolucion, pedidos.size(), original.fitness), original.huella);
     }
 
+    /**
+     * ✅ MODIFICADO: copia fiel (con fechas e internacionalidad), así evalúa igual que el original
+     */
     private RutaPedido copiarRuta(RutaPedido original) {
-        return new RutaPedido(original.getPedido(), new ArrayList<>(original.getSecuenciaVuelos()));
+        RutaPedido copia = new RutaPedido(original.getPedido(), new ArrayList<>(original.getSecuenciaVuelos()));
+        copia.setFechaSalida(original.getFechaSalida());
+        copia.setFechaLlegada(original.getFechaLlegada());
+        copia.setEsInternacional(original.getEsInternacional());
+        return copia;
     }
 
     // Getters y setters para parámetros
@@ -492,10 +973,119 @@ public class GeneticAlgorithmMoraPack {
         this.tasaCruzamiento = Math.max(0.0, Math.min(1.0, tasaCruzamiento));
     }
 
+    public double getTasaMutacion() {
+        return tasaMutacion;
+    }
+
+    public double getTasaCruzamiento() {
+        return tasaCruzamiento;
+    }
+
+    /**
+     * ✅ NUEVO: Usa la variante estacionaria en {@link #ejecutar()}
+     */
+    public void setModoEstacionario(boolean modoEstacionario) {
+        this.modoEstacionario = modoEstacionario;
+    }
+
+    public void setPoliticaReemplazo(PoliticaReemplazo politicaReemplazo) {
+        this.politicaReemplazo = (politicaReemplazo == null) ? PoliticaReemplazo.PEOR : politicaReemplazo;
+    }
+
+    /**
+     * ✅ NUEVO: Tiempo máximo del GA estacionario en milisegundos (0 = sin límite)
+     */
+    public void setPresupuestoTiempoMs(long presupuestoTiempoMs) {
+        this.presupuestoTiempoMs = Math.max(0, presupuestoTiempoMs);
+    }
+
+    /**
+     * ✅ NUEVO: El GA (generacional o estacionario) termina antes de lo previsto si el mejor
+     * queda a menos de {@code gapObjetivo} (fracción) de la cota de pedidos entregables; null la desactiva
+     */
+    public void setObjetivoGap(CotaSuperiorEntregas cotaSuperior, double gapObjetivo) {
+        this.cotaSuperior = cotaSuperior;
+        this.gapObjetivo = Math.max(0.0, Math.min(1.0, gapObjetivo));
+        this.ultimaVerificadaGap = null;
+    }
+
+    /**
+     * ✅ NUEVO: El GA deja rutas en el pool de columnas: las de cada generación (generacional)
+     * o las de la población inicial y cada hijo aceptado (estacionario)
+     */
+    public void setPoolColumnas(PoolColumnas poolColumnas) {
+        this.poolColumnas = poolColumnas;
+    }
+
+    /**
+     * ✅ NUEVO: Reparar capacidad de vuelos y almacenes de los hijos antes de evaluarlos
+     */
+    public void setRepararHijos(boolean repararHijos) {
+        this.repararHijos = repararHijos;
+    }
+
+    /**
+     * ✅ NUEVO: Aciertos y fallos de la caché de fitness y duplicados rechazados
+     */
+    public Map<String, Object> obtenerEstadisticasCache() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("aciertos", cacheFitness.getAciertos());
+        stats.put("fallos", cacheFitness.getFallos());
+        stats.put("entradas", cacheFitness.getTamaño());
+        stats.put("duplicadosRechazados", duplicadosRechazados);
+        return stats;
+    }
+
+    public void setTamañoCacheFitness(int entradas) {
+        this.cacheFitness = new CacheFitness(entradas);
+    }
+
+    public void setSeleccionAdaptativa(boolean seleccionAdaptativa) {
+        this.seleccionAdaptativa = seleccionAdaptativa;
+    }
+
+    /**
+     * ✅ NUEVO: Probabilidad, calidad, usos, mejoras y tiempo de CPU de cada operador
+     * (vacío si la selección adaptativa no está activa)
+     */
+    public Map<String, Object> obtenerEstadisticasOperadores() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (selectorCruzamiento == null || selectorMutacion == null) return stats;
+        stats.put("cruzamiento", selectorCruzamiento.obtenerEstadisticas());
+        stats.put("mutacion", selectorMutacion.obtenerEstadisticas());
+        return stats;
+    }
+
+    /**
+     * ✅ NUEVO: Pools armados, rutas precalculadas y muestras (rechazadas / sin ruta)
+     */
+    public Map<String, Long> obtenerEstadisticasPoolRutas() {
+        return poolRutas.obtenerEstadisticas();
+    }
+
+    public Map<String, Integer> obtenerEstadisticasReparacion() {
+        return reparador.obtenerEstadisticas();
+    }
+
+    /**
+     * ✅ NUEVO: Semilla del generador aleatorio (corridas reproducibles)
+     */
+    public void setSemilla(long semilla) {
+        this.random = new Random(semilla);
+    }
+
     public void setSemillasIniciales(List<Solucion> semillas) {
         this.semillasIniciales = new ArrayList<>(semillas);
     }
 
+    /**
+     * ✅ NUEVO: Con false la población inicial no corre GRASP: solo las semillas recibidas
+     * y el resto soluciones aleatorias (para quien ya produce las semillas con GRASP)
+     */
+    public void setGraspEnPoblacionInicial(boolean graspEnPoblacionInicial) {
+        this.graspEnPoblacionInicial = graspEnPoblacionInicial;
+    }
+
     public List<Double> getHistorialFitness() {
         return new ArrayList<>(historialFitness);
     }
@@ -510,10 +1100,16 @@ public class GeneticAlgorithmMoraPack {
     private static class Individuo {
         Solucion solucion;
         double fitness;
+        long huella;    // ✅ NUEVO: huella Zobrist de la asignación
 
         Individuo(Solucion solucion) {
+            this(solucion, HuellaZobrist.huella(solucion.getSolucionLogistica().getAsignacionPedidos()));
+        }
+
+        Individuo(Solucion solucion, long huella) {
             this.solucion = solucion;
             this.fitness = solucion.getFitness();
+            this.huella = huella;
         }
     }
 }
\ No newline at end of file
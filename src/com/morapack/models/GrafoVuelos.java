@@ -0,0 +1,193 @@
+package com.morapack.models;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Índice compacto de la red de vuelos.
+ * Aeropuertos y vuelos se identifican con enteros; las salidas de cada origen y de cada
+ * par (origen, destino) quedan ordenadas por hora de salida, así que "el primer vuelo
+ * después de t" es una búsqueda binaria en lugar de filtrar + ordenar toda la lista.
+ * Los horarios se guardan en segundos (LocalDateTime tomado tal cual, como en el resto
+ * de los algoritmos) para comparar sin crear objetos.
+ */
+public class GrafoVuelos {
+
+    private static final int[] SIN_VUELOS = new int[0];
+
+    private final Map<String, Integer> indiceAeropuertos;
+    private final Aeropuerto[] aeropuertos;
+
+    private final Vuelo[] vuelos;
+    private final Map<Vuelo, Integer> indiceVuelos;   // Vuelo no redefine equals: identidad
+    private final int[] origenDe;
+    private final int[] destinoDe;
+    private final long[] salidaDe;
+    private final long[] llegadaDe;
+
+    // Salidas por origen y por par (origen, destino), ordenadas por hora de salida
+    private final int[][] salidasPorOrigen;
+    private final int[][] salidasPorPar;   // índice origen * n + destino
+
+    public GrafoVuelos(List<Vuelo> listaVuelos) {
+        this.indiceAeropuertos = new HashMap<>();
+        List<Aeropuerto> listaAeropuertos = new ArrayList<>();
+        for (Vuelo vuelo : listaVuelos) {
+            registrarAeropuerto(vuelo.getOrigen(), listaAeropuertos);
+            registrarAeropuerto(vuelo.getDestino(), listaAeropuertos);
+        }
+        this.aeropuertos = listaAeropuertos.toArray(new Aeropuerto[0]);
+
+        int m = listaVuelos.size();
+        int n = aeropuertos.length;
+        this.vuelos = listaVuelos.toArray(new Vuelo[0]);
+        this.indiceVuelos = new IdentityHashMap<>(m * 2);
+        this.origenDe = new int[m];
+        this.destinoDe = new int[m];
+        this.salidaDe = new long[m];
+        this.llegadaDe = new long[m];
+
+        int[] porOrigen = new int[n];
+        int[] porPar = new int[n * n];
+        for (int id = 0; id < m; id++) {
+            Vuelo vuelo = vuelos[id];
+            indiceVuelos.put(vuelo, id);
+            origenDe[id] = indiceAeropuertos.get(vuelo.getOrigen().getCodigo());
+            destinoDe[id] = indiceAeropuertos.get(vuelo.getDestino().getCodigo());
+            salidaDe[id] = aSegundos(vuelo.getHoraSalida());
+            llegadaDe[id] = aSegundos(vuelo.getHoraLlegada());
+            porOrigen[origenDe[id]]++;
+            porPar[origenDe[id] * n + destinoDe[id]]++;
+        }
+
+        this.salidasPorOrigen = new int[n][];
+        this.salidasPorPar = new int[n * n][];
+        for (int i = 0; i < n; i++) salidasPorOrigen[i] = new int[porOrigen[i]];
+        for (int i = 0; i < n * n; i++) salidasPorPar[i] = (porPar[i] == 0) ? SIN_VUELOS : new int[porPar[i]];
+
+        Arrays.fill(porOrigen, 0);
+        Arrays.fill(porPar, 0);
+        for (int id = 0; id < m; id++) {
+            int par = origenDe[id] * n + destinoDe[id];
+            salidasPorOrigen[origenDe[id]][porOrigen[origenDe[id]]++] = id;
+            salidasPorPar[par][porPar[par]++] = id;
+        }
+        for (int[] salidas : salidasPorOrigen) ordenarPorSalida(salidas);
+        for (int[] salidas : salidasPorPar) ordenarPorSalida(salidas);
+    }
+
+    private void registrarAeropuerto(Aeropuerto aeropuerto, List<Aeropuerto> lista) {
+        if (!indiceAeropuertos.containsKey(aeropuerto.getCodigo())) {
+            indiceAeropuertos.put(aeropuerto.getCodigo(), lista.size());
+            lista.add(aeropuerto);
+        }
+    }
+
+    /**
+     * Orden estable por hora de salida (a igual hora se respeta el orden de la lista original)
+     */
+    private void ordenarPorSalida(int[] ids) {
+        if (ids.length < 2) return;
+        Integer[] cajas = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) cajas[i] = ids[i];
+        Arrays.sort(cajas, Comparator.comparingLong(id -> salidaDe[id]));
+        for (int i = 0; i < ids.length; i++) ids[i] = cajas[i];
+    }
+
+    /* ========= Aeropuertos ========= */
+
+    public int getCantidadAeropuertos() { return aeropuertos.length; }
+
+    /**
+     * @return índice del aeropuerto o -1 si no participa en ningún vuelo
+     */
+    public int indiceAeropuerto(String codigo) {
+        Integer indice = indiceAeropuertos.get(codigo);
+        return (indice == null) ? -1 : indice;
+    }
+
+    public Aeropuerto getAeropuerto(int indice) { return aeropuertos[indice]; }
+
+    /* ========= Vuelos ========= */
+
+    public int getCantidadVuelos() { return vuelos.length; }
+
+    public int indiceVuelo(Vuelo vuelo) {
+        Integer indice = indiceVuelos.get(vuelo);
+        if (indice == null) {
+            throw new IllegalArgumentException("Vuelo no indexado en el grafo: " + vuelo.getId());
+        }
+        return indice;
+    }
+
+    public Vuelo getVuelo(int id) { return vuelos[id]; }
+
+    public int origenDe(int id) { return origenDe[id]; }
+
+    public int destinoDe(int id) { return destinoDe[id]; }
+
+    public long salidaDe(int id) { return salidaDe[id]; }
+
+    public long llegadaDe(int id) { return llegadaDe[id]; }
+
+    /* ========= Salidas ordenadas ========= */
+
+    /**
+     * Ids de vuelos que salen del origen, ordenados por hora de salida (no modificar)
+     */
+    public int[] salidasDesde(int origen) { return salidasPorOrigen[origen]; }
+
+    /**
+     * Ids de vuelos directos origen → destino, ordenados por hora de salida (no modificar)
+     */
+    public int[] vuelosEntre(int origen, int destino) {
+        return salidasPorPar[origen * aeropuertos.length + destino];
+    }
+
+    /**
+     * Posición en {@code salidas} del primer vuelo que sale estrictamente después de t
+     */
+    public int primeraSalidaDespues(int[] salidas, long t) {
+        int lo = 0, hi = salidas.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (salidaDe[salidas[mid]] <= t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public int primeraSalidaDespues(int[] salidas, LocalDateTime t) {
+        return primeraSalidaDespues(salidas, aSegundos(t));
+    }
+
+    /**
+     * Reordena un vuelo cuyo horario cambió (p. ej. por un retraso)
+     */
+    public void reubicar(Vuelo vuelo) {
+        int id = indiceVuelo(vuelo);
+        salidaDe[id] = aSegundos(vuelo.getHoraSalida());
+        llegadaDe[id] = aSegundos(vuelo.getHoraLlegada());
+        reubicarEn(salidasPorOrigen[origenDe[id]], id);
+        reubicarEn(salidasPorPar[origenDe[id] * aeropuertos.length + destinoDe[id]], id);
+    }
+
+    private void reubicarEn(int[] salidas, int id) {
+        int pos = 0;
+        while (salidas[pos] != id) pos++;
+        // Desplazar hacia la derecha mientras haya salidas anteriores o iguales, o a la izquierda si es más temprano
+        while (pos + 1 < salidas.length && salidaDe[salidas[pos + 1]] <= salidaDe[id]) {
+            salidas[pos] = salidas[pos + 1];
+            salidas[++pos] = id;
+        }
+        while (pos > 0 && salidaDe[salidas[pos - 1]] > salidaDe[id]) {
+            salidas[pos] = salidas[pos - 1];
+            salidas[--pos] = id;
+        }
+    }
+
+    public static long aSegundos(LocalDateTime momento) {
+        return momento.toEpochSecond(ZoneOffset.UTC);
+    }
+}
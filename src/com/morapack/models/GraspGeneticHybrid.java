@@ -17,6 +17,8 @@ public class GraspGeneticHybrid {
     private int iteracionesGrasp;
     private boolean usarMejorGraspComoSemilla;
     private double porcentajePoblacionGrasp;
+    private boolean usarPathRelinking;          // ✅ NUEVO: relinkear pares élite antes del GA
+    private boolean modoPipeline;               // ✅ NUEVO: GRASP, GA y ACS a la vez en lugar de por fases
 
     // Resultados
     private List<Solucion> mejoresSolucionesGrasp;
@@ -33,6 +35,8 @@ public class GraspGeneticHybrid {
         this.iteracionesGrasp = 20;
         this.usarMejorGraspComoSemilla = true;
         this.porcentajePoblacionGrasp = 0.4; // 40% de la población inicial viene de GRASP
+        this.usarPathRelinking = true;
+        this.modoPipeline = false;
 
         this.mejoresSolucionesGrasp = new ArrayList<>();
         this.historialConvergencia = new ArrayList<>();
@@ -42,11 +46,17 @@ public class GraspGeneticHybrid {
      * Ejecuta el algoritmo híbrido completo
      */
     public Solucion ejecutarHibrido() {
+        if (modoPipeline) {
+            return ejecutarHibridoPipeline();
+        }
         System.out.println("=== INICIANDO ALGORITMO HÍBRIDO GRASP + GA ===");
 
         // Fase 1: Ejecutar múltiples iteraciones de GRASP
         System.out.println("\n--- FASE 1: MÚLTIPLES EJECUCIONES DE GRASP ---");
         ejecutarFaseGrasp();
+        if (usarPathRelinking) {
+            ejecutarPathRelinking();
+        }
 
         // Fase 2: Preparar población inicial enriquecida
         System.out.println("\n--- FASE 2: PREPARANDO POBLACIÓN INICIAL ENRIQUECIDA ---");
@@ -63,28 +73,39 @@ public class GraspGeneticHybrid {
         return mejorSolucionHibrida;
     }
 
+    /**
+     * ✅ NUEVO: Variante en pipeline: los productores GRASP alimentan a islas GA y a una
+     * colonia ACS mientras estas ya mejoran, compartiendo resultados por un pool élite
+     */
+    private Solucion ejecutarHibridoPipeline() {
+        PipelineHibrido pipeline = new PipelineHibrido(pedidos, vuelos);
+        pipeline.setIteracionesGrasp(iteracionesGrasp);
+        pipeline.setTamañoPoblacion(geneticAlgorithm.getTamañoPoblacion());
+        pipeline.setGeneracionesGA(geneticAlgorithm.getNumeroGeneraciones());
+
+        mejorSolucionHibrida = pipeline.ejecutar();
+        if (mejorSolucionHibrida != null) {
+            System.out.println("\n=== REPORTE DE LA MEJOR SOLUCIÓN ===");
+            System.out.println(mejorSolucionHibrida.obtenerReporteFitness());
+        }
+        return mejorSolucionHibrida;
+    }
+
     /**
      * Fase 1: Ejecuta múltiples iteraciones de GRASP con diferentes parámetros
      */
     private void ejecutarFaseGrasp() {
-        double[] valoresAlfa = {0.0, 0.2, 0.4, 0.6, 0.8, 1.0};
         Solucion mejorGrasp = null;
         double mejorFitnessGrasp = Double.NEGATIVE_INFINITY;
 
-        System.out.printf("Ejecutando %d iteraciones de GRASP...%n", iteracionesGrasp);
+        System.out.printf("Ejecutando %d iteraciones de GRASP reactivo...%n", iteracionesGrasp);
 
-        for (int iteracion = 0; iteracion < iteracionesGrasp; iteracion++) {
-            // Alternar entre diferentes valores de alfa
-            double alfa = valoresAlfa[iteracion % valoresAlfa.length];
+        // GRASP reactivo: el alfa se sortea con probabilidades que se ajustan al fitness obtenido
+        grasp.activarGraspReactivo();
 
-            // Agregar algo de aleatoriedad al alfa
-            if (iteracion >= valoresAlfa.length) {
-                alfa += (Math.random() - 0.5) * 0.3; // ±15% de variación
-                alfa = Math.max(0.0, Math.min(1.0, alfa));
-            }
-
-            grasp.setAlfa(alfa);
+        for (int iteracion = 0; iteracion < iteracionesGrasp; iteracion++) {
             Solucion solucion = grasp.generarSolucion();
+            double alfa = grasp.getAlfa();
 
             if (solucion != null) {
                 mejoresSolucionesGrasp.add(solucion);
@@ -110,6 +131,32 @@ public class GraspGeneticHybrid {
         }
     }
 
+    /**
+     * ✅ NUEVO: Path relinking entre las mejores soluciones de GRASP (en paralelo por pares).
+     * Las intermedias que entran al pool élite se suman a las candidatas a semilla del GA
+     */
+    private void ejecutarPathRelinking() {
+        if (mejoresSolucionesGrasp.size() < 2) return;
+
+        PoolElite pool = new PoolElite(10, Math.max(1, pedidos.size() / 100));
+        pool.agregarTodas(mejoresSolucionesGrasp);
+        double mejorAntes = pool.getMejor().getFitness();
+
+        PathRelinking relinking = new PathRelinking();
+        List<Solucion> intermedias = relinking.ejecutar(pool);
+        for (Solucion intermedia : intermedias) {
+            if (pool.getSoluciones().contains(intermedia)) {
+                mejoresSolucionesGrasp.add(intermedia);
+            }
+        }
+
+        Map<String, Object> stats = relinking.obtenerEstadisticas();
+        System.out.printf("Path relinking: %s caminos, %s con mejora, %s pasos evaluados en %s ms%n",
+                stats.get("caminosRecorridos"), stats.get("caminosConMejora"),
+                stats.get("pasosEvaluados"), stats.get("tiempoMs"));
+        System.out.printf("Mejor élite: %.2f -> %.2f%n", mejorAntes, pool.getMejor().getFitness());
+    }
+
     /**
      * Configura el algoritmo genético para usar soluciones de GRASP en la población inicial
      */
@@ -136,8 +183,9 @@ public class GraspGeneticHybrid {
 
         // Ajustar parámetros del GA para el contexto híbrido
         geneticAlgorithm.setNumeroGeneraciones(150); // Más generaciones para mejor convergencia
-        geneticAlgorithm.setTasaMutacion(0.12); // Mutación ligeramente menor con buenas semillas
-        geneticAlgorithm.setTasaCruzamiento(0.85); // Mayor cruzamiento para explorar combinaciones
+        // ✅ MODIFICADO: en vez de fijar mutación 0.12 / cruzamiento 0.85, los operadores y sus
+        // tasas se adaptan según la mejora por tiempo de CPU (las tasas configuradas son el punto de partida)
+        geneticAlgorithm.setSeleccionAdaptativa(true);
     }
 
     /**
@@ -360,6 +408,14 @@ public class GraspGeneticHybrid {
         this.usarMejorGraspComoSemilla = usar;
     }
 
+    public void setUsarPathRelinking(boolean usar) {
+        this.usarPathRelinking = usar;
+    }
+
+    public void setModoPipeline(boolean modoPipeline) {
+        this.modoPipeline = modoPipeline;
+    }
+
     public void setPorcentajePoblacionGrasp(double porcentaje) {
         this.porcentajePoblacionGrasp = Math.max(0.0, Math.min(1.0, porcentaje));
     }
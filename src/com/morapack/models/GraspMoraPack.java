@@ -3,7 +3,6 @@ package com.morapack.models;
 import com.morapack.models.*;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * ✅ VERSIÓN CORREGIDA: GRASP con validación de capacidad de vuelos
@@ -13,32 +12,88 @@ public class GraspMoraPack {
 
     private List<Pedido> pedidos;
     private List<Vuelo> vuelos;
-    private Map<String, List<Vuelo>> vuelosPorOrigen;
+    private GrafoVuelos grafo;                   // ✅ NUEVO: salidas ordenadas por origen / par
     private Random random;
     private double alfa;
+    private FuncionPuntuacionRuta funcionPuntuacion;   // ✅ NUEVO: puntuación configurable
+    private int maxCandidatos;                         // ✅ NUEVO: top-k (0 = sin límite)
+    private EstrategiaOrdenPedidos estrategiaOrden;    // ✅ NUEVO: secuencia de construcción
+    private int kRegret;
 
 
-    private Map<Vuelo, Integer> ocupacionActual;
+    private int[] ocupacionActual;               // ✅ MODIFICADO: carga por id de vuelo del grafo
     // ✅ NUEVO: Sistemas duales de almacenes
     private Map<String, Integer> ocupacionAlmacenes;                    // Sistema estático (compatibilidad)
-    private Map<String, List<EventoAlmacen>> historialAlmacenes;        // Sistema temporal (nuevo)
+    private OcupacionAlmacenes ocupacionTemporal;                       // Sistema temporal (libro de 2h por almacén)
     private Map<String, Aeropuerto> aeropuertoMap;
 
     // ✅ NUEVO: Constante para liberación automática
-    private static final int HORAS_LIBERACION = 2;   // ✅ NUEVO
+    private static final int HORAS_LIBERACION = LineaTiempoAlmacen.HORAS_LIBERACION;
+
+    // Límites de la búsqueda con escala (primeros tramos por fábrica, segundos tramos por escala)
+    private static final int MAX_PRIMEROS_TRAMOS = 5;
+    private static final int MAX_SEGUNDOS_TRAMOS = 3;
+    private static final long CONEXION_MINIMA_SEGUNDOS = 3600;
+
+    // ✅ NUEVO: Buffers reutilizables de candidatos (sin asignar memoria por pedido)
+    private int[] candPrimerVuelo = new int[64];
+    private int[] candSegundoVuelo = new int[64];   // -1 si la ruta es directa
+    private double[] candPuntuacion = new double[64];
+    private int cantidadCandidatos;
+    private final int[] origenFabrica = new int[Solucion.FABRICAS.size()];
+    private final int[] cursorFabrica = new int[Solucion.FABRICAS.size()];
+    private final int[] primerosFabrica = new int[Solucion.FABRICAS.size()];
+
+    // ✅ NUEVO: Cola de prioridad de pedidos para las estrategias dinámicas (versionada y perezosa)
+    private PriorityQueue<EntradaPedido> colaPedidos;
+    private int[] versionPedido;
+    private boolean[] pedidoPendiente;
+    private int[][] tramosCandidatosPedido;          // tramos de las rutas candidatas vigentes de cada pedido
+    private List<List<Integer>> pedidosPorVuelo;      // índice inverso vuelo → pedidos que lo tienen como candidato
+    private List<List<Integer>> pedidosPorAlmacen;    // índice inverso aeropuerto → pedidos que llegan ahí
+    private int[] marcaPedido;
+    private int marcaActual;
+    private final double[] mejoresPuntuaciones = new double[8];
+    private Set<String> continentesFabricas;
+
+    // ✅ NUEVO: GRASP reactivo (distribución de probabilidad sobre valores de alfa)
+    private double[] alfasReactivos;          // null = modo reactivo apagado
+    private double[] probabilidadesAlfa;
+    private double[] sumaFitnessAlfa;
+    private int[] usosAlfa;
+    private int indiceAlfaActual;
+    private int periodoReactivo;
+    private double deltaReactivo;
+    private int iteracionesReactivas;
+    private double mejorFitnessObservado;
+    private double peorFitnessObservado;
+    private static final double PROBABILIDAD_MINIMA_ALFA = 0.05;   // fracción repartida en partes iguales
+
+    // ✅ NUEVO: Búsqueda local posterior a la construcción
+    private boolean busquedaLocal;
+    private Map<String, Integer> estadisticasBusquedaLocal = new LinkedHashMap<>();
 
     public GraspMoraPack(List<Pedido> pedidos, List<Vuelo> vuelos) {
         this.pedidos = new ArrayList<>(pedidos);
         this.vuelos = new ArrayList<>(vuelos);
         this.random = new Random();
-        this.vuelosPorOrigen = new HashMap<>();
-        this.ocupacionActual = new HashMap<>();
+        this.funcionPuntuacion = new PuntuacionRutaPonderada();
+        this.maxCandidatos = 0;
+        this.estrategiaOrden = EstrategiaOrdenPedidos.ORDEN_ARCHIVO;
+        this.kRegret = 2;
+        this.grafo = new GrafoVuelos(this.vuelos);
+        this.ocupacionActual = new int[grafo.getCantidadVuelos()];
         this.ocupacionAlmacenes = new HashMap<>();         // ✅ RESTAURADO: Sistema estático
-        this.historialAlmacenes = new HashMap<>();         // ✅ NUEVO: Sistema temporal
+        this.ocupacionTemporal = new OcupacionAlmacenes(); // ✅ NUEVO: Sistema temporal
         this.aeropuertoMap = new HashMap<>();
 
-        inicializarVuelos();
         inicializarMapaAeropuertos();
+
+        this.continentesFabricas = new HashSet<>();
+        for (String codigoFabrica : Solucion.FABRICAS) {
+            Aeropuerto fabrica = aeropuertoMap.get(codigoFabrica);
+            if (fabrica != null) continentesFabricas.add(fabrica.getContinente());
+        }
     }
     // ✅ NUEVO: Inicializar mapa de aeropuertos
     private void inicializarMapaAeropuertos() {
@@ -49,33 +104,6 @@ public class GraspMoraPack {
         System.out.printf("✅ Mapa de aeropuertos inicializado: %d aeropuertos%n", aeropuertoMap.size());
     }
 
-    /**
-     * ✅ NUEVO: Clase interna para representar eventos en almacenes
-     */
-    private static class EventoAlmacen {
-        final LocalDateTime fechaLlegada;
-        final LocalDateTime fechaLiberacion;
-        final int cantidadPaquetes;
-        final String pedidoId; // Para debugging
-
-        EventoAlmacen(LocalDateTime fechaLlegada, int cantidadPaquetes, String pedidoId) {
-            this.fechaLlegada = fechaLlegada;
-            this.fechaLiberacion = fechaLlegada.plusHours(HORAS_LIBERACION);
-            this.cantidadPaquetes = cantidadPaquetes;
-            this.pedidoId = pedidoId;
-        }
-
-        boolean estaOcupado(LocalDateTime momento) {
-            return !momento.isBefore(fechaLlegada) && momento.isBefore(fechaLiberacion);
-        }
-
-        @Override
-        public String toString() {
-            return String.format("Evento[%s: %d paquetes, %s→%s]",
-                    pedidoId, cantidadPaquetes, fechaLlegada, fechaLiberacion);
-        }
-    }
-
     // ✅ NUEVO: Buscar aeropuerto por código
     private Aeropuerto buscarAeropuertoPorCodigo(String codigo) {
         return aeropuertoMap.get(codigo);
@@ -85,41 +113,55 @@ public class GraspMoraPack {
      *  CORREGIDO: Genera una solución validando capacidades
      */
     public Solucion generarSolucion() {
+        if (alfasReactivos != null) {
+            indiceAlfaActual = elegirIndiceAlfaReactivo();
+            alfa = alfasReactivos[indiceAlfaActual];
+        }
+
         SolucionLogistica solucionLogistica = new SolucionLogistica();
         solucionLogistica.setAsignacionPedidos(new HashMap<>());
 
         // Resetear ocupación al inicio
-        ocupacionActual.clear();
+        Arrays.fill(ocupacionActual, 0);
         ocupacionAlmacenes.clear();         // ✅ RESTAURADO: Sistema estático
-        historialAlmacenes.clear();         // ✅ NUEVO: Sistema temporal
+        ocupacionTemporal.limpiar();        // ✅ NUEVO: Sistema temporal
 
-        List<Pedido> pedidosOrdenados = pedidos;
+        List<Pedido> pedidosOrdenados = ordenarPedidos();
+        boolean dinamica = estrategiaOrden.esDinamica();
+        if (dinamica) {
+            inicializarColaPedidos();
+        }
         int pedidosAsignados = 0;
         int pedidosRechazadosVuelos = 0;
         int pedidosRechazadosAlmacenes = 0;
 
-        for (Pedido pedido : pedidosOrdenados) {
-            List<Vuelo> rutaAsignada = buscarMejorRutaParaPedidoConCapacidadTemporal(pedido);
+        for (int i = 0; ; i++) {
+            Pedido pedido;
+            List<Vuelo> rutaAsignada;
+            if (dinamica) {
+                // Los candidatos del pedido quedan en los buffers al sacarlo de la cola
+                int indice = siguientePedidoDeCola();
+                if (indice < 0) break;
+                pedido = pedidos.get(indice);
+                rutaAsignada = seleccionarCandidatoGRASP();
+            } else {
+                if (i >= pedidosOrdenados.size()) break;
+                pedido = pedidosOrdenados.get(i);
+                rutaAsignada = buscarMejorRutaParaPedidoConCapacidadTemporal(pedido);
+            }
 
             if (!rutaAsignada.isEmpty()) {
-                RutaPedido ruta = new RutaPedido(pedido, rutaAsignada);
-                configurarRuta(ruta, rutaAsignada);
-                solucionLogistica.agregarRutaPedido(pedido, ruta);
-
-                // Actualizar ocupación de vuelos
-                actualizarOcupacion(rutaAsignada, pedido.getCantidad());
-
-                // ✅ RESTAURADO: Actualizar sistema estático (compatibilidad)
-                actualizarOcupacionAlmacenes(rutaAsignada, pedido.getCantidad());
-
-                // ✅ NUEVO: Registrar eventos temporales en almacenes
-                registrarEventosEnAlmacenes(rutaAsignada, pedido);
+                solucionLogistica.agregarRutaPedido(pedido, construirRutaPedido(pedido, rutaAsignada));
+                registrarRuta(pedido, rutaAsignada);
+                if (dinamica) {
+                    invalidarPedidosAfectados(rutaAsignada);
+                }
 
                 pedidosAsignados++;
             } else {
                 // Determinar causa del rechazo
-                List<Vuelo> rutaSoloVuelos = buscarMejorRutaParaPedidoConCapacidad(pedido);
-                if (rutaSoloVuelos.isEmpty()) {
+                generarCandidatos(pedido, false);
+                if (cantidadCandidatos == 0) {
                     pedidosRechazadosVuelos++;
                 } else {
                     pedidosRechazadosAlmacenes++;
@@ -130,339 +172,649 @@ public class GraspMoraPack {
         System.out.printf("📊 Resumen GRASP: %d asignados, %d rechazados por vuelos, %d por almacenes%n",
                 pedidosAsignados, pedidosRechazadosVuelos, pedidosRechazadosAlmacenes);
 
-        return new Solucion(solucionLogistica, pedidos.size());
+        Solucion solucion = busquedaLocal
+                ? aplicarBusquedaLocal(solucionLogistica.getAsignacionPedidos(), pedidos.size())
+                : new Solucion(solucionLogistica, pedidos.size());
+        if (alfasReactivos != null) {
+            registrarResultadoReactivo(solucion.getFitness());
+        }
+        return solucion;
     }
-    private List<Vuelo> buscarMejorRutaParaPedidoConCapacidadTemporal(Pedido pedido) {
-        String destinoCodigo = pedido.getLugarDestino().getCodigo();
-        List<CandidatoRuta> candidatos = new ArrayList<>();
-
-        for (String codigoFabrica : Solucion.FABRICAS) {
-            // Rutas directas
-            List<Vuelo> rutaDirecta = buscarRutaDirectaDesdeOrigenConCapacidad(
-                    codigoFabrica, destinoCodigo, pedido);
-            if (!rutaDirecta.isEmpty() &&
-                    rutaTieneCapacidadTemporalCompleta(rutaDirecta, pedido)) {
-                double puntuacion = calcularPuntuacionRuta(rutaDirecta);
-                candidatos.add(new CandidatoRuta(rutaDirecta, puntuacion));
-            }
-
-            // Rutas con escala
-            List<List<Vuelo>> rutasConEscala = buscarRutasConEscalaDesdeOrigenConCapacidad(
-                    codigoFabrica, destinoCodigo, pedido);
-            for (List<Vuelo> ruta : rutasConEscala) {
-                if (rutaTieneCapacidadTemporalCompleta(ruta, pedido)) {
-                    double puntuacion = calcularPuntuacionRuta(ruta);
-                    candidatos.add(new CandidatoRuta(ruta, puntuacion));
-                }
-            }
+    /**
+     * ✅ NUEVO: Carga como estado de ocupación las rutas de una solución ya construida
+     * (vuelos + almacenes), para poder reparar pedidos sueltos sin reconstruir todo
+     */
+    public void cargarEstado(Map<Pedido, RutaPedido> asignacion) {
+        Arrays.fill(ocupacionActual, 0);
+        ocupacionAlmacenes.clear();
+        ocupacionTemporal.limpiar();
+
+        for (Map.Entry<Pedido, RutaPedido> entry : asignacion.entrySet()) {
+            RutaPedido ruta = entry.getValue();
+            if (ruta == null || ruta.getSecuenciaVuelos().isEmpty()) continue;
+            registrarRuta(entry.getKey(), ruta.getSecuenciaVuelos());
         }
+    }
 
-        if (candidatos.isEmpty()) {
-            return new ArrayList<>();
-        }
+    /**
+     * ✅ NUEVO: Mejora una solución ya construida con la búsqueda local
+     * (reubicar, cambiar fábrica, intercambiar rutas, insertar con expulsión).
+     * Deja como estado de ocupación el de la solución mejorada
+     */
+    public Solucion mejorarSolucion(Solucion solucion) {
+        Map<Pedido, RutaPedido> asignacion = solucion.getSolucionLogistica().getAsignacionPedidos();
+        cargarEstado(asignacion);
+        return aplicarBusquedaLocal(asignacion, solucion.getTotalPedidosProblema());
+    }
 
-        return seleccionarCandidatoGRASP(candidatos);
+    /**
+     * Búsqueda local sobre una asignación ya cargada como estado de ocupación
+     */
+    private Solucion aplicarBusquedaLocal(Map<Pedido, RutaPedido> asignacion, int totalPedidosProblema) {
+        BusquedaLocalGrasp busqueda = new BusquedaLocalGrasp(this, pedidos, asignacion, totalPedidosProblema);
+        EvaluadorIncremental mejorada = busqueda.ejecutar();
+        estadisticasBusquedaLocal = busqueda.getEstadisticas();
+
+        System.out.printf("🔧 Búsqueda local: %d reubicaciones, %d cambios de fábrica, %d intercambios, "
+                        + "%d inserciones (%d con expulsión) en %d pasadas%n",
+                estadisticasBusquedaLocal.get("reubicaciones"), estadisticasBusquedaLocal.get("cambiosFabrica"),
+                estadisticasBusquedaLocal.get("intercambios"),
+                estadisticasBusquedaLocal.get("insercionesDirectas") + estadisticasBusquedaLocal.get("insercionesConExpulsion"),
+                estadisticasBusquedaLocal.get("insercionesConExpulsion"), estadisticasBusquedaLocal.get("pasadas"));
+        return mejorada.aSolucion();
     }
 
-    private boolean rutaTieneCapacidadTemporalCompleta(List<Vuelo> ruta, Pedido pedido) {
-        // 1. Verificar capacidad de vuelos (igual que antes)
-        for (Vuelo vuelo : ruta) {
-            if (!tieneCapacidadDisponible(vuelo, pedido.getCantidad())) {
-                return false;
-            }
-        }
+    /**
+     * ✅ NUEVO: Movimientos aplicados por la última búsqueda local
+     */
+    public Map<String, Integer> obtenerEstadisticasBusquedaLocal() {
+        return new LinkedHashMap<>(estadisticasBusquedaLocal);
+    }
 
-        // 2. ✅ NUEVO: Verificar capacidad temporal de almacenes intermedios (escalas)
-        for (int i = 0; i < ruta.size() - 1; i++) {
-            Aeropuerto almacenIntermedio = ruta.get(i).getDestino();
-            LocalDateTime momentoLlegada = ruta.get(i).getHoraLlegada();
+    /**
+     * ✅ NUEVO: Busca la mejor ruta factible para un pedido según la ocupación actual
+     * (lista vacía si no hay ruta con capacidad de vuelos y almacenes)
+     */
+    public List<Vuelo> buscarRutaParaPedido(Pedido pedido) {
+        return buscarMejorRutaParaPedidoConCapacidadTemporal(pedido);
+    }
 
-            if (!almacenTieneCapacidadTemporal(almacenIntermedio, pedido.getCantidad(), momentoLlegada)) {
+    /**
+     * ✅ NUEVO: Indica si una ruta ya armada sigue cabiendo en la ocupación actual
+     */
+    public boolean rutaSigueSiendoFactible(List<Vuelo> ruta, Pedido pedido) {
+        if (ruta.isEmpty() || !pedido.getFechaRegistro().isBefore(ruta.get(0).getHoraSalida())) {
+            return false;
+        }
+        for (int i = 0; i < ruta.size(); i++) {
+            Vuelo vuelo = ruta.get(i);
+            if (vuelo.estaCancelado()) return false;
+            if (i > 0 && !vuelo.getHoraSalida().isAfter(ruta.get(i - 1).getHoraLlegada().plusHours(1))) {
                 return false;
             }
         }
+        return rutaTieneCapacidadTemporalCompleta(ruta, pedido);
+    }
 
-        // 3. ✅ NUEVO: Verificar capacidad temporal del almacén de destino final
-        if (!ruta.isEmpty()) {
-            Aeropuerto almacenFinal = ruta.get(ruta.size() - 1).getDestino();
-            LocalDateTime momentoLlegada = ruta.get(ruta.size() - 1).getHoraLlegada();
+    /**
+     * ✅ NUEVO: Reserva vuelos y almacenes para la ruta de un pedido
+     */
+    public void registrarRuta(Pedido pedido, List<Vuelo> ruta) {
+        // Actualizar ocupación de vuelos
+        actualizarOcupacion(ruta, pedido.getCantidad());
 
-            if (!almacenTieneCapacidadTemporal(almacenFinal, pedido.getCantidad(), momentoLlegada)) {
-                return false;
-            }
-        }
+        // ✅ RESTAURADO: Actualizar sistema estático (compatibilidad)
+        actualizarOcupacionAlmacenes(ruta, pedido.getCantidad());
+
+        // ✅ NUEVO: Registrar eventos temporales en almacenes
+        registrarEventosEnAlmacenes(ruta, pedido);
+    }
 
-        return true;
+    /**
+     * ✅ NUEVO: Libera la capacidad de vuelos y almacenes reservada para un pedido
+     */
+    public void liberarRuta(Pedido pedido, List<Vuelo> ruta) {
+        actualizarOcupacion(ruta, -pedido.getCantidad());
+        actualizarOcupacionAlmacenes(ruta, -pedido.getCantidad());
+        ocupacionTemporal.liberarRuta(ruta, pedido.getCantidad());
     }
 
-    private boolean almacenTieneCapacidadTemporal(Aeropuerto almacen, int cantidadRequerida, LocalDateTime momentoLlegada) {
-        if (almacen == null || momentoLlegada == null) return false;
+    /**
+     * ✅ NUEVO: Arma el RutaPedido con fechas e internacionalidad configuradas
+     */
+    public RutaPedido construirRutaPedido(Pedido pedido, List<Vuelo> vuelos) {
+        RutaPedido ruta = new RutaPedido(pedido, vuelos);
+        configurarRuta(ruta, vuelos);
+        return ruta;
+    }
 
-        // Obtener historial de eventos del almacén
-        List<EventoAlmacen> eventos = historialAlmacenes.getOrDefault(almacen.getCodigo(), new ArrayList<>());
+    /**
+     * ✅ NUEVO: Reindexa un vuelo cuyo horario cambió (retraso) para las próximas búsquedas
+     */
+    public void notificarCambioHorario(Vuelo vuelo) {
+        grafo.reubicar(vuelo);
+    }
 
-        // Calcular ocupación en el momento de llegada del nuevo pedido
-        int ocupacionEnMomento = almacen.getCapacidadAct(); // ocupación base inicial
+    private List<Vuelo> buscarMejorRutaParaPedidoConCapacidadTemporal(Pedido pedido) {
+        generarCandidatos(pedido, true);
+        return seleccionarCandidatoGRASP();
+    }
 
-        for (EventoAlmacen evento : eventos) {
-            if (evento.estaOcupado(momentoLlegada)) {
-                ocupacionEnMomento += evento.cantidadPaquetes;
+    /**
+     * ✅ NUEVO: Llena los buffers con las rutas candidatas del pedido desde cada fábrica:
+     * la directa más temprana y las de 1 escala (hasta 5 primeros tramos × 3 segundos tramos).
+     * Las rutas se generan en orden aproximado de puntuación (directas, luego escalas con el
+     * primer tramo más temprano entre todas las fábricas) y, si hay límite top-k, se corta
+     * al llegar a k candidatos.
+     * @param validarAlmacenes exigir además capacidad temporal en los almacenes de llegada
+     */
+    private void generarCandidatos(Pedido pedido, boolean validarAlmacenes) {
+        cantidadCandidatos = 0;
+        int destino = grafo.indiceAeropuerto(pedido.getLugarDestino().getCodigo());
+        if (destino < 0) return;
+
+        int cantidad = pedido.getCantidad();
+        long registro = GrafoVuelos.aSegundos(pedido.getFechaRegistro());
+
+        // 1. Rutas directas: primer vuelo disponible después del registro desde cada fábrica
+        for (int f = 0; f < origenFabrica.length; f++) {
+            origenFabrica[f] = grafo.indiceAeropuerto(Solucion.FABRICAS.get(f));
+            if (origenFabrica[f] < 0) continue;
+
+            int directo = primerVueloDisponible(grafo.vuelosEntre(origenFabrica[f], destino), registro, cantidad);
+            if (directo >= 0 && (!validarAlmacenes || almacenCabe(directo, cantidad))) {
+                agregarCandidato(directo, -1);
             }
         }
+        if (limiteAlcanzado()) return;
 
-        int capacidadDisponible = almacen.getCapacidad() - ocupacionEnMomento;
-        boolean tieneCapacidad = capacidadDisponible >= cantidadRequerida;
+        // Greedy puro (alfa = 1): si ninguna ruta con escala puede superar a una directa, no generarlas
+        if (cantidadCandidatos > 0 && alfa >= 1.0
+                && funcionPuntuacion.cotaSuperior(2) < funcionPuntuacion.cotaInferior(1)) {
+            return;
+        }
 
-        // Debug opcional (quitar en producción)
+        // 2. Rutas con escala: se avanza siempre la fábrica cuyo próximo primer tramo sale antes
+        for (int f = 0; f < origenFabrica.length; f++) {
+            primerosFabrica[f] = 0;
+            cursorFabrica[f] = (origenFabrica[f] < 0) ? Integer.MAX_VALUE
+                    : grafo.primeraSalidaDespues(grafo.salidasDesde(origenFabrica[f]), registro);
+        }
+        while (true) {
+            int fabrica = -1;
+            long salidaMasTemprana = Long.MAX_VALUE;
+            for (int f = 0; f < origenFabrica.length; f++) {
+                int primero = siguientePrimerTramo(f, destino, cantidad);
+                if (primero >= 0 && grafo.salidaDe(primero) < salidaMasTemprana) {
+                    salidaMasTemprana = grafo.salidaDe(primero);
+                    fabrica = f;
+                }
+            }
+            if (fabrica < 0) return;
+
+            int primero = grafo.salidasDesde(origenFabrica[fabrica])[cursorFabrica[fabrica]++];
+            primerosFabrica[fabrica]++;
+
+            int[] hastaDestino = grafo.vuelosEntre(grafo.destinoDe(primero), destino);
+            long conexion = grafo.llegadaDe(primero) + CONEXION_MINIMA_SEGUNDOS;
+            int segundos = 0;
+            for (int j = grafo.primeraSalidaDespues(hastaDestino, conexion);
+                 j < hastaDestino.length && segundos < MAX_SEGUNDOS_TRAMOS; j++) {
+                int segundo = hastaDestino[j];
+                if (!vueloDisponible(segundo, cantidad)) continue;
+                segundos++;
+
+                if (!validarAlmacenes || (almacenCabe(primero, cantidad) && almacenCabe(segundo, cantidad))) {
+                    agregarCandidato(primero, segundo);
+                    if (limiteAlcanzado()) return;
+                }
+            }
+        }
+    }
 
-        return tieneCapacidad;
+    /**
+     * Deja el cursor de la fábrica en su próximo primer tramo válido (sale de la fábrica,
+     * no va directo al destino, tiene capacidad) y lo devuelve; -1 si ya no quedan
+     */
+    private int siguientePrimerTramo(int fabrica, int destino, int cantidad) {
+        if (origenFabrica[fabrica] < 0 || primerosFabrica[fabrica] >= MAX_PRIMEROS_TRAMOS) return -1;
+        int[] salidas = grafo.salidasDesde(origenFabrica[fabrica]);
+        while (cursorFabrica[fabrica] < salidas.length) {
+            int primero = salidas[cursorFabrica[fabrica]];
+            if (grafo.destinoDe(primero) != destino && vueloDisponible(primero, cantidad)) return primero;
+            cursorFabrica[fabrica]++;
+        }
+        return -1;
     }
 
     /**
-     * ✅ NUEVO: Registra eventos temporales en almacenes
+     * Rutas candidatas factibles del pedido (vuelos + almacenes) con la ocupación actual,
+     * en el orden en que las genera la construcción
      */
-    private void registrarEventosEnAlmacenes(List<Vuelo> ruta, Pedido pedido) {
-        // Registrar en almacenes intermedios (escalas)
-        for (int i = 0; i < ruta.size() - 1; i++) {
-            String codigoAlmacen = ruta.get(i).getDestino().getCodigo();
-            LocalDateTime momentoLlegada = ruta.get(i).getHoraLlegada();
+    List<List<Vuelo>> generarRutasCandidatas(Pedido pedido) {
+        generarCandidatos(pedido, true);
+        List<List<Vuelo>> rutas = new ArrayList<>(cantidadCandidatos);
+        for (int i = 0; i < cantidadCandidatos; i++) {
+            Vuelo primero = grafo.getVuelo(candPrimerVuelo[i]);
+            rutas.add(candSegundoVuelo[i] < 0 ? Arrays.asList(primero)
+                    : Arrays.asList(primero, grafo.getVuelo(candSegundoVuelo[i])));
+        }
+        return rutas;
+    }
+
+    /**
+     * Índice de vuelos compartido (p. ej. para los pools de rutas de mutación del GA)
+     */
+    GrafoVuelos getGrafo() {
+        return grafo;
+    }
 
-            EventoAlmacen evento = new EventoAlmacen(momentoLlegada, pedido.getCantidad(), pedido.getId());
-            historialAlmacenes.computeIfAbsent(codigoAlmacen, k -> new ArrayList<>()).add(evento);
+    private boolean limiteAlcanzado() {
+        return maxCandidatos > 0 && cantidadCandidatos >= maxCandidatos;
+    }
+
+    private int primerVueloDisponible(int[] salidas, long despuesDe, int cantidad) {
+        for (int i = grafo.primeraSalidaDespues(salidas, despuesDe); i < salidas.length; i++) {
+            if (vueloDisponible(salidas[i], cantidad)) return salidas[i];
         }
+        return -1;
+    }
 
-        // Registrar en almacén de destino final
-        if (!ruta.isEmpty()) {
-            Vuelo ultimoVuelo = ruta.get(ruta.size() - 1);
-            String codigoDestino = ultimoVuelo.getDestino().getCodigo();
-            LocalDateTime momentoLlegada = ultimoVuelo.getHoraLlegada();
+    private boolean vueloDisponible(int id, int cantidad) {
+        return !grafo.getVuelo(id).estaCancelado()
+                && grafo.getVuelo(id).getCapacidadMaxima() - ocupacionActual[id] >= cantidad;
+    }
 
-            EventoAlmacen evento = new EventoAlmacen(momentoLlegada, pedido.getCantidad(), pedido.getId());
-            historialAlmacenes.computeIfAbsent(codigoDestino, k -> new ArrayList<>()).add(evento);
+    private boolean almacenCabe(int id, int cantidad) {
+        Vuelo vuelo = grafo.getVuelo(id);
+        return ocupacionTemporal.almacenCabe(vuelo.getDestino(), vuelo.getHoraLlegada(), cantidad);
+    }
+
+    private void agregarCandidato(int primero, int segundo) {
+        if (cantidadCandidatos == candPuntuacion.length) {
+            int nuevo = candPuntuacion.length * 2;
+            candPrimerVuelo = Arrays.copyOf(candPrimerVuelo, nuevo);
+            candSegundoVuelo = Arrays.copyOf(candSegundoVuelo, nuevo);
+            candPuntuacion = Arrays.copyOf(candPuntuacion, nuevo);
         }
+        candPrimerVuelo[cantidadCandidatos] = primero;
+        candSegundoVuelo[cantidadCandidatos] = segundo;
+        candPuntuacion[cantidadCandidatos] = calcularPuntuacionRuta(primero, segundo);
+        cantidadCandidatos++;
     }
 
+    /* ========= ✅ NUEVO: GRASP reactivo ========= */
+
     /**
-     * ✅ NUEVO: Método para debug - mostrar estado temporal de almacenes
+     * Activa GRASP reactivo con los valores de alfa por defecto (0.0, 0.1, ..., 1.0)
      */
-    public void mostrarEstadoTemporalAlmacenes() {
-        System.out.println("\n🏬 ESTADO TEMPORAL DE ALMACENES:");
+    public void activarGraspReactivo() {
+        activarGraspReactivo(new double[]{0.0, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0}, 5, 10.0);
+    }
 
-        if (historialAlmacenes.isEmpty()) {
-            System.out.println("   No hay eventos registrados.");
-            return;
+    /**
+     * Activa GRASP reactivo: cada generarSolucion() sortea alfa según una distribución
+     * que se recalcula cada {@code periodo} soluciones a partir del fitness promedio
+     * obtenido con cada valor (q_i = fitness normalizado ^ delta, p_i = q_i / Σq).
+     * Mientras esté activo, setAlfa() no tiene efecto sobre la construcción
+     */
+    public void activarGraspReactivo(double[] valoresAlfa, int periodo, double delta) {
+        if (valoresAlfa == null || valoresAlfa.length == 0) {
+            throw new IllegalArgumentException("Se necesita al menos un valor de alfa");
         }
+        int m = valoresAlfa.length;
+        this.alfasReactivos = new double[m];
+        for (int i = 0; i < m; i++) alfasReactivos[i] = Math.max(0, Math.min(1, valoresAlfa[i]));
+        this.probabilidadesAlfa = new double[m];
+        Arrays.fill(probabilidadesAlfa, 1.0 / m);
+        this.sumaFitnessAlfa = new double[m];
+        this.usosAlfa = new int[m];
+        this.indiceAlfaActual = -1;
+        this.periodoReactivo = Math.max(1, periodo);
+        this.deltaReactivo = delta;
+        this.iteracionesReactivas = 0;
+        this.mejorFitnessObservado = Double.NEGATIVE_INFINITY;
+        this.peorFitnessObservado = Double.POSITIVE_INFINITY;
+    }
 
-        for (Map.Entry<String, List<EventoAlmacen>> entry : historialAlmacenes.entrySet()) {
-            String codigoAlmacen = entry.getKey();
-            List<EventoAlmacen> eventos = entry.getValue();
+    public void desactivarGraspReactivo() {
+        this.alfasReactivos = null;
+    }
 
-            Aeropuerto almacen = aeropuertoMap.get(codigoAlmacen);
-            if (almacen == null) continue;
+    private int elegirIndiceAlfaReactivo() {
+        double r = random.nextDouble();
+        double acumulada = 0;
+        for (int i = 0; i < probabilidadesAlfa.length; i++) {
+            acumulada += probabilidadesAlfa[i];
+            if (r < acumulada) return i;
+        }
+        return probabilidadesAlfa.length - 1;
+    }
 
-            System.out.printf("\n📦 Almacén %s (Cap: %d):%n", codigoAlmacen, almacen.getCapacidad());
+    private void registrarResultadoReactivo(double fitness) {
+        sumaFitnessAlfa[indiceAlfaActual] += fitness;
+        usosAlfa[indiceAlfaActual]++;
+        mejorFitnessObservado = Math.max(mejorFitnessObservado, fitness);
+        peorFitnessObservado = Math.min(peorFitnessObservado, fitness);
 
-            // Ordenar eventos por fecha de llegada
-            eventos.stream()
-                    .sorted(Comparator.comparing(e -> e.fechaLlegada))
-                    .forEach(evento -> {
-                        System.out.printf("   • %s%n", evento);
-                    });
+        if (++iteracionesReactivas % periodoReactivo == 0) {
+            actualizarProbabilidadesAlfa();
+        }
+    }
 
-            // Simular ocupación a lo largo del tiempo
-            if (eventos.size() > 1) {
-                System.out.printf("   📊 Picos de ocupación simulados:%n");
-                simularOcupacionTemporal(almacen, eventos);
-            }
+    private void actualizarProbabilidadesAlfa() {
+        int m = alfasReactivos.length;
+        double rango = mejorFitnessObservado - peorFitnessObservado;
+        if (rango <= 0) return;
+
+        double[] q = new double[m];
+        double sumaQ = 0;
+        for (int i = 0; i < m; i++) {
+            // Un alfa todavía no probado recibe el peso máximo para que se explore
+            double normalizado = (usosAlfa[i] == 0) ? 1.0
+                    : (sumaFitnessAlfa[i] / usosAlfa[i] - peorFitnessObservado) / rango;
+            q[i] = Math.pow(Math.max(1e-6, normalizado), deltaReactivo);
+            sumaQ += q[i];
+        }
+        for (int i = 0; i < m; i++) {
+            probabilidadesAlfa[i] = (1 - PROBABILIDAD_MINIMA_ALFA) * q[i] / sumaQ + PROBABILIDAD_MINIMA_ALFA / m;
         }
     }
 
     /**
-     * ✅ NUEVO: Simula la ocupación temporal para debugging
+     * ✅ NUEVO: Estado del aprendizaje de alfa (vacío si el modo reactivo no está activo)
      */
-    private void simularOcupacionTemporal(Aeropuerto almacen, List<EventoAlmacen> eventos) {
-        // Crear lista de todos los momentos importantes (llegadas y liberaciones)
-        Set<LocalDateTime> momentosImportantes = new TreeSet<>();
+    public Map<String, Object> obtenerEstadisticasReactivas() {
+        Map<String, Object> stats = new HashMap<>();
+        if (alfasReactivos == null) return stats;
 
-        for (EventoAlmacen evento : eventos) {
-            momentosImportantes.add(evento.fechaLlegada);
-            momentosImportantes.add(evento.fechaLiberacion);
+        double[] promedios = new double[alfasReactivos.length];
+        for (int i = 0; i < promedios.length; i++) {
+            promedios[i] = (usosAlfa[i] == 0) ? Double.NaN : sumaFitnessAlfa[i] / usosAlfa[i];
         }
+        stats.put("alfas", alfasReactivos.clone());
+        stats.put("probabilidades", probabilidadesAlfa.clone());
+        stats.put("usos", usosAlfa.clone());
+        stats.put("fitnessPromedio", promedios);
+        stats.put("iteraciones", iteracionesReactivas);
+        stats.put("mejorFitness", mejorFitnessObservado);
+        return stats;
+    }
 
-        // Calcular ocupación en cada momento
-        int maxOcupacion = 0;
-        LocalDateTime momentoMaximo = null;
+    /* ========= ✅ NUEVO: Secuencia de construcción de pedidos ========= */
 
-        for (LocalDateTime momento : momentosImportantes) {
-            int ocupacion = almacen.getCapacidadAct();
+    /**
+     * Orden fijo para las estrategias estáticas (las dinámicas usan la cola de prioridad)
+     */
+    private List<Pedido> ordenarPedidos() {
+        List<Pedido> orden = new ArrayList<>(pedidos);
+        switch (estrategiaOrden) {
+            case FECHA_LIMITE:
+                orden.sort(Comparator.comparingLong(this::fechaLimiteSegundos));
+                break;
+            case MAYOR_CANTIDAD:
+                orden.sort(Comparator.comparingInt(Pedido::getCantidad).reversed());
+                break;
+            default:
+                break;
+        }
+        return orden;
+    }
 
-            for (EventoAlmacen evento : eventos) {
-                if (evento.estaOcupado(momento)) {
-                    ocupacion += evento.cantidadPaquetes;
-                }
-            }
+    /**
+     * Vencimiento del pedido en segundos: registro + SLA. El SLA es 48h si alguna fábrica
+     * está en el continente de destino (hay ruta no internacional posible) y 72h si no
+     */
+    private long fechaLimiteSegundos(Pedido pedido) {
+        int horasSla = continentesFabricas.contains(pedido.getLugarDestino().getContinente()) ? 48 : 72;
+        return GrafoVuelos.aSegundos(pedido.getFechaRegistro()) + horasSla * 3600L;
+    }
 
-            if (ocupacion > maxOcupacion) {
-                maxOcupacion = ocupacion;
-                momentoMaximo = momento;
+    private void inicializarColaPedidos() {
+        int n = pedidos.size();
+        colaPedidos = new PriorityQueue<>(n);
+        versionPedido = new int[n];
+        pedidoPendiente = new boolean[n];
+        tramosCandidatosPedido = new int[n][];
+        marcaPedido = new int[n];
+        marcaActual = 0;
+        pedidosPorVuelo = new ArrayList<>(Collections.nCopies(grafo.getCantidadVuelos(), (List<Integer>) null));
+        pedidosPorAlmacen = new ArrayList<>();
+        for (int a = 0; a < grafo.getCantidadAeropuertos(); a++) pedidosPorAlmacen.add(new ArrayList<>());
+
+        for (int i = 0; i < n; i++) {
+            pedidoPendiente[i] = true;
+            evaluarPedido(i);
+        }
+    }
+
+    /**
+     * Saca de la cola el pedido más prioritario con su prioridad al día.
+     * Al volver, los buffers de candidatos contienen las rutas vigentes de ese pedido.
+     * @return índice del pedido o -1 si no quedan
+     */
+    private int siguientePedidoDeCola() {
+        while (!colaPedidos.isEmpty()) {
+            EntradaPedido entrada = colaPedidos.poll();
+            if (!pedidoPendiente[entrada.pedido] || entrada.version != versionPedido[entrada.pedido]) {
+                continue; // entrada vieja
             }
 
-            // Mostrar solo puntos de interés
-            if (ocupacion > almacen.getCapacidad() * 0.8) { // Más del 80%
-                double porcentaje = (double) ocupacion / almacen.getCapacidad() * 100;
-                String estado = ocupacion > almacen.getCapacidad() ? "❌ SOBRECARGA" :
-                        ocupacion > almacen.getCapacidad() * 0.9 ? "⚠️ CRÍTICO" : "🟡 ALTO";
+            // Revalidación perezosa: si la prioridad cambió y ya no es la mejor, reencolar
+            EntradaPedido actualizada = evaluarPedido(entrada.pedido);
+            if (actualizada.compareTo(entrada) != 0 && !colaPedidos.isEmpty()
+                    && actualizada.compareTo(colaPedidos.peek()) > 0) {
+                continue;
+            }
+            pedidoPendiente[entrada.pedido] = false;
+            return entrada.pedido;
+        }
+        return -1;
+    }
 
-                System.out.printf("     %s: %d/%d (%.1f%%) %s%n",
-                        momento, ocupacion, almacen.getCapacidad(), porcentaje, estado);
+    /**
+     * Genera los candidatos del pedido, guarda sus tramos en los índices inversos
+     * y encola una entrada nueva con la prioridad actual (las anteriores quedan obsoletas)
+     */
+    private EntradaPedido evaluarPedido(int indice) {
+        Pedido pedido = pedidos.get(indice);
+        generarCandidatos(pedido, true);
+
+        int[] tramos = new int[cantidadCandidatos * 2];
+        int usados = 0;
+        for (int c = 0; c < cantidadCandidatos; c++) {
+            tramos[usados++] = candPrimerVuelo[c];
+            if (candSegundoVuelo[c] >= 0) tramos[usados++] = candSegundoVuelo[c];
+        }
+        tramos = Arrays.copyOf(tramos, usados);
+        tramosCandidatosPedido[indice] = tramos;
+        for (int tramo : tramos) {
+            List<Integer> usuarios = pedidosPorVuelo.get(tramo);
+            if (usuarios == null) {
+                usuarios = new ArrayList<>();
+                pedidosPorVuelo.set(tramo, usuarios);
             }
+            if (usuarios.isEmpty() || usuarios.get(usuarios.size() - 1) != indice) usuarios.add(indice);
+            List<Integer> enAlmacen = pedidosPorAlmacen.get(grafo.destinoDe(tramo));
+            if (enAlmacen.isEmpty() || enAlmacen.get(enAlmacen.size() - 1) != indice) enAlmacen.add(indice);
         }
 
-        System.out.printf("   🔴 Pico máximo: %d/%d en %s%n",
-                maxOcupacion, almacen.getCapacidad(), momentoMaximo);
+        EntradaPedido entrada = new EntradaPedido(indice, calcularPrioridad(), fechaLimiteSegundos(pedido),
+                ++versionPedido[indice]);
+        colaPedidos.add(entrada);
+        return entrada;
     }
 
-    // ✅ NUEVO: Busca ruta validando VUELOS Y ALMACENES
-    private List<Vuelo> buscarMejorRutaParaPedidoConCapacidadCompleta(Pedido pedido) {
-        String destinoCodigo = pedido.getLugarDestino().getCodigo();
-        List<CandidatoRuta> candidatos = new ArrayList<>();
+    /**
+     * Prioridad del pedido según los candidatos en los buffers (menor = antes).
+     * Un pedido sin rutas sale primero: no consume capacidad y no va a mejorar
+     */
+    private double calcularPrioridad() {
+        if (cantidadCandidatos == 0) return Double.NEGATIVE_INFINITY;
+        if (estrategiaOrden == EstrategiaOrdenPedidos.MENOS_RUTAS) return cantidadCandidatos;
+
+        // k-regret: Σ_{i=2..k} (mejor - i-ésima mejor); una alternativa que no existe cuenta como 0
+        int k = Math.min(kRegret, mejoresPuntuaciones.length);
+        Arrays.fill(mejoresPuntuaciones, 0, k, 0.0);
+        for (int c = 0; c < cantidadCandidatos; c++) {
+            double puntuacion = candPuntuacion[c];
+            for (int i = 0; i < k; i++) {
+                if (puntuacion > mejoresPuntuaciones[i]) {
+                    System.arraycopy(mejoresPuntuaciones, i, mejoresPuntuaciones, i + 1, k - i - 1);
+                    mejoresPuntuaciones[i] = puntuacion;
+                    break;
+                }
+            }
+        }
+        double regret = 0;
+        for (int i = 1; i < k; i++) regret += mejoresPuntuaciones[0] - mejoresPuntuaciones[i];
+        return -regret;
+    }
 
-        for (String codigoFabrica : Solucion.FABRICAS) {
-            // Rutas directas CON VALIDACIÓN COMPLETA
-            List<Vuelo> rutaDirecta = buscarRutaDirectaDesdeOrigenConCapacidad(
-                    codigoFabrica, destinoCodigo, pedido);
-            if (!rutaDirecta.isEmpty() &&
-                    rutaTieneCapacidadCompleta(rutaDirecta, pedido.getCantidad())) {
-                double puntuacion = calcularPuntuacionRuta(rutaDirecta);
-                candidatos.add(new CandidatoRuta(rutaDirecta, puntuacion));
+    /**
+     * Reevalúa solo los pedidos pendientes a los que la ruta asignada les dejó sin capacidad
+     * algún tramo candidato (vuelo lleno o almacén sobrecargado en su ventana de 2h).
+     * Un cambio solo de puntuación no reencola: se corrige al sacar el pedido de la cola
+     */
+    private void invalidarPedidosAfectados(List<Vuelo> rutaAsignada) {
+        List<Integer> afectados = new ArrayList<>();
+        long ventana = HORAS_LIBERACION * 3600L;
+
+        for (Vuelo vuelo : rutaAsignada) {
+            int id = grafo.indiceVuelo(vuelo);
+            List<Integer> usuarios = pedidosPorVuelo.get(id);
+            if (usuarios != null) {
+                marcaActual++;
+                compactarIndice(usuarios);
+                for (int indice : usuarios) {
+                    if (!vueloDisponible(id, pedidos.get(indice).getCantidad())) afectados.add(indice);
+                }
             }
 
-            // Rutas con escala CON VALIDACIÓN COMPLETA
-            List<List<Vuelo>> rutasConEscala = buscarRutasConEscalaDesdeOrigenConCapacidad(
-                    codigoFabrica, destinoCodigo, pedido);
-            for (List<Vuelo> ruta : rutasConEscala) {
-                if (rutaTieneCapacidadCompleta(ruta, pedido.getCantidad())) {
-                    double puntuacion = calcularPuntuacionRuta(ruta);
-                    candidatos.add(new CandidatoRuta(ruta, puntuacion));
+            int almacen = grafo.destinoDe(id);
+            long llegada = grafo.llegadaDe(id);
+            List<Integer> enAlmacen = pedidosPorAlmacen.get(almacen);
+            marcaActual++;
+            compactarIndice(enAlmacen);
+            for (int indice : enAlmacen) {
+                int cantidad = pedidos.get(indice).getCantidad();
+                for (int tramo : tramosCandidatosPedido[indice]) {
+                    if (grafo.destinoDe(tramo) == almacen && Math.abs(grafo.llegadaDe(tramo) - llegada) < ventana
+                            && !almacenCabe(tramo, cantidad)) {
+                        afectados.add(indice);
+                        break;
+                    }
                 }
             }
         }
 
-        if (candidatos.isEmpty()) {
-            return new ArrayList<>();
+        // Reevaluar cada pedido afectado una sola vez
+        marcaActual++;
+        for (int indice : afectados) {
+            if (marcaPedido[indice] == marcaActual) continue;
+            marcaPedido[indice] = marcaActual;
+            evaluarPedido(indice);
         }
-
-        return seleccionarCandidatoGRASP(candidatos);
     }
 
-    private boolean almacenTieneCapacidad(Aeropuerto almacen, int cantidadRequerida) {
-        if (almacen == null) return false;
-
-        int ocupacionActual = ocupacionAlmacenes.getOrDefault(almacen.getCodigo(), 0);
-        int capacidadDisponible = almacen.getCapacidad() - almacen.getCapacidadAct() - ocupacionActual;
-
-        boolean tieneCapacidad = capacidadDisponible >= cantidadRequerida;
-
-
-        return tieneCapacidad;
-    }
     /**
-     *  NUEVO: Busca ruta validando capacidad disponible
+     * Quita del índice inverso los pedidos ya asignados y las repeticiones
+     * (cada reevaluación vuelve a agregar al pedido)
      */
-    private List<Vuelo> buscarMejorRutaParaPedidoConCapacidad(Pedido pedido) {
-        String destinoCodigo = pedido.getLugarDestino().getCodigo();
-        List<CandidatoRuta> candidatos = new ArrayList<>();
-
-        // Buscar rutas desde cada fábrica
-        for (String codigoFabrica : Solucion.FABRICAS) {
-            // Rutas directas CON VALIDACIÓN
-            List<Vuelo> rutaDirecta = buscarRutaDirectaDesdeOrigenConCapacidad(
-                    codigoFabrica, destinoCodigo, pedido);
-            if (!rutaDirecta.isEmpty()) {
-                double puntuacion = calcularPuntuacionRuta(rutaDirecta);
-                candidatos.add(new CandidatoRuta(rutaDirecta, puntuacion));
-            }
+    private void compactarIndice(List<Integer> indice) {
+        int escritos = 0;
+        for (int i = 0; i < indice.size(); i++) {
+            int pedido = indice.get(i);
+            if (!pedidoPendiente[pedido] || marcaPedido[pedido] == marcaActual) continue;
+            marcaPedido[pedido] = marcaActual;
+            indice.set(escritos++, pedido);
+        }
+        indice.subList(escritos, indice.size()).clear();
+    }
 
-            // Rutas con 1 escala CON VALIDACIÓN
-            List<List<Vuelo>> rutasConEscala = buscarRutasConEscalaDesdeOrigenConCapacidad(
-                    codigoFabrica, destinoCodigo, pedido);
-            for (List<Vuelo> ruta : rutasConEscala) {
-                double puntuacion = calcularPuntuacionRuta(ruta);
-                candidatos.add(new CandidatoRuta(ruta, puntuacion));
+    private boolean rutaTieneCapacidadTemporalCompleta(List<Vuelo> ruta, Pedido pedido) {
+        // 1. Verificar capacidad de vuelos (igual que antes)
+        for (Vuelo vuelo : ruta) {
+            if (!tieneCapacidadDisponible(vuelo, pedido.getCantidad())) {
+                return false;
             }
         }
 
-        if (candidatos.isEmpty()) {
-            return new ArrayList<>();
-        }
+        // 2. ✅ NUEVO: Verificar capacidad temporal de almacenes (escalas + destino final)
+        //    durante toda la ventana de 2h de cada llegada
+        return ocupacionTemporal.rutaCabe(ruta, pedido.getCantidad());
+    }
 
-        // Seleccionar usando estrategia GRASP
-        return seleccionarCandidatoGRASP(candidatos);
+    /**
+     * ✅ NUEVO: Registra eventos temporales en almacenes
+     */
+    private void registrarEventosEnAlmacenes(List<Vuelo> ruta, Pedido pedido) {
+        ocupacionTemporal.reservarRuta(ruta, pedido.getCantidad());
     }
 
     /**
-     * ✅ NUEVO: Busca ruta directa validando capacidad
+     * ✅ NUEVO: Método para debug - mostrar estado temporal de almacenes
      */
-    private List<Vuelo> buscarRutaDirectaDesdeOrigenConCapacidad(String origen, String destino, Pedido pedido) {
-        List<Vuelo> vuelosDirectos = vuelosPorOrigen.getOrDefault(origen, new ArrayList<>())
-                .stream()
-                .filter(v -> v.getDestino().getCodigo().equals(destino))
-                .filter(v -> v.getHoraSalida().isAfter(pedido.getFechaRegistro()))
-                .filter(v -> tieneCapacidadDisponible(v, pedido.getCantidad())) // ✅ NUEVO
-                .sorted(Comparator.comparing(Vuelo::getHoraSalida))
-                .collect(Collectors.toList());
+    public void mostrarEstadoTemporalAlmacenes() {
+        System.out.println("\n🏬 ESTADO TEMPORAL DE ALMACENES:");
 
-        if (!vuelosDirectos.isEmpty()) {
-            return Arrays.asList(vuelosDirectos.get(0));
+        if (ocupacionTemporal.getTotalReservas() == 0) {
+            System.out.println("   No hay eventos registrados.");
+            return;
         }
 
-        return new ArrayList<>();
+        for (LineaTiempoAlmacen linea : ocupacionTemporal.getLineas()) {
+            if (linea.getReservas() == 0) continue;
+            Aeropuerto almacen = linea.getAlmacen();
+
+            System.out.printf("\n📦 Almacén %s (Cap: %d): %d reservas%n",
+                    almacen.getCodigo(), almacen.getCapacidad(), linea.getReservas());
+
+            // Simular ocupación a lo largo del tiempo
+            if (linea.getReservas() > 1) {
+                System.out.printf("   📊 Picos de ocupación simulados:%n");
+                simularOcupacionTemporal(almacen, linea);
+            }
+        }
     }
 
     /**
-     * ✅ NUEVO: Busca rutas con escala validando capacidad
+     * ✅ NUEVO: Recorre los escalones del libro de ocupación para debugging
      */
-    private List<List<Vuelo>> buscarRutasConEscalaDesdeOrigenConCapacidad(String origen, String destino, Pedido pedido) {
-        List<List<Vuelo>> rutasEncontradas = new ArrayList<>();
+    private void simularOcupacionTemporal(Aeropuerto almacen, LineaTiempoAlmacen linea) {
+        // Calcular ocupación en cada momento
+        int maxOcupacion = 0;
+        LocalDateTime momentoMaximo = null;
 
-        // Buscar vuelos desde la fábrica
-        List<Vuelo> vuelosDesdeOrigen = vuelosPorOrigen.getOrDefault(origen, new ArrayList<>())
-                .stream()
-                .filter(v -> v.getHoraSalida().isAfter(pedido.getFechaRegistro()))
-                .filter(v -> !v.getDestino().getCodigo().equals(destino)) // No directo
-                .filter(v -> tieneCapacidadDisponible(v, pedido.getCantidad())) // ✅ NUEVO
-                .sorted(Comparator.comparing(Vuelo::getHoraSalida))
-                .limit(5)
-                .collect(Collectors.toList());
+        for (int i = 0; i < linea.getCantidadEscalones(); i++) {
+            LocalDateTime momento = linea.getInicioEscalon(i);
+            int ocupacion = linea.getOcupacionEscalon(i);
 
-        for (Vuelo primerVuelo : vuelosDesdeOrigen) {
-            String aeropuertoEscala = primerVuelo.getDestino().getCodigo();
+            if (ocupacion > maxOcupacion) {
+                maxOcupacion = ocupacion;
+                momentoMaximo = momento;
+            }
 
-            List<Vuelo> vuelosDesdeEscala = vuelosPorOrigen.getOrDefault(aeropuertoEscala, new ArrayList<>())
-                    .stream()
-                    .filter(v -> v.getDestino().getCodigo().equals(destino))
-                    .filter(v -> v.getHoraSalida().isAfter(primerVuelo.getHoraLlegada().plusHours(1)))
-                    .filter(v -> tieneCapacidadDisponible(v, pedido.getCantidad())) // ✅ NUEVO
-                    .sorted(Comparator.comparing(Vuelo::getHoraSalida))
-                    .limit(3)
-                    .collect(Collectors.toList());
+            // Mostrar solo puntos de interés
+            if (ocupacion > almacen.getCapacidad() * 0.8) { // Más del 80%
+                double porcentaje = (double) ocupacion / almacen.getCapacidad() * 100;
+                String estado = ocupacion > almacen.getCapacidad() ? "❌ SOBRECARGA" :
+                        ocupacion > almacen.getCapacidad() * 0.9 ? "⚠️ CRÍTICO" : "🟡 ALTO";
 
-            for (Vuelo segundoVuelo : vuelosDesdeEscala) {
-                //  VERIFICAR QUE AMBOS VUELOS TENGAN CAPACIDAD
-                if (rutaTieneCapacidadCompleta(Arrays.asList(primerVuelo, segundoVuelo), pedido.getCantidad())) {
-                    rutasEncontradas.add(Arrays.asList(primerVuelo, segundoVuelo));
-                }
+                System.out.printf("     %s: %d/%d (%.1f%%) %s%n",
+                        momento, ocupacion, almacen.getCapacidad(), porcentaje, estado);
             }
         }
 
-        return rutasEncontradas;
+        System.out.printf("   🔴 Pico máximo: %d/%d en %s%n",
+                maxOcupacion, almacen.getCapacidad(), momentoMaximo);
     }
 
     /**
      * ✅ NUEVO: Verifica si un vuelo tiene capacidad disponible
      */
     private boolean tieneCapacidadDisponible(Vuelo vuelo, int cantidadRequerida) {
-        int ocupacionActualVuelo = ocupacionActual.getOrDefault(vuelo, 0);
+        int ocupacionActualVuelo = ocupacionActual[grafo.indiceVuelo(vuelo)];
         int capacidadDisponible = vuelo.getCapacidadMaxima() - ocupacionActualVuelo;
 
         boolean tienCapacidad = capacidadDisponible >= cantidadRequerida;
@@ -476,37 +828,6 @@ public class GraspMoraPack {
         return tienCapacidad;
     }
 
-    /**
-     * ✅ NUEVO: Verifica que toda una ruta tenga capacidad
-     */
-    // ✅ MODIFICADO: Verifica capacidad de toda una ruta (vuelos + almacenes)
-    private boolean rutaTieneCapacidadCompleta(List<Vuelo> ruta, int cantidadRequerida) {
-        // 1. Verificar capacidad de vuelos (ya existe)
-        for (Vuelo vuelo : ruta) {
-            if (!tieneCapacidadDisponible(vuelo, cantidadRequerida)) {
-                return false;
-            }
-        }
-
-        // 2. ✅ NUEVO: Verificar capacidad de almacenes intermedios (escalas)
-        for (int i = 0; i < ruta.size() - 1; i++) {
-            Aeropuerto almacenIntermedio = ruta.get(i).getDestino();
-            if (!almacenTieneCapacidad(almacenIntermedio, cantidadRequerida)) {
-                return false;
-            }
-        }
-
-        // 3. ✅ NUEVO: Verificar capacidad del almacén de destino final
-        if (!ruta.isEmpty()) {
-            Aeropuerto almacenFinal = ruta.get(ruta.size() - 1).getDestino();
-            if (!almacenTieneCapacidad(almacenFinal, cantidadRequerida)) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
     private void actualizarOcupacionAlmacenes(List<Vuelo> ruta, int cantidadPaquetes) {
         // Actualizar almacenes intermedios (escalas)
         for (int i = 0; i < ruta.size() - 1; i++) {
@@ -526,8 +847,7 @@ public class GraspMoraPack {
      */
     private void actualizarOcupacion(List<Vuelo> ruta, int cantidadPaquetes) {
         for (Vuelo vuelo : ruta) {
-            int ocupacionAnterior = ocupacionActual.getOrDefault(vuelo, 0);
-            ocupacionActual.put(vuelo, ocupacionAnterior + cantidadPaquetes);
+            ocupacionActual[grafo.indiceVuelo(vuelo)] += cantidadPaquetes;
         }
     }
 
@@ -536,11 +856,15 @@ public class GraspMoraPack {
      */
     public void mostrarEstadoOcupacion() {
         System.out.println("📊 ESTADO DE OCUPACIÓN DE VUELOS:");
-        ocupacionActual.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey((v1, v2) -> v1.getId().compareTo(v2.getId())))
-                .forEach(entry -> {
-                    Vuelo vuelo = entry.getKey();
-                    int usado = entry.getValue();
+        List<Integer> usados = new ArrayList<>();
+        for (int id = 0; id < ocupacionActual.length; id++) {
+            if (ocupacionActual[id] > 0) usados.add(id);
+        }
+        usados.stream()
+                .sorted(Comparator.comparing(id -> grafo.getVuelo(id).getId()))
+                .forEach(id -> {
+                    Vuelo vuelo = grafo.getVuelo(id);
+                    int usado = ocupacionActual[id];
                     double porcentaje = (double) usado / vuelo.getCapacidadMaxima() * 100;
 
                     System.out.printf("   %s: %d/%d (%.1f%%) %s%n",
@@ -555,14 +879,16 @@ public class GraspMoraPack {
      */
     public Map<String, Integer> obtenerEstadisticasOcupacion() {
         Map<String, Integer> stats = new HashMap<>();
-        int vuelosUsados = ocupacionActual.size();
+        int vuelosUsados = 0;
         int vuelosSobrecargados = 0;
         int ocupacionTotal = 0;
         int capacidadTotal = 0;
 
-        for (Map.Entry<Vuelo, Integer> entry : ocupacionActual.entrySet()) {
-            Vuelo vuelo = entry.getKey();
-            int usado = entry.getValue();
+        for (int id = 0; id < ocupacionActual.length; id++) {
+            int usado = ocupacionActual[id];
+            if (usado <= 0) continue;
+            Vuelo vuelo = grafo.getVuelo(id);
+            vuelosUsados++;
 
             if (usado > vuelo.getCapacidadMaxima()) {
                 vuelosSobrecargados++;
@@ -585,10 +911,8 @@ public class GraspMoraPack {
         Map<String, Object> stats = new HashMap<>();
 
         // Estadísticas del sistema temporal
-        int almacenesUsados = historialAlmacenes.size();
-        int eventosTotal = historialAlmacenes.values().stream()
-                .mapToInt(List::size)
-                .sum();
+        int almacenesUsados = ocupacionTemporal.getAlmacenesUsados();
+        int eventosTotal = ocupacionTemporal.getTotalReservas();
 
         // Estadísticas del sistema estático (compatibilidad)
         int almacenesEstaticos = ocupacionAlmacenes.size();
@@ -599,26 +923,10 @@ public class GraspMoraPack {
         int almacenesConSobrecarga = 0;
         int eventosConSobrecarga = 0;
 
-        for (Map.Entry<String, List<EventoAlmacen>> entry : historialAlmacenes.entrySet()) {
-            String codigoAlmacen = entry.getKey();
-            List<EventoAlmacen> eventos = entry.getValue();
-            Aeropuerto almacen = aeropuertoMap.get(codigoAlmacen);
-
-            if (almacen != null) {
-                boolean tieneSobrecarga = eventos.stream()
-                        .anyMatch(evento -> {
-                            int ocupacionEnMomento = almacen.getCapacidadAct() +
-                                    eventos.stream()
-                                            .filter(e -> e.estaOcupado(evento.fechaLlegada))
-                                            .mapToInt(e -> e.cantidadPaquetes)
-                                            .sum();
-                            return ocupacionEnMomento > almacen.getCapacidad();
-                        });
-
-                if (tieneSobrecarga) {
-                    almacenesConSobrecarga++;
-                    eventosConSobrecarga += eventos.size();
-                }
+        for (LineaTiempoAlmacen linea : ocupacionTemporal.getLineas()) {
+            if (linea.getLlegadasConExceso() > 0) {
+                almacenesConSobrecarga++;
+                eventosConSobrecarga += linea.getReservas();
             }
         }
 
@@ -637,83 +945,50 @@ public class GraspMoraPack {
     // ===== MÉTODOS EXISTENTES SIN CAMBIOS =====
 
     /**
-     * Calcula puntuación mejorada para una ruta
+     * Calcula la puntuación de una ruta (directa si segundo == -1) con la función configurada
      */
-    private double calcularPuntuacionRuta(List<Vuelo> ruta) {
-        if (ruta.isEmpty()) return 0.0;
-
-        double puntuacion = 100.0;
-
-        // Factor 1: Preferir rutas directas (menos escalas)
-        if (ruta.size() == 1) {
-            puntuacion += 50; // Bonus grande por ruta directa
-        } else {
-            puntuacion -= (ruta.size() - 1) * 25; // Penalización por escalas
-        }
-
-        // Factor 2: Premiar capacidad alta
-        double capacidadPromedio = ruta.stream()
-                .mapToInt(Vuelo::getCapacidadMaxima)
-                .average()
-                .orElse(200);
-
-        if (capacidadPromedio > 350) {
-            puntuacion += 20;
-        } else if (capacidadPromedio > 300) {
-            puntuacion += 10;
-        }
-
-        // Factor 3: Penalizar ligeramente rutas internacionales
-        boolean tieneVueloInternacional = ruta.stream()
-                .anyMatch(Vuelo::getEsInternacional);
-        if (tieneVueloInternacional) {
-            puntuacion -= 5;
-        }
-
-        // Factor 4: Premiar salidas tempranas
-        Vuelo primerVuelo = ruta.get(0);
-        int horaSalida = primerVuelo.getHoraSalida().getHour();
-        if (horaSalida >= 6 && horaSalida <= 12) {
-            puntuacion += 15; // Horarios matutinos
+    private double calcularPuntuacionRuta(int primero, int segundo) {
+        if (segundo < 0) {
+            return funcionPuntuacion.puntuar(grafo.getVuelo(primero), null, ocupacionActual[primero], 0);
         }
-
-        // ✅ NUEVO: Factor 5: Premiar vuelos con buena capacidad disponible
-        double capacidadDisponiblePromedio = ruta.stream()
-                .mapToDouble(vuelo -> {
-                    int ocupado = ocupacionActual.getOrDefault(vuelo, 0);
-                    return (double)(vuelo.getCapacidadMaxima() - ocupado) / vuelo.getCapacidadMaxima();
-                })
-                .average()
-                .orElse(0.5);
-
-        puntuacion += capacidadDisponiblePromedio * 10; // Hasta 10 puntos por capacidad libre
-
-        return Math.max(10, puntuacion);
+        return funcionPuntuacion.puntuar(grafo.getVuelo(primero), grafo.getVuelo(segundo),
+                ocupacionActual[primero], ocupacionActual[segundo]);
     }
 
     /**
-     * Selecciona candidato usando estrategia GRASP
+     * Selecciona candidato usando estrategia GRASP sobre los buffers:
+     * umbral de la RCL con el mínimo y máximo (sin ordenar) y elección uniforme
+     * dentro de la RCL por muestreo de reservorio (sin armar la lista)
      */
-    private List<Vuelo> seleccionarCandidatoGRASP(List<CandidatoRuta> candidatos) {
-        // Ordenar por puntuación descendente
-        candidatos.sort((c1, c2) -> Double.compare(c2.puntuacion, c1.puntuacion));
-
-        if (candidatos.size() == 1) {
-            return candidatos.get(0).ruta;
+    private List<Vuelo> seleccionarCandidatoGRASP() {
+        if (cantidadCandidatos == 0) {
+            return new ArrayList<>();
         }
 
-        // Crear Lista de Candidatos Restringida (RCL)
-        double mejorPuntuacion = candidatos.get(0).puntuacion;
-        double peorPuntuacion = candidatos.get(candidatos.size() - 1).puntuacion;
-        double umbral = peorPuntuacion + alfa * (mejorPuntuacion - peorPuntuacion);
+        int elegido = 0;
+        if (cantidadCandidatos > 1) {
+            double mejorPuntuacion = candPuntuacion[0];
+            double peorPuntuacion = candPuntuacion[0];
+            for (int i = 1; i < cantidadCandidatos; i++) {
+                mejorPuntuacion = Math.max(mejorPuntuacion, candPuntuacion[i]);
+                peorPuntuacion = Math.min(peorPuntuacion, candPuntuacion[i]);
+            }
+            double umbral = peorPuntuacion + alfa * (mejorPuntuacion - peorPuntuacion);
 
-        List<CandidatoRuta> rcl = candidatos.stream()
-                .filter(c -> c.puntuacion >= umbral)
-                .collect(Collectors.toList());
+            int enRcl = 0;
+            for (int i = 0; i < cantidadCandidatos; i++) {
+                if (candPuntuacion[i] >= umbral || candPuntuacion[i] == mejorPuntuacion) {
+                    enRcl++;
+                    if (random.nextInt(enRcl) == 0) elegido = i;
+                }
+            }
+        }
 
-        // Selección aleatoria de la RCL
-        CandidatoRuta seleccionado = rcl.get(random.nextInt(rcl.size()));
-        return seleccionado.ruta;
+        Vuelo primero = grafo.getVuelo(candPrimerVuelo[elegido]);
+        if (candSegundoVuelo[elegido] < 0) {
+            return Arrays.asList(primero);
+        }
+        return Arrays.asList(primero, grafo.getVuelo(candSegundoVuelo[elegido]));
     }
 
     /**
@@ -729,36 +1004,77 @@ public class GraspMoraPack {
         }
     }
 
+    // Setters para configuración
+    public void setAlfa(double alfa) {
+        this.alfa = Math.max(0, Math.min(1, alfa));
+    }
+
     /**
-     * Inicializa la estructura de vuelos por origen
+     * Alfa de la última construcción (el sorteado si GRASP reactivo está activo)
      */
-    private void inicializarVuelos() {
-        for (Vuelo vuelo : vuelos) {
-            vuelosPorOrigen.computeIfAbsent(vuelo.getOrigen().getCodigo(), k -> new ArrayList<>()).add(vuelo);
-        }
-/*
-        System.out.println("Vuelos indexados por origen:");
-        for (String fabrica : Solucion.FABRICAS) {
-            int cantidadVuelos = vuelosPorOrigen.getOrDefault(fabrica, new ArrayList<>()).size();
-            System.out.println("- " + fabrica + ": " + cantidadVuelos + " vuelos");
-        }*/
+    public double getAlfa() {
+        return alfa;
     }
 
-    // Setters para configuración
-    public void setAlfa(double alfa) {
-        this.alfa = Math.max(0, Math.min(1, alfa));
+    /**
+     * ✅ NUEVO: Función de puntuación de rutas candidatas (por defecto {@link PuntuacionRutaPonderada})
+     */
+    public void setFuncionPuntuacion(FuncionPuntuacionRuta funcionPuntuacion) {
+        this.funcionPuntuacion = (funcionPuntuacion == null) ? new PuntuacionRutaPonderada() : funcionPuntuacion;
     }
 
     /**
-     * Clase interna para candidatos de ruta
+     * ✅ NUEVO: Límite top-k de candidatos por pedido (0 = sin límite).
+     * Con k chico se resigna algo de calidad de construcción a cambio de velocidad
      */
-    private static class CandidatoRuta {
-        List<Vuelo> ruta;
-        double puntuacion;
+    public void setMaxCandidatos(int maxCandidatos) {
+        this.maxCandidatos = Math.max(0, maxCandidatos);
+    }
+
+    /**
+     * ✅ NUEVO: Orden en que se construyen las rutas de los pedidos
+     */
+    public void setEstrategiaOrden(EstrategiaOrdenPedidos estrategiaOrden) {
+        this.estrategiaOrden = (estrategiaOrden == null) ? EstrategiaOrdenPedidos.ORDEN_ARCHIVO : estrategiaOrden;
+    }
+
+    /**
+     * ✅ NUEVO: Cantidad de alternativas que mira la estrategia REGRET (2 = mejor vs segunda)
+     */
+    public void setKRegret(int kRegret) {
+        this.kRegret = Math.max(2, Math.min(mejoresPuntuaciones.length, kRegret));
+    }
 
-        CandidatoRuta(List<Vuelo> ruta, double puntuacion) {
-            this.ruta = ruta;
-            this.puntuacion = puntuacion;
+    /**
+     * ✅ NUEVO: Aplica la búsqueda local a cada solución construida (apagada por defecto)
+     */
+    public void setBusquedaLocal(boolean busquedaLocal) {
+        this.busquedaLocal = busquedaLocal;
+    }
+
+    /**
+     * Entrada de la cola de pedidos: prioridad (menor = antes), desempate por vencimiento
+     * y versión para descartar entradas viejas sin sacarlas de la cola
+     */
+    private static final class EntradaPedido implements Comparable<EntradaPedido> {
+        final int pedido;
+        final double prioridad;
+        final long fechaLimite;
+        final int version;
+
+        EntradaPedido(int pedido, double prioridad, long fechaLimite, int version) {
+            this.pedido = pedido;
+            this.prioridad = prioridad;
+            this.fechaLimite = fechaLimite;
+            this.version = version;
+        }
+
+        @Override
+        public int compareTo(EntradaPedido otra) {
+            int cmp = Double.compare(prioridad, otra.prioridad);
+            if (cmp != 0) return cmp;
+            cmp = Long.compare(fechaLimite, otra.fechaLimite);
+            return (cmp != 0) ? cmp : Integer.compare(pedido, otra.pedido);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.morapack.models;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Huella de 64 bits de una asignación pedido → ruta, al estilo Zobrist: XOR de una clave
+ * pseudoaleatoria por cada par (pedido, secuencia de vuelos). Asignar o quitar una ruta es
+ * un XOR con su clave, así que la huella se mantiene por cambio sin recorrer la solución.
+ * Las claves salen de un hash de los ids (no de un generador con estado), por lo que
+ * coinciden entre instancias e hilos (p. ej. al migrar individuos entre islas).
+ */
+final class HuellaZobrist {
+
+    private HuellaZobrist() {
+    }
+
+    /**
+     * Clave de una ruta asignada (0 si es null, así XOR con "sin ruta" no cambia nada)
+     */
+    static long clave(RutaPedido ruta) {
+        if (ruta == null) return 0L;
+        long h = mezclar(hashTexto(ruta.getPedido().getId()));
+        for (Vuelo vuelo : ruta.getSecuenciaVuelos()) {
+            h = mezclar(h ^ hashTexto(vuelo.getId()));   // depende del orden de los tramos
+        }
+        return h;
+    }
+
+    static long huella(Map<Pedido, RutaPedido> asignacion) {
+        long huella = 0L;
+        for (RutaPedido ruta : asignacion.values()) {
+            huella ^= clave(ruta);
+        }
+        return huella;
+    }
+
+    /**
+     * FNV-1a de 64 bits
+     */
+    private static long hashTexto(String texto) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            h ^= texto.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Finalizador de SplitMix64: reparte los bits para que las claves se comporten como aleatorias
+     */
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
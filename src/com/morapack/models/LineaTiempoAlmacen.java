@@ -0,0 +1,279 @@
+package com.morapack.models;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Libro de capacidad temporal de UN almacén.
+ * Cada reserva ocupa el almacén en la ventana [llegada, llegada + 2h).
+ * La ocupación se guarda como función escalonada compacta (arreglos ordenados de
+ * instantes y ocupación vigente desde cada instante), así que:
+ *   - consultar la ocupación en un instante es O(log n)
+ *   - reservar / liberar toca solo los escalones de la ventana de 2h
+ * Además lleva, de forma incremental, el exceso sobre capacidad medido en cada
+ * llegada registrada (misma semántica que el fitness de Solucion).
+ */
+public class LineaTiempoAlmacen {
+
+    public static final int HORAS_LIBERACION = 2;
+    private static final long SEGUNDOS_LIBERACION = HORAS_LIBERACION * 3600L;
+
+    private final Aeropuerto almacen;
+    private final int capacidad;
+    private final int ocupacionBase;
+
+    // Función escalonada: desde tiempos[i] (incluido) hasta tiempos[i+1] se ocupan ocupacion[i] paquetes
+    private long[] tiempos;
+    private int[] ocupacion;
+    private int escalones;
+
+    // Llegadas registradas (instante → multiplicidad) para medir violaciones
+    private long[] llegadas;
+    private int[] multiplicidad;
+    private int instantesLlegada;
+
+    private int reservas;
+    private long excesoEnLlegadas;   // Σ multiplicidad × max(0, ocupación − capacidad)
+    private int llegadasConExceso;   // Llegadas (con multiplicidad) que encuentran el almacén sobrecargado
+
+    public LineaTiempoAlmacen(Aeropuerto almacen) {
+        this.almacen = almacen;
+        this.capacidad = almacen.getCapacidad();
+        this.ocupacionBase = almacen.getCapacidadAct();
+        this.tiempos = new long[16];
+        this.ocupacion = new int[16];
+        this.llegadas = new long[8];
+        this.multiplicidad = new int[8];
+    }
+
+    private LineaTiempoAlmacen(LineaTiempoAlmacen otra) {
+        this.almacen = otra.almacen;
+        this.capacidad = otra.capacidad;
+        this.ocupacionBase = otra.ocupacionBase;
+        this.tiempos = Arrays.copyOf(otra.tiempos, otra.tiempos.length);
+        this.ocupacion = Arrays.copyOf(otra.ocupacion, otra.ocupacion.length);
+        this.escalones = otra.escalones;
+        this.llegadas = Arrays.copyOf(otra.llegadas, otra.llegadas.length);
+        this.multiplicidad = Arrays.copyOf(otra.multiplicidad, otra.multiplicidad.length);
+        this.instantesLlegada = otra.instantesLlegada;
+        this.reservas = otra.reservas;
+        this.excesoEnLlegadas = otra.excesoEnLlegadas;
+        this.llegadasConExceso = otra.llegadasConExceso;
+    }
+
+    public LineaTiempoAlmacen copiar() {
+        return new LineaTiempoAlmacen(this);
+    }
+
+    /* ========= Operaciones ========= */
+
+    /**
+     * Reserva espacio para una llegada de paquetes durante la ventana de liberación
+     */
+    public void reservar(LocalDateTime llegada, int cantidad) {
+        long t = aSegundos(llegada);
+        sumarEnVentana(t, cantidad);
+        agregarLlegada(t);
+        reservas++;
+    }
+
+    /**
+     * Libera una reserva hecha antes con la MISMA llegada y cantidad
+     */
+    public void liberar(LocalDateTime llegada, int cantidad) {
+        long t = aSegundos(llegada);
+        quitarLlegada(t);
+        sumarEnVentana(t, -cantidad);
+        reservas--;
+    }
+
+    /**
+     * Ocupación total (base + reservas vivas) en el instante dado
+     */
+    public int ocupacionEn(LocalDateTime momento) {
+        return ocupacionBase + ocupacionReservadaEn(aSegundos(momento));
+    }
+
+    /**
+     * Pico de ocupación total en el intervalo [desde, hasta)
+     */
+    public int picoEntre(LocalDateTime desde, LocalDateTime hasta) {
+        return ocupacionBase + picoReservado(aSegundos(desde), aSegundos(hasta));
+    }
+
+    /**
+     * Indica si una llegada de {@code cantidad} paquetes cabe durante TODA su ventana,
+     * es decir, sin sobrecargar ni este instante ni las llegadas posteriores que se solapan
+     */
+    public boolean cabe(LocalDateTime llegada, int cantidad) {
+        long t = aSegundos(llegada);
+        return ocupacionBase + picoReservado(t, t + SEGUNDOS_LIBERACION) + cantidad <= capacidad;
+    }
+
+    /**
+     * Llegadas registradas en las que el almacén supera su capacidad
+     */
+    public List<LocalDateTime> instantesConExceso() {
+        List<LocalDateTime> instantes = new ArrayList<>();
+        for (int i = 0; i < instantesLlegada; i++) {
+            if (ocupacionBase + ocupacionReservadaEn(llegadas[i]) > capacidad) {
+                instantes.add(aFecha(llegadas[i]));
+            }
+        }
+        return instantes;
+    }
+
+    /* ========= Consultas de escalones (para reportes) ========= */
+
+    public int getCantidadEscalones() { return escalones; }
+
+    public LocalDateTime getInicioEscalon(int i) { return aFecha(tiempos[i]); }
+
+    public int getOcupacionEscalon(int i) { return ocupacionBase + ocupacion[i]; }
+
+    /* ========= Getters ========= */
+
+    public Aeropuerto getAlmacen() { return almacen; }
+
+    public int getCapacidad() { return capacidad; }
+
+    public int getReservas() { return reservas; }
+
+    public long getExcesoEnLlegadas() { return excesoEnLlegadas; }
+
+    public int getLlegadasConExceso() { return llegadasConExceso; }
+
+    /* ========= Implementación ========= */
+
+    private int ocupacionReservadaEn(long t) {
+        int i = piso(t);
+        return (i < 0) ? 0 : ocupacion[i];
+    }
+
+    private int picoReservado(long desde, long hasta) {
+        int i = piso(desde);
+        int pico = (i < 0) ? 0 : ocupacion[i];
+        for (int j = i + 1; j < escalones && tiempos[j] < hasta; j++) {
+            if (ocupacion[j] > pico) pico = ocupacion[j];
+        }
+        return pico;
+    }
+
+    private void sumarEnVentana(long t, int delta) {
+        long fin = t + SEGUNDOS_LIBERACION;
+        int desde = asegurarEscalon(t);
+        int hasta = asegurarEscalon(fin);
+
+        // Actualizar el exceso de las llegadas ya registradas dentro de la ventana
+        int k = buscar(llegadas, instantesLlegada, t);
+        if (k < 0) k = -k - 1;
+        for (; k < instantesLlegada && llegadas[k] < fin; k++) {
+            int antes = ocupacionBase + ocupacionReservadaEn(llegadas[k]);
+            ajustarExceso(antes, antes + delta, multiplicidad[k]);
+        }
+
+        for (int j = desde; j < hasta; j++) {
+            ocupacion[j] += delta;
+        }
+        compactar(hasta);
+        compactar(desde);
+    }
+
+    private void agregarLlegada(long t) {
+        int k = buscar(llegadas, instantesLlegada, t);
+        if (k < 0) {
+            k = -k - 1;
+            if (instantesLlegada == llegadas.length) {
+                llegadas = Arrays.copyOf(llegadas, llegadas.length * 2);
+                multiplicidad = Arrays.copyOf(multiplicidad, multiplicidad.length * 2);
+            }
+            System.arraycopy(llegadas, k, llegadas, k + 1, instantesLlegada - k);
+            System.arraycopy(multiplicidad, k, multiplicidad, k + 1, instantesLlegada - k);
+            llegadas[k] = t;
+            multiplicidad[k] = 0;
+            instantesLlegada++;
+        }
+        multiplicidad[k]++;
+        int exceso = ocupacionBase + ocupacionReservadaEn(t) - capacidad;
+        if (exceso > 0) {
+            excesoEnLlegadas += exceso;
+            llegadasConExceso++;
+        }
+    }
+
+    private void quitarLlegada(long t) {
+        int k = buscar(llegadas, instantesLlegada, t);
+        if (k < 0) {
+            throw new IllegalStateException("No hay llegada registrada en " + aFecha(t) + " para " + almacen.getCodigo());
+        }
+        int exceso = ocupacionBase + ocupacionReservadaEn(t) - capacidad;
+        if (exceso > 0) {
+            excesoEnLlegadas -= exceso;
+            llegadasConExceso--;
+        }
+        if (--multiplicidad[k] == 0) {
+            System.arraycopy(llegadas, k + 1, llegadas, k, instantesLlegada - k - 1);
+            System.arraycopy(multiplicidad, k + 1, multiplicidad, k, instantesLlegada - k - 1);
+            instantesLlegada--;
+        }
+    }
+
+    private void ajustarExceso(int ocupacionAntes, int ocupacionDespues, int veces) {
+        int excesoAntes = Math.max(0, ocupacionAntes - capacidad);
+        int excesoDespues = Math.max(0, ocupacionDespues - capacidad);
+        excesoEnLlegadas += (long) (excesoDespues - excesoAntes) * veces;
+        if (excesoAntes == 0 && excesoDespues > 0) llegadasConExceso += veces;
+        if (excesoAntes > 0 && excesoDespues == 0) llegadasConExceso -= veces;
+    }
+
+    /**
+     * Garantiza que exista un escalón que empiece exactamente en t y devuelve su índice
+     */
+    private int asegurarEscalon(long t) {
+        int i = buscar(tiempos, escalones, t);
+        if (i >= 0) return i;
+        i = -i - 1;
+        if (escalones == tiempos.length) {
+            tiempos = Arrays.copyOf(tiempos, tiempos.length * 2);
+            ocupacion = Arrays.copyOf(ocupacion, ocupacion.length * 2);
+        }
+        System.arraycopy(tiempos, i, tiempos, i + 1, escalones - i);
+        System.arraycopy(ocupacion, i, ocupacion, i + 1, escalones - i);
+        tiempos[i] = t;
+        ocupacion[i] = (i > 0) ? ocupacion[i - 1] : 0;
+        escalones++;
+        return i;
+    }
+
+    /**
+     * Elimina el escalón i si no cambia la ocupación respecto del anterior
+     */
+    private void compactar(int i) {
+        if (i >= escalones) return;
+        int anterior = (i > 0) ? ocupacion[i - 1] : 0;
+        if (ocupacion[i] != anterior) return;
+        System.arraycopy(tiempos, i + 1, tiempos, i, escalones - i - 1);
+        System.arraycopy(ocupacion, i + 1, ocupacion, i, escalones - i - 1);
+        escalones--;
+    }
+
+    private int piso(long t) {
+        int i = buscar(tiempos, escalones, t);
+        return (i >= 0) ? i : -i - 2;
+    }
+
+    private static int buscar(long[] arreglo, int n, long t) {
+        return Arrays.binarySearch(arreglo, 0, n, t);
+    }
+
+    private static long aSegundos(LocalDateTime momento) {
+        return momento.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime aFecha(long segundos) {
+        return LocalDateTime.ofEpochSecond(segundos, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,236 @@
+package com.morapack.models;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Modelo de islas para el algoritmo genético.
+ * Cada isla es un GeneticAlgorithmMoraPack estacionario con su propia población y
+ * tasas; las islas evolucionan en paralelo por épocas de {@code intervaloMigracion}
+ * generaciones y, entre épocas, los mejores individuos de cada isla migran según la
+ * topología (anillo o completa) reemplazando a los peores del destino.
+ * Por defecto las tasas se reparten entre islas: mutación de 0.05 a 0.30 y
+ * cruzamiento de 0.95 a 0.70 (islas más explotadoras y más exploradoras).
+ */
+public class ModeloIslasGA {
+
+    private final List<GeneticAlgorithmMoraPack> islas;
+    private TopologiaMigracion topologia;
+    private int numeroGeneraciones;
+    private int intervaloMigracion;
+    private int migrantesPorIsla;
+    private int hilos;
+
+    // Estadísticas
+    private List<List<Double>> historialPorIsla;   // mejor fitness al final de cada época
+    private int[] migrantesAceptados;
+    private int[] ultimaEpocaConMejora;
+    private Solucion mejorSolucionGlobal;
+    private int epocas;
+    private long tiempoMs;
+
+    public ModeloIslasGA(List<Pedido> pedidos, List<Vuelo> vuelos, int numeroIslas) {
+        this.islas = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, numeroIslas); i++) {
+            GeneticAlgorithmMoraPack ga = new GeneticAlgorithmMoraPack(pedidos, vuelos);
+            double t = (numeroIslas <= 1) ? 0.5 : (double) i / (numeroIslas - 1);
+            ga.setModoEstacionario(true);
+            ga.setTasaMutacion(0.05 + 0.25 * t);
+            ga.setTasaCruzamiento(0.95 - 0.25 * t);
+            islas.add(ga);
+        }
+
+        // Parámetros por defecto
+        this.topologia = TopologiaMigracion.ANILLO;
+        this.numeroGeneraciones = 100;
+        this.intervaloMigracion = 10;
+        this.migrantesPorIsla = 2;
+        this.hilos = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Ejecuta todas las islas y devuelve la mejor solución encontrada
+     */
+    public Solucion ejecutar() {
+        System.out.println("=== INICIANDO GA POR ISLAS ===");
+        System.out.printf("Islas=%d, Topología=%s, Migración cada %d generaciones (%d individuos), Hilos=%d%n",
+                islas.size(), topologia, intervaloMigracion, migrantesPorIsla, Math.min(hilos, islas.size()));
+        long inicio = System.currentTimeMillis();
+
+        historialPorIsla = new ArrayList<>();
+        for (int i = 0; i < islas.size(); i++) historialPorIsla.add(new ArrayList<>());
+        migrantesAceptados = new int[islas.size()];
+        ultimaEpocaConMejora = new int[islas.size()];
+        mejorSolucionGlobal = null;
+        epocas = (numeroGeneraciones + intervaloMigracion - 1) / intervaloMigracion;
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(hilos, islas.size())));
+        try {
+            enParalelo(ejecutor, GeneticAlgorithmMoraPack::inicializarEstacionario);
+            registrarEpoca(0);
+
+            for (int epoca = 1; epoca <= epocas; epoca++) {
+                int generaciones = Math.min(intervaloMigracion, numeroGeneraciones - (epoca - 1) * intervaloMigracion);
+                enParalelo(ejecutor, ga -> ga.evolucionarEstacionario(generaciones));
+                if (epoca < epocas) {
+                    migrar();
+                }
+                registrarEpoca(epoca);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        tiempoMs = System.currentTimeMillis() - inicio;
+        System.out.println("=== GA POR ISLAS COMPLETADO ===");
+        for (int i = 0; i < islas.size(); i++) {
+            Map<String, Object> stats = islas.get(i).obtenerEstadisticasEstacionarias();
+            System.out.printf("Isla %d: Mejor=%.2f, Promedio=%.2f, Diversidad=%.1f, Migrantes aceptados=%d%n",
+                    i, (double) stats.get("mejorFitness"), (double) stats.get("fitnessPromedio"),
+                    (double) stats.get("diversidad"), migrantesAceptados[i]);
+        }
+        System.out.printf("Mejor fitness final: %.2f (%d ms)%n", mejorSolucionGlobal.getFitness(), tiempoMs);
+
+        return mejorSolucionGlobal;
+    }
+
+    /**
+     * Corre la tarea en todas las islas y espera a que terminen
+     */
+    private void enParalelo(ExecutorService ejecutor, Consumer<GeneticAlgorithmMoraPack> tarea) {
+        List<Future<?>> futuros = new ArrayList<>();
+        for (GeneticAlgorithmMoraPack ga : islas) {
+            futuros.add(ejecutor.submit(() -> tarea.accept(ga)));
+        }
+        try {
+            for (Future<?> futuro : futuros) {
+                futuro.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("GA por islas interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en una isla del GA", e.getCause());
+        }
+    }
+
+    /**
+     * Todas las islas envían a la vez: primero se copian los mejores de cada una y
+     * luego se integran en los destinos
+     */
+    private void migrar() {
+        List<List<EvaluadorIncremental>> salientes = new ArrayList<>();
+        for (GeneticAlgorithmMoraPack ga : islas) {
+            salientes.add(ga.copiarMejoresEstacionarios(migrantesPorIsla));
+        }
+
+        int n = islas.size();
+        for (int origen = 0; origen < n; origen++) {
+            for (int destino = 0; destino < n; destino++) {
+                if (destino == origen) continue;
+                if (topologia == TopologiaMigracion.ANILLO && destino != (origen + 1) % n) continue;
+
+                List<EvaluadorIncremental> copias = new ArrayList<>();
+                for (EvaluadorIncremental migrante : salientes.get(origen)) {
+                    copias.add(migrante.copiar());
+                }
+                migrantesAceptados[destino] += islas.get(destino).integrarMigrantes(copias);
+            }
+        }
+    }
+
+    private void registrarEpoca(int epoca) {
+        for (int i = 0; i < islas.size(); i++) {
+            GeneticAlgorithmMoraPack ga = islas.get(i);
+            double mejor = ga.getMejorSolucionGlobal().getFitness();
+            List<Double> historial = historialPorIsla.get(i);
+            if (!historial.isEmpty() && mejor > historial.get(historial.size() - 1)) {
+                ultimaEpocaConMejora[i] = epoca;
+            }
+            historial.add(mejor);
+
+            if (mejorSolucionGlobal == null || mejor > mejorSolucionGlobal.getFitness()) {
+                mejorSolucionGlobal = ga.getMejorSolucionGlobal();
+            }
+        }
+        if (epoca > 0 && epoca % 5 == 0) {
+            System.out.printf("Época %d/%d: Mejor global=%.2f%n", epoca, epocas, mejorSolucionGlobal.getFitness());
+        }
+    }
+
+    /**
+     * Convergencia por isla (mejor y promedio, diversidad, historial por época,
+     * última época con mejora, migrantes aceptados) y resumen global
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("topologia", topologia.name());
+        stats.put("epocas", epocas);
+        stats.put("tiempoMs", tiempoMs);
+        stats.put("mejorFitness", mejorSolucionGlobal == null ? null : mejorSolucionGlobal.getFitness());
+
+        List<Map<String, Object>> porIsla = new ArrayList<>();
+        for (int i = 0; i < islas.size(); i++) {
+            GeneticAlgorithmMoraPack ga = islas.get(i);
+            Map<String, Object> isla = new LinkedHashMap<>();
+            isla.put("isla", i);
+            isla.put("tasaMutacion", ga.getTasaMutacion());
+            isla.put("tasaCruzamiento", ga.getTasaCruzamiento());
+            isla.putAll(ga.obtenerEstadisticasEstacionarias());
+            if (historialPorIsla != null) {
+                isla.put("historialMejor", new ArrayList<>(historialPorIsla.get(i)));
+                isla.put("ultimaEpocaConMejora", ultimaEpocaConMejora[i]);
+                isla.put("migrantesAceptados", migrantesAceptados[i]);
+            }
+            porIsla.add(isla);
+        }
+        stats.put("islas", porIsla);
+        return stats;
+    }
+
+    /**
+     * Isla i, para configurar su población, tasas, política de reemplazo o semilla
+     */
+    public GeneticAlgorithmMoraPack getIsla(int indice) {
+        return islas.get(indice);
+    }
+
+    public int getCantidadIslas() {
+        return islas.size();
+    }
+
+    public Solucion getMejorSolucionGlobal() {
+        return mejorSolucionGlobal;
+    }
+
+    // Setters para configuración
+    public void configurarIsla(int indice, double tasaMutacion, double tasaCruzamiento) {
+        islas.get(indice).setTasaMutacion(tasaMutacion);
+        islas.get(indice).setTasaCruzamiento(tasaCruzamiento);
+    }
+
+    public void setTamañoPoblacion(int tamañoPoblacion) {
+        for (GeneticAlgorithmMoraPack ga : islas) ga.setTamañoPoblacion(tamañoPoblacion);
+    }
+
+    public void setTopologia(TopologiaMigracion topologia) {
+        this.topologia = (topologia == null) ? TopologiaMigracion.ANILLO : topologia;
+    }
+
+    public void setNumeroGeneraciones(int numeroGeneraciones) {
+        this.numeroGeneraciones = Math.max(1, numeroGeneraciones);
+    }
+
+    public void setIntervaloMigracion(int intervaloMigracion) {
+        this.intervaloMigracion = Math.max(1, intervaloMigracion);
+    }
+
+    public void setMigrantesPorIsla(int migrantesPorIsla) {
+        this.migrantesPorIsla = Math.max(0, migrantesPorIsla);
+    }
+
+    public void setHilos(int hilos) {
+        this.hilos = Math.max(1, hilos);
+    }
+}
@@ -0,0 +1,119 @@
+package com.morapack.models;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conjunto de libros de capacidad temporal (uno por almacén) para un estado de solución.
+ * Una ruta ocupa el almacén de destino de cada uno de sus vuelos (escalas + destino final).
+ */
+public class OcupacionAlmacenes {
+
+    private final Map<String, LineaTiempoAlmacen> lineas;
+
+    public OcupacionAlmacenes() {
+        this.lineas = new HashMap<>();
+    }
+
+    /**
+     * Construye la ocupación de todas las rutas de una asignación
+     */
+    public static OcupacionAlmacenes desdeAsignacion(Map<Pedido, RutaPedido> asignacion) {
+        OcupacionAlmacenes ocupacion = new OcupacionAlmacenes();
+        for (Map.Entry<Pedido, RutaPedido> entry : asignacion.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) continue;
+            ocupacion.reservarRuta(entry.getValue().getSecuenciaVuelos(), entry.getKey().getCantidad());
+        }
+        return ocupacion;
+    }
+
+    public OcupacionAlmacenes copiar() {
+        OcupacionAlmacenes copia = new OcupacionAlmacenes();
+        for (Map.Entry<String, LineaTiempoAlmacen> entry : lineas.entrySet()) {
+            copia.lineas.put(entry.getKey(), entry.getValue().copiar());
+        }
+        return copia;
+    }
+
+    public void reservarRuta(List<Vuelo> ruta, int cantidad) {
+        for (Vuelo vuelo : ruta) {
+            if (vuelo.getDestino() == null || vuelo.getHoraLlegada() == null) continue;
+            linea(vuelo.getDestino()).reservar(vuelo.getHoraLlegada(), cantidad);
+        }
+    }
+
+    public void liberarRuta(List<Vuelo> ruta, int cantidad) {
+        for (Vuelo vuelo : ruta) {
+            if (vuelo.getDestino() == null || vuelo.getHoraLlegada() == null) continue;
+            linea(vuelo.getDestino()).liberar(vuelo.getHoraLlegada(), cantidad);
+        }
+    }
+
+    /**
+     * Indica si todas las llegadas de la ruta caben en sus almacenes sin generar sobrecarga
+     */
+    public boolean rutaCabe(List<Vuelo> ruta, int cantidad) {
+        for (Vuelo vuelo : ruta) {
+            if (vuelo.getDestino() == null || vuelo.getHoraLlegada() == null) return false;
+            if (!almacenCabe(vuelo.getDestino(), vuelo.getHoraLlegada(), cantidad)) return false;
+        }
+        return true;
+    }
+
+    public boolean almacenCabe(Aeropuerto almacen, LocalDateTime llegada, int cantidad) {
+        LineaTiempoAlmacen linea = lineas.get(almacen.getCodigo());
+        if (linea == null) {
+            return almacen.getCapacidadAct() + cantidad <= almacen.getCapacidad();
+        }
+        return linea.cabe(llegada, cantidad);
+    }
+
+    public LineaTiempoAlmacen linea(Aeropuerto almacen) {
+        return lineas.computeIfAbsent(almacen.getCodigo(), k -> almacen.crearLineaTiempo());
+    }
+
+    public LineaTiempoAlmacen getLinea(String codigo) {
+        return lineas.get(codigo);
+    }
+
+    public Collection<LineaTiempoAlmacen> getLineas() {
+        return lineas.values();
+    }
+
+    public void limpiar() {
+        lineas.clear();
+    }
+
+    /* ========= Agregados ========= */
+
+    public int getTotalReservas() {
+        int total = 0;
+        for (LineaTiempoAlmacen linea : lineas.values()) total += linea.getReservas();
+        return total;
+    }
+
+    public int getAlmacenesUsados() {
+        int usados = 0;
+        for (LineaTiempoAlmacen linea : lineas.values()) {
+            if (linea.getReservas() > 0) usados++;
+        }
+        return usados;
+    }
+
+    public int getLlegadasConExceso() {
+        int total = 0;
+        for (LineaTiempoAlmacen linea : lineas.values()) total += linea.getLlegadasConExceso();
+        return total;
+    }
+
+    public int getAlmacenesConExceso() {
+        int total = 0;
+        for (LineaTiempoAlmacen linea : lineas.values()) {
+            if (linea.getLlegadasConExceso() > 0) total++;
+        }
+        return total;
+    }
+}
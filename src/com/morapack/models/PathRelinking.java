@@ -0,0 +1,191 @@
+package com.morapack.models;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Path relinking entre soluciones élite.
+ * Camina desde una solución inicial hacia una guía adoptando, en cada paso, la ruta
+ * de la guía para UN pedido en el que difieren; entre una muestra de pedidos se elige
+ * el paso que deja mejor fitness (evaluado por deltas con {@link EvaluadorIncremental}).
+ * Devuelve la mejor solución intermedia del camino. Los pares élite se procesan en
+ * paralelo, cada uno con su propio evaluador.
+ */
+public class PathRelinking {
+
+    private int maxPares;            // caminos por ejecución (cada par da dos: ida y vuelta)
+    private int muestraPorPaso;      // pedidos evaluados antes de dar cada paso
+    private int hilos;
+    private long semilla;
+
+    // Estadísticas de la última ejecución
+    private int caminosRecorridos;
+    private int caminosConMejora;    // intermedia mejor que ambos extremos
+    private long pasosEvaluados;
+    private long tiempoMs;
+
+    public PathRelinking() {
+        this.maxPares = 10;
+        this.muestraPorPaso = 8;
+        this.hilos = Runtime.getRuntime().availableProcessors();
+        this.semilla = System.nanoTime();
+    }
+
+    /**
+     * Relinkea en paralelo los pares del pool (los mejores primero) y agrega las
+     * intermedias al pool
+     * @return las mejores intermedias de cada camino (sin nulos), de mejor a peor
+     */
+    public List<Solucion> ejecutar(PoolElite pool) {
+        long inicio = System.currentTimeMillis();
+        List<Solucion> elite = pool.getSoluciones();
+        List<int[]> caminos = new ArrayList<>();
+        for (int j = 1; j < elite.size() && caminos.size() < 2 * maxPares; j++) {
+            for (int i = 0; i < j && caminos.size() < 2 * maxPares; i++) {
+                caminos.add(new int[]{i, j});
+                caminos.add(new int[]{j, i});
+            }
+        }
+
+        caminosRecorridos = caminos.size();
+        caminosConMejora = 0;
+        pasosEvaluados = 0;
+        List<Solucion> resultados = new ArrayList<>();
+        if (caminos.isEmpty()) {
+            tiempoMs = System.currentTimeMillis() - inicio;
+            return resultados;
+        }
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(hilos, caminos.size())));
+        try {
+            List<Future<Solucion>> futuros = new ArrayList<>();
+            for (int c = 0; c < caminos.size(); c++) {
+                Solucion origen = elite.get(caminos.get(c)[0]);
+                Solucion guia = elite.get(caminos.get(c)[1]);
+                Random random = new Random(semilla + c);
+                futuros.add(ejecutor.submit(() -> {
+                    Solucion intermedia = relinkear(origen, guia, random);
+                    if (intermedia != null) pool.agregar(intermedia);
+                    return intermedia;
+                }));
+            }
+
+            for (int c = 0; c < futuros.size(); c++) {
+                Solucion intermedia = futuros.get(c).get();
+                if (intermedia == null) continue;
+                resultados.add(intermedia);
+                double mejorExtremo = Math.max(elite.get(caminos.get(c)[0]).getFitness(),
+                        elite.get(caminos.get(c)[1]).getFitness());
+                if (intermedia.getFitness() > mejorExtremo) caminosConMejora++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en path relinking", e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        resultados.sort((a, b) -> Double.compare(b.getFitness(), a.getFitness()));
+        tiempoMs = System.currentTimeMillis() - inicio;
+        return resultados;
+    }
+
+    /**
+     * Recorre el camino de {@code inicial} a {@code guia}
+     * @return la mejor solución intermedia (estrictamente entre ambos extremos),
+     *         o null si difieren en menos de dos pedidos
+     */
+    public Solucion relinkear(Solucion inicial, Solucion guia, Random random) {
+        Map<Pedido, RutaPedido> asignacionInicial = inicial.getSolucionLogistica().getAsignacionPedidos();
+        Map<Pedido, RutaPedido> asignacionGuia = guia.getSolucionLogistica().getAsignacionPedidos();
+
+        List<Pedido> restantes = new ArrayList<>();
+        for (Map.Entry<Pedido, RutaPedido> entry : asignacionInicial.entrySet()) {
+            if (!PoolElite.mismaRuta(entry.getValue(), asignacionGuia.get(entry.getKey()))) {
+                restantes.add(entry.getKey());
+            }
+        }
+        for (Pedido pedido : asignacionGuia.keySet()) {
+            if (!asignacionInicial.containsKey(pedido)) restantes.add(pedido);
+        }
+        if (restantes.size() < 2) return null;
+
+        EvaluadorIncremental actual = new EvaluadorIncremental(asignacionInicial, inicial.getTotalPedidosProblema());
+        List<Pedido> adoptados = new ArrayList<>(restantes.size());
+        double mejorFitness = Double.NEGATIVE_INFINITY;
+        int mejorPaso = 0;
+        long pasos = 0;
+
+        // El último paso llevaría exactamente a la guía: se corta antes
+        while (restantes.size() > 1) {
+            int muestra = Math.min(muestraPorPaso, restantes.size());
+            int elegido = -1;
+            double fitnessElegido = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < muestra; k++) {
+                // Fisher-Yates parcial: la muestra queda al final de la lista
+                int ultimo = restantes.size() - 1 - k;
+                Collections.swap(restantes, random.nextInt(ultimo + 1), ultimo);
+                Pedido pedido = restantes.get(ultimo);
+                double fitness = actual.evaluarCambio(pedido, asignacionGuia.get(pedido));
+                pasos++;
+                if (fitness > fitnessElegido) {
+                    fitnessElegido = fitness;
+                    elegido = ultimo;
+                }
+            }
+
+            Pedido pedido = restantes.get(elegido);
+            Collections.swap(restantes, elegido, restantes.size() - 1);
+            restantes.remove(restantes.size() - 1);
+            RutaPedido rutaGuia = asignacionGuia.get(pedido);
+            if (rutaGuia == null) actual.quitar(pedido); else actual.asignar(pedido, rutaGuia);
+            adoptados.add(pedido);
+
+            if (fitnessElegido > mejorFitness) {
+                mejorFitness = fitnessElegido;
+                mejorPaso = adoptados.size();
+            }
+        }
+        synchronized (this) {
+            pasosEvaluados += pasos;
+        }
+
+        // Reconstruir la mejor intermedia repitiendo los primeros pasos sobre la inicial
+        Map<Pedido, RutaPedido> asignacion = new LinkedHashMap<>(asignacionInicial);
+        for (int i = 0; i < mejorPaso; i++) {
+            Pedido pedido = adoptados.get(i);
+            RutaPedido rutaGuia = asignacionGuia.get(pedido);
+            if (rutaGuia == null) asignacion.remove(pedido); else asignacion.put(pedido, rutaGuia);
+        }
+        SolucionLogistica solucionLogistica = new SolucionLogistica();
+        solucionLogistica.setAsignacionPedidos(asignacion);
+        return new Solucion(solucionLogistica, inicial.getTotalPedidosProblema());
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("caminosRecorridos", caminosRecorridos);
+        stats.put("caminosConMejora", caminosConMejora);
+        stats.put("pasosEvaluados", pasosEvaluados);
+        stats.put("tiempoMs", tiempoMs);
+        return stats;
+    }
+
+    // Setters para configuración
+    public void setMaxPares(int maxPares) {
+        this.maxPares = Math.max(1, maxPares);
+    }
+
+    public void setMuestraPorPaso(int muestraPorPaso) {
+        this.muestraPorPaso = Math.max(1, muestraPorPaso);
+    }
+
+    public void setHilos(int hilos) {
+        this.hilos = Math.max(1, hilos);
+    }
+
+    public void setSemilla(long semilla) {
+        this.semilla = semilla;
+    }
+}
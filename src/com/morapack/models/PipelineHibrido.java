@@ -0,0 +1,407 @@
+package com.morapack.models;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Híbrido en pipeline: GRASP, GA y ACS corren a la vez en lugar de por fases.
+ * Los productores GRASP dejan cada solución en una cola acotada (si se llena, esperan)
+ * y en el pool élite compartido. Las islas GA (estacionarias) arrancan en cuanto reciben
+ * su primera semilla y las colonias ACS igual. Después, entre lote y lote, cada una
+ * integra lo que haya llegado a la cola y el mejor del pool si supera a su propio
+ * mejor, y publica en el pool lo que consigue. Así el tiempo total se acerca al de la
+ * etapa más lenta en vez de a la suma de todas.
+ * Cada hilo usa sus propias instancias de GRASP / GA / ACS (estado independiente).
+ */
+public class PipelineHibrido {
+
+    private static final long ESPERA_COLA_MS = 50;
+
+    private final List<Pedido> pedidos;
+    private final List<Vuelo> vuelos;
+
+    // Parámetros
+    private int productoresGrasp;
+    private int iteracionesGrasp;           // soluciones GRASP en total, entre todos los productores
+    private int capacidadCola;
+    private int islasGA;
+    private int tamañoPoblacion;
+    private int generacionesGA;             // por isla
+    private int generacionesPorLote;
+    private int coloniasACS;
+    private int hormigasACS;
+    private int iteracionesACS;             // por colonia
+    private int iteracionesPorLoteACS;
+    private long tiempoMaximoMs;            // 0 = sin límite
+    private long semilla;
+    private ControlEjecucion control;       // null = sin portafolio
+
+    // Estado de una ejecución
+    private PoolElite pool;
+    private BlockingQueue<Solucion> cola;
+    private AtomicInteger produccionesRestantes;
+    private AtomicInteger productoresActivos;
+    private AtomicInteger consumidoresActivos;
+    private volatile long limiteMillis;
+
+    // Estadísticas
+    private final AtomicInteger solucionesGrasp = new AtomicInteger();
+    private final AtomicInteger semillasConsumidasGA = new AtomicInteger();
+    private final AtomicInteger semillasConsumidasACS = new AtomicInteger();
+    private final AtomicInteger importadasDelPool = new AtomicInteger();
+    private final AtomicLong tiempoGraspMs = new AtomicLong();
+    private final AtomicLong tiempoGAMs = new AtomicLong();
+    private final AtomicLong tiempoACSMs = new AtomicLong();
+    private long tiempoTotalMs;
+
+    public PipelineHibrido(List<Pedido> pedidos, List<Vuelo> vuelos) {
+        this.pedidos = new ArrayList<>(pedidos);
+        this.vuelos = new ArrayList<>(vuelos);
+
+        // Parámetros por defecto
+        this.productoresGrasp = 1;
+        this.iteracionesGrasp = 20;
+        this.capacidadCola = 8;
+        this.islasGA = 2;
+        this.tamañoPoblacion = 20;
+        this.generacionesGA = 100;
+        this.generacionesPorLote = 10;
+        this.coloniasACS = 1;
+        this.hormigasACS = 10;
+        this.iteracionesACS = 20;
+        this.iteracionesPorLoteACS = 2;
+        this.tiempoMaximoMs = 0;
+        this.semilla = System.nanoTime();
+    }
+
+    /**
+     * Ejecuta las tres etapas en paralelo y devuelve la mejor solución del pool élite
+     */
+    public Solucion ejecutar() {
+        System.out.println("=== INICIANDO HÍBRIDO EN PIPELINE (GRASP → GA + ACS) ===");
+        System.out.printf("Productores GRASP=%d (%d soluciones), Cola=%d, Islas GA=%d, Colonias ACS=%d%n",
+                productoresGrasp, iteracionesGrasp, capacidadCola, islasGA, coloniasACS);
+        long inicio = System.currentTimeMillis();
+
+        pool = new PoolElite(10, Math.max(1, pedidos.size() / 100));
+        cola = new ArrayBlockingQueue<>(Math.max(1, capacidadCola));
+        produccionesRestantes = new AtomicInteger(iteracionesGrasp);
+        productoresActivos = new AtomicInteger(productoresGrasp);
+        consumidoresActivos = new AtomicInteger(islasGA + coloniasACS);
+        limiteMillis = (tiempoMaximoMs > 0) ? inicio + tiempoMaximoMs : 0;
+        reiniciarEstadisticas();
+
+        int hilos = productoresGrasp + islasGA + coloniasACS;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(Math.max(1, hilos));
+        // ✅ MODIFICADO: se espera en orden de terminación, así el primer error de cualquier etapa
+        // corta la corrida en vez de quedar detrás de los productores
+        CompletionService<Void> terminados = new ExecutorCompletionService<>(ejecutor);
+        try {
+            for (int i = 0; i < productoresGrasp; i++) {
+                terminados.submit(this::producirGrasp, null);
+            }
+            for (int i = 0; i < islasGA; i++) {
+                long semillaHilo = semilla + 100 + i;
+                terminados.submit(() -> consumirConGA(semillaHilo), null);
+            }
+            for (int i = 0; i < coloniasACS; i++) {
+                long semillaHilo = semilla + 200 + i;
+                terminados.submit(() -> consumirConACS(semillaHilo), null);
+            }
+            for (int i = 0; i < hilos; i++) {
+                terminados.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Híbrido en pipeline interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en una etapa del híbrido en pipeline", e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        tiempoTotalMs = System.currentTimeMillis() - inicio;
+        Solucion mejor = pool.getMejor();
+        System.out.println("=== HÍBRIDO EN PIPELINE COMPLETADO ===");
+        System.out.printf("Tiempo total: %d ms (suma de etapas: GRASP %d + GA %d + ACS %d ms)%n",
+                tiempoTotalMs, tiempoGraspMs.get(), tiempoGAMs.get(), tiempoACSMs.get());
+        if (mejor != null) {
+            System.out.printf("Mejor fitness final: %.2f%n", mejor.getFitness());
+        }
+        return mejor;
+    }
+
+    /* ========= Etapas ========= */
+
+    private void producirGrasp() {
+        long inicio = System.currentTimeMillis();
+        try {
+            GraspMoraPack grasp = new GraspMoraPack(pedidos, vuelos);
+            grasp.activarGraspReactivo();
+
+            while (!tiempoAgotado() && produccionesRestantes.getAndDecrement() > 0) {
+                Solucion solucion = grasp.generarSolucion();
+                if (solucion == null) continue;
+                solucion.setTotalPedidosProblema(pedidos.size());
+                solucionesGrasp.incrementAndGet();
+                publicar(solucion);
+
+                // Cola llena: se espera a que los consumidores avancen (sin pasar el límite de tiempo)
+                while (hayConsumidores() && !tiempoAgotado()
+                        && !cola.offer(solucion, ESPERA_COLA_MS, TimeUnit.MILLISECONDS)) {
+                    // reintentar
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            productoresActivos.decrementAndGet();
+            tiempoGraspMs.addAndGet(System.currentTimeMillis() - inicio);
+        }
+    }
+
+    private void consumirConGA(long semillaHilo) {
+        try {
+            // La isla arranca con la primera semilla (y las que ya estén en la cola)
+            List<Solucion> iniciales = tomarSemillasIniciales(Math.max(1, (int) (tamañoPoblacion * 0.3)));
+            long inicio = System.currentTimeMillis();
+            semillasConsumidasGA.addAndGet(iniciales.size());
+
+            GeneticAlgorithmMoraPack ga = new GeneticAlgorithmMoraPack(pedidos, vuelos);
+            ga.setSemilla(semillaHilo);
+            ga.setModoEstacionario(true);
+            ga.setSeleccionAdaptativa(true);
+            ga.setTamañoPoblacion(tamañoPoblacion);
+            ga.setSemillasIniciales(iniciales);
+            ga.setGraspEnPoblacionInicial(false);      // las semillas reemplazan toda la cuota GRASP
+            ga.inicializarEstacionario();
+            publicar(ga.getMejorSolucionGlobal());
+
+            Solucion ultimaImportada = null;
+            int generaciones = 0;
+            while (!tiempoAgotado()) {
+                // Con el presupuesto cumplido la isla solo integra lo que siga llegando de GRASP
+                boolean presupuestoCumplido = generaciones >= generacionesGA;
+                if (presupuestoCumplido && produccionTerminada()) break;
+
+                List<EvaluadorIncremental> migrantes = new ArrayList<>();
+                List<Solucion> nuevas = tomarSemillas(capacidadCola, presupuestoCumplido);
+                semillasConsumidasGA.addAndGet(nuevas.size());
+                for (Solucion solucion : nuevas) migrantes.add(new EvaluadorIncremental(solucion));
+
+                Solucion mejorPool = pool.getMejor();
+                if (mejorPool != null && mejorPool != ultimaImportada
+                        && mejorPool.getFitness() > ga.getMejorSolucionGlobal().getFitness()) {
+                    migrantes.add(new EvaluadorIncremental(mejorPool));
+                    ultimaImportada = mejorPool;
+                    importadasDelPool.incrementAndGet();
+                }
+                if (!migrantes.isEmpty()) ga.integrarMigrantes(migrantes);
+
+                if (presupuestoCumplido) {
+                    publicar(ga.getMejorSolucionGlobal());
+                    continue;
+                }
+                ga.evolucionarEstacionario(generacionesPorLote);
+                generaciones += generacionesPorLote;
+                publicar(ga.getMejorSolucionGlobal());
+            }
+            tiempoGAMs.addAndGet(System.currentTimeMillis() - inicio);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            consumidoresActivos.decrementAndGet();
+        }
+    }
+
+    private void consumirConACS(long semillaHilo) {
+        try {
+            List<Solucion> iniciales = tomarSemillasIniciales(capacidadCola);
+            long inicio = System.currentTimeMillis();
+            semillasConsumidasACS.addAndGet(iniciales.size());
+
+            ACSMoraPack acs = new ACSMoraPack(pedidos, vuelos);
+            acs.establecerSemillaAleatoria(semillaHilo);
+            acs.establecerSemillas(iniciales);
+            acs.configurarParametrosACS(hormigasACS, iteracionesPorLoteACS, acs.alfa, acs.beta, acs.rho, acs.xi);
+
+            Solucion ultimaImportada = null;
+            int iteraciones = 0;
+            while (!tiempoAgotado()) {
+                boolean presupuestoCumplido = iteraciones >= iteracionesACS;
+                if (presupuestoCumplido && produccionTerminada()) break;
+
+                List<Solucion> nuevas = tomarSemillas(capacidadCola, presupuestoCumplido);
+                semillasConsumidasACS.addAndGet(nuevas.size());
+                for (Solucion solucion : nuevas) acs.agregarSemilla(solucion);
+
+                Solucion mejorPool = pool.getMejor();
+                Solucion mejorColonia = acs.getMejorHastaAhora();
+                if (mejorPool != null && mejorPool != ultimaImportada
+                        && (mejorColonia == null || mejorPool.getFitness() > mejorColonia.getFitness())) {
+                    acs.agregarSemilla(mejorPool);
+                    ultimaImportada = mejorPool;
+                    importadasDelPool.incrementAndGet();
+                }
+
+                if (presupuestoCumplido) continue;
+                publicar(acs.ejecutar());
+                iteraciones += iteracionesPorLoteACS;
+            }
+            tiempoACSMs.addAndGet(System.currentTimeMillis() - inicio);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            consumidoresActivos.decrementAndGet();
+        }
+    }
+
+    /**
+     * Bloquea hasta recibir la primera semilla (o hasta que la producción termine o se
+     * agote el tiempo, y entonces usa el mejor del pool) y suma las que ya estén en la cola
+     */
+    private List<Solucion> tomarSemillasIniciales(int maximo) throws InterruptedException {
+        List<Solucion> tomadas = new ArrayList<>();
+        while (tomadas.isEmpty() && !tiempoAgotado() && !produccionTerminada()) {
+            Solucion solucion = cola.poll(ESPERA_COLA_MS, TimeUnit.MILLISECONDS);
+            if (solucion != null) tomadas.add(solucion);
+        }
+        if (tomadas.isEmpty() && pool.getMejor() != null) tomadas.add(pool.getMejor());
+        cola.drainTo(tomadas, Math.max(0, maximo - tomadas.size()));
+        return tomadas;
+    }
+
+    /**
+     * Saca hasta {@code maximo} soluciones de la cola; con {@code esperar} (la etapa no
+     * tiene otro trabajo) espera un momento a la siguiente en vez de volver enseguida
+     */
+    private List<Solucion> tomarSemillas(int maximo, boolean esperar) throws InterruptedException {
+        List<Solucion> tomadas = new ArrayList<>();
+        if (esperar) {
+            Solucion solucion = cola.poll(ESPERA_COLA_MS, TimeUnit.MILLISECONDS);
+            if (solucion != null) tomadas.add(solucion);
+        }
+        cola.drainTo(tomadas, Math.max(0, maximo - tomadas.size()));
+        return tomadas;
+    }
+
+    /**
+     * true mientras quede alguna isla o colonia leyendo la cola (las que terminan o fallan
+     * ya no la vacían, y los productores no deben esperar por ellas)
+     */
+    private boolean hayConsumidores() {
+        return consumidoresActivos.get() > 0;
+    }
+
+    private boolean produccionTerminada() {
+        return productoresActivos.get() == 0 && cola.isEmpty();
+    }
+
+    private boolean tiempoAgotado() {
+        return (limiteMillis > 0 && System.currentTimeMillis() >= limiteMillis)
+                || (control != null && !control.debeContinuar());
+    }
+
+    private void publicar(Solucion solucion) {
+        pool.agregar(solucion);
+        if (control != null) control.reportar(solucion);
+    }
+
+    private void reiniciarEstadisticas() {
+        solucionesGrasp.set(0);
+        semillasConsumidasGA.set(0);
+        semillasConsumidasACS.set(0);
+        importadasDelPool.set(0);
+        tiempoGraspMs.set(0);
+        tiempoGAMs.set(0);
+        tiempoACSMs.set(0);
+    }
+
+    /**
+     * Soluciones producidas y consumidas por etapa, importaciones desde el pool, tiempo
+     * ocupado de cada etapa (sumado entre sus hilos) y tiempo total de reloj
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("solucionesGrasp", solucionesGrasp.get());
+        stats.put("semillasConsumidasGA", semillasConsumidasGA.get());
+        stats.put("semillasConsumidasACS", semillasConsumidasACS.get());
+        stats.put("importadasDelPool", importadasDelPool.get());
+        stats.put("tiempoGraspMs", tiempoGraspMs.get());
+        stats.put("tiempoGAMs", tiempoGAMs.get());
+        stats.put("tiempoACSMs", tiempoACSMs.get());
+        stats.put("tiempoTotalMs", tiempoTotalMs);
+        stats.put("mejorFitness", (pool == null || pool.getMejor() == null) ? null : pool.getMejor().getFitness());
+        return stats;
+    }
+
+    /**
+     * Pool élite compartido de la última ejecución
+     */
+    public PoolElite getPoolElite() {
+        return pool;
+    }
+
+    // Setters para configuración
+    public void setProductoresGrasp(int productoresGrasp) {
+        this.productoresGrasp = Math.max(1, productoresGrasp);
+    }
+
+    public void setIteracionesGrasp(int iteracionesGrasp) {
+        this.iteracionesGrasp = Math.max(1, iteracionesGrasp);
+    }
+
+    public void setCapacidadCola(int capacidadCola) {
+        this.capacidadCola = Math.max(1, capacidadCola);
+    }
+
+    public void setIslasGA(int islasGA) {
+        this.islasGA = Math.max(0, islasGA);
+    }
+
+    public void setTamañoPoblacion(int tamañoPoblacion) {
+        this.tamañoPoblacion = Math.max(2, tamañoPoblacion);
+    }
+
+    public void setGeneracionesGA(int generacionesGA) {
+        this.generacionesGA = Math.max(1, generacionesGA);
+    }
+
+    public void setGeneracionesPorLote(int generacionesPorLote) {
+        this.generacionesPorLote = Math.max(1, generacionesPorLote);
+    }
+
+    public void setColoniasACS(int coloniasACS) {
+        this.coloniasACS = Math.max(0, coloniasACS);
+    }
+
+    public void setHormigasACS(int hormigasACS) {
+        this.hormigasACS = Math.max(1, hormigasACS);
+    }
+
+    public void setIteracionesACS(int iteracionesACS) {
+        this.iteracionesACS = Math.max(1, iteracionesACS);
+    }
+
+    public void setIteracionesPorLoteACS(int iteracionesPorLoteACS) {
+        this.iteracionesPorLoteACS = Math.max(1, iteracionesPorLoteACS);
+    }
+
+    public void setTiempoMaximoMs(long tiempoMaximoMs) {
+        this.tiempoMaximoMs = Math.max(0, tiempoMaximoMs);
+    }
+
+    public void setSemilla(long semilla) {
+        this.semilla = semilla;
+    }
+
+    /**
+     * Corre dentro de un portafolio: se detiene cuando el control lo indica y le reporta
+     * cada solución publicada en el pool
+     */
+    public void setControl(ControlEjecucion control) {
+        this.control = control;
+    }
+}
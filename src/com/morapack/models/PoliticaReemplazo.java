@@ -0,0 +1,11 @@
+package com.morapack.models;
+
+/**
+ * A qué individuo reemplaza un hijo en el GA estacionario
+ */
+public enum PoliticaReemplazo {
+    /** Al peor de la población, si el hijo lo supera */
+    PEOR,
+    /** Al más parecido entre los que el hijo supera (sin tocar al mejor): conserva diversidad */
+    MAS_PARECIDO
+}
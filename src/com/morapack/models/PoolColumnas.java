@@ -0,0 +1,149 @@
+package com.morapack.models;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Rutas distintas vistas por pedido (columnas), juntadas de todas las soluciones que
+ * producen GRASP, GA y ACS en vez de descartarlas. Cada columna guarda su ruta (copia
+ * propia), si llega dentro del SLA y su costo en horas (duración + 24 por día de atraso).
+ * Por pedido se guardan como mucho {@code maxPorPedido}: al llenarse, una columna nueva
+ * reemplaza a la peor (tarde antes que a tiempo, luego la de mayor costo). Dos rutas son
+ * la misma si tienen los mismos vuelos en el mismo orden. Seguro para agregar desde
+ * varios hilos.
+ */
+public class PoolColumnas {
+
+    /**
+     * Una ruta candidata para un pedido
+     */
+    public static final class Columna {
+        private final Pedido pedido;
+        private final RutaPedido ruta;
+        private final boolean aTiempo;
+        private final double costo;
+
+        Columna(Pedido pedido, RutaPedido ruta, boolean aTiempo, double costo) {
+            this.pedido = pedido;
+            this.ruta = ruta;
+            this.aTiempo = aTiempo;
+            this.costo = costo;
+        }
+
+        public Pedido getPedido() { return pedido; }
+
+        public RutaPedido getRuta() { return ruta; }
+
+        public boolean esATiempo() { return aTiempo; }
+
+        public double getCosto() { return costo; }
+
+        /**
+         * true si esta columna es peor que la otra (tarde antes que a tiempo, luego más cara)
+         */
+        boolean peorQue(Columna otra) {
+            if (aTiempo != otra.aTiempo) return !aTiempo;
+            return costo > otra.costo;
+        }
+    }
+
+    private final int maxPorPedido;
+    private final Map<Pedido, Map<List<Vuelo>, Columna>> columnas = new IdentityHashMap<>();
+
+    // Estadísticas
+    private long rutasVistas;
+    private long rutasNuevas;
+    private long reemplazos;
+    private int solucionesAgregadas;
+
+    public PoolColumnas(int maxPorPedido) {
+        this.maxPorPedido = Math.max(1, maxPorPedido);
+    }
+
+    public synchronized void agregar(Solucion solucion) {
+        if (solucion == null || solucion.getSolucionLogistica() == null
+                || solucion.getSolucionLogistica().getAsignacionPedidos() == null) return;
+        solucionesAgregadas++;
+        for (Map.Entry<Pedido, RutaPedido> e : solucion.getSolucionLogistica().getAsignacionPedidos().entrySet()) {
+            agregarRuta(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * @return true si la ruta quedó como columna nueva del pedido
+     */
+    public synchronized boolean agregarRuta(Pedido pedido, RutaPedido ruta) {
+        if (pedido == null || ruta == null || ruta.getSecuenciaVuelos() == null
+                || ruta.getSecuenciaVuelos().isEmpty()) return false;
+        rutasVistas++;
+        Map<List<Vuelo>, Columna> delPedido = columnas.computeIfAbsent(pedido, p -> new HashMap<>());
+        if (delPedido.containsKey(ruta.getSecuenciaVuelos())) return false;
+
+        Columna nueva = crearColumna(pedido, ruta);
+        if (delPedido.size() >= maxPorPedido) {
+            Columna peor = null;
+            for (Columna c : delPedido.values()) {
+                if (peor == null || c.peorQue(peor)) peor = c;
+            }
+            if (!peor.peorQue(nueva)) return false;
+            delPedido.remove(peor.ruta.getSecuenciaVuelos());
+            reemplazos++;
+        }
+        delPedido.put(nueva.ruta.getSecuenciaVuelos(), nueva);
+        rutasNuevas++;
+        return true;
+    }
+
+    private static Columna crearColumna(Pedido pedido, RutaPedido original) {
+        List<Vuelo> vuelos = new ArrayList<>(original.getSecuenciaVuelos());
+        RutaPedido copia = new RutaPedido(pedido, vuelos);
+        copia.setFechaSalida(original.getFechaSalida() != null ? original.getFechaSalida() : vuelos.get(0).getHoraSalida());
+        copia.setFechaLlegada(original.getFechaLlegada() != null ? original.getFechaLlegada()
+                : vuelos.get(vuelos.size() - 1).getHoraLlegada());
+        copia.setEsInternacional(original.getEsInternacional());
+
+        return new Columna(pedido, copia, Solucion.esPedidoATiempo(copia), costoRuta(copia));
+    }
+
+    /**
+     * Horas de la ruta (salida del primer vuelo a llegada del último) + 24 por día de atraso
+     */
+    static double costoRuta(RutaPedido ruta) {
+        List<Vuelo> vuelos = ruta.getSecuenciaVuelos();
+        double horas = Duration.between(vuelos.get(0).getHoraSalida(),
+                vuelos.get(vuelos.size() - 1).getHoraLlegada()).toMinutes() / 60.0;
+        return horas + 24.0 * Solucion.calcularDiasAtraso(ruta);
+    }
+
+    /**
+     * Columnas del pedido, de mejor a peor
+     */
+    public synchronized List<Columna> getColumnas(Pedido pedido) {
+        Map<List<Vuelo>, Columna> delPedido = columnas.get(pedido);
+        if (delPedido == null) return Collections.emptyList();
+        List<Columna> lista = new ArrayList<>(delPedido.values());
+        lista.sort((a, b) -> a.peorQue(b) ? 1 : b.peorQue(a) ? -1 : 0);
+        return lista;
+    }
+
+    public synchronized int getTotalColumnas() {
+        int total = 0;
+        for (Map<List<Vuelo>, Columna> delPedido : columnas.values()) total += delPedido.size();
+        return total;
+    }
+
+    public synchronized int getPedidosConColumnas() {
+        return columnas.size();
+    }
+
+    public synchronized Map<String, Long> obtenerEstadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("solucionesAgregadas", (long) solucionesAgregadas);
+        stats.put("rutasVistas", rutasVistas);
+        stats.put("columnas", (long) getTotalColumnas());
+        stats.put("pedidosConColumnas", (long) columnas.size());
+        stats.put("columnasNuevas", rutasNuevas);
+        stats.put("reemplazos", reemplazos);
+        return stats;
+    }
+}
@@ -0,0 +1,96 @@
+package com.morapack.models;
+
+import java.util.*;
+
+/**
+ * Conjunto acotado de soluciones élite, ordenado de mejor a peor fitness.
+ * Una solución entra si mejora a la peor del pool y no es casi igual (menos de
+ * {@code distanciaMinima} pedidos con ruta distinta) a otra mejor que ya esté;
+ * si se parece a una peor, la reemplaza. Seguro para agregar desde varios hilos.
+ */
+public class PoolElite {
+
+    private final int capacidad;
+    private final int distanciaMinima;
+    private final List<Solucion> soluciones = new ArrayList<>();
+
+    public PoolElite(int capacidad, int distanciaMinima) {
+        this.capacidad = Math.max(1, capacidad);
+        this.distanciaMinima = Math.max(1, distanciaMinima);
+    }
+
+    /**
+     * @return true si la solución quedó en el pool
+     */
+    public synchronized boolean agregar(Solucion solucion) {
+        if (solucion == null || solucion.getSolucionLogistica() == null) return false;
+
+        int parecida = -1;
+        for (int i = 0; i < soluciones.size(); i++) {
+            if (distancia(soluciones.get(i), solucion) < distanciaMinima) {
+                parecida = i;
+                break;
+            }
+        }
+        if (parecida >= 0) {
+            if (soluciones.get(parecida).getFitness() >= solucion.getFitness()) return false;
+            soluciones.remove(parecida);
+        } else if (soluciones.size() >= capacidad) {
+            if (soluciones.get(soluciones.size() - 1).getFitness() >= solucion.getFitness()) return false;
+            soluciones.remove(soluciones.size() - 1);
+        }
+
+        int posicion = 0;
+        while (posicion < soluciones.size() && soluciones.get(posicion).getFitness() >= solucion.getFitness()) {
+            posicion++;
+        }
+        soluciones.add(posicion, solucion);
+        return true;
+    }
+
+    public synchronized void agregarTodas(Collection<Solucion> nuevas) {
+        for (Solucion solucion : nuevas) agregar(solucion);
+    }
+
+    /**
+     * Copia de las soluciones, de mejor a peor
+     */
+    public synchronized List<Solucion> getSoluciones() {
+        return new ArrayList<>(soluciones);
+    }
+
+    public synchronized Solucion getMejor() {
+        return soluciones.isEmpty() ? null : soluciones.get(0);
+    }
+
+    public synchronized int getTamaño() {
+        return soluciones.size();
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Cantidad de pedidos con distinta ruta en las dos soluciones
+     * (incluye los asignados en una sola de ellas)
+     */
+    public static int distancia(Solucion a, Solucion b) {
+        Map<Pedido, RutaPedido> asignacionA = a.getSolucionLogistica().getAsignacionPedidos();
+        Map<Pedido, RutaPedido> asignacionB = b.getSolucionLogistica().getAsignacionPedidos();
+        int diferentes = 0;
+        for (Map.Entry<Pedido, RutaPedido> entry : asignacionA.entrySet()) {
+            if (!mismaRuta(entry.getValue(), asignacionB.get(entry.getKey()))) diferentes++;
+        }
+        for (Pedido pedido : asignacionB.keySet()) {
+            if (!asignacionA.containsKey(pedido)) diferentes++;
+        }
+        return diferentes;
+    }
+
+    static boolean mismaRuta(RutaPedido a, RutaPedido b) {
+        if (a == b) return true;
+        if (a == null || b == null) return false;
+        return a.getSecuenciaVuelos().equals(b.getSecuenciaVuelos());
+    }
+}
@@ -0,0 +1,191 @@
+package com.morapack.models;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pools de rutas precalculadas para los operadores de mutación del GA.
+ * Para cada (fábrica, destino, tipo) se guardan, ordenadas por la salida del primer
+ * tramo, las rutas directas o con una escala (las {@code SEGUNDOS_POR_PRIMER_TRAMO}
+ * primeras conexiones de cada primer tramo), junto con el índice de inicio de cada
+ * ventana de {@code VENTANA_SEGUNDOS}. Muestrear una ruta para un pedido es tomar una
+ * posición al azar entre las ventanas que siguen a su registro y validarla (salida
+ * posterior al registro, conexión, cancelación y capacidad residual), con un número
+ * acotado de intentos: el costo por llamada es constante.
+ * Los pools se arman la primera vez que se piden y reutilizan el índice del GRASP.
+ */
+class PoolRutasMutacion {
+
+    private static final long VENTANA_SEGUNDOS = 6 * 3600;
+    private static final int VENTANAS_HORIZONTE = 8;           // 48 h desde el registro
+    private static final int SEGUNDOS_POR_PRIMER_TRAMO = 2;
+    private static final int MAX_INTENTOS = 8;
+    private static final long CONEXION_MINIMA_SEGUNDOS = 3600;
+
+    private final GrafoVuelos grafo;
+    private final int[] fabricas;           // índice en el grafo de cada fábrica (-1 si no tiene vuelos)
+    private final long inicio;              // salida más temprana de la red
+    private final int cantidadVentanas;
+    private final Pool[] pools;             // (fabrica * n + destino) * 2 + (conEscala ? 1 : 0)
+
+    // Estadísticas
+    private long muestras;
+    private long intentosRechazados;
+    private long muestrasSinRuta;
+
+    private static final class Pool {
+        final int[] primeros;
+        final int[] segundos;               // null en los pools de rutas directas
+        final int[] inicioVentana;          // cantidadVentanas + 1 posiciones
+
+        Pool(int[] primeros, int[] segundos, int[] inicioVentana) {
+            this.primeros = primeros;
+            this.segundos = segundos;
+            this.inicioVentana = inicioVentana;
+        }
+    }
+
+    PoolRutasMutacion(GrafoVuelos grafo) {
+        this.grafo = grafo;
+        this.fabricas = new int[Solucion.FABRICAS.size()];
+        for (int f = 0; f < fabricas.length; f++) {
+            fabricas[f] = grafo.indiceAeropuerto(Solucion.FABRICAS.get(f));
+        }
+
+        long primeraSalida = Long.MAX_VALUE;
+        long ultimaSalida = Long.MIN_VALUE;
+        for (int id = 0; id < grafo.getCantidadVuelos(); id++) {
+            primeraSalida = Math.min(primeraSalida, grafo.salidaDe(id));
+            ultimaSalida = Math.max(ultimaSalida, grafo.salidaDe(id));
+        }
+        this.inicio = (grafo.getCantidadVuelos() == 0) ? 0 : primeraSalida;
+        this.cantidadVentanas = (grafo.getCantidadVuelos() == 0) ? 0
+                : (int) ((ultimaSalida - primeraSalida) / VENTANA_SEGUNDOS) + 1;
+        int n = grafo.getCantidadAeropuertos();
+        this.pools = new Pool[fabricas.length * n * 2];
+    }
+
+    /**
+     * Ruta al azar desde la fábrica {@code fabrica} (índice en {@link Solucion#FABRICAS})
+     * hasta el destino del pedido, directa o con una escala
+     * @param carga carga actual de cada vuelo en el individuo, o null para validar solo
+     *              contra la capacidad máxima
+     * @return la ruta, o lista vacía si no se encontró una válida en los intentos
+     */
+    List<Vuelo> muestrear(int fabrica, Pedido pedido, boolean conEscala, Random random,
+                          ToIntFunction<Vuelo> carga) {
+        muestras++;
+        int origen = fabricas[fabrica];
+        int destino = grafo.indiceAeropuerto(pedido.getLugarDestino().getCodigo());
+        if (origen < 0 || destino < 0 || origen == destino) {
+            muestrasSinRuta++;
+            return new ArrayList<>();
+        }
+
+        Pool pool = obtenerPool(fabrica, destino, conEscala);
+        long registro = GrafoVuelos.aSegundos(pedido.getFechaRegistro());
+        int ventana = (int) Math.max(0, Math.floorDiv(registro - inicio, VENTANA_SEGUNDOS));
+        if (ventana >= cantidadVentanas) {
+            muestrasSinRuta++;
+            return new ArrayList<>();
+        }
+        int desde = pool.inicioVentana[ventana];
+        int hasta = pool.inicioVentana[Math.min(cantidadVentanas, ventana + VENTANAS_HORIZONTE)];
+
+        for (int intento = 0; intento < MAX_INTENTOS && desde < hasta; intento++) {
+            int k = desde + random.nextInt(hasta - desde);
+            int primero = pool.primeros[k];
+            if (grafo.salidaDe(primero) <= registro || !cabe(primero, pedido, carga)) {
+                intentosRechazados++;
+                continue;
+            }
+            if (pool.segundos == null) {
+                return new ArrayList<>(Collections.singletonList(grafo.getVuelo(primero)));
+            }
+            int segundo = pool.segundos[k];
+            if (grafo.salidaDe(segundo) <= grafo.llegadaDe(primero) + CONEXION_MINIMA_SEGUNDOS
+                    || !cabe(segundo, pedido, carga)) {
+                intentosRechazados++;
+                continue;
+            }
+            return new ArrayList<>(Arrays.asList(grafo.getVuelo(primero), grafo.getVuelo(segundo)));
+        }
+        muestrasSinRuta++;
+        return new ArrayList<>();
+    }
+
+    private boolean cabe(int id, Pedido pedido, ToIntFunction<Vuelo> carga) {
+        Vuelo vuelo = grafo.getVuelo(id);
+        if (vuelo.estaCancelado()) return false;
+        int ocupado = (carga == null) ? 0 : carga.applyAsInt(vuelo);
+        return vuelo.getCapacidadMaxima() - ocupado >= pedido.getCantidad();
+    }
+
+    private Pool obtenerPool(int fabrica, int destino, boolean conEscala) {
+        int posicion = (fabrica * grafo.getCantidadAeropuertos() + destino) * 2 + (conEscala ? 1 : 0);
+        Pool pool = pools[posicion];
+        if (pool == null) {
+            int origen = fabricas[fabrica];
+            pool = conEscala ? construirConEscala(origen, destino) : construirDirecto(origen, destino);
+            pools[posicion] = pool;
+        }
+        return pool;
+    }
+
+    private Pool construirDirecto(int origen, int destino) {
+        int[] primeros = grafo.vuelosEntre(origen, destino).clone();
+        return new Pool(primeros, null, indicePorVentana(primeros));
+    }
+
+    private Pool construirConEscala(int origen, int destino) {
+        int[] salidas = grafo.salidasDesde(origen);
+        int[] primeros = new int[salidas.length * SEGUNDOS_POR_PRIMER_TRAMO];
+        int[] segundos = new int[primeros.length];
+        int cantidad = 0;
+        for (int primero : salidas) {
+            int escala = grafo.destinoDe(primero);
+            if (escala == destino) continue;
+            int[] hastaDestino = grafo.vuelosEntre(escala, destino);
+            int j = grafo.primeraSalidaDespues(hastaDestino, grafo.llegadaDe(primero) + CONEXION_MINIMA_SEGUNDOS);
+            for (int c = 0; c < SEGUNDOS_POR_PRIMER_TRAMO && j < hastaDestino.length; c++, j++) {
+                primeros[cantidad] = primero;
+                segundos[cantidad] = hastaDestino[j];
+                cantidad++;
+            }
+        }
+        int[] primerosPool = Arrays.copyOf(primeros, cantidad);
+        return new Pool(primerosPool, Arrays.copyOf(segundos, cantidad), indicePorVentana(primerosPool));
+    }
+
+    /**
+     * Posición de la primera ruta de cada ventana (las rutas vienen ordenadas por salida)
+     */
+    private int[] indicePorVentana(int[] primeros) {
+        int[] inicioVentana = new int[cantidadVentanas + 1];
+        int k = 0;
+        for (int w = 0; w <= cantidadVentanas; w++) {
+            long limite = inicio + w * VENTANA_SEGUNDOS;
+            while (k < primeros.length && grafo.salidaDe(primeros[k]) < limite) k++;
+            inicioVentana[w] = k;
+        }
+        inicioVentana[cantidadVentanas] = primeros.length;
+        return inicioVentana;
+    }
+
+    Map<String, Long> obtenerEstadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long poolsArmados = 0;
+        long rutas = 0;
+        for (Pool pool : pools) {
+            if (pool == null) continue;
+            poolsArmados++;
+            rutas += pool.primeros.length;
+        }
+        stats.put("poolsArmados", poolsArmados);
+        stats.put("rutasEnPools", rutas);
+        stats.put("muestras", muestras);
+        stats.put("intentosRechazados", intentosRechazados);
+        stats.put("muestrasSinRuta", muestrasSinRuta);
+        return stats;
+    }
+}
@@ -0,0 +1,436 @@
+package com.morapack.models;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Portafolio de algoritmos: GRASP, GA, híbrido en pipeline y ACS corren a la vez con un
+ * único plazo y un incumbente compartido (el GA y el ACS lo importan cuando supera a su
+ * propio mejor). Cada {@code intervaloMonitoreoMs} se mide el ritmo de mejora de cada
+ * uno en la última ventana; pasado el calentamiento, se cancela al que ni proyectando
+ * ese ritmo hasta el plazo alcanzaría al incumbente (nunca al que lo tiene, ni al que
+ * aún no tiene dos reportes y una ventana completa de ritmo medido), para que su CPU
+ * quede para los demás. Al vencer el plazo se devuelve el incumbente. Con una cota
+ * superior de entregas se corta antes, apenas el incumbente queda dentro del gap objetivo.
+ * Con pulido activado, las rutas de todo lo reportado (y de cada hormiga del ACS) se juntan
+ * en un pool de columnas y al final se recombinan con {@link PulidoColumnas}.
+ */
+public class PortafolioAlgoritmos {
+
+    public static final String GRASP = "GRASP";
+    public static final String GA = "GA";
+    public static final String HIBRIDO = "HIBRIDO";
+    public static final String ACS = "ACS";
+
+    private static final int GENERACIONES_POR_LOTE_GA = 5;
+    private static final int COLONIAS_ACS = 4;
+    private static final long ESPERA_FINAL_MS = 2000;   // margen para que cada algoritmo cierre su paso
+    private static final int MAX_COLUMNAS_POR_PEDIDO = 20;
+
+    private final List<Pedido> pedidos;
+    private final List<Vuelo> vuelos;
+
+    // Parámetros
+    private long presupuestoMs;
+    private long intervaloMonitoreoMs;
+    private double fraccionCalentamiento;   // parte del plazo sin cancelaciones
+    private double fraccionVentana;         // ventana para medir el ritmo de mejora
+    private int tamañoPoblacionGA;
+    private int hormigasACS;
+    private final Set<String> habilitados;
+    private long semilla;
+    private CotaSuperiorEntregas cotaSuperior;   // null = sin corte por gap
+    private double gapObjetivo;
+    private boolean pulidoColumnas;
+
+    // Resultado de la última ejecución
+    private final Map<String, ControlEjecucion> controles = new LinkedHashMap<>();
+    private final Map<String, Long> canceladoEnMs = new LinkedHashMap<>();
+    private PoolElite incumbente;
+    private long tiempoTotalMs;
+    private long objetivoAlcanzadoEnMs = -1;
+    private PoolColumnas columnas;
+    private PulidoColumnas pulido;
+
+    public PortafolioAlgoritmos(List<Pedido> pedidos, List<Vuelo> vuelos) {
+        this.pedidos = new ArrayList<>(pedidos);
+        this.vuelos = new ArrayList<>(vuelos);
+
+        // Parámetros por defecto
+        this.presupuestoMs = 60_000;
+        this.intervaloMonitoreoMs = 1_000;
+        this.fraccionCalentamiento = 0.25;
+        this.fraccionVentana = 0.20;
+        this.tamañoPoblacionGA = 25;
+        this.hormigasACS = 10;
+        this.habilitados = new LinkedHashSet<>(Arrays.asList(GRASP, GA, HIBRIDO, ACS));
+        this.semilla = System.nanoTime();
+    }
+
+    /**
+     * Corre los algoritmos habilitados hasta el plazo (o hasta que todos terminen o
+     * sean cancelados) y devuelve la mejor solución encontrada por cualquiera
+     */
+    public Solucion ejecutar() {
+        System.out.println("=== INICIANDO PORTAFOLIO " + habilitados + " ===");
+        System.out.printf("Presupuesto=%d ms, Monitoreo cada %d ms, Calentamiento=%.0f%%%n",
+                presupuestoMs, intervaloMonitoreoMs, fraccionCalentamiento * 100);
+        if (cotaSuperior != null) {
+            System.out.printf("Cota superior: %d pedidos, gap objetivo %.1f%%%n",
+                    cotaSuperior.calcular(), gapObjetivo * 100);
+        }
+        long inicio = System.currentTimeMillis();
+        long limite = inicio + presupuestoMs;
+
+        incumbente = new PoolElite(1, 1);
+        controles.clear();
+        canceladoEnMs.clear();
+        objetivoAlcanzadoEnMs = -1;
+        columnas = pulidoColumnas ? new PoolColumnas(MAX_COLUMNAS_POR_PEDIDO) : null;
+        pulido = null;
+        for (String nombre : habilitados) {
+            ControlEjecucion control = new ControlEjecucion(nombre, incumbente, inicio, limite);
+            control.setColumnas(columnas);
+            controles.put(nombre, control);
+        }
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(Math.max(1, controles.size()), tarea -> {
+            Thread hilo = new Thread(tarea, "portafolio");
+            hilo.setDaemon(true);   // un paso largo no retiene la JVM después del plazo
+            return hilo;
+        });
+        List<Future<?>> futuros = new ArrayList<>();
+        try {
+            for (ControlEjecucion control : controles.values()) {
+                futuros.add(ejecutor.submit(() -> {
+                    try {
+                        correr(control);
+                    } finally {
+                        control.marcarTerminado();
+                    }
+                }));
+            }
+
+            while (System.currentTimeMillis() < limite && !todosTerminados()) {
+                Thread.sleep(Math.min(intervaloMonitoreoMs, Math.max(1, limite - System.currentTimeMillis())));
+                if (objetivoAlcanzado()) {
+                    objetivoAlcanzadoEnMs = System.currentTimeMillis() - inicio;
+                    System.out.printf("Portafolio: incumbente dentro del gap objetivo (%.2f%%), se detiene%n",
+                            cotaSuperior.gap(incumbente.getMejor()) * 100);
+                    for (ControlEjecucion control : controles.values()) control.cancelar();
+                    break;
+                }
+                monitorear(inicio, limite);
+            }
+            esperarCierre(futuros, Math.min(limite, System.currentTimeMillis()) + ESPERA_FINAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (ControlEjecucion control : controles.values()) control.cancelar();
+            ejecutor.shutdownNow();
+        }
+        if (columnas != null) pulir();
+
+        tiempoTotalMs = System.currentTimeMillis() - inicio;
+        System.out.println("=== PORTAFOLIO COMPLETADO ===");
+        for (ControlEjecucion control : controles.values()) {
+            Solucion mejor = control.getMejor();
+            System.out.printf("%-8s Mejor=%s, Aportes al incumbente=%d, %s%n", control.getNombre(),
+                    mejor == null ? "-" : String.format("%.2f", mejor.getFitness()),
+                    control.getAportesAlIncumbente(), estado(control));
+        }
+        Solucion mejor = incumbente.getMejor();
+        if (mejor != null) {
+            System.out.printf("Mejor fitness final: %.2f (%d ms)%n", mejor.getFitness(), tiempoTotalMs);
+        }
+        return mejor;
+    }
+
+    /* ========= Algoritmos ========= */
+
+    private void correr(ControlEjecucion control) {
+        switch (control.getNombre()) {
+            case GRASP:
+                correrGrasp(control);
+                break;
+            case GA:
+                correrGA(control);
+                break;
+            case HIBRIDO:
+                correrHibrido(control);
+                break;
+            case ACS:
+                correrACS(control);
+                break;
+            default:
+                throw new IllegalArgumentException("Algoritmo desconocido: " + control.getNombre());
+        }
+    }
+
+    private void correrGrasp(ControlEjecucion control) {
+        GraspMoraPack grasp = new GraspMoraPack(pedidos, vuelos);
+        grasp.activarGraspReactivo(new double[]{0.1, 0.2, 0.5, 0.8, 0.9}, 4, 10.0);
+        while (control.debeContinuar()) {
+            control.reportar(grasp.generarSolucion());
+        }
+    }
+
+    private void correrGA(ControlEjecucion control) {
+        GeneticAlgorithmMoraPack ga = new GeneticAlgorithmMoraPack(pedidos, vuelos);
+        ga.setSemilla(semilla + 1);
+        ga.setModoEstacionario(true);
+        ga.setSeleccionAdaptativa(true);
+        ga.setTamañoPoblacion(tamañoPoblacionGA);
+        if (cotaSuperior != null) ga.setObjetivoGap(cotaSuperior, gapObjetivo);
+        ga.setPoolColumnas(columnas);
+        ga.inicializarEstacionario();
+        control.reportar(ga.getMejorSolucionGlobal());
+
+        Solucion ultimaImportada = null;
+        while (control.debeContinuar() && !ga.objetivoGapAlcanzado()) {
+            Solucion incumbenteActual = control.getIncumbente();
+            if (incumbenteActual != null && incumbenteActual != ultimaImportada
+                    && incumbenteActual.getFitness() > ga.getMejorSolucionGlobal().getFitness()) {
+                ga.integrarMigrantes(Collections.singletonList(new EvaluadorIncremental(incumbenteActual)));
+                ultimaImportada = incumbenteActual;
+            }
+            ga.evolucionarEstacionario(GENERACIONES_POR_LOTE_GA);
+            control.reportar(ga.getMejorSolucionGlobal());
+        }
+    }
+
+    private void correrHibrido(ControlEjecucion control) {
+        PipelineHibrido pipeline = new PipelineHibrido(pedidos, vuelos);
+        pipeline.setSemilla(semilla + 2);
+        pipeline.setTamañoPoblacion(tamañoPoblacionGA);
+        pipeline.setColoniasACS(0);                       // el ACS ya corre aparte en el portafolio
+        pipeline.setGeneracionesGA(Integer.MAX_VALUE);    // hasta que el control lo detenga
+        pipeline.setControl(control);
+        pipeline.ejecutar();
+    }
+
+    private void correrACS(ControlEjecucion control) {
+        // El ACS refina semillas: parte de una solución GRASP propia y luego importa el incumbente
+        GraspMoraPack grasp = new GraspMoraPack(pedidos, vuelos);
+        Solucion semillaInicial = grasp.generarSolucion();
+        if (semillaInicial == null || !control.debeContinuar()) return;
+        control.reportar(semillaInicial);
+
+        // ✅ MODIFICADO: varias colonias con parámetros distintos en vez de una sola con α/β/ρ/ξ fijos,
+        // avanzadas de a una época para poder cortar y reportar entre épocas
+        ColoniasACS colonias = new ColoniasACS(pedidos, vuelos, COLONIAS_ACS);
+        colonias.setSemilla(semilla + 3);
+        colonias.setSemillas(Collections.singletonList(semillaInicial));
+        colonias.setHormigasPorColonia(hormigasACS);
+        colonias.setIntervaloIntercambio(1);
+        colonias.setPoolColumnas(columnas);
+        colonias.iniciar();
+        try {
+            Solucion ultimaImportada = null;
+            while (control.debeContinuar()) {
+                Solucion incumbenteActual = control.getIncumbente();
+                Solucion mejorColonias = colonias.getMejorSolucionGlobal();
+                if (incumbenteActual != null && incumbenteActual != ultimaImportada
+                        && (mejorColonias == null || incumbenteActual.getFitness() > mejorColonias.getFitness())) {
+                    colonias.importar(incumbenteActual);
+                    ultimaImportada = incumbenteActual;
+                }
+                control.reportar(colonias.ejecutarEpoca());
+            }
+        } finally {
+            colonias.cerrar();
+        }
+    }
+
+    /* ========= Carrera ========= */
+
+    /**
+     * Recombina las columnas juntadas durante la carrera; si mejora, el resultado pasa a
+     * ser el incumbente
+     */
+    private void pulir() {
+        Solucion antes = incumbente.getMejor();
+        if (antes == null) return;
+        pulido = new PulidoColumnas(pedidos, columnas);
+        Solucion pulida = pulido.pulir(antes);
+        if (pulida != antes && incumbente.agregar(pulida)) {
+            System.out.printf("Pulido por columnas: %.2f → %.2f (%d columnas, %d pedidos cambiados)%n",
+                    antes.getFitness(), pulida.getFitness(), columnas.getTotalColumnas(),
+                    pulido.obtenerEstadisticas().get("pedidosCambiados"));
+        }
+    }
+
+    private boolean objetivoAlcanzado() {
+        return cotaSuperior != null && cotaSuperior.dentroDelGap(incumbente.getMejor(), gapObjetivo);
+    }
+
+    /**
+     * Cancela a los que, al ritmo de la última ventana, no llegarían al incumbente antes
+     * del plazo. Siempre queda al menos uno corriendo (el dueño del incumbente no se cancela)
+     */
+    private void monitorear(long inicio, long limite) {
+        long ahora = System.currentTimeMillis();
+        if (ahora - inicio < fraccionCalentamiento * presupuestoMs) return;
+
+        Solucion mejorGlobal = incumbente.getMejor();
+        if (mejorGlobal == null) return;
+        long ventanaMs = Math.max(intervaloMonitoreoMs, (long) (fraccionVentana * presupuestoMs));
+        long restanteMs = Math.max(0, limite - ahora);
+
+        for (ControlEjecucion control : controles.values()) {
+            if (control.estaTerminado() || control.estaCancelado()) continue;
+            Solucion mejor = control.getMejor();
+            if (mejor == mejorGlobal || activos() <= 1) continue;
+            // ✅ MODIFICADO: sin reportes o con uno solo todavía se está calentando: no se juzga
+            if (mejor == null || !control.tieneRitmoMedido(ventanaMs)) continue;
+
+            double proyeccion = mejor.getFitness() + control.tasaMejora(ventanaMs) * restanteMs / 1000.0;
+            if (proyeccion < mejorGlobal.getFitness()) {
+                control.cancelar();
+                canceladoEnMs.put(control.getNombre(), ahora - inicio);
+                System.out.printf("Portafolio: se cancela %s (proyección %.2f < incumbente %.2f)%n",
+                        control.getNombre(), proyeccion, mejorGlobal.getFitness());
+            }
+        }
+    }
+
+    private int activos() {
+        int activos = 0;
+        for (ControlEjecucion control : controles.values()) {
+            if (!control.estaTerminado() && !control.estaCancelado()) activos++;
+        }
+        return activos;
+    }
+
+    private boolean todosTerminados() {
+        for (ControlEjecucion control : controles.values()) {
+            if (!control.estaTerminado()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Espera a que cada algoritmo cierre su paso en curso, como mucho hasta {@code hasta};
+     * los que sigan ocupados se abandonan (sus hilos son daemon) y cuenta su mejor reportado
+     */
+    private void esperarCierre(List<Future<?>> futuros, long hasta) throws InterruptedException {
+        for (Future<?> futuro : futuros) {
+            try {
+                futuro.get(Math.max(1, hasta - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error en un algoritmo del portafolio", e.getCause());
+            } catch (TimeoutException e) {
+                futuro.cancel(true);
+            }
+        }
+    }
+
+    private String estado(ControlEjecucion control) {
+        if (canceladoEnMs.containsKey(control.getNombre())) {
+            return "cancelado a los " + canceladoEnMs.get(control.getNombre()) + " ms";
+        }
+        return control.estaTerminado() ? "terminó a los " + control.getTiempoMs() + " ms" : "sin cerrar al plazo";
+    }
+
+    /**
+     * Por algoritmo: mejor fitness, aportes al incumbente, estado y tiempo; y el total
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (ControlEjecucion control : controles.values()) {
+            Map<String, Object> algoritmo = new LinkedHashMap<>();
+            Solucion mejor = control.getMejor();
+            algoritmo.put("mejorFitness", mejor == null ? null : mejor.getFitness());
+            algoritmo.put("aportesAlIncumbente", control.getAportesAlIncumbente());
+            algoritmo.put("estado", estado(control));
+            algoritmo.put("tiempoMs", control.getTiempoMs());
+            stats.put(control.getNombre(), algoritmo);
+        }
+        stats.put("tiempoTotalMs", tiempoTotalMs);
+        stats.put("mejorFitness", (incumbente == null || incumbente.getMejor() == null) ? null
+                : incumbente.getMejor().getFitness());
+        if (cotaSuperior != null) {
+            stats.put("cotaSuperior", cotaSuperior.getCota());
+            stats.put("gap", (incumbente == null || incumbente.getMejor() == null) ? null
+                    : cotaSuperior.gap(incumbente.getMejor()));
+            stats.put("objetivoAlcanzadoEnMs", objetivoAlcanzadoEnMs < 0 ? null : objetivoAlcanzadoEnMs);
+        }
+        if (columnas != null) stats.put("columnas", columnas.obtenerEstadisticas());
+        if (pulido != null) stats.put("pulido", pulido.obtenerEstadisticas());
+        return stats;
+    }
+
+    /**
+     * Mejor solución propia del algoritmo en la última ejecución (null si no corrió)
+     */
+    public Solucion getMejorDe(String algoritmo) {
+        ControlEjecucion control = controles.get(algoritmo);
+        return (control == null) ? null : control.getMejor();
+    }
+
+    /**
+     * Tiempo que corrió el algoritmo en la última ejecución (hasta terminar o ser cancelado)
+     */
+    public long getTiempoDe(String algoritmo) {
+        ControlEjecucion control = controles.get(algoritmo);
+        return (control == null) ? 0 : control.getTiempoMs();
+    }
+
+    // Setters para configuración
+    public void setPresupuestoMs(long presupuestoMs) {
+        this.presupuestoMs = Math.max(1, presupuestoMs);
+    }
+
+    public void setIntervaloMonitoreoMs(long intervaloMonitoreoMs) {
+        this.intervaloMonitoreoMs = Math.max(1, intervaloMonitoreoMs);
+    }
+
+    public void setFraccionCalentamiento(double fraccionCalentamiento) {
+        this.fraccionCalentamiento = Math.max(0.0, Math.min(1.0, fraccionCalentamiento));
+    }
+
+    public void setFraccionVentana(double fraccionVentana) {
+        this.fraccionVentana = Math.max(0.0, Math.min(1.0, fraccionVentana));
+    }
+
+    public void setTamañoPoblacionGA(int tamañoPoblacionGA) {
+        this.tamañoPoblacionGA = Math.max(2, tamañoPoblacionGA);
+    }
+
+    public void setHormigasACS(int hormigasACS) {
+        this.hormigasACS = Math.max(1, hormigasACS);
+    }
+
+    /**
+     * Algoritmos que participan (GRASP, GA, HIBRIDO, ACS)
+     */
+    public void setAlgoritmos(String... algoritmos) {
+        habilitados.clear();
+        for (String algoritmo : algoritmos) {
+            if (!Arrays.asList(GRASP, GA, HIBRIDO, ACS).contains(algoritmo)) {
+                throw new IllegalArgumentException("Algoritmo desconocido: " + algoritmo);
+            }
+            habilitados.add(algoritmo);
+        }
+    }
+
+    public void setSemilla(long semilla) {
+        this.semilla = semilla;
+    }
+
+    /**
+     * Junta las rutas de todas las soluciones y recombina las mejores al final (después del plazo)
+     */
+    public void setPulidoColumnas(boolean pulidoColumnas) {
+        this.pulidoColumnas = pulidoColumnas;
+    }
+
+    /**
+     * Corta la ejecución cuando el incumbente queda a menos de {@code gapObjetivo} (fracción)
+     * de la cota de pedidos entregables; null la desactiva
+     */
+    public void setObjetivoGap(CotaSuperiorEntregas cotaSuperior, double gapObjetivo) {
+        this.cotaSuperior = cotaSuperior;
+        this.gapObjetivo = Math.max(0.0, Math.min(1.0, gapObjetivo));
+    }
+}
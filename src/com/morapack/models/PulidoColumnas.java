@@ -0,0 +1,413 @@
+package com.morapack.models;
+
+import java.util.*;
+
+/**
+ * Pulido final por recombinación de columnas: elige a lo sumo una ruta del
+ * {@link PoolColumnas} por pedido (empaquetamiento de conjuntos) respetando la capacidad de
+ * vuelos y almacenes, con una heurística lagrangiana.
+ * Se relajan las capacidades con multiplicadores (uno por vuelo y uno por almacén y franja
+ * de 2 h, donde las llegadas conviven): cada pedido toma su columna de mayor valor reducido
+ * valor − cantidad · Σ multiplicadores, lo que da una cota superior; los multiplicadores se
+ * ajustan por subgradiente con el paso de Polyak hacia la mejor solución primal.
+ * Cada pocas iteraciones se arma una solución primal factible: los pedidos de mayor valor
+ * reducido primero, cada uno con la primera de sus columnas (por valor reducido) que quepa
+ * en los vuelos y en la ventana deslizante real de los almacenes. La primal se consolida
+ * después: un pedido que es el único en algún vuelo se pasa a otra columna que use menos
+ * vuelos nuevos, así se vacían vuelos y sube el aprovechamiento. También se prueba el
+ * incumbente completado con columnas del pool. Se devuelve la mejor por fitness, o el
+ * incumbente si ninguna lo supera.
+ */
+public class PulidoColumnas {
+
+    private static final double VALOR_A_TIEMPO = 1.0;
+    private static final double VALOR_TARDE = 0.3;
+    private static final double PESO_COSTO = 0.001;          // por hora de ruta: solo desempata
+    private static final double PESO_VUELO_USADO = 0.01;     // nunca compensa perder un pedido
+    private static final long SEGUNDOS_FRANJA = LineaTiempoAlmacen.HORAS_LIBERACION * 3600L;
+    private static final int ITERACIONES_SIN_MEJORA_COTA = 10; // luego se reduce el paso a la mitad
+    private static final int PASADAS_CONSOLIDACION = 3;
+
+    private final List<Pedido> pedidos;
+    private final PoolColumnas pool;
+
+    // Parámetros
+    private int iteraciones;
+    private int frecuenciaPrimal;
+    private double pasoInicial;
+
+    // Problema de la última ejecución
+    private Pedido[] pedidosConColumnas;
+    private PoolColumnas.Columna[][] columnas;
+    private int[][][] recursosColumna;      // [pedido][columna] → recursos que usa
+    private double[][] valorColumna;
+    private int[] capacidadRecurso;
+
+    // Estadísticas de la última ejecución
+    private double mejorCota = Double.POSITIVE_INFINITY;
+    private double mejorPrimal;
+    private int iteracionesRealizadas;
+    private int movimientosConsolidacion;
+    private int pedidosCambiados;
+    private double fitnessInicial;
+    private double fitnessFinal;
+    private long tiempoMs;
+
+    /**
+     * Asignación factible en construcción, con la carga por vuelo y el libro de almacenes
+     */
+    private static final class EstadoPrimal {
+        final Map<Pedido, RutaPedido> asignacion = new LinkedHashMap<>();
+        final Map<Vuelo, Integer> carga = new IdentityHashMap<>();
+        final OcupacionAlmacenes libro = new OcupacionAlmacenes();
+
+        boolean intentarAsignar(Pedido p, RutaPedido ruta) {
+            int q = p.getCantidad();
+            List<Vuelo> vuelos = ruta.getSecuenciaVuelos();
+            for (Vuelo vuelo : vuelos) {
+                if (vuelo.estaCancelado() || carga.getOrDefault(vuelo, 0) + q > vuelo.getCapacidadMaxima()) return false;
+            }
+            if (!libro.rutaCabe(vuelos, q)) return false;
+            for (Vuelo vuelo : vuelos) carga.merge(vuelo, q, Integer::sum);
+            libro.reservarRuta(vuelos, q);
+            asignacion.put(p, ruta);
+            return true;
+        }
+
+        void quitar(Pedido p) {
+            RutaPedido ruta = asignacion.remove(p);
+            if (ruta == null) return;
+            int q = p.getCantidad();
+            for (Vuelo vuelo : ruta.getSecuenciaVuelos()) {
+                if (carga.merge(vuelo, -q, Integer::sum) <= 0) carga.remove(vuelo);
+            }
+            libro.liberarRuta(ruta.getSecuenciaVuelos(), q);
+        }
+
+        double valor() {
+            double valor = 0;
+            for (RutaPedido ruta : asignacion.values()) valor += valorRuta(ruta);
+            return valor - PESO_VUELO_USADO * carga.size();
+        }
+    }
+
+    public PulidoColumnas(List<Pedido> pedidos, PoolColumnas pool) {
+        this.pedidos = new ArrayList<>(pedidos);
+        this.pool = pool;
+
+        // Parámetros por defecto
+        this.iteraciones = 60;
+        this.frecuenciaPrimal = 3;
+        this.pasoInicial = 2.0;
+    }
+
+    /**
+     * Recombina las columnas del pool (el incumbente se agrega primero) y devuelve la mejor
+     * solución encontrada, o el propio incumbente si ninguna lo supera
+     */
+    public Solucion pulir(Solucion incumbente) {
+        long inicio = System.currentTimeMillis();
+        if (incumbente != null) pool.agregar(incumbente);
+        fitnessInicial = (incumbente == null) ? Double.NEGATIVE_INFINITY : incumbente.getFitness();
+        movimientosConsolidacion = 0;
+        prepararProblema();
+
+        int n = pedidosConColumnas.length;
+        double[] multiplicadores = new double[capacidadRecurso.length];
+        double[] reducido = new double[n];
+        int[] uso = new int[capacidadRecurso.length];
+
+        mejorCota = Double.POSITIVE_INFINITY;
+        mejorPrimal = Double.NEGATIVE_INFINITY;
+        EstadoPrimal mejor = completarIncumbente(incumbente);
+        if (mejor != null) {
+            consolidar(mejor);
+            mejorPrimal = mejor.valor();
+        }
+
+        double paso = pasoInicial;
+        int sinMejoraCota = 0;
+        iteracionesRealizadas = 0;
+        for (int it = 0; it < iteraciones && n > 0; it++) {
+            iteracionesRealizadas++;
+
+            // Subproblema lagrangiano: cada pedido por separado
+            double cota = 0;
+            Arrays.fill(uso, 0);
+            for (int i = 0; i < n; i++) {
+                int q = pedidosConColumnas[i].getCantidad();
+                int elegida = -1;
+                reducido[i] = 0;
+                for (int c = 0; c < columnas[i].length; c++) {
+                    double r = valorReducido(i, c, q, multiplicadores);
+                    if (r > reducido[i]) {
+                        reducido[i] = r;
+                        elegida = c;
+                    }
+                }
+                cota += reducido[i];
+                if (elegida >= 0) {
+                    for (int recurso : recursosColumna[i][elegida]) uso[recurso] += q;
+                }
+            }
+            for (int r = 0; r < multiplicadores.length; r++) cota += multiplicadores[r] * capacidadRecurso[r];
+
+            if (cota < mejorCota - 1e-9) {
+                mejorCota = cota;
+                sinMejoraCota = 0;
+            } else if (++sinMejoraCota >= ITERACIONES_SIN_MEJORA_COTA) {
+                paso /= 2;
+                sinMejoraCota = 0;
+            }
+
+            if (it % frecuenciaPrimal == 0) {
+                EstadoPrimal primal = construirPrimal(reducido, multiplicadores);
+                consolidar(primal);
+                double valor = primal.valor();
+                if (valor > mejorPrimal) {
+                    mejorPrimal = valor;
+                    mejor = primal;
+                }
+            }
+
+            // Subgradiente: exceso de uso sobre la capacidad de cada recurso
+            double norma = 0;
+            for (int r = 0; r < multiplicadores.length; r++) {
+                double g = uso[r] - capacidadRecurso[r];
+                if (g > 0 || multiplicadores[r] > 0) norma += g * g;
+            }
+            if (norma == 0) break;        // el subproblema ya respeta todas las capacidades relajadas
+            double t = paso * Math.max(cota - mejorPrimal, 1e-3) / norma;
+            for (int r = 0; r < multiplicadores.length; r++) {
+                multiplicadores[r] = Math.max(0.0, multiplicadores[r] + t * (uso[r] - capacidadRecurso[r]));
+            }
+        }
+
+        Solucion resultado = incumbente;
+        pedidosCambiados = 0;
+        if (mejor != null) {
+            SolucionLogistica sl = new SolucionLogistica();
+            sl.setAsignacionPedidos(mejor.asignacion);
+            Solucion candidata = new Solucion(sl, pedidos.size());
+            if (incumbente == null || candidata.getFitness() > incumbente.getFitness()) {
+                pedidosCambiados = contarCambios(incumbente, mejor.asignacion);
+                resultado = candidata;
+            }
+        }
+        fitnessFinal = (resultado == null) ? Double.NEGATIVE_INFINITY : resultado.getFitness();
+        tiempoMs = System.currentTimeMillis() - inicio;
+        return resultado;
+    }
+
+    /* ========= Modelo ========= */
+
+    /**
+     * Indexa pedidos con columnas, recursos (vuelos y franjas de almacén) y valores
+     */
+    private void prepararProblema() {
+        List<Pedido> conColumnas = new ArrayList<>();
+        List<PoolColumnas.Columna[]> listas = new ArrayList<>();
+        for (Pedido p : pedidos) {
+            List<PoolColumnas.Columna> delPedido = pool.getColumnas(p);
+            if (delPedido.isEmpty()) continue;
+            conColumnas.add(p);
+            listas.add(delPedido.toArray(new PoolColumnas.Columna[0]));
+        }
+        int n = conColumnas.size();
+        pedidosConColumnas = conColumnas.toArray(new Pedido[0]);
+        columnas = listas.toArray(new PoolColumnas.Columna[0][]);
+        recursosColumna = new int[n][][];
+        valorColumna = new double[n][];
+
+        Map<Vuelo, Integer> indiceVuelo = new IdentityHashMap<>();
+        Map<String, Integer> indiceFranja = new HashMap<>();
+        List<Integer> capacidades = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            recursosColumna[i] = new int[columnas[i].length][];
+            valorColumna[i] = new double[columnas[i].length];
+            for (int c = 0; c < columnas[i].length; c++) {
+                PoolColumnas.Columna columna = columnas[i][c];
+                valorColumna[i][c] = (columna.esATiempo() ? VALOR_A_TIEMPO : VALOR_TARDE) - PESO_COSTO * columna.getCosto();
+
+                List<Vuelo> vuelos = columna.getRuta().getSecuenciaVuelos();
+                int[] recursos = new int[2 * vuelos.size()];
+                int k = 0;
+                for (Vuelo vuelo : vuelos) {
+                    Integer r = indiceVuelo.get(vuelo);
+                    if (r == null) {
+                        r = capacidades.size();
+                        indiceVuelo.put(vuelo, r);
+                        capacidades.add(vuelo.getCapacidadMaxima());
+                    }
+                    recursos[k++] = r;
+
+                    Aeropuerto almacen = vuelo.getDestino();
+                    String clave = almacen.getCodigo() + "|"
+                            + Math.floorDiv(GrafoVuelos.aSegundos(vuelo.getHoraLlegada()), SEGUNDOS_FRANJA);
+                    Integer f = indiceFranja.get(clave);
+                    if (f == null) {
+                        f = capacidades.size();
+                        indiceFranja.put(clave, f);
+                        capacidades.add(Math.max(0, almacen.getCapacidad() - almacen.getCapacidadAct()));
+                    }
+                    recursos[k++] = f;
+                }
+                recursosColumna[i][c] = recursos;
+            }
+        }
+        capacidadRecurso = capacidades.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private double valorReducido(int i, int c, int cantidad, double[] multiplicadores) {
+        double precio = 0;
+        for (int recurso : recursosColumna[i][c]) precio += multiplicadores[recurso];
+        return valorColumna[i][c] - cantidad * precio;
+    }
+
+    private static double valorRuta(RutaPedido ruta) {
+        return (Solucion.esPedidoATiempo(ruta) ? VALOR_A_TIEMPO : VALOR_TARDE) - PESO_COSTO * PoolColumnas.costoRuta(ruta);
+    }
+
+    /* ========= Soluciones primales ========= */
+
+    /**
+     * Pedidos de mayor valor reducido primero; cada uno con la primera columna (por valor
+     * reducido) que quepa en vuelos y almacenes
+     */
+    private EstadoPrimal construirPrimal(double[] reducido, double[] multiplicadores) {
+        int n = pedidosConColumnas.length;
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) orden[i] = i;
+        Arrays.sort(orden, (a, b) -> Double.compare(reducido[b], reducido[a]));
+
+        EstadoPrimal estado = new EstadoPrimal();
+        for (int i : orden) {
+            int q = pedidosConColumnas[i].getCantidad();
+            double[] valor = new double[columnas[i].length];
+            Integer[] porValor = new Integer[columnas[i].length];
+            for (int c = 0; c < porValor.length; c++) {
+                porValor[c] = c;
+                valor[c] = valorReducido(i, c, q, multiplicadores);
+            }
+            Arrays.sort(porValor, (a, b) -> Double.compare(valor[b], valor[a]));
+            for (int c : porValor) {
+                if (estado.intentarAsignar(pedidosConColumnas[i], columnas[i][c].getRuta())) break;
+            }
+        }
+        return estado;
+    }
+
+    /**
+     * Mantiene las rutas a tiempo del incumbente que quepan (en su orden) y completa los
+     * pedidos sin ruta, o tarde, con la mejor columna del pool que quepa
+     */
+    private EstadoPrimal completarIncumbente(Solucion incumbente) {
+        if (incumbente == null || incumbente.getSolucionLogistica() == null
+                || incumbente.getSolucionLogistica().getAsignacionPedidos() == null) return null;
+        EstadoPrimal estado = new EstadoPrimal();
+        for (Map.Entry<Pedido, RutaPedido> e : incumbente.getSolucionLogistica().getAsignacionPedidos().entrySet()) {
+            if (e.getKey() == null || e.getValue() == null || !Solucion.esPedidoATiempo(e.getValue())) continue;
+            estado.intentarAsignar(e.getKey(), e.getValue());
+        }
+        for (int i = 0; i < pedidosConColumnas.length; i++) {
+            if (estado.asignacion.containsKey(pedidosConColumnas[i])) continue;
+            for (PoolColumnas.Columna columna : columnas[i]) {   // de mejor a peor
+                if (estado.intentarAsignar(pedidosConColumnas[i], columna.getRuta())) break;
+            }
+        }
+        return estado;
+    }
+
+    /**
+     * Pasa a cada pedido que va solo en algún vuelo a la columna que abra menos vuelos nuevos
+     * que los que libera (sin perder la llegada a tiempo), hasta que no haya movimientos
+     */
+    private void consolidar(EstadoPrimal estado) {
+        boolean movio = true;
+        for (int pasada = 0; pasada < PASADAS_CONSOLIDACION && movio; pasada++) {
+            movio = false;
+            for (int i = 0; i < pedidosConColumnas.length; i++) {
+                Pedido p = pedidosConColumnas[i];
+                RutaPedido actual = estado.asignacion.get(p);
+                if (actual == null || columnas[i].length < 2) continue;
+                int q = p.getCantidad();
+                int libera = 0;
+                for (Vuelo vuelo : actual.getSecuenciaVuelos()) {
+                    if (estado.carga.getOrDefault(vuelo, 0) == q) libera++;
+                }
+                if (libera == 0) continue;
+
+                boolean actualATiempo = Solucion.esPedidoATiempo(actual);
+                estado.quitar(p);
+                RutaPedido mejor = null;
+                int menosNuevos = libera;
+                for (PoolColumnas.Columna columna : columnas[i]) {
+                    if (actualATiempo && !columna.esATiempo()) continue;
+                    RutaPedido ruta = columna.getRuta();
+                    if (PoolElite.mismaRuta(ruta, actual)) continue;
+                    int nuevos = 0;
+                    for (Vuelo vuelo : ruta.getSecuenciaVuelos()) {
+                        if (!estado.carga.containsKey(vuelo)) nuevos++;
+                    }
+                    if (nuevos >= menosNuevos || !cabe(estado, ruta, q)) continue;
+                    mejor = ruta;
+                    menosNuevos = nuevos;
+                    if (nuevos == 0) break;
+                }
+                estado.intentarAsignar(p, mejor != null ? mejor : actual);
+                if (mejor != null) {
+                    movimientosConsolidacion++;
+                    movio = true;
+                }
+            }
+        }
+    }
+
+    private static boolean cabe(EstadoPrimal estado, RutaPedido ruta, int q) {
+        for (Vuelo vuelo : ruta.getSecuenciaVuelos()) {
+            if (vuelo.estaCancelado() || estado.carga.getOrDefault(vuelo, 0) + q > vuelo.getCapacidadMaxima()) return false;
+        }
+        return estado.libro.rutaCabe(ruta.getSecuenciaVuelos(), q);
+    }
+
+    private static int contarCambios(Solucion incumbente, Map<Pedido, RutaPedido> asignacion) {
+        if (incumbente == null) return asignacion.size();
+        Map<Pedido, RutaPedido> anterior = incumbente.getSolucionLogistica().getAsignacionPedidos();
+        Set<Pedido> todos = Collections.newSetFromMap(new IdentityHashMap<>());
+        todos.addAll(anterior.keySet());
+        todos.addAll(asignacion.keySet());
+        int cambios = 0;
+        for (Pedido p : todos) {
+            if (!PoolElite.mismaRuta(anterior.get(p), asignacion.get(p))) cambios++;
+        }
+        return cambios;
+    }
+
+    /* ========= Estadísticas y parámetros ========= */
+
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("columnas", pool.getTotalColumnas());
+        stats.put("iteraciones", iteracionesRealizadas);
+        stats.put("cotaLagrangiana", mejorCota);
+        stats.put("mejorPrimal", mejorPrimal);
+        stats.put("movimientosConsolidacion", movimientosConsolidacion);
+        stats.put("pedidosCambiados", pedidosCambiados);
+        stats.put("fitnessInicial", fitnessInicial);
+        stats.put("fitnessFinal", fitnessFinal);
+        stats.put("tiempoMs", tiempoMs);
+        return stats;
+    }
+
+    public void setIteraciones(int iteraciones) {
+        this.iteraciones = Math.max(1, iteraciones);
+    }
+
+    public void setFrecuenciaPrimal(int frecuenciaPrimal) {
+        this.frecuenciaPrimal = Math.max(1, frecuenciaPrimal);
+    }
+
+    public void setPasoInicial(double pasoInicial) {
+        this.pasoInicial = Math.max(1e-6, pasoInicial);
+    }
+}
@@ -0,0 +1,104 @@
+package com.morapack.models;
+
+/**
+ * Puntuación por defecto de GRASP: suma ponderada de los factores históricos
+ *   1. Ruta directa (+50) o penalización por escala (-25 c/u)
+ *   2. Capacidad promedio alta (+20 si > 350, +10 si > 300)
+ *   3. Ruta internacional (-5)
+ *   4. Salida matutina, entre 6 y 12 h (+15)
+ *   5. Capacidad libre promedio (hasta +10)
+ * sobre una base de 100 y con piso de 10.
+ */
+public class PuntuacionRutaPonderada implements FuncionPuntuacionRuta {
+
+    private static final double BASE = 100.0;
+    private static final double PISO = 10.0;
+
+    private final double bonoDirecta;
+    private final double penalizacionEscala;
+    private final double bonoCapacidadAlta;
+    private final double bonoCapacidadMedia;
+    private final double penalizacionInternacional;
+    private final double bonoSalidaMatutina;
+    private final double pesoCapacidadLibre;
+
+    public PuntuacionRutaPonderada() {
+        this(50, 25, 20, 10, 5, 15, 10);
+    }
+
+    public PuntuacionRutaPonderada(double bonoDirecta, double penalizacionEscala,
+                                   double bonoCapacidadAlta, double bonoCapacidadMedia,
+                                   double penalizacionInternacional, double bonoSalidaMatutina,
+                                   double pesoCapacidadLibre) {
+        this.bonoDirecta = bonoDirecta;
+        this.penalizacionEscala = penalizacionEscala;
+        this.bonoCapacidadAlta = bonoCapacidadAlta;
+        this.bonoCapacidadMedia = bonoCapacidadMedia;
+        this.penalizacionInternacional = penalizacionInternacional;
+        this.bonoSalidaMatutina = bonoSalidaMatutina;
+        this.pesoCapacidadLibre = pesoCapacidadLibre;
+    }
+
+    @Override
+    public double puntuar(Vuelo primero, Vuelo segundo, int cargaPrimero, int cargaSegundo) {
+        double puntuacion = BASE;
+
+        // Factor 1: Preferir rutas directas (menos escalas)
+        puntuacion += (segundo == null) ? bonoDirecta : -penalizacionEscala;
+
+        // Factor 2: Premiar capacidad alta
+        double capacidadPromedio = primero.getCapacidadMaxima();
+        if (segundo != null) {
+            capacidadPromedio = (capacidadPromedio + segundo.getCapacidadMaxima()) / 2.0;
+        }
+        if (capacidadPromedio > 350) {
+            puntuacion += bonoCapacidadAlta;
+        } else if (capacidadPromedio > 300) {
+            puntuacion += bonoCapacidadMedia;
+        }
+
+        // Factor 3: Penalizar ligeramente rutas internacionales
+        if (primero.getEsInternacional() || (segundo != null && segundo.getEsInternacional())) {
+            puntuacion -= penalizacionInternacional;
+        }
+
+        // Factor 4: Premiar salidas tempranas
+        int horaSalida = primero.getHoraSalida().getHour();
+        if (horaSalida >= 6 && horaSalida <= 12) {
+            puntuacion += bonoSalidaMatutina;
+        }
+
+        // Factor 5: Premiar vuelos con buena capacidad disponible
+        double capacidadLibre = capacidadLibre(primero, cargaPrimero);
+        if (segundo != null) {
+            capacidadLibre = (capacidadLibre + capacidadLibre(segundo, cargaSegundo)) / 2.0;
+        }
+        puntuacion += capacidadLibre * pesoCapacidadLibre;
+
+        return Math.max(PISO, puntuacion);
+    }
+
+    private static double capacidadLibre(Vuelo vuelo, int carga) {
+        return (double) (vuelo.getCapacidadMaxima() - carga) / vuelo.getCapacidadMaxima();
+    }
+
+    @Override
+    public double cotaSuperior(int tramos) {
+        double estructura = (tramos == 1) ? bonoDirecta : -penalizacionEscala * (tramos - 1);
+        return Math.max(PISO, BASE + estructura
+                + Math.max(0, Math.max(bonoCapacidadAlta, bonoCapacidadMedia))
+                + Math.max(0, -penalizacionInternacional)
+                + Math.max(0, bonoSalidaMatutina)
+                + Math.max(0, pesoCapacidadLibre));
+    }
+
+    @Override
+    public double cotaInferior(int tramos) {
+        double estructura = (tramos == 1) ? bonoDirecta : -penalizacionEscala * (tramos - 1);
+        return Math.max(PISO, BASE + estructura
+                + Math.min(0, Math.min(bonoCapacidadAlta, bonoCapacidadMedia))
+                + Math.min(0, -penalizacionInternacional)
+                + Math.min(0, bonoSalidaMatutina)
+                + Math.min(0, pesoCapacidadLibre));
+    }
+}
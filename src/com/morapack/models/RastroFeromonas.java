@@ -0,0 +1,149 @@
+package com.morapack.models;
+
+import java.util.Arrays;
+
+/**
+ * Feromonas por vuelo (índice del {@link GrafoVuelos}) con evaporación perezosa.
+ * El valor real de un arco es {@code valor[arco] · escala}: evaporar todos los arcos es
+ * multiplicar la escala global (O(1)) y escribir divide por ella. Cada arco guarda la
+ * iteración en que se escribió por última vez; los que no se escribieron desde el último
+ * reinicio valen el valor de reinicio evaporado, así que reiniciar también es O(1) y no
+ * hace falta cargar todos los vuelos al empezar. Si hay límites (MMAS) se aplican al leer
+ * y al escribir. También anota qué arcos se escribieron desde el último intercambio entre
+ * colonias, para que la mezcla toque solo esos y no todos los vuelos.
+ */
+class RastroFeromonas {
+
+    private static final double ESCALA_MINIMA = 1e-100;   // por debajo se renormaliza
+
+    private final double[] valores;
+    private final int[] ultimaEscritura;
+    private final boolean[] cambiado;      // escrito desde el último tomarCambiados()
+    private int[] cambiados = new int[64];
+    private int cantidadCambiados;
+
+    private double escala = 1.0;
+    private int iteracion;                 // avanza con cada evaporación y cada reinicio
+    private int evaporaciones;
+    private int iteracionReinicio;
+    private double valorReinicio;
+    private double escalaReinicio = 1.0;   // escala vigente al reiniciar
+    private int arcosEscritos;
+
+    private double minimo = 0.0;
+    private double maximo = Double.POSITIVE_INFINITY;
+
+    RastroFeromonas(int cantidadArcos, double valorInicial) {
+        this.valores = new double[cantidadArcos];
+        this.ultimaEscritura = new int[cantidadArcos];
+        Arrays.fill(ultimaEscritura, -1);
+        this.cambiado = new boolean[cantidadArcos];
+        this.valorReinicio = valorInicial;
+    }
+
+    double leer(int arco) {
+        double real = (ultimaEscritura[arco] >= iteracionReinicio)
+                ? valores[arco] * escala
+                : valorReinicio * (escala / escalaReinicio);
+        return acotar(real);
+    }
+
+    void fijar(int arco, double valor) {
+        escribir(arco, valor);
+        if (!cambiado[arco]) {
+            cambiado[arco] = true;
+            if (cantidadCambiados == cambiados.length) cambiados = Arrays.copyOf(cambiados, 2 * cambiados.length);
+            cambiados[cantidadCambiados++] = arco;
+        }
+    }
+
+    private void escribir(int arco, double valor) {
+        if (ultimaEscritura[arco] < iteracionReinicio) arcosEscritos++;
+        valores[arco] = acotar(valor) / escala;
+        ultimaEscritura[arco] = iteracion;
+    }
+
+    void sumar(int arco, double delta) {
+        fijar(arco, leer(arco) + delta);
+    }
+
+    /**
+     * Evapora todos los arcos: valor ← (1 - rho) · valor
+     */
+    void evaporar(double rho) {
+        if (rho >= 1) {            // se evapora todo: equivale a reiniciar en 0
+            reiniciar(0.0);
+            evaporaciones++;
+            return;
+        }
+        escala *= (1 - rho);
+        iteracion++;
+        evaporaciones++;
+        if (escala < ESCALA_MINIMA) renormalizar();
+    }
+
+    /**
+     * Todos los arcos vuelven a {@code valor} (los escritos quedan olvidados)
+     */
+    void reiniciar(double valor) {
+        iteracion++;
+        iteracionReinicio = iteracion;
+        valorReinicio = valor;
+        escalaReinicio = escala;
+        arcosEscritos = 0;
+    }
+
+    void setLimites(double minimo, double maximo) {
+        this.minimo = minimo;
+        this.maximo = maximo;
+    }
+
+    double acotar(double tau) {
+        return Math.max(minimo, Math.min(maximo, tau));
+    }
+
+    /**
+     * Arcos escritos desde la llamada anterior (y vacía la lista)
+     */
+    int[] tomarCambiados() {
+        int[] arcos = Arrays.copyOf(cambiados, cantidadCambiados);
+        for (int arco : arcos) cambiado[arco] = false;
+        cantidadCambiados = 0;
+        return arcos;
+    }
+
+    /**
+     * Valor real de los arcos indicados (para compartir el rastro con otra colonia)
+     */
+    double[] leer(int[] arcos) {
+        double[] reales = new double[arcos.length];
+        for (int k = 0; k < arcos.length; k++) reales[k] = leer(arcos[k]);
+        return reales;
+    }
+
+    /**
+     * Acerca los arcos indicados al rastro de otra colonia:
+     * valor ← (1 - peso) · valor + peso · otro. La mezcla no cuenta como cambio propio,
+     * así el próximo intercambio no vuelve a mezclar lo que ya se mezcló
+     */
+    void mezclar(int[] arcos, double[] otros, double peso) {
+        for (int k = 0; k < arcos.length; k++) {
+            escribir(arcos[k], (1 - peso) * leer(arcos[k]) + peso * otros[k]);
+        }
+    }
+
+    /**
+     * Lleva la escala a 1 sin cambiar ningún valor real (O(arcos), muy de vez en cuando)
+     */
+    private void renormalizar() {
+        for (int arco = 0; arco < valores.length; arco++) {
+            if (ultimaEscritura[arco] >= iteracionReinicio) valores[arco] *= escala;
+        }
+        escalaReinicio /= escala;
+        escala = 1.0;
+    }
+
+    int getEvaporaciones() { return evaporaciones; }
+
+    int getArcosEscritos() { return arcosEscritos; }
+}
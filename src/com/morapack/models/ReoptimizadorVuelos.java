@@ -0,0 +1,170 @@
+package com.morapack.models;
+
+import java.util.*;
+
+/**
+ * Reoptimización por eventos de vuelo (cancelación / retraso)
+ * Solo se tocan los pedidos cuya ruta usa el vuelo afectado: se libera su capacidad
+ * de vuelos y almacenes y se vuelven a rutear con la búsqueda rápida de GRASP,
+ * sin volver a ejecutar GRASP/GA/ACS sobre todos los pedidos.
+ * El resumen de cada evento se consulta con {@link #obtenerEstadisticasUltimoEvento()}.
+ */
+public class ReoptimizadorVuelos {
+
+    private final GraspMoraPack buscador;
+    private final Map<Pedido, RutaPedido> asignacion;
+    private final Map<Vuelo, Set<Pedido>> pedidosPorVuelo;   // Vista inversa vuelo → pedidos
+    private final int totalPedidosProblema;
+
+    // Estadísticas del último evento procesado
+    private int pedidosAfectados;
+    private int pedidosConservados;
+    private int pedidosReruteados;
+    private int pedidosTarde;           // Con ruta, pero fuera del SLA tras el evento
+    private final List<Pedido> pedidosSinRuta;
+
+    public ReoptimizadorVuelos(List<Pedido> pedidos, List<Vuelo> vuelos, Solucion solucion) {
+        this.buscador = new GraspMoraPack(pedidos, vuelos);
+        this.buscador.setAlfa(1.0); // Reparación greedy: siempre la mejor ruta disponible
+        this.asignacion = new LinkedHashMap<>(solucion.getSolucionLogistica().getAsignacionPedidos());
+        this.pedidosPorVuelo = new HashMap<>();
+        this.totalPedidosProblema = solucion.getTotalPedidosProblema() > 0
+                ? solucion.getTotalPedidosProblema() : pedidos.size();
+        this.pedidosSinRuta = new ArrayList<>();
+
+        for (Map.Entry<Pedido, RutaPedido> entry : asignacion.entrySet()) {
+            indexarRuta(entry.getKey(), entry.getValue().getSecuenciaVuelos());
+        }
+        buscador.cargarEstado(asignacion);
+    }
+
+    /**
+     * Cancela el vuelo y rerutea solo los pedidos que lo usaban
+     * @return pedidos que no pudieron reasignarse
+     */
+    public List<Pedido> cancelarVuelo(Vuelo vuelo) {
+        List<Pedido> afectados = liberarAfectados(vuelo);
+        vuelo.cancelar();
+        return reasignar(afectados);
+    }
+
+    /**
+     * Retrasa el vuelo y revisa solo los pedidos que lo usaban: si la ruta original
+     * sigue siendo factible y a tiempo con el nuevo horario se conserva, si no se rerutea
+     * (y si tampoco hay ruta a tiempo, se queda la original aunque llegue tarde)
+     * @return pedidos que no pudieron reasignarse
+     */
+    public List<Pedido> retrasarVuelo(Vuelo vuelo, long minutos) {
+        // Liberar ANTES de mover horarios: las reservas de almacén se hicieron con la llegada original
+        List<Pedido> afectados = liberarAfectados(vuelo);
+        vuelo.retrasar(minutos);
+        buscador.notificarCambioHorario(vuelo);
+        return reasignar(afectados);
+    }
+
+    private List<Pedido> liberarAfectados(Vuelo vuelo) {
+        Set<Pedido> usuarios = pedidosPorVuelo.get(vuelo);
+        List<Pedido> afectados = (usuarios == null) ? new ArrayList<>() : new ArrayList<>(usuarios);
+
+        for (Pedido pedido : afectados) {
+            buscador.liberarRuta(pedido, asignacion.get(pedido).getSecuenciaVuelos());
+        }
+        return afectados;
+    }
+
+    private List<Pedido> reasignar(List<Pedido> afectados) {
+        pedidosAfectados = afectados.size();
+        pedidosConservados = 0;
+        pedidosReruteados = 0;
+        pedidosTarde = 0;
+        pedidosSinRuta.clear();
+
+        // Primero intentar conservar rutas (no compiten por capacidad nueva),
+        // luego rerutear el resto con la capacidad que quede
+        List<Pedido> pendientes = new ArrayList<>();
+        for (Pedido pedido : afectados) {
+            List<Vuelo> rutaAnterior = asignacion.get(pedido).getSecuenciaVuelos();
+            RutaPedido reconstruida = buscador.construirRutaPedido(pedido, rutaAnterior);
+            // ✅ MODIFICADO: la ruta se conserva solo si el retraso no la deja fuera del SLA
+            if (buscador.rutaSigueSiendoFactible(rutaAnterior, pedido) && Solucion.esPedidoATiempo(reconstruida)) {
+                buscador.registrarRuta(pedido, rutaAnterior);
+                asignacion.put(pedido, reconstruida);
+                pedidosConservados++;
+            } else {
+                pendientes.add(pedido);
+            }
+        }
+
+        for (Pedido pedido : pendientes) {
+            List<Vuelo> rutaAnterior = asignacion.get(pedido).getSecuenciaVuelos();
+            desindexarRuta(pedido, rutaAnterior);
+
+            List<Vuelo> nuevaRuta = buscador.buscarRutaParaPedido(pedido);
+            RutaPedido nueva = nuevaRuta.isEmpty() ? null : buscador.construirRutaPedido(pedido, nuevaRuta);
+
+            // ✅ NUEVO: si no hay ruta a tiempo, la anterior (ahora tarde) sigue siendo mejor que nada
+            if ((nueva == null || !Solucion.esPedidoATiempo(nueva))
+                    && buscador.rutaSigueSiendoFactible(rutaAnterior, pedido)) {
+                buscador.registrarRuta(pedido, rutaAnterior);
+                asignacion.put(pedido, buscador.construirRutaPedido(pedido, rutaAnterior));
+                indexarRuta(pedido, rutaAnterior);
+                pedidosConservados++;
+                pedidosTarde++;
+                continue;
+            }
+            if (nueva == null) {
+                asignacion.remove(pedido);
+                pedidosSinRuta.add(pedido);
+                continue;
+            }
+            buscador.registrarRuta(pedido, nuevaRuta);
+            asignacion.put(pedido, nueva);
+            indexarRuta(pedido, nuevaRuta);
+            pedidosReruteados++;
+            if (!Solucion.esPedidoATiempo(nueva)) pedidosTarde++;
+        }
+
+        return new ArrayList<>(pedidosSinRuta);
+    }
+
+    private void indexarRuta(Pedido pedido, List<Vuelo> ruta) {
+        for (Vuelo vuelo : ruta) {
+            pedidosPorVuelo.computeIfAbsent(vuelo, k -> new LinkedHashSet<>()).add(pedido);
+        }
+    }
+
+    private void desindexarRuta(Pedido pedido, List<Vuelo> ruta) {
+        for (Vuelo vuelo : ruta) {
+            Set<Pedido> usuarios = pedidosPorVuelo.get(vuelo);
+            if (usuarios != null) {
+                usuarios.remove(pedido);
+            }
+        }
+    }
+
+    /**
+     * Pedidos que actualmente viajan en el vuelo
+     */
+    public Set<Pedido> getPedidosEnVuelo(Vuelo vuelo) {
+        return Collections.unmodifiableSet(pedidosPorVuelo.getOrDefault(vuelo, Collections.emptySet()));
+    }
+
+    /**
+     * Construye la solución reparada (el fitness se recalcula completo)
+     */
+    public Solucion getSolucion() {
+        SolucionLogistica solucionLogistica = new SolucionLogistica();
+        solucionLogistica.setAsignacionPedidos(new LinkedHashMap<>(asignacion));
+        return new Solucion(solucionLogistica, totalPedidosProblema);
+    }
+
+    public Map<String, Integer> obtenerEstadisticasUltimoEvento() {
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("pedidosAfectados", pedidosAfectados);
+        stats.put("pedidosConservados", pedidosConservados);
+        stats.put("pedidosReruteados", pedidosReruteados);
+        stats.put("pedidosTarde", pedidosTarde);
+        stats.put("pedidosSinRuta", pedidosSinRuta.size());
+        return stats;
+    }
+}
@@ -0,0 +1,183 @@
+package com.morapack.models;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Reparación incremental de sobrecargas de almacén (usada por el ACS al cerrar cada hormiga).
+ * Trabaja sobre el estado de la hormiga sin reconstruirlo: su libro de almacenes y su carga
+ * por vuelo se actualizan en cada cambio. Las violaciones (llegada que encuentra el almacén
+ * sobre su capacidad) se atienden en una cola de prioridad por exceso, la mayor primero;
+ * para cada una se mueven sus contribuyentes (de mayor a menor cantidad) a una candidata que
+ * quepa en todas sus ventanas, o se desasignan si no hay. Una ruta de reemplazo cabe en toda
+ * su ventana, así que nunca crea violaciones nuevas: el costo es proporcional a las
+ * violaciones y sus contribuyentes, no a pedidos × violaciones × pasadas.
+ */
+class ReparadorAlmacenes {
+
+    private final Function<Pedido, List<RutaPedido>> candidatos;
+
+    // Estadísticas acumuladas
+    private int violacionesAtendidas;
+    private int pedidosReubicados;
+    private int pedidosDesasignados;
+
+    private static final class Violacion {
+        final LineaTiempoAlmacen linea;
+        final LocalDateTime instante;
+        final int exceso;
+
+        Violacion(LineaTiempoAlmacen linea, LocalDateTime instante, int exceso) {
+            this.linea = linea;
+            this.instante = instante;
+            this.exceso = exceso;
+        }
+    }
+
+    /**
+     * @param candidatos rutas alternativas del pedido, ya válidas en conexiones, SLA y
+     *                   vuelos operativos; se revisan aquí la capacidad de vuelos y almacenes
+     */
+    ReparadorAlmacenes(Function<Pedido, List<RutaPedido>> candidatos) {
+        this.candidatos = candidatos;
+    }
+
+    /**
+     * Deja la asignación sin sobrecargas de almacén
+     * @param libro libro de almacenes de la asignación (se mantiene actualizado)
+     * @param cargaVuelos carga por id de vuelo de la asignación (se mantiene actualizada)
+     * @return pedidos reubicados o desasignados
+     */
+    int reparar(Map<Pedido, RutaPedido> asignacion, OcupacionAlmacenes libro, Map<String, Integer> cargaVuelos) {
+        if (asignacion == null || asignacion.isEmpty() || libro.getLlegadasConExceso() == 0) return 0;
+
+        PriorityQueue<Violacion> cola = new PriorityQueue<>((a, b) -> Integer.compare(b.exceso, a.exceso));
+        for (LineaTiempoAlmacen linea : libro.getLineas()) {
+            if (linea.getLlegadasConExceso() == 0) continue;
+            for (LocalDateTime t : linea.instantesConExceso()) {
+                cola.add(new Violacion(linea, t, linea.ocupacionEn(t) - linea.getCapacidad()));
+            }
+        }
+        // Solo hace falta saber quién llega a los almacenes con violaciones
+        Map<String, Set<Pedido>> llegadasPorAlmacen = indexarLlegadas(asignacion, cola);
+
+        int cambios = 0;
+        while (!cola.isEmpty()) {
+            Violacion v = cola.poll();
+            int exceso = v.linea.ocupacionEn(v.instante) - v.linea.getCapacidad();
+            if (exceso <= 0) continue;                  // ya resuelta por otro movimiento
+            if (exceso < v.exceso) {                    // entrada vieja: vuelve con su exceso actual
+                cola.add(new Violacion(v.linea, v.instante, exceso));
+                continue;
+            }
+            violacionesAtendidas++;
+
+            String codigo = v.linea.getAlmacen().getCodigo();
+            List<Pedido> contribuyentes = new ArrayList<>();
+            for (Pedido p : llegadasPorAlmacen.getOrDefault(codigo, Collections.emptySet())) {
+                if (ocupaEn(asignacion.get(p), codigo, v.instante)) contribuyentes.add(p);
+            }
+            contribuyentes.sort((a, b) -> Integer.compare(b.getCantidad(), a.getCantidad()));
+
+            for (Pedido p : contribuyentes) {
+                mover(p, asignacion, libro, cargaVuelos, llegadasPorAlmacen);
+                cambios++;
+                if (v.linea.ocupacionEn(v.instante) <= v.linea.getCapacidad()) break;
+            }
+        }
+        return cambios;
+    }
+
+    /**
+     * Saca la ruta del pedido del estado y pone la primera candidata que quepa, o lo desasigna
+     */
+    private void mover(Pedido p, Map<Pedido, RutaPedido> asignacion, OcupacionAlmacenes libro,
+                       Map<String, Integer> cargaVuelos, Map<String, Set<Pedido>> llegadasPorAlmacen) {
+        RutaPedido actual = asignacion.get(p);
+        int q = p.getCantidad();
+        libro.liberarRuta(actual.getSecuenciaVuelos(), q);
+        sumarCarga(actual, cargaVuelos, -q);
+        quitarLlegadas(llegadasPorAlmacen, p, actual);
+
+        for (RutaPedido nueva : candidatos.apply(p)) {
+            if (nueva.getSecuenciaVuelos().equals(actual.getSecuenciaVuelos())) continue;
+            if (!vuelosCaben(nueva, cargaVuelos, q)) continue;
+            if (!libro.rutaCabe(nueva.getSecuenciaVuelos(), q)) continue;
+
+            asignacion.put(p, nueva);
+            libro.reservarRuta(nueva.getSecuenciaVuelos(), q);
+            sumarCarga(nueva, cargaVuelos, q);
+            agregarLlegadas(llegadasPorAlmacen, p, nueva);
+            pedidosReubicados++;
+            return;
+        }
+        // último recurso: desasignar pedido para sacar la violación
+        asignacion.remove(p);
+        pedidosDesasignados++;
+    }
+
+    private static Map<String, Set<Pedido>> indexarLlegadas(Map<Pedido, RutaPedido> asignacion,
+                                                           Collection<Violacion> violaciones) {
+        Map<String, Set<Pedido>> indice = new HashMap<>();
+        for (Violacion v : violaciones) {
+            indice.putIfAbsent(v.linea.getAlmacen().getCodigo(), new LinkedHashSet<>());
+        }
+        for (Map.Entry<Pedido, RutaPedido> e : asignacion.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) continue;
+            for (Vuelo vuelo : e.getValue().getSecuenciaVuelos()) {
+                if (vuelo.getDestino() == null) continue;
+                Set<Pedido> llegan = indice.get(vuelo.getDestino().getCodigo());
+                if (llegan != null) llegan.add(e.getKey());
+            }
+        }
+        return indice;
+    }
+
+    private static void agregarLlegadas(Map<String, Set<Pedido>> indice, Pedido p, RutaPedido r) {
+        for (Vuelo vuelo : r.getSecuenciaVuelos()) {
+            if (vuelo.getDestino() == null) continue;
+            Set<Pedido> llegan = indice.get(vuelo.getDestino().getCodigo());
+            if (llegan != null) llegan.add(p);   // solo interesan los almacenes con violaciones
+        }
+    }
+
+    private static void quitarLlegadas(Map<String, Set<Pedido>> indice, Pedido p, RutaPedido r) {
+        for (Vuelo vuelo : r.getSecuenciaVuelos()) {
+            if (vuelo.getDestino() == null) continue;
+            Set<Pedido> llegan = indice.get(vuelo.getDestino().getCodigo());
+            if (llegan != null) llegan.remove(p);
+        }
+    }
+
+    private static boolean ocupaEn(RutaPedido r, String codigo, LocalDateTime t) {
+        if (r == null) return false;
+        for (Vuelo vuelo : r.getSecuenciaVuelos()) {
+            LocalDateTime llegada = vuelo.getHoraLlegada();
+            if (vuelo.getDestino() == null || llegada == null || !codigo.equals(vuelo.getDestino().getCodigo())) continue;
+            if (!t.isBefore(llegada) && t.isBefore(llegada.plusHours(LineaTiempoAlmacen.HORAS_LIBERACION))) return true;
+        }
+        return false;
+    }
+
+    private static boolean vuelosCaben(RutaPedido r, Map<String, Integer> cargaVuelos, int cantidad) {
+        for (Vuelo vuelo : r.getSecuenciaVuelos()) {
+            if (cargaVuelos.getOrDefault(vuelo.getId(), 0) + cantidad > vuelo.getCapacidadMaxima()) return false;
+        }
+        return true;
+    }
+
+    private static void sumarCarga(RutaPedido r, Map<String, Integer> cargaVuelos, int delta) {
+        for (Vuelo vuelo : r.getSecuenciaVuelos()) {
+            cargaVuelos.merge(vuelo.getId(), delta, Integer::sum);
+        }
+    }
+
+    Map<String, Integer> obtenerEstadisticas() {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        stats.put("violacionesAtendidas", violacionesAtendidas);
+        stats.put("pedidosReubicados", pedidosReubicados);
+        stats.put("pedidosDesasignados", pedidosDesasignados);
+        return stats;
+    }
+}
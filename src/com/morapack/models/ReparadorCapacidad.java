@@ -0,0 +1,96 @@
+package com.morapack.models;
+
+import java.util.*;
+
+/**
+ * Reparación de capacidad para soluciones armadas por recombinación (GA).
+ * Recorre los pedidos reservando sus rutas en el estado de ocupación de GRASP (carga por
+ * vuelo + libro temporal de cada almacén); los que ya no caben se reubican con la
+ * construcción GRASP sobre la capacidad que queda, y si no hay ruta quedan sin asignar.
+ * Así el hijo llega a la evaluación sin sobrecargas en vez de cargar con la penalización.
+ */
+public class ReparadorCapacidad {
+
+    private final GraspMoraPack grasp;
+
+    // Estadísticas acumuladas
+    private int rutasConservadas;
+    private int pedidosReubicados;
+    private int pedidosSinRuta;
+
+    public ReparadorCapacidad(GraspMoraPack grasp) {
+        this.grasp = grasp;
+    }
+
+    /**
+     * @return nueva asignación factible (en el orden de la original)
+     */
+    public Map<Pedido, RutaPedido> reparar(Map<Pedido, RutaPedido> asignacion) {
+        grasp.cargarEstado(Collections.emptyMap());
+        Map<Pedido, RutaPedido> reparada = new LinkedHashMap<>();
+        List<Pedido> excedidos = new ArrayList<>();
+
+        for (Map.Entry<Pedido, RutaPedido> entry : asignacion.entrySet()) {
+            if (reservarSiCabe(entry.getKey(), entry.getValue())) {
+                reparada.put(entry.getKey(), entry.getValue());
+            } else {
+                excedidos.add(entry.getKey());
+            }
+        }
+        for (Pedido pedido : excedidos) {
+            RutaPedido nueva = reubicar(pedido);
+            if (nueva != null) reparada.put(pedido, nueva);
+        }
+        return reparada;
+    }
+
+    /**
+     * Repara el individuo en el lugar; solo cambian los pedidos que no caben
+     * @return cantidad de pedidos reubicados o quitados
+     */
+    public int reparar(EvaluadorIncremental individuo, List<Pedido> pedidos) {
+        grasp.cargarEstado(Collections.emptyMap());
+        List<Pedido> excedidos = new ArrayList<>();
+
+        for (Pedido pedido : pedidos) {
+            RutaPedido ruta = individuo.getRuta(pedido);
+            if (ruta != null && !reservarSiCabe(pedido, ruta)) {
+                excedidos.add(pedido);
+            }
+        }
+        for (Pedido pedido : excedidos) {
+            RutaPedido nueva = reubicar(pedido);
+            if (nueva != null) individuo.asignar(pedido, nueva); else individuo.quitar(pedido);
+        }
+        return excedidos.size();
+    }
+
+    private boolean reservarSiCabe(Pedido pedido, RutaPedido ruta) {
+        if (ruta == null || ruta.getSecuenciaVuelos().isEmpty()
+                || !grasp.rutaSigueSiendoFactible(ruta.getSecuenciaVuelos(), pedido)) {
+            return false;
+        }
+        grasp.registrarRuta(pedido, ruta.getSecuenciaVuelos());
+        rutasConservadas++;
+        return true;
+    }
+
+    private RutaPedido reubicar(Pedido pedido) {
+        List<Vuelo> vuelos = grasp.buscarRutaParaPedido(pedido);
+        if (vuelos.isEmpty()) {
+            pedidosSinRuta++;
+            return null;
+        }
+        grasp.registrarRuta(pedido, vuelos);
+        pedidosReubicados++;
+        return grasp.construirRutaPedido(pedido, vuelos);
+    }
+
+    public Map<String, Integer> obtenerEstadisticas() {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        stats.put("rutasConservadas", rutasConservadas);
+        stats.put("pedidosReubicados", pedidosReubicados);
+        stats.put("pedidosSinRuta", pedidosSinRuta);
+        return stats;
+    }
+}
@@ -16,7 +16,8 @@ public class RutaPedido {
         this.pedido = pedido;
         this.secuenciaVuelos = secuenciaVuelos;
         this.almacenOrigen = almacenOrigen;
-        this.almacenDestino = pedido.getLugarDestino();
+        // Las plantillas de ruta (ACS) no tienen pedido: usar el almacenDestino recibido
+        this.almacenDestino = (pedido != null) ? pedido.getLugarDestino() : almacenDestino;
         this.fechaSalida = fechaSalida;
         this.fechaLlegada = fechaLlegada;
         this.esInternacional = false;
@@ -0,0 +1,126 @@
+package com.morapack.models;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+/**
+ * Selección adaptativa de operadores (bandido con "adaptive pursuit").
+ * Cada operador lleva una calidad q = promedio exponencial de su recompensa, donde la
+ * recompensa es la mejora de fitness obtenida por unidad de tiempo de CPU (ms) gastado
+ * en producirla. Tras cada recompensa la probabilidad del mejor operador se acerca a
+ * {@code 1 - (K-1)·PROBABILIDAD_MINIMA} y la del resto a {@code PROBABILIDAD_MINIMA},
+ * así ningún operador deja de probarse. Mientras ningún operador haya mejorado, las
+ * probabilidades se mantienen en las iniciales.
+ */
+public class SelectorOperadores {
+
+    private static final double PROBABILIDAD_MINIMA = 0.05;
+    private static final double TASA_APRENDIZAJE = 0.1;    // α: actualización de la calidad
+    private static final double TASA_PERSECUCION = 0.1;    // β: velocidad de las probabilidades
+
+    private static final ThreadMXBean HILOS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_DISPONIBLE = HILOS.isCurrentThreadCpuTimeSupported();
+
+    private final String[] nombres;
+    private final double[] probabilidades;
+    private final double[] calidad;
+    private final long[] usos;
+    private final long[] mejoras;
+    private final double[] mejoraTotal;
+    private final long[] tiempoCpuNanos;
+
+    /**
+     * @param probabilidadesIniciales se normalizan y se llevan al mínimo por operador
+     */
+    public SelectorOperadores(String[] nombres, double[] probabilidadesIniciales) {
+        if (nombres == null || nombres.length == 0 || probabilidadesIniciales.length != nombres.length) {
+            throw new IllegalArgumentException("Se necesita una probabilidad inicial por operador");
+        }
+        int k = nombres.length;
+        this.nombres = nombres.clone();
+        this.probabilidades = new double[k];
+        this.calidad = new double[k];
+        this.usos = new long[k];
+        this.mejoras = new long[k];
+        this.mejoraTotal = new double[k];
+        this.tiempoCpuNanos = new long[k];
+
+        double minima = Math.min(PROBABILIDAD_MINIMA, 1.0 / k);
+        double suma = 0;
+        for (double p : probabilidadesIniciales) suma += Math.max(0, p);
+        for (int i = 0; i < k; i++) {
+            double p = (suma > 0) ? Math.max(0, probabilidadesIniciales[i]) / suma : 1.0 / k;
+            probabilidades[i] = minima + (1 - k * minima) * p;
+        }
+    }
+
+    public int elegir(Random random) {
+        double r = random.nextDouble();
+        double acumulada = 0;
+        for (int i = 0; i < probabilidades.length; i++) {
+            acumulada += probabilidades[i];
+            if (r < acumulada) return i;
+        }
+        return probabilidades.length - 1;
+    }
+
+    /**
+     * @param mejora mejora de fitness atribuida al operador (0 si no mejoró)
+     * @param nanosCpu tiempo de CPU gastado en la aplicación
+     */
+    public void recompensar(int operador, double mejora, long nanosCpu) {
+        usos[operador]++;
+        tiempoCpuNanos[operador] += Math.max(0, nanosCpu);
+        if (mejora > 0) {
+            mejoras[operador]++;
+            mejoraTotal[operador] += mejora;
+        }
+        double recompensa = Math.max(0, mejora) / Math.max(1e-3, nanosCpu / 1e6);
+        calidad[operador] += TASA_APRENDIZAJE * (recompensa - calidad[operador]);
+
+        int mejor = 0;
+        for (int i = 1; i < calidad.length; i++) {
+            if (calidad[i] > calidad[mejor]) mejor = i;
+        }
+        if (calidad[mejor] <= 0) return;
+
+        int k = probabilidades.length;
+        double minima = Math.min(PROBABILIDAD_MINIMA, 1.0 / k);
+        double maxima = 1 - (k - 1) * minima;
+        for (int i = 0; i < k; i++) {
+            double objetivo = (i == mejor) ? maxima : minima;
+            probabilidades[i] += TASA_PERSECUCION * (objetivo - probabilidades[i]);
+        }
+    }
+
+    public double getProbabilidad(int operador) {
+        return probabilidades[operador];
+    }
+
+    /**
+     * Tiempo de CPU del hilo actual (o tiempo de reloj si la JVM no lo mide)
+     */
+    public static long tiempoCpuNanos() {
+        return CPU_DISPONIBLE ? HILOS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Por operador: probabilidad actual, calidad, usos, aplicaciones con mejora,
+     * mejora acumulada y tiempo de CPU (ms)
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (int i = 0; i < nombres.length; i++) {
+            Map<String, Object> operador = new LinkedHashMap<>();
+            operador.put("probabilidad", probabilidades[i]);
+            operador.put("calidad", calidad[i]);
+            operador.put("usos", usos[i]);
+            operador.put("mejoras", mejoras[i]);
+            operador.put("mejoraTotal", mejoraTotal[i]);
+            operador.put("tiempoCpuMs", tiempoCpuNanos[i] / 1_000_000);
+            stats.put(nombres[i], operador);
+        }
+        return stats;
+    }
+}
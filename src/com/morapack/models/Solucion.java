@@ -20,9 +20,9 @@ public class Solucion {
     private static final double PESO_EVITAR_RUTAS_MALAS = 0.05;  // 5% - PRIORIDAD #5
 
     // ✅ NUEVO: Constante para liberación temporal
-    private static final int HORAS_LIBERACION = 2;
+    private static final int HORAS_LIBERACION = LineaTiempoAlmacen.HORAS_LIBERACION;
 
-    private static final double PENALIZACION_FABRICA_INVALIDA = -5000; // Penalización por no salir de fábrica válida
+    static final double PENALIZACION_FABRICA_INVALIDA = -5000; // Penalización por no salir de fábrica válida
 
     // Penalizaciones severas
     private static final double PENALIZACION_SOBRECARGA = -1000;
@@ -44,22 +44,14 @@ public class Solucion {
         this.fitness = calcularFitness();
     }
 
-    private static class EventoAlmacenTemporal {
-        final LocalDateTime fechaLlegada;
-        final LocalDateTime fechaLiberacion;
-        final int cantidadPaquetes;
-        final String pedidoId;
-
-        EventoAlmacenTemporal(LocalDateTime fechaLlegada, int cantidadPaquetes, String pedidoId) {
-            this.fechaLlegada = fechaLlegada;
-            this.fechaLiberacion = fechaLlegada.plusHours(HORAS_LIBERACION);
-            this.cantidadPaquetes = cantidadPaquetes;
-            this.pedidoId = pedidoId;
-        }
-
-        boolean estaOcupado(LocalDateTime momento) {
-            return !momento.isBefore(fechaLlegada) && momento.isBefore(fechaLiberacion);
-        }
+    /**
+     * ✅ NUEVO: Con el fitness ya conocido (evaluador incremental, caché por huella): no lo recalcula
+     */
+    Solucion(SolucionLogistica solucionLogistica, int totalPedidosProblema, double fitness) {
+        this.solucionLogistica = solucionLogistica;
+        this.totalPedidosProblema = totalPedidosProblema;
+        this.fitness = fitness;
+        actualizarContadores();
     }
 
     // Getters y Setters
@@ -106,60 +98,71 @@ public class Solucion {
         double puntuacionRutas = calcularCalidadRutas();
         double penalizacionFabricas = calcularPenalizacionFabricas();
 
-        double fitness = (PESO_ENTREGA_TIEMPO * puntuacionEntregaTiempo) +
-                (PESO_MINIMIZAR_ATRASO * puntuacionMinimizarAtraso) +
-                (0.10 * puntuacionCapacidades) +
-                (0.05 * puntuacionAlmacenes) +
-                (PESO_APROVECHAR_VUELOS * puntuacionAprovechamiento) +
-                (PESO_EVITAR_RUTAS_MALAS * puntuacionRutas) +
-                penalizacionFabricas;
+        double fitness = combinarFitness(puntuacionEntregaTiempo, puntuacionMinimizarAtraso,
+                puntuacionCapacidades, puntuacionAlmacenes, puntuacionAprovechamiento,
+                puntuacionRutas, penalizacionFabricas);
 
         actualizarContadores();
         return fitness;
     }
 
-    // ✅ NUEVO: Validar capacidad de almacenes
-    private double calcularRespetarCapacidadAlmacenesTemporal() {
-        // 1. Construir historial temporal de eventos en cada almacén
-        Map<String, List<EventoAlmacenTemporal>> historialPorAlmacen = construirHistorialTemporal();
+    // ✅ NUEVO: Fórmulas compartidas con EvaluadorIncremental (mismo fitness calculado por agregados)
 
-        if (historialPorAlmacen.isEmpty()) return 100.0;
+    static double combinarFitness(double entregaTiempo, double minimizarAtraso, double capacidades,
+                                  double almacenes, double aprovechamiento, double calidadRutas,
+                                  double penalizacionFabricas) {
+        return (PESO_ENTREGA_TIEMPO * entregaTiempo) +
+                (PESO_MINIMIZAR_ATRASO * minimizarAtraso) +
+                (0.10 * capacidades) +
+                (0.05 * almacenes) +
+                (PESO_APROVECHAR_VUELOS * aprovechamiento) +
+                (PESO_EVITAR_RUTAS_MALAS * calidadRutas) +
+                penalizacionFabricas;
+    }
 
-        int violaciones = 0;
-        double penalizacionTotal = 0.0;
-        int almacenesEvaluados = 0;
+    /**
+     * Aporte de un pedido a la suma de atrasos (0 si no tiene atraso)
+     */
+    static double aporteAtraso(double diasAtraso) {
+        if (diasAtraso <= 0) return 0.0;
+        // Penalización severa por atrasos mayores a 7 días
+        return (diasAtraso > 7) ? diasAtraso + PENALIZACION_ATRASO_SEVERO : diasAtraso;
+    }
 
-        // 2. Evaluar cada almacén en todos los momentos críticos
-        for (Map.Entry<String, List<EventoAlmacenTemporal>> entry : historialPorAlmacen.entrySet()) {
-            String codigoAlmacen = entry.getKey();
-            List<EventoAlmacenTemporal> eventos = entry.getValue();
+    static double puntuacionAtraso(double sumaAtrasos, int pedidosConAtraso) {
+        if (pedidosConAtraso == 0) return 100.0; // Perfecto, sin atrasos
 
-            Aeropuerto almacen = buscarAeropuertoPorCodigo(codigoAlmacen);
-            if (almacen == null) continue;
+        // Penalizar proporcionalmente al atraso promedio
+        double atrasoPromedio = sumaAtrasos / pedidosConAtraso;
+        return Math.max(0, 100 - (atrasoPromedio * 10)); // 10 puntos menos por día de atraso
+    }
 
-            almacenesEvaluados++;
+    static double penalizacionExcesoVuelo(int unidades, int capacidad) {
+        return (unidades > capacidad) ? PENALIZACION_SOBRECARGA * (unidades - capacidad) : 0.0;
+    }
 
-            // 3. Evaluar en cada momento de llegada
-            for (EventoAlmacenTemporal eventoActual : eventos) {
-                int ocupacionEnMomento = almacen.getCapacidadAct();
+    static double puntuacionCapacidades(int violaciones, double penalizacionTotal) {
+        if (violaciones == 0) return 100.0;
+        return Math.max(-1000, 100 + penalizacionTotal);
+    }
 
-                // Sumar todos los eventos que están ocupando el almacén en este momento
-                for (EventoAlmacenTemporal evento : eventos) {
-                    if (evento.estaOcupado(eventoActual.fechaLlegada)) {
-                        ocupacionEnMomento += evento.cantidadPaquetes;
-                    }
-                }
+    /**
+     * Eficiencia de un vuelo cargado, o NaN si no cuenta (sin capacidad o sobrecargado)
+     */
+    static double eficienciaVuelo(int unidades, int capacidad) {
+        if (capacidad <= 0 || unidades > capacidad) return Double.NaN;
+        double eficiencia = (100.0 * unidades) / capacidad;
 
-                // Verificar si hay violación de capacidad
-                if (ocupacionEnMomento > almacen.getCapacidad()) {
-                    violaciones++;
-                    int exceso = ocupacionEnMomento - almacen.getCapacidad();
-                    penalizacionTotal += PENALIZACION_SOBRECARGA * exceso * 0.1; // Penalización reducida vs vuelos
-                }
-            }
-        }
+        // Bonus por alta ocupación
+        if (eficiencia > 80.0) eficiencia += 10.0;
+        return Math.min(100.0, eficiencia);
+    }
 
+    static double penalizacionExcesoAlmacen(long excesoEnLlegadas) {
+        return PENALIZACION_SOBRECARGA * excesoEnLlegadas * 0.1; // Penalización reducida vs vuelos
+    }
 
+    static double puntuacionAlmacenes(int violaciones, double penalizacionTotal, int almacenesEvaluados) {
         if (violaciones == 0) return 100.0;
 
         // Normalizar la penalización por número de almacenes evaluados
@@ -168,46 +171,24 @@ public class Solucion {
         return Math.max(-500, 100 + penalizacionPromedio); // Penalización máxima menor que vuelos
     }
 
-    private Map<String, List<EventoAlmacenTemporal>> construirHistorialTemporal() {
-        Map<String, List<EventoAlmacenTemporal>> historial = new HashMap<>();
-
-        for (Map.Entry<Pedido, RutaPedido> entry : solucionLogistica.getAsignacionPedidos().entrySet()) {
-            Pedido pedido = entry.getKey();
-            RutaPedido ruta = entry.getValue();
-
-            if (ruta == null || ruta.getSecuenciaVuelos().isEmpty()) continue;
-
-            // Registrar eventos en almacenes intermedios (escalas)
-            for (int i = 0; i < ruta.getSecuenciaVuelos().size() - 1; i++) {
-                Vuelo vuelo = ruta.getSecuenciaVuelos().get(i);
-                String codigoAlmacen = vuelo.getDestino().getCodigo();
-                LocalDateTime momentoLlegada = vuelo.getHoraLlegada();
-
-                if (momentoLlegada != null) {
-                    EventoAlmacenTemporal evento = new EventoAlmacenTemporal(
-                            momentoLlegada, pedido.getCantidad(), pedido.getId());
-                    historial.computeIfAbsent(codigoAlmacen, k -> new ArrayList<>()).add(evento);
-                }
-            }
-
-            // Registrar evento en almacén de destino final
-            Vuelo ultimoVuelo = ruta.getSecuenciaVuelos().get(ruta.getSecuenciaVuelos().size() - 1);
-            String codigoDestino = ultimoVuelo.getDestino().getCodigo();
-            LocalDateTime momentoLlegada = ultimoVuelo.getHoraLlegada();
+    // ✅ NUEVO: Validar capacidad de almacenes
+    private double calcularRespetarCapacidadAlmacenesTemporal() {
+        // 1. Libro de ocupación temporal de cada almacén (ventanas de 2h por llegada)
+        OcupacionAlmacenes ocupacion = OcupacionAlmacenes.desdeAsignacion(solucionLogistica.getAsignacionPedidos());
 
-            if (momentoLlegada != null) {
-                EventoAlmacenTemporal evento = new EventoAlmacenTemporal(
-                        momentoLlegada, pedido.getCantidad(), pedido.getId());
-                historial.computeIfAbsent(codigoDestino, k -> new ArrayList<>()).add(evento);
-            }
-        }
+        int violaciones = 0;
+        double penalizacionTotal = 0.0;
+        int almacenesEvaluados = 0;
 
-        // Ordenar eventos por fecha de llegada en cada almacén
-        for (List<EventoAlmacenTemporal> eventos : historial.values()) {
-            eventos.sort(Comparator.comparing(e -> e.fechaLlegada));
+        // 2. El libro ya mide, en cada llegada, el exceso sobre capacidad
+        for (LineaTiempoAlmacen linea : ocupacion.getLineas()) {
+            if (linea.getReservas() == 0) continue;
+            almacenesEvaluados++;
+            violaciones += linea.getLlegadasConExceso();
+            penalizacionTotal += penalizacionExcesoAlmacen(linea.getExcesoEnLlegadas());
         }
 
-        return historial;
+        return puntuacionAlmacenes(violaciones, penalizacionTotal, almacenesEvaluados);
     }
 
     // ✅ NUEVO: Contar carga por almacén
@@ -234,21 +215,6 @@ public class Solucion {
         return carga;
     }
 
-    // ✅ NUEVO: Buscar aeropuerto por código
-    private Aeropuerto buscarAeropuertoPorCodigo(String codigo) {
-        for (RutaPedido ruta : solucionLogistica.getAsignacionPedidos().values()) {
-            for (Vuelo vuelo : ruta.getSecuenciaVuelos()) {
-                if (vuelo.getOrigen().getCodigo().equals(codigo)) {
-                    return vuelo.getOrigen();
-                }
-                if (vuelo.getDestino().getCodigo().equals(codigo)) {
-                    return vuelo.getDestino();
-                }
-            }
-        }
-        return null;
-    }
-
     /**
      * PRIORIDAD #1 CORREGIDA: Entregar a tiempo considerando TODOS los pedidos del problema
      * Un pedido no asignado = Un pedido NO entregado a tiempo
@@ -311,20 +277,11 @@ public class Solucion {
             double diasAtraso = calcularDiasAtraso(ruta);
             if (diasAtraso > 0) {
                 pedidosConAtraso++;
-                sumaAtrasos += diasAtraso;
-
-                // Penalización severa por atrasos mayores a 7 días
-                if (diasAtraso > 7) {
-                    sumaAtrasos += PENALIZACION_ATRASO_SEVERO;
-                }
+                sumaAtrasos += aporteAtraso(diasAtraso);
             }
         }
 
-        if (pedidosConAtraso == 0) return 100.0; // Perfecto, sin atrasos
-
-        // Penalizar proporcionalmente al atraso promedio
-        double atrasoPromedio = sumaAtrasos / pedidosConAtraso;
-        return Math.max(0, 100 - (atrasoPromedio * 10)); // 10 puntos menos por día de atraso
+        return puntuacionAtraso(sumaAtrasos, pedidosConAtraso);
     }
 
     // PRIORIDAD #3: No violar capacidades (0-100 puntos, penalización severa)
@@ -341,12 +298,10 @@ public class Solucion {
             int capacidad = v.getCapacidadMaxima();
             if (usados > capacidad) {
                 violaciones++;
-                int exceso = usados - capacidad;
-                penalizacionTotal += PENALIZACION_SOBRECARGA * exceso;
+                penalizacionTotal += penalizacionExcesoVuelo(usados, capacidad);
             }
         }
-        if (violaciones == 0) return 100.0;
-        return Math.max(-1000, 100 + penalizacionTotal);
+        return puntuacionCapacidades(violaciones, penalizacionTotal);
     }
 
     // PRIORIDAD #4: Aprovechar bien los vuelos (0-100 puntos)
@@ -359,16 +314,10 @@ public class Solucion {
 
         for (Map.Entry<Vuelo, Integer> e : ocupacionPorVuelo.entrySet()) {
             Vuelo vuelo = e.getKey();
-            int unidadesEnVuelo = e.getValue();
-            int capacidad = vuelo.getCapacidadMaxima();
-
-            if (capacidad > 0 && unidadesEnVuelo <= capacidad) {
-                double eficiencia = (100.0 * unidadesEnVuelo) / capacidad;
-
-                // Bonus por alta ocupación
-                if (eficiencia > 80.0) eficiencia += 10.0;
+            double eficiencia = eficienciaVuelo(e.getValue(), vuelo.getCapacidadMaxima());
 
-                sumaEficiencias += Math.min(100.0, eficiencia);
+            if (!Double.isNaN(eficiencia)) {
+                sumaEficiencias += eficiencia;
                 vuelosValidos++;
             }
         }
@@ -392,7 +341,7 @@ public class Solucion {
         return sumaCalidad / asignaciones.size();
     }
 
-    private double evaluarCalidadRuta(RutaPedido ruta) {
+    static double evaluarCalidadRuta(RutaPedido ruta) {
         List<Vuelo> vuelos = ruta.getSecuenciaVuelos();
 
         if (vuelos.isEmpty()) return 0.0;
@@ -426,7 +375,7 @@ public class Solucion {
     }
 
     // Métodos auxiliares
-    private boolean esPedidoATiempo(RutaPedido ruta) {
+    static boolean esPedidoATiempo(RutaPedido ruta) {
         LocalDateTime fechaSalida  = ruta.getFechaSalida();
         LocalDateTime fechaLlegada = ruta.getFechaLlegada();
 
@@ -444,7 +393,7 @@ public class Solucion {
         return !fechaLlegada.isAfter(limiteVirtual);
     }
 
-    private double calcularDiasAtraso(RutaPedido ruta) {
+    static double calcularDiasAtraso(RutaPedido ruta) {
         LocalDateTime fechaSalida = ruta.getFechaSalida();
         LocalDateTime fechaLlegada = ruta.getFechaLlegada();
 
@@ -467,7 +416,7 @@ public class Solucion {
         return Math.max(0, diasEntrega - 3); // Atraso = días por encima de 3
     }
 
-    private boolean calcularTiempoBasadoEnVuelos(RutaPedido ruta) {
+    private static boolean calcularTiempoBasadoEnVuelos(RutaPedido ruta) {
         List<Vuelo> vuelos = ruta.getSecuenciaVuelos();
 
         if (vuelos.isEmpty()) return false;
@@ -539,7 +488,7 @@ public class Solucion {
         return penalizacion;
     }
 
-    private boolean pedidoSaleDeFabricaValida(RutaPedido ruta) {
+    static boolean pedidoSaleDeFabricaValida(RutaPedido ruta) {
         if (ruta == null || ruta.getSecuenciaVuelos().isEmpty()) {
             return false; // Sin vuelos = inválido
         }
@@ -600,34 +549,10 @@ public class Solucion {
         double penalizacionFabricas = calcularPenalizacionFabricas();
 
         // ✅ NUEVO: Estadísticas temporales de almacenes
-        Map<String, List<EventoAlmacenTemporal>> historial = construirHistorialTemporal();
-        int violacionesTemporales = 0;
-        int almacenesConViolaciones = 0;
-
-        for (Map.Entry<String, List<EventoAlmacenTemporal>> entry : historial.entrySet()) {
-            String codigoAlmacen = entry.getKey();
-            List<EventoAlmacenTemporal> eventos = entry.getValue();
-            Aeropuerto almacen = buscarAeropuertoPorCodigo(codigoAlmacen);
-
-            if (almacen != null) {
-                boolean tieneViolaciones = false;
-                for (EventoAlmacenTemporal eventoActual : eventos) {
-                    int ocupacion = almacen.getCapacidadAct();
-                    for (EventoAlmacenTemporal evento : eventos) {
-                        if (evento.estaOcupado(eventoActual.fechaLlegada)) {
-                            ocupacion += evento.cantidadPaquetes;
-                        }
-                    }
-                    if (ocupacion > almacen.getCapacidad()) {
-                        violacionesTemporales++;
-                        tieneViolaciones = true;
-                    }
-                }
-                if (tieneViolaciones) {
-                    almacenesConViolaciones++;
-                }
-            }
-        }
+        OcupacionAlmacenes ocupacion = OcupacionAlmacenes.desdeAsignacion(solucionLogistica.getAsignacionPedidos());
+        int violacionesTemporales = ocupacion.getLlegadasConExceso();
+        int almacenesConViolaciones = ocupacion.getAlmacenesConExceso();
+        int almacenesUsados = ocupacion.getAlmacenesUsados();
 
         Map<String, Integer> pedidosPorFabrica = contarPedidosPorFabrica();
         int pedidosInvalidos = contarPedidosInvalidos();
@@ -672,12 +597,12 @@ public class Solucion {
                 solucionLogistica.getCantidadRetraso(),
                 calcularRespetarCapacidades() < 0 ? "SÍ" : "NO",
                 violacionesTemporales, almacenesConViolaciones,
-                historial.values().stream().mapToInt(List::size).sum(), historial.size(),
+                ocupacion.getTotalReservas(), almacenesUsados,
                 HORAS_LIBERACION,
                 (pedidosAsignados - pedidosInvalidos),
                 pedidosAsignados,
                 contarCargaPorVuelo().size(),
-                historial.size(),
+                almacenesUsados,
                 esSolucionFactible() ? "SÍ" : "NO"
         );
     }
@@ -0,0 +1,11 @@
+package com.morapack.models;
+
+/**
+ * Hacia qué islas migran los mejores individuos en el modelo de islas
+ */
+public enum TopologiaMigracion {
+    /** Cada isla envía a la siguiente (la última a la primera) */
+    ANILLO,
+    /** Cada isla envía a todas las demás */
+    COMPLETA
+}
@@ -92,6 +92,17 @@ public class Vuelo {
 
     public void cancelar() { this.estadoVuelo = EstadoVuelo.CANCELADO; }
 
+    /**
+     * Desplaza salida y llegada los minutos indicados y marca el vuelo como retrasado
+     */
+    public void retrasar(long minutos) {
+        this.horaSalida = horaSalida.plusMinutes(minutos);
+        this.horaLlegada = horaLlegada.plusMinutes(minutos);
+        this.estadoVuelo = EstadoVuelo.RETRASADO;
+    }
+
+    public boolean estaCancelado() { return estadoVuelo == EstadoVuelo.CANCELADO; }
+
     public Boolean getEsInternacional() {
         return esInternacional;
     }